@@ -0,0 +1,57 @@
+package com.SAFE_Rescue.API_Incidentes.jmh;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.*;
+
+import java.time.Instant;
+
+/**
+ * Datos de ejemplo compartidos por los benchmarks JMH.
+ */
+public final class Datos {
+
+    private Datos() {
+    }
+
+    /**
+     * @return Incidente con sus cinco relaciones asignadas, como lo devuelve la API
+     */
+    public static Incidente incidenteCompleto() {
+        Incidente incidente = new Incidente();
+        incidente.setId(1024);
+        incidente.setTitulo("Incendio estructural en edificio habitacional");
+        incidente.setDetalle("Humo visible desde el tercer piso, posibles personas atrapadas en el departamento 304. "
+                + "Acceso por calle lateral, grifo a 30 metros de la entrada principal.");
+        incidente.setTipoIncidente(new TipoIncidente(3, "Incendio"));
+        incidente.setEstadoIncidente(new EstadoIncidente(2, "En curso"));
+        incidente.setEquipo(new Equipo(7, "Bomba Valparaíso 3", true, "Capitán Rojas"));
+        incidente.setUbicacion(ubicacion());
+        incidente.setCiudadano(new Ciudadano(51, 12_345_678L, "5", "Camila", "Soto", "Muñoz", 987_654_321L));
+        incidente.setVersion(4);
+        incidente.setActualizadoEn(Instant.parse("2026-03-14T18:22:05.123456Z"));
+        return incidente;
+    }
+
+    /**
+     * @return Incidente sin IDs, con relaciones que el servicio inserta o resuelve por llave natural
+     */
+    public static Incidente incidenteNuevo() {
+        Incidente incidente = incidenteCompleto();
+        incidente.setId(0);
+        incidente.setVersion(0);
+        incidente.setActualizadoEn(null);
+        incidente.getTipoIncidente().setId(0);
+        incidente.getEstadoIncidente().setId(0);
+        incidente.getEquipo().setId(0);
+        incidente.getUbicacion().setId(0);
+        incidente.getCiudadano().setId(0);
+        return incidente;
+    }
+
+    /**
+     * @return Ubicación válida con coordenadas
+     */
+    public static Ubicacion ubicacion() {
+        return new Ubicacion(12, "Avenida Brasil", 1450, "Valparaíso", "Valparaíso", -33.0472, -71.6127);
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.SAFE_Rescue.API_Incidentes.jmh;
+
+import com.SAFE_Rescue.API_Incidentes.ApiIncidentesApplication;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.service.IncidenteService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Mide solicitudes completas controlador → servicio → repositorio contra la base de datos
+ * embebida (H2), incluyendo la conversión JSON, sin la red ni Tomcat.
+ * <p>
+ * El calentamiento es largo porque la compilación JIT de Spring MVC, Hibernate y Jackson
+ * tarda varios segundos en estabilizarse.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdaYVueltaJmh {
+
+    private static final String URL = "/api-incidentes/v1/incidentes/";
+
+    private ConfigurableApplicationContext contexto;
+    private MockMvc mockMvc;
+    private int id;
+    private String etag;
+    private byte[] nuevo;
+
+    @Setup
+    public void iniciar() throws Exception {
+        contexto = new SpringApplicationBuilder(ApiIncidentesApplication.class)
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) contexto).build();
+        id = contexto.getBean(IncidenteService.class).save(Datos.incidenteNuevo()).getId();
+        etag = mockMvc.perform(get(URL + id)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Las relaciones ya existen: el alta las resuelve por llave natural, como un reporte típico
+        nuevo = contexto.getBean(ObjectMapper.class).writeValueAsBytes(Datos.incidenteNuevo());
+    }
+
+    @TearDown
+    public void detener() {
+        contexto.getBean(IncidenteRepository.class).deleteAllInBatch();
+        contexto.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse buscarPorId() throws Exception {
+        return mockMvc.perform(get(URL + id)).andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse buscarConEtagVigente() throws Exception {
+        return mockMvc.perform(get(URL + id).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse crear() throws Exception {
+        return mockMvc.perform(post(URL).contentType(MediaType.APPLICATION_JSON).content(nuevo)).andReturn().getResponse();
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.SAFE_Rescue.API_Incidentes.jmh;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la conversión JSON de un incidente con sus cinco relaciones, con un ObjectMapper
+ * configurado como el de Spring Boot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializacionJmh {
+
+    private ObjectMapper objectMapper;
+    private Incidente incidente;
+    private byte[] json;
+
+    @Setup
+    public void preparar() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        incidente = Datos.incidenteCompleto();
+        json = objectMapper.writeValueAsBytes(incidente);
+    }
+
+    @Benchmark
+    public byte[] serializar() throws IOException {
+        return objectMapper.writeValueAsBytes(incidente);
+    }
+
+    @Benchmark
+    public Incidente deserializar() throws IOException {
+        return objectMapper.readValue(json, Incidente.class);
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.jmh.Datos;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide las validaciones que se ejecutan en cada escritura de incidentes y ubicaciones.
+ * Las validaciones no usan repositorios, por lo que los servicios se crean sin contexto Spring.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidacionJmh {
+
+    private final IncidenteService incidenteService = new IncidenteService();
+    private final UbicacionService ubicacionService = new UbicacionService();
+    private Incidente incidente;
+    private Ubicacion ubicacion;
+
+    @Setup
+    public void preparar() {
+        incidente = Datos.incidenteCompleto();
+        ubicacion = Datos.ubicacion();
+    }
+
+    @Benchmark
+    public Incidente validarIncidente() {
+        incidenteService.validarIncidente(incidente);
+        return incidente;
+    }
+
+    @Benchmark
+    public Ubicacion validarUbicacion() {
+        ubicacionService.validarUbicacion(ubicacion);
+        return ubicacion;
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Registra el {@link FiltroAdmision} sobre los endpoints de la API. Se desactiva con
+ * {@code incidentes.admision.habilitada=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "incidentes.admision.habilitada", havingValue = "true", matchIfMissing = true)
+public class AdmisionConfig {
+
+    @Bean
+    public FilterRegistrationBean<FiltroAdmision> filtroAdmision(MeterRegistry registro,
+            @Value("${incidentes.admision.lecturas.inicial:20}") int lecturasInicial,
+            @Value("${incidentes.admision.lecturas.minimo:2}") int lecturasMinimo,
+            @Value("${incidentes.admision.lecturas.maximo:200}") int lecturasMaximo,
+            @Value("${incidentes.admision.escrituras.inicial:10}") int escriturasInicial,
+            @Value("${incidentes.admision.escrituras.minimo:2}") int escriturasMinimo,
+            @Value("${incidentes.admision.escrituras.maximo:100}") int escriturasMaximo,
+            @Value("${incidentes.admision.reserva-prioritaria:0.2}") double reserva,
+            @Value("${incidentes.admision.reintentar-despues:1s}") Duration reintentarDespues) {
+        FiltroAdmision filtro = new FiltroAdmision(
+                new LimitadorAdaptativo(lecturasInicial, lecturasMinimo, lecturasMaximo, reserva),
+                new LimitadorAdaptativo(escriturasInicial, escriturasMinimo, escriturasMaximo, reserva),
+                reintentarDespues, registro);
+        FilterRegistrationBean<FiltroAdmision> registroFiltro = new FilterRegistrationBean<>(filtro);
+        registroFiltro.addUrlPatterns("/api-incidentes/*");
+        // Antes que los demás filtros de la API, para que una solicitud rechazada no haga ningún trabajo
+        registroFiltro.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registroFiltro;
+    }
+
+}
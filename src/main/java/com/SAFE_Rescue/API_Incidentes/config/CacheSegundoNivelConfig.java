@@ -0,0 +1,48 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Configura la caché de segundo nivel de Hibernate sobre JCache, usando Caffeine como proveedor.
+ * <p>
+ * Las regiones se crean a partir de {@link PropiedadesCacheSegundoNivel}, con su propio tamaño
+ * máximo y tiempo de expiración. Hibernate recibe el {@link CacheManager} ya configurado y lo
+ * cierra al apagarse.
+ * </p>
+ */
+@Configuration
+@EnableConfigurationProperties(PropiedadesCacheSegundoNivel.class)
+public class CacheSegundoNivelConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivel(PropiedadesCacheSegundoNivel propiedades) {
+        return hibernate -> hibernate.put(ConfigSettings.CACHE_MANAGER, crearCacheManager(propiedades));
+    }
+
+    private CacheManager crearCacheManager(PropiedadesCacheSegundoNivel propiedades) {
+        // Un CacheManager propio por contexto, para que dos contextos no compartan regiones
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("incidentes-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        propiedades.getRegiones().forEach((nombre, region) -> {
+            CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+            configuracion.setMaximumSize(OptionalLong.of(region.getMaximo()));
+            configuracion.setExpireAfterWrite(OptionalLong.of(region.getTtl().toNanos()));
+            cacheManager.createCache(nombre, configuracion);
+        });
+        return cacheManager;
+    }
+
+}
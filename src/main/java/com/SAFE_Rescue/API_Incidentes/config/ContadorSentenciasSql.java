@@ -0,0 +1,88 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.regex.Pattern;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo de la solicitud actual.
+ * <p>
+ * La cuenta sólo está activa entre {@link #iniciar()} y {@link #terminar()}, que llama
+ * {@link FiltroPresupuestoSql} alrededor de cada solicitud. No se cuentan los incrementos de
+ * secuencias: se obtienen en bloques y su costo no corresponde a una solicitud en particular.
+ * </p>
+ * <p>
+ * Si {@code fallarAlExceder} está activo, la sentencia que excede el presupuesto fijado con
+ * {@link #limitar(String, int)} no se ejecuta y lanza una excepción: la solicitud falla antes de escribir
+ * su respuesta, en lugar de detectarse el exceso cuando la respuesta ya se envió.
+ * </p>
+ */
+public class ContadorSentenciasSql implements StatementInspector {
+
+    private static final ThreadLocal<Cuenta> CUENTA = new ThreadLocal<>();
+
+    private static final Pattern SECUENCIA =
+            Pattern.compile("(?i)next value for|nextval\\(|\\b\\w+_seq\\b.*\\bfor update\\b|^update \\w+_seq\\b");
+
+    private final boolean fallarAlExceder;
+
+    /**
+     * @param fallarAlExceder Si una sentencia que excede el presupuesto lanza una excepción
+     */
+    public ContadorSentenciasSql(boolean fallarAlExceder) {
+        this.fallarAlExceder = fallarAlExceder;
+    }
+
+    /**
+     * Comienza a contar las sentencias del hilo actual.
+     */
+    static void iniciar() {
+        CUENTA.set(new Cuenta());
+    }
+
+    /**
+     * Fija el presupuesto de la solicitud del hilo actual, si se están contando sus sentencias.
+     * @param endpoint Método y ruta del endpoint, para el mensaje de error
+     * @param maximo Cantidad máxima de sentencias
+     */
+    static void limitar(String endpoint, int maximo) {
+        Cuenta cuenta = CUENTA.get();
+        if (cuenta != null) {
+            cuenta.endpoint = endpoint;
+            cuenta.maximo = maximo;
+        }
+    }
+
+    /**
+     * Deja de contar en el hilo actual.
+     * @return Cantidad de sentencias desde {@link #iniciar()}
+     */
+    static int terminar() {
+        Cuenta cuenta = CUENTA.get();
+        CUENTA.remove();
+        return cuenta == null ? 0 : cuenta.sentencias;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Cuenta cuenta = CUENTA.get();
+        if (cuenta != null && !SECUENCIA.matcher(sql).find()) {
+            cuenta.sentencias++;
+            if (fallarAlExceder && cuenta.sentencias > cuenta.maximo) {
+                throw new IllegalStateException(cuenta.endpoint + " excede su presupuesto de " + cuenta.maximo
+                        + " sentencias SQL con: " + sql);
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * Sentencias y presupuesto de una solicitud.
+     */
+    private static final class Cuenta {
+        int sentencias;
+        int maximo = Integer.MAX_VALUE;
+        String endpoint;
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cubetas de tokens por llave numérica, en una tabla de tamaño fijo que no crea objetos al consultar.
+ * <p>
+ * Cada cubeta admite hasta {@code capacidad} solicitudes seguidas y se recarga de forma continua a
+ * razón de {@code capacidad} tokens por {@code periodo}. La tabla es asociativa por conjuntos: cada
+ * llave sólo puede estar en las {@value #VIAS} posiciones de su conjunto y, si están ocupadas, reemplaza
+ * a la usada hace más tiempo (que vuelve a empezar llena si regresa). Los datos de las cubetas están en
+ * arreglos paralelos, y los conjuntos se reparten entre {@value #FRANJAS} franjas con su propio
+ * {@link ReentrantLock}, para que llaves distintas casi nunca se esperen entre sí.
+ * </p>
+ */
+final class CubetasTokens {
+
+    private static final int VIAS = 4;
+    private static final int FRANJAS = 64;
+
+    private final long[] llaves;
+    private final boolean[] ocupadas;
+    private final double[] tokens;
+    private final long[] actualizadas;
+    private final ReentrantLock[] candados = new ReentrantLock[FRANJAS];
+    private final int mascaraConjuntos;
+    private final double capacidad;
+    private final double tokensPorNano;
+
+    /**
+     * @param cubetas Cantidad aproximada de llaves que se recuerdan (se redondea a potencia de 2)
+     * @param capacidad Tokens de una cubeta llena
+     * @param periodo Tiempo en que se recargan {@code capacidad} tokens
+     */
+    CubetasTokens(int cubetas, long capacidad, Duration periodo) {
+        if (capacidad < 1 || periodo.isZero() || periodo.isNegative()) {
+            throw new IllegalArgumentException("La capacidad y el periodo deben ser positivos");
+        }
+        int conjuntos = Math.max(FRANJAS, Integer.highestOneBit(Math.max(1, cubetas / VIAS - 1)) << 1);
+        this.llaves = new long[conjuntos * VIAS];
+        this.ocupadas = new boolean[conjuntos * VIAS];
+        this.tokens = new double[conjuntos * VIAS];
+        this.actualizadas = new long[conjuntos * VIAS];
+        this.mascaraConjuntos = conjuntos - 1;
+        this.capacidad = capacidad;
+        this.tokensPorNano = capacidad / (double) periodo.toNanos();
+        for (int i = 0; i < FRANJAS; i++) {
+            candados[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Toma tokens de la cubeta de una llave, si tiene suficientes.
+     * @param llave Llave de la cubeta
+     * @param cantidad Tokens a tomar
+     * @param ahora Instante actual ({@link System#nanoTime()})
+     * @return 0 si se tomaron; si no, nanosegundos hasta que la cubeta tenga suficientes
+     */
+    long consumir(long llave, int cantidad, long ahora) {
+        int conjunto = (int) (mezclar(llave) & mascaraConjuntos);
+        int inicio = conjunto * VIAS;
+        ReentrantLock candado = candados[conjunto & (FRANJAS - 1)];
+        candado.lock();
+        try {
+            int posicion = -1;
+            int reemplazo = inicio;
+            for (int i = inicio; i < inicio + VIAS; i++) {
+                if (!ocupadas[i]) {
+                    reemplazo = i;
+                    continue;
+                }
+                if (llaves[i] == llave) {
+                    posicion = i;
+                    break;
+                }
+                if (ocupadas[reemplazo] && actualizadas[i] - actualizadas[reemplazo] < 0) {
+                    reemplazo = i;
+                }
+            }
+            if (posicion < 0) {
+                posicion = reemplazo;
+                llaves[posicion] = llave;
+                ocupadas[posicion] = true;
+                tokens[posicion] = capacidad;
+            } else {
+                tokens[posicion] = Math.min(capacidad, tokens[posicion] + (ahora - actualizadas[posicion]) * tokensPorNano);
+            }
+            actualizadas[posicion] = ahora;
+
+            if (tokens[posicion] >= cantidad) {
+                tokens[posicion] -= cantidad;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((cantidad - tokens[posicion]) / tokensPorNano));
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * @return Cantidad de posiciones de la tabla
+     */
+    int tamanio() {
+        return llaves.length;
+    }
+
+    /**
+     * Reparte las llaves consecutivas (RUN, teléfonos) entre todos los conjuntos.
+     */
+    private static long mezclar(long llave) {
+        llave ^= llave >>> 33;
+        llave *= 0xff51afd7ed558ccdL;
+        llave ^= llave >>> 33;
+        llave *= 0xc4ceb9fe1a85ec53L;
+        return llave ^ (llave >>> 33);
+    }
+
+}
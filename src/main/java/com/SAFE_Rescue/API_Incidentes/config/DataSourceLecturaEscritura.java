@@ -0,0 +1,114 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource que envía las transacciones de sólo lectura ({@code @Transactional(readOnly = true)})
+ * a las réplicas de lectura, en rotación, y todo lo demás a la base de datos principal.
+ * <p>
+ * La conexión real se obtiene recién en la primera sentencia ({@link LazyConnectionDataSourceProxy}),
+ * cuando ya se sabe si la transacción es de sólo lectura. Si la réplica elegida no entrega una
+ * conexión, la lectura usa la principal.
+ * </p>
+ * <p>
+ * Lectura de lo propio: dentro de una solicitud a la API, después de una transacción de escritura
+ * las lecturas siguientes van a la principal, para no leer de una réplica atrasada lo que se acaba
+ * de escribir. {@link FiltroLecturaPropia} extiende esto a las solicitudes siguientes del mismo cliente.
+ * </p>
+ */
+public class DataSourceLecturaEscritura extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSourceLecturaEscritura.class);
+
+    /**
+     * Si la solicitud en curso debe leer de la principal; sin valor fuera de una solicitud a la API
+     */
+    private static final ThreadLocal<boolean[]> LECTURA_EN_PRINCIPAL = new ThreadLocal<>();
+
+    private final HikariDataSource principal;
+    private final List<HikariDataSource> replicas;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    /**
+     * @param principal Pool de la base de datos principal
+     * @param replicas Pools de las réplicas de lectura (al menos una)
+     */
+    public DataSourceLecturaEscritura(HikariDataSource principal, List<HikariDataSource> replicas) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("Se requiere al menos una réplica de lectura");
+        }
+        this.principal = principal;
+        this.replicas = List.copyOf(replicas);
+        // Se declaran para no obtener una conexión sólo para conocerlos
+        setDefaultAutoCommit(true);
+        setTargetDataSource(new Enrutador());
+    }
+
+    /**
+     * Marca el inicio de una solicitud a la API en el hilo actual.
+     * @param escrituraReciente Si el cliente escribió hace poco y debe leer de la principal
+     */
+    static void iniciarSolicitud(boolean escrituraReciente) {
+        LECTURA_EN_PRINCIPAL.set(new boolean[]{escrituraReciente});
+    }
+
+    static void terminarSolicitud() {
+        LECTURA_EN_PRINCIPAL.remove();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        principal.close();
+    }
+
+    private boolean usarReplica() {
+        boolean[] enPrincipal = LECTURA_EN_PRINCIPAL.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (enPrincipal != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                enPrincipal[0] = true;
+            }
+            return false;
+        }
+        return enPrincipal == null || !enPrincipal[0];
+    }
+
+    /**
+     * Elige el pool de cada conexión real.
+     */
+    private final class Enrutador extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!usarReplica()) {
+                return principal.getConnection();
+            }
+            HikariDataSource replica = replicas.get(Math.floorMod(siguiente.getAndIncrement(), replicas.size()));
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                log.warn("La réplica {} no está disponible; la lectura usa la base de datos principal: {}",
+                        replica.getPoolName(), e.getMessage());
+                return principal.getConnection();
+            }
+        }
+
+        @Override
+        public Connection getConnection(String usuario, String clave) throws SQLException {
+            throw new SQLException("Las credenciales se configuran en cada pool");
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Control de admisión: limita las solicitudes simultáneas a la API con un {@link LimitadorAdaptativo}
+ * para las lecturas y otro para las escrituras y asignaciones, y rechaza de inmediato las que exceden
+ * el límite con 503 y {@code Retry-After}.
+ * <p>
+ * Cuando la base de datos se pone lenta, las solicitudes de más se rechazan en lugar de esperar una
+ * conexión ocupando un hilo del servidor, y los endpoints fuera de {@code /api-incidentes} (como
+ * {@code /actuator/health}) siguen respondiendo.
+ * </p>
+ * <p>
+ * La creación de reportes ({@code POST /incidentes} y {@code POST /incidentes/batch}) tiene prioridad:
+ * puede usar la reserva del límite de escrituras, y mientras las demás escrituras ocupan su parte las
+ * lecturas tienen la mitad de su límite. Las suscripciones SSE no ocupan la base de datos y no se limitan.
+ * </p>
+ * <p>
+ * Una respuesta asíncrona (como {@code /incidentes/exportar}) conserva su lugar hasta que se completa,
+ * no sólo hasta que termina el hilo que la inició. Su duración no se usa para ajustar el límite.
+ * </p>
+ * <p>
+ * Métricas: {@code admision.limite} y {@code admision.en.curso} por clase ({@code lecturas},
+ * {@code escrituras}) y {@code admision.rechazos} por clase y prioridad.
+ * </p>
+ */
+public class FiltroAdmision extends OncePerRequestFilter {
+
+    private static final Set<String> LECTURAS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final Set<String> CREACIONES = Set.of("/api-incidentes/v1/incidentes", "/api-incidentes/v1/incidentes/batch");
+
+    private final LimitadorAdaptativo lecturas;
+    private final LimitadorAdaptativo escrituras;
+    private final String reintentarDespues;
+    private final MeterRegistry registro;
+
+    /**
+     * @param lecturas Límite de las lecturas
+     * @param escrituras Límite de las escrituras y asignaciones
+     * @param reintentarDespues Tiempo sugerido al cliente antes de reintentar
+     * @param registro Registro de métricas
+     */
+    FiltroAdmision(LimitadorAdaptativo lecturas, LimitadorAdaptativo escrituras, Duration reintentarDespues,
+            MeterRegistry registro) {
+        this.lecturas = lecturas;
+        this.escrituras = escrituras;
+        this.reintentarDespues = String.valueOf(Math.max(1, reintentarDespues.toSeconds()));
+        this.registro = registro;
+        registrarMedidores("lecturas", lecturas);
+        registrarMedidores("escrituras", escrituras);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest solicitud) {
+        String accept = solicitud.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest solicitud, HttpServletResponse respuesta, FilterChain cadena)
+            throws ServletException, IOException {
+        boolean lectura = LECTURAS.contains(solicitud.getMethod());
+        boolean prioritaria = !lectura && "POST".equals(solicitud.getMethod())
+                && CREACIONES.contains(solicitud.getRequestURI().substring(solicitud.getContextPath().length()));
+        LimitadorAdaptativo limitador = lectura ? lecturas : escrituras;
+        double fraccion = lectura && escrituras.saturado() ? 0.5 : 1;
+
+        if (!limitador.adquirir(prioritaria, fraccion)) {
+            Counter.builder("admision.rechazos")
+                    .description("Solicitudes rechazadas por exceder el límite de concurrencia")
+                    .tag("clase", lectura ? "lecturas" : "escrituras")
+                    .tag("prioridad", prioritaria ? "alta" : "normal")
+                    .register(registro)
+                    .increment();
+            respuesta.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            respuesta.setHeader(HttpHeaders.RETRY_AFTER, reintentarDespues);
+            respuesta.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            respuesta.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            respuesta.getWriter().write("El servicio está saturado; reintente en unos segundos.");
+            return;
+        }
+        long inicio = System.nanoTime();
+        boolean asincrona = false;
+        try {
+            cadena.doFilter(solicitud, respuesta);
+            asincrona = solicitud.isAsyncStarted();
+        } finally {
+            if (asincrona) {
+                // El contenedor completa la solicitud después de que este hilo vuelve, así que el listener alcanza a registrarse
+                solicitud.getAsyncContext().addListener(new LiberarAlCompletar(limitador));
+            } else {
+                limitador.liberar(System.nanoTime() - inicio);
+            }
+        }
+    }
+
+    /**
+     * Libera el lugar de una solicitud asíncrona; el contenedor llama a onComplete también después
+     * de un error o de agotar el tiempo de espera.
+     */
+    private static final class LiberarAlCompletar implements AsyncListener {
+
+        private final LimitadorAdaptativo limitador;
+
+        private LiberarAlCompletar(LimitadorAdaptativo limitador) {
+            this.limitador = limitador;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent evento) {
+            limitador.liberarSinMuestra();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent evento) {
+        }
+
+        @Override
+        public void onError(AsyncEvent evento) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent evento) {
+        }
+
+    }
+
+    private void registrarMedidores(String clase, LimitadorAdaptativo limitador) {
+        Gauge.builder("admision.limite", limitador, LimitadorAdaptativo::limite)
+                .description("Límite actual de solicitudes simultáneas")
+                .tag("clase", clase)
+                .register(registro);
+        Gauge.builder("admision.en.curso", limitador, LimitadorAdaptativo::enCurso)
+                .description("Solicitudes en curso")
+                .tag("clase", clase)
+                .register(registro);
+    }
+
+}
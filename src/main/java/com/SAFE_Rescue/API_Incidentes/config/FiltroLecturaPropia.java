@@ -0,0 +1,74 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Hace que un cliente que acaba de escribir lea de la base de datos principal durante un tiempo,
+ * en lugar de una réplica que quizás aún no recibe su cambio.
+ * <p>
+ * Cada solicitud de escritura (POST, PUT, PATCH, DELETE) recibe la cookie {@value #COOKIE}, que
+ * vence después de {@code incidentes.datasource.replicas.lectura-propia}; mientras el cliente la
+ * envíe, sus lecturas usan la principal. Con una duración de 0 sólo se aplica dentro de la misma
+ * solicitud (ver {@link DataSourceLecturaEscritura}).
+ * </p>
+ */
+public class FiltroLecturaPropia extends OncePerRequestFilter {
+
+    /**
+     * Cookie que indica una escritura reciente del cliente
+     */
+    public static final String COOKIE = "incidentes-escritura";
+
+    private static final Set<String> ESCRITURAS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final Duration ventana;
+
+    /**
+     * @param ventana Tiempo que un cliente lee de la principal después de escribir
+     */
+    public FiltroLecturaPropia(Duration ventana) {
+        this.ventana = ventana;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest solicitud, HttpServletResponse respuesta, FilterChain cadena)
+            throws ServletException, IOException {
+        boolean escritura = ESCRITURAS.contains(solicitud.getMethod());
+        if (escritura && !ventana.isZero()) {
+            // Se agrega antes de atender la solicitud, cuando la respuesta aún no se envía
+            Cookie cookie = new Cookie(COOKIE, "1");
+            cookie.setPath("/api-incidentes");
+            cookie.setMaxAge((int) Math.max(1, ventana.toSeconds()));
+            cookie.setHttpOnly(true);
+            respuesta.addCookie(cookie);
+        }
+        DataSourceLecturaEscritura.iniciarSolicitud(tieneCookie(solicitud));
+        try {
+            cadena.doFilter(solicitud, respuesta);
+        } finally {
+            DataSourceLecturaEscritura.terminarSolicitud();
+        }
+    }
+
+    private boolean tieneCookie(HttpServletRequest solicitud) {
+        if (ventana.isZero() || solicitud.getCookies() == null) {
+            return false;
+        }
+        for (Cookie cookie : solicitud.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Cuenta las sentencias SQL de cada solicitud y las compara con el presupuesto del endpoint
+ * ({@link PresupuestoSql}), para detectar consultas N+1 y regresiones en la cantidad de consultas.
+ * <p>
+ * Registra la cantidad por endpoint en la métrica {@code sql.sentencias} y cada exceso en
+ * {@code sql.presupuesto.excedido}. La cantidad también queda en el atributo de la solicitud
+ * {@link #ATRIBUTO_SENTENCIAS}. Sólo se cuentan las sentencias del hilo de la solicitud; las
+ * de respuestas asíncronas (exportaciones, SSE) quedan fuera.
+ * </p>
+ * <p>
+ * También es un {@link HandlerInterceptor}: antes de ejecutar el controlador fija el presupuesto
+ * en {@link ContadorSentenciasSql}, que hace fallar la sentencia que lo excede si
+ * {@code incidentes.sql.fallar-al-exceder} está activo. El filtro no puede fallar después de la
+ * solicitud porque la respuesta ya puede estar enviada; sólo registra el exceso.
+ * </p>
+ */
+public class FiltroPresupuestoSql extends OncePerRequestFilter implements HandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(FiltroPresupuestoSql.class);
+
+    /**
+     * Atributo de la solicitud con la cantidad de sentencias SQL ejecutadas
+     */
+    public static final String ATRIBUTO_SENTENCIAS = FiltroPresupuestoSql.class.getName() + ".sentencias";
+
+    private final MeterRegistry registro;
+    private final int presupuestoPorDefecto;
+
+    /**
+     * @param registro Registro de métricas
+     * @param presupuestoPorDefecto Presupuesto de los endpoints sin {@link PresupuestoSql}
+     */
+    public FiltroPresupuestoSql(MeterRegistry registro, int presupuestoPorDefecto) {
+        this.registro = registro;
+        this.presupuestoPorDefecto = presupuestoPorDefecto;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest solicitud, HttpServletResponse respuesta, Object controlador) {
+        if (controlador instanceof HandlerMethod metodo) {
+            ContadorSentenciasSql.limitar(endpoint(solicitud), presupuesto(metodo));
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest solicitud, HttpServletResponse respuesta, FilterChain cadena)
+            throws ServletException, IOException {
+        ContadorSentenciasSql.iniciar();
+        int sentencias;
+        try {
+            cadena.doFilter(solicitud, respuesta);
+        } finally {
+            sentencias = ContadorSentenciasSql.terminar();
+        }
+
+        // El DispatcherServlet deja en la solicitud el método y la ruta que la atendieron
+        if (!(solicitud.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod metodo)) {
+            return;
+        }
+        String endpoint = endpoint(solicitud);
+        solicitud.setAttribute(ATRIBUTO_SENTENCIAS, sentencias);
+        DistributionSummary.builder("sql.sentencias")
+                .description("Sentencias SQL por solicitud")
+                .tag("endpoint", endpoint)
+                .register(registro)
+                .record(sentencias);
+
+        int maximo = presupuesto(metodo);
+        if (sentencias > maximo) {
+            Counter.builder("sql.presupuesto.excedido")
+                    .description("Solicitudes que ejecutaron más sentencias SQL que el presupuesto del endpoint")
+                    .tag("endpoint", endpoint)
+                    .register(registro)
+                    .increment();
+            log.warn("{} ejecutó {} sentencias SQL; su presupuesto es {}", endpoint, sentencias, maximo);
+        }
+    }
+
+    private int presupuesto(HandlerMethod metodo) {
+        PresupuestoSql presupuesto = metodo.getMethodAnnotation(PresupuestoSql.class);
+        return presupuesto != null ? presupuesto.value() : presupuestoPorDefecto;
+    }
+
+    private static String endpoint(HttpServletRequest solicitud) {
+        return solicitud.getMethod() + " " + solicitud.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+/**
+ * Perfil {@code virtual}: atiende las solicitudes y las tareas asíncronas con hilos virtuales.
+ * <p>
+ * Spring Boot aplica {@code spring.threads.virtual.enabled} (definido en
+ * {@code application-virtual.properties}) a Tomcat, al ejecutor de tareas asíncronas y al de
+ * tareas programadas; {@code FeedCambiosService} lo aplica a sus hilos de envío. Los hilos
+ * virtuales requieren Java 21: en una JVM anterior la propiedad no tiene efecto, por lo que
+ * se advierte al iniciar en lugar de funcionar con hilos de plataforma sin aviso.
+ * </p>
+ */
+@Configuration
+@Profile("virtual")
+public class HilosVirtualesConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(HilosVirtualesConfig.class);
+
+    @Autowired
+    private Environment entorno;
+
+    @PostConstruct
+    void verificarJvm() {
+        if (Threading.VIRTUAL.isActive(entorno)) {
+            log.info("Solicitudes y tareas asíncronas en hilos virtuales");
+        } else {
+            log.warn("El perfil 'virtual' requiere Java 21 o superior (JVM actual: {}); se usarán hilos de plataforma",
+                    Runtime.version());
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Límite de solicitudes simultáneas que se ajusta según la latencia (algoritmo de gradiente,
+ * como Vegas en TCP).
+ * <p>
+ * Compara la latencia reciente con su promedio de largo plazo: mientras se mantienen parecidas el
+ * límite crece de a poco; cuando la reciente sube (la base de datos se satura y las solicitudes
+ * esperan una conexión) el límite baja en proporción, hasta la mitad por muestra. Así el límite
+ * sigue la capacidad real sin configurar un número fijo.
+ * </p>
+ * <p>
+ * Una fracción del límite ({@code reserva}) queda sólo para las solicitudes prioritarias.
+ * </p>
+ * <p>
+ * Los promedios se ajustan bajo un candado que se intenta tomar sin esperar: si otra solicitud
+ * está registrando su latencia, la muestra se descarta. Con mucha concurrencia los promedios
+ * se calculan sobre una muestra de las solicitudes, y ninguna espera a otra al terminar.
+ * </p>
+ */
+final class LimitadorAdaptativo {
+
+    /**
+     * Peso de cada ajuste sobre el límite anterior
+     */
+    private static final double SUAVIZADO = 0.2;
+    /**
+     * Cuánto puede subir la latencia reciente sobre el promedio antes de reducir el límite
+     */
+    private static final double TOLERANCIA = 1.5;
+    private static final int VENTANA_CORTA = 10;
+    private static final int VENTANA_LARGA = 600;
+
+    private final int minimo;
+    private final int maximo;
+    private final double reserva;
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final ReentrantLock candado = new ReentrantLock();
+
+    private volatile double limite;
+    private double latenciaCorta;
+    private double latenciaLarga;
+    private long muestras;
+
+    /**
+     * @param inicial Límite inicial
+     * @param minimo Límite mínimo
+     * @param maximo Límite máximo
+     * @param reserva Fracción del límite (0 a 1) que sólo usan las solicitudes prioritarias
+     */
+    LimitadorAdaptativo(int inicial, int minimo, int maximo, double reserva) {
+        if (minimo < 1 || minimo > maximo || inicial < minimo || inicial > maximo) {
+            throw new IllegalArgumentException("Se requiere 1 <= mínimo <= inicial <= máximo");
+        }
+        if (reserva < 0 || reserva >= 1) {
+            throw new IllegalArgumentException("La reserva debe estar entre 0 y 1");
+        }
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.reserva = reserva;
+        this.limite = inicial;
+    }
+
+    /**
+     * Intenta ocupar un lugar; si lo obtiene, se debe llamar a {@link #liberar(long)} al terminar.
+     * @param prioritaria Si la solicitud puede usar la reserva
+     * @param fraccion Fracción del límite disponible (1 para todo)
+     * @return Si la solicitud se admite
+     */
+    boolean adquirir(boolean prioritaria, double fraccion) {
+        double disponible = limite * fraccion;
+        int tope = Math.max(1, (int) (prioritaria ? disponible : disponible * (1 - reserva)));
+        while (true) {
+            int actual = enCurso.get();
+            if (actual >= tope) {
+                return false;
+            }
+            if (enCurso.compareAndSet(actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera el lugar de una solicitud y ajusta el límite con su latencia.
+     * @param latenciaNanos Duración de la solicitud
+     */
+    void liberar(long latenciaNanos) {
+        int enVuelo = enCurso.getAndDecrement();
+        registrar(latenciaNanos, enVuelo);
+    }
+
+    /**
+     * Libera el lugar de una solicitud sin usar su latencia, cuando su duración no depende de la
+     * saturación (por ejemplo, una respuesta asíncrona que se envía durante minutos).
+     */
+    void liberarSinMuestra() {
+        enCurso.decrementAndGet();
+    }
+
+    /**
+     * Ajusta el límite con una muestra, salvo que otra muestra se esté registrando.
+     * @param latenciaNanos Duración de la solicitud
+     * @param enVuelo Solicitudes en curso cuando terminó, incluida ella
+     */
+    void registrar(long latenciaNanos, int enVuelo) {
+        if (!candado.tryLock()) {
+            return;
+        }
+        try {
+            muestras++;
+            latenciaCorta += (latenciaNanos - latenciaCorta) / Math.min(muestras, VENTANA_CORTA);
+            latenciaLarga += (latenciaNanos - latenciaLarga) / Math.min(muestras, VENTANA_LARGA);
+            // Tras una recuperación el promedio largo queda alto por mucho tiempo; se acerca más rápido
+            if (latenciaLarga > 2 * latenciaCorta) {
+                latenciaLarga *= 0.95;
+            }
+            // Con poca carga la latencia no dice nada sobre el límite
+            if (enVuelo < limite / 2 || latenciaCorta <= 0) {
+                return;
+            }
+            double gradiente = Math.max(0.5, Math.min(1.0, TOLERANCIA * latenciaLarga / latenciaCorta));
+            double nuevo = limite * gradiente + Math.sqrt(limite);
+            limite = Math.max(minimo, Math.min(maximo, limite * (1 - SUAVIZADO) + nuevo * SUAVIZADO));
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * @return Límite actual
+     */
+    int limite() {
+        return (int) limite;
+    }
+
+    /**
+     * @return Solicitudes en curso
+     */
+    int enCurso() {
+        return enCurso.get();
+    }
+
+    /**
+     * @return Si las solicitudes no prioritarias ya ocupan toda su parte del límite
+     */
+    boolean saturado() {
+        return enCurso.get() >= (int) (limite * (1 - reserva));
+    }
+
+}
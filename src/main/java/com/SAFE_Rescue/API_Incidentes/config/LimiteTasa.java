@@ -0,0 +1,151 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Límites de tasa de la creación de reportes, por ciudadano que reporta y por dirección IP, para que
+ * un solo ciudadano (o un bot con RUN inventados) no desplace los reportes reales.
+ * <p>
+ * Cada endpoint configurado en {@link PropiedadesLimiteTasa} tiene sus propias {@link CubetasTokens}
+ * por IP y por ciudadano. Un ciudadano se identifica por su RUN y su teléfono (ambos deben tener
+ * tokens) o, si sólo se indica su ID, por el ID. Los tokens tomados antes de un rechazo no se
+ * devuelven. Cada rechazo se registra en la métrica {@code limite.tasa.rechazos}.
+ * </p>
+ */
+public class LimiteTasa {
+
+    private static final long TIPO_RUN = 1L << 56;
+    private static final long TIPO_TELEFONO = 2L << 56;
+    private static final long TIPO_ID = 3L << 56;
+
+    private final Map<String, Politica> politicas = new HashMap<>();
+
+    /**
+     * @param propiedades Límites por endpoint
+     * @param registro Registro de métricas
+     */
+    public LimiteTasa(PropiedadesLimiteTasa propiedades, MeterRegistry registro) {
+        propiedades.getEndpoints().forEach((endpoint, limites) ->
+                politicas.put(endpoint, new Politica(endpoint, limites, propiedades.getCubetas(), registro)));
+    }
+
+    /**
+     * Toma un token del reporte de un ciudadano.
+     * @param endpoint Nombre del endpoint en la configuración
+     * @param ip Dirección IP del cliente
+     * @param ciudadano Ciudadano que reporta, si se indica
+     * @return 0 si se admite; si no, nanosegundos hasta que se admita
+     */
+    public long consumir(String endpoint, String ip, Ciudadano ciudadano) {
+        Politica politica = politicas.get(endpoint);
+        if (politica == null) {
+            return 0;
+        }
+        long ahora = System.nanoTime();
+        long espera = politica.consumirIp(ip, ahora);
+        return espera > 0 ? espera : politica.consumirCiudadano(ciudadano, ahora);
+    }
+
+    /**
+     * Toma los tokens de un lote: uno de la IP por el lote y uno del ciudadano de cada incidente.
+     * @param endpoint Nombre del endpoint en la configuración
+     * @param ip Dirección IP del cliente
+     * @param incidentes Incidentes del lote
+     * @return 0 si se admite; si no, nanosegundos hasta que se admita
+     */
+    public long consumir(String endpoint, String ip, List<Incidente> incidentes) {
+        Politica politica = politicas.get(endpoint);
+        if (politica == null) {
+            return 0;
+        }
+        long ahora = System.nanoTime();
+        long espera = politica.consumirIp(ip, ahora);
+        for (int i = 0; i < incidentes.size() && espera == 0; i++) {
+            Incidente incidente = incidentes.get(i);
+            espera = incidente == null ? 0 : politica.consumirCiudadano(incidente.getCiudadano(), ahora);
+        }
+        return espera;
+    }
+
+    /**
+     * Llave de una dirección IP (FNV-1a de 64 bits), sin crear objetos.
+     */
+    static long llaveIp(String ip) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < ip.length(); i++) {
+            hash ^= ip.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Cubetas y métricas de un endpoint.
+     */
+    private static final class Politica {
+
+        private final CubetasTokens porIp;
+        private final CubetasTokens porCiudadano;
+        private final Counter rechazosIp;
+        private final Counter rechazosCiudadano;
+
+        Politica(String endpoint, PropiedadesLimiteTasa.Endpoint limites, int cubetas, MeterRegistry registro) {
+            this.porIp = crear(limites.getPorIp(), cubetas);
+            this.porCiudadano = crear(limites.getPorCiudadano(), cubetas);
+            this.rechazosIp = rechazos(endpoint, "ip", registro);
+            this.rechazosCiudadano = rechazos(endpoint, "ciudadano", registro);
+        }
+
+        long consumirIp(String ip, long ahora) {
+            if (porIp == null || ip == null) {
+                return 0;
+            }
+            return contar(porIp.consumir(llaveIp(ip), 1, ahora), rechazosIp);
+        }
+
+        long consumirCiudadano(Ciudadano ciudadano, long ahora) {
+            if (porCiudadano == null || ciudadano == null) {
+                return 0;
+            }
+            long espera = 0;
+            if (ciudadano.getRun() != null) {
+                espera = porCiudadano.consumir(TIPO_RUN | ciudadano.getRun(), 1, ahora);
+            }
+            if (espera == 0 && ciudadano.getTelefono() != null) {
+                espera = porCiudadano.consumir(TIPO_TELEFONO | ciudadano.getTelefono(), 1, ahora);
+            }
+            if (ciudadano.getRun() == null && ciudadano.getTelefono() == null && ciudadano.getId() > 0) {
+                espera = porCiudadano.consumir(TIPO_ID | ciudadano.getId(), 1, ahora);
+            }
+            return contar(espera, rechazosCiudadano);
+        }
+
+        private static long contar(long espera, Counter rechazos) {
+            if (espera > 0) {
+                rechazos.increment();
+            }
+            return espera;
+        }
+
+        private static CubetasTokens crear(PropiedadesLimiteTasa.Limite limite, int cubetas) {
+            return limite == null ? null : new CubetasTokens(cubetas, limite.getCapacidad(), limite.getPeriodo());
+        }
+
+        private static Counter rechazos(String endpoint, String llave, MeterRegistry registro) {
+            return Counter.builder("limite.tasa.rechazos")
+                    .description("Reportes rechazados por exceder el límite de tasa")
+                    .tag("endpoint", endpoint)
+                    .tag("llave", llave)
+                    .register(registro);
+        }
+
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Crea el {@link LimiteTasa} de los reportes a partir de {@link PropiedadesLimiteTasa}.
+ */
+@Configuration
+@EnableConfigurationProperties(PropiedadesLimiteTasa.class)
+public class LimiteTasaConfig {
+
+    @Bean
+    public LimiteTasa limiteTasa(PropiedadesLimiteTasa propiedades, MeterRegistry registro) {
+        return new LimiteTasa(propiedades, registro);
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Cantidad máxima de sentencias SQL que puede ejecutar una solicitud a un endpoint.
+ * <p>
+ * Los endpoints sin esta anotación usan {@code incidentes.sql.presupuesto-por-defecto}.
+ * Al excederse se registra una advertencia y la métrica {@code sql.presupuesto.excedido}; si
+ * {@code incidentes.sql.fallar-al-exceder} está activo (en las pruebas), además la sentencia que
+ * lo excede lanza una excepción y la solicitud falla.
+ * </p>
+ * @see FiltroPresupuestoSql
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PresupuestoSql {
+
+    /**
+     * @return Cantidad máxima de sentencias SQL por solicitud
+     */
+    int value();
+
+}
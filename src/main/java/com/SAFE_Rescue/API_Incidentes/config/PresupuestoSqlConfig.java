@@ -0,0 +1,51 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registra el conteo de sentencias SQL por solicitud: el {@link ContadorSentenciasSql} en
+ * Hibernate y el {@link FiltroPresupuestoSql} sobre los endpoints de la API, como filtro y como
+ * interceptor de los controladores.
+ */
+@Configuration
+public class PresupuestoSqlConfig implements WebMvcConfigurer {
+
+    @Value("${incidentes.sql.presupuesto-por-defecto:10}")
+    private int presupuestoPorDefecto;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Bean
+    public HibernatePropertiesCustomizer contadorSentenciasSql(
+            @Value("${incidentes.sql.fallar-al-exceder:false}") boolean fallarAlExceder) {
+        return hibernate -> hibernate.put(AvailableSettings.STATEMENT_INSPECTOR, new ContadorSentenciasSql(fallarAlExceder));
+    }
+
+    @Bean
+    public FiltroPresupuestoSql presupuestoSql() {
+        return new FiltroPresupuestoSql(registro, presupuestoPorDefecto);
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroPresupuestoSql> filtroPresupuestoSql(FiltroPresupuestoSql filtro) {
+        FilterRegistrationBean<FiltroPresupuestoSql> registroFiltro = new FilterRegistrationBean<>(filtro);
+        registroFiltro.addUrlPatterns("/api-incidentes/*");
+        return registroFiltro;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptores) {
+        interceptores.addInterceptor(presupuestoSql()).addPathPatterns("/api-incidentes/**");
+    }
+
+}
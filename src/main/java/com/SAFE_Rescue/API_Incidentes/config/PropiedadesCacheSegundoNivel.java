@@ -0,0 +1,43 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuración de las regiones de la caché de segundo nivel de Hibernate.
+ * <p>
+ * Cada región se declara con el prefijo {@code incidentes.cache.segundo-nivel.regiones.<region>},
+ * donde {@code <region>} es el nombre indicado en la anotación {@code @Cache} de la entidad.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "incidentes.cache.segundo-nivel")
+public class PropiedadesCacheSegundoNivel {
+
+    /**
+     * Regiones a crear, por nombre
+     */
+    private Map<String, Region> regiones = new LinkedHashMap<>();
+
+    /**
+     * Límites de una región de la caché.
+     */
+    @Data
+    public static class Region {
+
+        /**
+         * Cantidad máxima de entidades que se mantienen en la región
+         */
+        private long maximo = 1000;
+
+        /**
+         * Tiempo que una entidad permanece en la región desde que se escribió
+         */
+        private Duration ttl = Duration.ofHours(1);
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuración de los límites de tasa de los reportes ({@link LimiteTasa}).
+ * <p>
+ * Cada endpoint se declara con el prefijo {@code incidentes.limite-tasa.endpoints.<endpoint>}, donde
+ * {@code <endpoint>} es {@code reportes} ({@code POST /incidentes}) o {@code lotes}
+ * ({@code POST /incidentes/batch}). Un endpoint o una llave sin límite declarado no se limita.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "incidentes.limite-tasa")
+public class PropiedadesLimiteTasa {
+
+    /**
+     * Cantidad de llaves (ciudadanos o IP) que se recuerdan por endpoint; al superarla se olvidan
+     * las usadas hace más tiempo
+     */
+    private int cubetas = 65536;
+
+    /**
+     * Límites por endpoint, por nombre
+     */
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    /**
+     * Límites de un endpoint.
+     */
+    @Data
+    public static class Endpoint {
+
+        /**
+         * Límite por ciudadano que reporta (por RUN, por teléfono, o por ID si sólo se indica el ID)
+         */
+        private Limite porCiudadano;
+
+        /**
+         * Límite por dirección IP del cliente
+         */
+        private Limite porIp;
+    }
+
+    /**
+     * Cubeta de tokens: admite {@code capacidad} solicitudes seguidas y recupera {@code capacidad}
+     * en cada {@code periodo}.
+     */
+    @Data
+    public static class Limite {
+
+        private long capacidad = 10;
+
+        private Duration periodo = Duration.ofMinutes(1);
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Envuelve el DataSource para medir cada sentencia JDBC y pasarla a {@link RegistroSqlLento}.
+ * <p>
+ * Reemplaza a {@code spring.jpa.show-sql}, que escribía cada sentencia en la consola de forma
+ * síncrona en el hilo de la solicitud.
+ * </p>
+ */
+@Configuration
+public class RegistroSqlConfig {
+
+    @Bean
+    public static BeanPostProcessor registroSqlLento(Environment entorno) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nombre) {
+                if (!(bean instanceof DataSource origen) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                RegistroSqlLento registro = new RegistroSqlLento(
+                        entorno.getProperty("incidentes.sql.lento.umbral", Duration.class, Duration.ofMillis(200)),
+                        entorno.getProperty("incidentes.sql.lento.muestreo", Double.class, 0.01));
+                return ProxyDataSourceBuilder.create(nombre, origen).listener(registro).build();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Registra en el log las sentencias SQL lentas y una muestra de las rápidas, en formato
+ * {@code clave=valor}: duración, tipo y forma de los parámetros (sin sus valores), método de la
+ * aplicación que la originó y el SQL.
+ * <p>
+ * Las sentencias que tardan al menos el umbral se registran siempre, con nivel WARN; las demás
+ * con la probabilidad de muestreo, con nivel INFO. La duración es la de la ejecución en JDBC, sin
+ * la lectura posterior de las filas. El logger escribe a través de un appender asíncrono que
+ * descarta eventos en lugar de bloquear si se llena su cola (ver {@code logback-spring.xml}).
+ * </p>
+ */
+public class RegistroSqlLento implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroSqlLento.class);
+
+    private static final String PAQUETE_APLICACION = "com.SAFE_Rescue.API_Incidentes.";
+    private static final String PAQUETE_CONFIG = PAQUETE_APLICACION + "config.";
+    private static final int LARGO_MAXIMO_SQL = 2000;
+
+    private final long umbralMs;
+    private final double muestreo;
+
+    /**
+     * @param umbral Duración desde la cual una sentencia se registra siempre
+     * @param muestreo Fracción (entre 0 y 1) de las sentencias más rápidas que se registran
+     * @throws IllegalArgumentException Si el umbral es negativo o el muestreo está fuera de rango
+     */
+    public RegistroSqlLento(Duration umbral, double muestreo) {
+        if (umbral.isNegative()) {
+            throw new IllegalArgumentException("El umbral de consultas lentas no puede ser negativo");
+        }
+        if (muestreo < 0 || muestreo > 1) {
+            throw new IllegalArgumentException("El muestreo de consultas debe estar entre 0 y 1");
+        }
+        this.umbralMs = umbral.toMillis();
+        this.muestreo = muestreo;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo ejecucion, List<QueryInfo> consultas) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo ejecucion, List<QueryInfo> consultas) {
+        boolean lenta = ejecucion.getElapsedTime() >= umbralMs;
+        if (lenta ? !log.isWarnEnabled() : !log.isInfoEnabled() || !muestrear()) {
+            return;
+        }
+        String linea = formatear(ejecucion, consultas, lenta, llamador());
+        if (lenta) {
+            log.warn(linea);
+        } else {
+            log.info(linea);
+        }
+    }
+
+    private boolean muestrear() {
+        return muestreo > 0 && (muestreo >= 1 || ThreadLocalRandom.current().nextDouble() < muestreo);
+    }
+
+    static String formatear(ExecutionInfo ejecucion, List<QueryInfo> consultas, boolean lenta, String llamador) {
+        StringBuilder linea = new StringBuilder(256)
+                .append("duracion_ms=").append(ejecucion.getElapsedTime())
+                .append(" lenta=").append(lenta)
+                .append(" exito=").append(ejecucion.isSuccess());
+        if (ejecucion.isBatch()) {
+            linea.append(" lote=").append(ejecucion.getBatchSize());
+        }
+        if (ejecucion.getThrowable() != null) {
+            linea.append(" error=").append(ejecucion.getThrowable().getClass().getSimpleName());
+        }
+        linea.append(" llamador=").append(llamador);
+        for (QueryInfo consulta : consultas) {
+            List<List<ParameterSetOperation>> parametros = consulta.getParametersList();
+            if (!parametros.isEmpty()) {
+                linea.append(" parametros=").append(forma(parametros.get(0)));
+            }
+            linea.append(" sql=\"").append(compactar(consulta.getQuery())).append('"');
+        }
+        return linea.toString();
+    }
+
+    /**
+     * Forma de los parámetros: el tipo de cada uno, según el setter JDBC usado.
+     */
+    private static String forma(List<ParameterSetOperation> parametros) {
+        StringJoiner forma = new StringJoiner(",", "[", "]");
+        for (ParameterSetOperation parametro : parametros) {
+            String setter = parametro.getMethod().getName();
+            forma.add(setter.startsWith("set") ? setter.substring(3) : setter);
+        }
+        return forma.toString();
+    }
+
+    private static String compactar(String sql) {
+        String compacto = sql.replaceAll("\\s+", " ").replace("\"", "'").trim();
+        return compacto.length() > LARGO_MAXIMO_SQL ? compacto.substring(0, LARGO_MAXIMO_SQL) + "..." : compacto;
+    }
+
+    /**
+     * Primer método de la aplicación en la pila, fuera de la configuración (normalmente un servicio).
+     */
+    private static String llamador() {
+        return StackWalker.getInstance().walk(marcos -> marcos
+                .filter(marco -> marco.getClassName().startsWith(PAQUETE_APLICACION)
+                        && !marco.getClassName().startsWith(PAQUETE_CONFIG))
+                .findFirst()
+                .map(marco -> marco.getClassName().substring(marco.getClassName().lastIndexOf('.') + 1)
+                        + "." + marco.getMethodName())
+                .orElse("-"));
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Réplicas de lectura: reemplaza el DataSource de Spring Boot por un {@link DataSourceLecturaEscritura}
+ * con un pool para la base de datos principal y uno por réplica.
+ * <p>
+ * La principal se configura como siempre ({@code spring.datasource.*} y {@code spring.datasource.hikari.*});
+ * cada réplica con las propiedades de Hikari en {@code incidentes.datasource.replicas.pools[i].*}
+ * (por ejemplo {@code jdbc-url}, {@code username}, {@code maximum-pool-size}). Sólo se aplica si
+ * {@code incidentes.datasource.replicas.habilitadas} es true.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "incidentes.datasource.replicas.habilitadas", havingValue = "true")
+public class ReplicasLecturaConfig {
+
+    @Bean
+    public DataSourceLecturaEscritura dataSource(DataSourceProperties propiedades, Environment entorno,
+            ObjectProvider<MeterRegistry> registro) {
+        Binder binder = Binder.get(entorno);
+        // Spring Boot sólo registra las métricas de los pools que son beans
+        MeterRegistry metricas = registro.getIfAvailable();
+        HikariDataSource principal = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(principal));
+        if (principal.getPoolName() == null) {
+            principal.setPoolName("principal");
+        }
+        if (metricas != null) {
+            principal.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(metricas));
+        }
+
+        List<HikariConfig> configuraciones = binder.bind("incidentes.datasource.replicas.pools",
+                Bindable.listOf(HikariConfig.class)).orElse(List.of());
+        if (configuraciones.isEmpty()) {
+            throw new IllegalStateException("Las réplicas de lectura están habilitadas pero no hay pools en incidentes.datasource.replicas.pools");
+        }
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < configuraciones.size(); i++) {
+            HikariConfig configuracion = configuraciones.get(i);
+            if (configuracion.getPoolName() == null) {
+                configuracion.setPoolName("replica-" + (i + 1));
+            }
+            configuracion.setReadOnly(true);
+            if (metricas != null) {
+                configuracion.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(metricas));
+            }
+            replicas.add(new HikariDataSource(configuracion));
+        }
+        return new DataSourceLecturaEscritura(principal, replicas);
+    }
+
+    /**
+     * Hibernate libera la conexión al terminar cada transacción, en lugar de mantenerla toda la
+     * solicitud (open-in-view), para que cada transacción elija de nuevo su pool.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer liberarConexionPorTransaccion() {
+        return hibernate -> hibernate.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroLecturaPropia> filtroLecturaPropia(
+            @Value("${incidentes.datasource.replicas.lectura-propia:5s}") Duration ventana) {
+        FilterRegistrationBean<FiltroLecturaPropia> registroFiltro = new FilterRegistrationBean<>(new FiltroLecturaPropia(ventana));
+        registroFiltro.addUrlPatterns("/api-incidentes/*");
+        return registroFiltro;
+    }
+
+}
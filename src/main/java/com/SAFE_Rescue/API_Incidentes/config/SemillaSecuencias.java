@@ -0,0 +1,86 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Ajusta las secuencias de ID emuladas con tablas (MySQL) para que no entreguen IDs ya usados.
+ * <p>
+ * Incidente, Ubicacion y Ciudadano usaban IDENTITY; con secuencias por bloques, Hibernate crea
+ * ({@code ddl-auto=update}) las tablas {@code *_seq} empezando en 1, mientras las filas existentes
+ * ya tienen esos IDs. Al iniciar, antes de atender solicitudes, cada secuencia se lleva a
+ * MAX(id) + tamaño del bloque, de modo que el siguiente bloque empieza después del mayor ID. Las
+ * secuencias nativas (H2 en las pruebas) no se modifican.
+ * </p>
+ */
+@Component
+public class SemillaSecuencias {
+
+    private static final Logger log = LoggerFactory.getLogger(SemillaSecuencias.class);
+
+    private static final List<Class<?>> ENTIDADES = List.of(Incidente.class, Ubicacion.class, Ciudadano.class);
+
+    /**
+     * Se inyecta para ejecutar después de que Hibernate crea o actualiza las tablas
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void sembrar() {
+        entityManagerFactory.unwrap(SessionFactory.class).inTransaction(sesion -> sesion.doWork(conexion -> {
+            for (Class<?> entidad : ENTIDADES) {
+                sembrar(conexion, entidad);
+            }
+        }));
+    }
+
+    private void sembrar(Connection conexion, Class<?> entidad) throws SQLException {
+        SequenceGenerator generador;
+        try {
+            generador = entidad.getDeclaredField("id").getAnnotation(SequenceGenerator.class);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(entidad.getSimpleName() + " no tiene un campo id", e);
+        }
+        String secuencia = generador.sequenceName();
+        try (ResultSet tablas = conexion.getMetaData().getTables(conexion.getCatalog(), null, secuencia, new String[]{"TABLE"})) {
+            if (!tablas.next()) {
+                return;
+            }
+        }
+
+        long minimo;
+        try (PreparedStatement consulta = conexion.prepareStatement(
+                "select coalesce(max(id), 0) from " + entidad.getAnnotation(Table.class).name());
+             ResultSet resultado = consulta.executeQuery()) {
+            resultado.next();
+            // El optimizador por bloques entrega los IDs (next_val - bloque, next_val]
+            minimo = resultado.getLong(1) + generador.allocationSize();
+        }
+        try (PreparedStatement ajuste = conexion.prepareStatement(
+                "update " + secuencia + " set next_val = ? where next_val < ?")) {
+            ajuste.setLong(1, minimo);
+            ajuste.setLong(2, minimo);
+            if (ajuste.executeUpdate() > 0) {
+                log.info("Secuencia {} ajustada a {} según los IDs existentes", secuencia, minimo);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.Duration;
+
+/**
+ * Configura el administrador de transacciones JPA con una duración máxima para las escrituras.
+ * <p>
+ * Hibernate asigna {@code actualizado_en} al escribir cada fila, antes del commit, y la
+ * sincronización incremental sólo entrega cambios con más de {@code incidentes.sync.margen} de
+ * antigüedad. Si una transacción de escritura durara más que ese margen, sus cambios se
+ * confirmarían detrás de un token ya entregado y el cliente no los recibiría. Por eso las
+ * transacciones de escritura sin un tiempo límite propio se limitan a
+ * {@code incidentes.sync.duracion-maxima-escritura}, que debe ser menor que el margen: una
+ * sentencia posterior al límite falla y la transacción se revierte. Las de sólo lectura (como la
+ * exportación o la carga de los índices) no se limitan.
+ * </p>
+ */
+@Configuration
+public class TransaccionesConfig {
+
+    @Bean
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+            @Value("${incidentes.sync.duracion-maxima-escritura:4s}") Duration duracionMaximaEscritura) {
+        int segundos = (int) Math.max(1, duracionMaximaEscritura.toSeconds());
+        return new JpaTransactionManager(entityManagerFactory) {
+            @Override
+            protected int determineTimeout(TransactionDefinition definicion) {
+                if (definicion.isReadOnly() || definicion.getTimeout() != TransactionDefinition.TIMEOUT_DEFAULT) {
+                    return definicion.getTimeout();
+                }
+                return segundos;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.SAFE_Rescue.API_Incidentes.controller;
+
+import com.SAFE_Rescue.API_Incidentes.dto.EstadisticasCache;
+import com.SAFE_Rescue.API_Incidentes.service.EstadisticasCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST para observar la caché de segundo nivel.
+ */
+@RestController
+@RequestMapping("/api-incidentes/v1/cache")
+public class CacheController {
+
+    @Autowired
+    private EstadisticasCacheService estadisticasCacheService;
+
+    /**
+     * Obtiene los aciertos, fallos y tasa de aciertos de cada región de la caché.
+     * @return ResponseEntity con las estadísticas por región
+     */
+    @GetMapping("/estadisticas")
+    public ResponseEntity<List<EstadisticasCache>> listarEstadisticas() {
+        return ResponseEntity.ok(estadisticasCacheService.findAll());
+    }
+
+    /**
+     * Obtiene las estadísticas sumadas de todas las regiones.
+     * @return ResponseEntity con las estadísticas totales
+     */
+    @GetMapping("/estadisticas/total")
+    public ResponseEntity<EstadisticasCache> totalEstadisticas() {
+        return ResponseEntity.ok(estadisticasCacheService.total());
+    }
+
+    /**
+     * Reinicia los contadores informados por esta API, por ejemplo antes de una prueba de carga.
+     * Las métricas de Hibernate publicadas en Prometheus no se modifican.
+     * @return ResponseEntity con mensaje de confirmación
+     */
+    @DeleteMapping("/estadisticas")
+    public ResponseEntity<String> reiniciarEstadisticas() {
+        estadisticasCacheService.reiniciar();
+        return ResponseEntity.ok("Estadísticas reiniciadas.");
+    }
+
+}
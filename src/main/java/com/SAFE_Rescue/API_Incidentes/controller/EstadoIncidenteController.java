@@ -1,14 +1,16 @@
 package com.SAFE_Rescue.API_Incidentes.controller;
 
 
+import com.SAFE_Rescue.API_Incidentes.config.PresupuestoSql;
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
 import com.SAFE_Rescue.API_Incidentes.modelo.EstadoIncidente;
 import com.SAFE_Rescue.API_Incidentes.service.EstadoIncidenteService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -23,16 +25,22 @@ public class EstadoIncidenteController {
     private EstadoIncidenteService estadoIncidenteService;
 
     /**
-     * Obtiene todos los estados de incidentes registrados en el sistema.
-     * @return ResponseEntity con lista de estado de incidente o retornaNO_CONTENT si no hay registros
+     * Obtiene una página de estados de incidente registrados en el sistema (paginación por cursor).
+     * @param cursor ID del último elemento recibido; se omite para la primera página
+     * @param limite Cantidad de elementos por página (máximo {@link PaginaCursor#LIMITE_MAXIMO})
+     * @return ResponseEntity con el JSON ya serializado de la página y el cursor "next",
+     *         o estado NO_CONTENT si no hay registros
      */
+    @PresupuestoSql(1)
     @GetMapping
-    public ResponseEntity<List<EstadoIncidente>> listarEstadoIncidente() {
-        List<EstadoIncidente> estadoIncidente = estadoIncidenteService.findAll();
-        if(estadoIncidente.isEmpty()) {
+    public ResponseEntity<byte[]> listarEstadoIncidente(@RequestParam(defaultValue = "0") int cursor,
+            @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limite) {
+
+        byte[] pagina = estadoIncidenteService.findPaginaSerializada(cursor, limite);
+        if(pagina == null){
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
-        return ResponseEntity.ok(estadoIncidente);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(pagina);
     }
 
     /**
@@ -40,15 +48,16 @@ public class EstadoIncidenteController {
      * @param id ID del Estado de incidente a buscar
      * @return ResponseEntity con el Estado de incidente encontrado o mensaje de error
      */
+    @PresupuestoSql(0)
     @GetMapping("/{id}")
     public ResponseEntity<?> buscarEstadoIncidente(@PathVariable int id) {
-        EstadoIncidente estadoIncidente;
+        byte[] json;
         try {
-            estadoIncidente = estadoIncidenteService.findByID(id);
+            json = estadoIncidenteService.findByIDSerializado(id);
         } catch(NoSuchElementException e) {
             return new ResponseEntity<String>("Estado Incidente no encontrado", HttpStatus.NOT_FOUND);
         }
-        return ResponseEntity.ok(estadoIncidente);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
     }
 
     /**
@@ -56,6 +65,7 @@ public class EstadoIncidenteController {
      * @param estadoIncidente Datos del Estado de incidente a crear
      * @return ResponseEntity con mensaje de confirmación o error
      */
+    @PresupuestoSql(2)
     @PostMapping
     public ResponseEntity<String> agregarEstadoIncidente(@RequestBody EstadoIncidente estadoIncidente) {
         try {
@@ -74,6 +84,7 @@ public class EstadoIncidenteController {
      * @param estadoIncidente Datos actualizados del Estado de incidente
      * @return ResponseEntity con mensaje de confirmación o error
      */
+    @PresupuestoSql(3)
     @PutMapping("/{id}")
     public ResponseEntity<String> actualizarEstadoIncidente(@PathVariable long id, @RequestBody EstadoIncidente estadoIncidente) {
         try {
@@ -96,6 +107,7 @@ public class EstadoIncidenteController {
      * @param id ID del Estado de incidente a eliminar
      * @return ResponseEntity con mensaje de confirmación
      */
+    @PresupuestoSql(4)
     @DeleteMapping("/{id}")
     public ResponseEntity<String> eliminarEstadoIncidente(@PathVariable long id) {
         try {
@@ -1,14 +1,43 @@
 package com.SAFE_Rescue.API_Incidentes.controller;
 
+import com.SAFE_Rescue.API_Incidentes.config.LimiteTasa;
+import com.SAFE_Rescue.API_Incidentes.config.PresupuestoSql;
+import com.SAFE_Rescue.API_Incidentes.dto.EstadisticasIncidentes;
+import com.SAFE_Rescue.API_Incidentes.dto.EstadisticasIndiceTexto;
+import com.SAFE_Rescue.API_Incidentes.dto.FiltroIncidente;
+import com.SAFE_Rescue.API_Incidentes.dto.FormatoExportacion;
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
+import com.SAFE_Rescue.API_Incidentes.dto.ResultadoBusquedaTexto;
+import com.SAFE_Rescue.API_Incidentes.dto.ResultadoIngesta;
 import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.service.BusquedaGeograficaService;
+import com.SAFE_Rescue.API_Incidentes.service.BusquedaTextoService;
+import com.SAFE_Rescue.API_Incidentes.service.EstadisticasIncidenteService;
+import com.SAFE_Rescue.API_Incidentes.service.ConflictoVersionException;
+import com.SAFE_Rescue.API_Incidentes.service.ExportacionIncidenteService;
+import com.SAFE_Rescue.API_Incidentes.service.FeedCambiosService;
 import com.SAFE_Rescue.API_Incidentes.service.IncidenteService;
+import com.SAFE_Rescue.API_Incidentes.service.IndiceGeografico;
+import com.SAFE_Rescue.API_Incidentes.service.IngestaAsincronaService;
+import com.SAFE_Rescue.API_Incidentes.service.SincronizacionService;
+import com.SAFE_Rescue.API_Incidentes.service.TokenVencidoException;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Controlador REST para la gestión de incidentes
@@ -18,72 +47,450 @@ import java.util.NoSuchElementException;
 @RequestMapping("/api-incidentes/v1/incidentes")
 public class IncidenteController {
 
+    /**
+     * Cantidad máxima de incidentes aceptados en una carga por lote
+     */
+    public static final int TAMANIO_MAXIMO_LOTE = 5000;
+
+    /**
+     * Tipo de contenido de los documentos JSON Merge Patch (RFC 7396)
+     */
+    public static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
     @Autowired
     private IncidenteService incidenteService;
 
+    @Autowired
+    private ExportacionIncidenteService exportacionIncidenteService;
+
+    @Autowired
+    private BusquedaTextoService busquedaTextoService;
+
+    @Autowired
+    private BusquedaGeograficaService busquedaGeograficaService;
+
+    @Autowired
+    private FeedCambiosService feedCambiosService;
+
+    @Autowired
+    private SincronizacionService sincronizacionService;
+
+    @Autowired
+    private EstadisticasIncidenteService estadisticasIncidenteService;
+
+    /**
+     * Presente sólo si la ingesta asíncrona está habilitada
+     */
+    @Autowired(required = false)
+    private IngestaAsincronaService ingestaAsincronaService;
+
+    @Autowired
+    private RegistroIdempotencia registroIdempotencia;
+
+    @Autowired
+    private LimiteTasa limiteTasa;
+
     // OPERACIONES CRUD BÁSICAS
 
     /**
-     * Obtiene todos los incidentes registrados en el sistema.
-     * @return ResponseEntity con lista de incidentes o estado NO_CONTENT si no hay registros
+     * Obtiene una página de incidentes registrados en el sistema (paginación por cursor).
+     * @param cursor ID del último elemento recibido; se omite para la primera página
+     * @param limite Cantidad de elementos por página (máximo {@link PaginaCursor#LIMITE_MAXIMO})
+     * @return ResponseEntity con la página y el cursor "next", o estado NO_CONTENT si no hay registros
      */
+    @PresupuestoSql(1)
     @GetMapping
-    public ResponseEntity<List<Incidente>> listar(){
+    public ResponseEntity<PaginaCursor<Incidente>> listar(@RequestParam(defaultValue = "0") int cursor,
+            @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limite) {
+
+        PaginaCursor<Incidente> pagina = incidenteService.findPagina(cursor, limite);
+        if(pagina.getContenido().isEmpty()){
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return ResponseEntity.ok(pagina);
+    }
+
+    /**
+     * Busca incidentes por estado, tipo, equipo, comuna o región (paginación por cursor).
+     * <p>
+     * Ejemplo: {@code GET /buscar?estadoIncidente=1&comuna=Quilpué&limite=20}
+     * </p>
+     * @param filtro Criterios de búsqueda; los omitidos no filtran
+     * @param cursor ID del último elemento recibido; se omite para la primera página
+     * @param limite Cantidad de elementos por página (máximo {@link PaginaCursor#LIMITE_MAXIMO})
+     * @return ResponseEntity con la página y el cursor "next", o estado NO_CONTENT si no hay coincidencias
+     */
+    @PresupuestoSql(1)
+    @GetMapping("/buscar")
+    public ResponseEntity<PaginaCursor<Incidente>> buscar(FiltroIncidente filtro,
+            @RequestParam(defaultValue = "0") int cursor,
+            @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limite) {
 
-        List<Incidente> incidentes = incidenteService.findAll();
-        if(incidentes.isEmpty()){
+        PaginaCursor<Incidente> pagina = incidenteService.buscar(filtro, cursor, limite);
+        if(pagina.getContenido().isEmpty()){
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
-        return ResponseEntity.ok(incidentes);
+        return ResponseEntity.ok(pagina);
+    }
+
+    /**
+     * Abre un canal de Server-Sent Events con los cambios de incidentes (creado, actualizado,
+     * asignado, eliminado), como alternativa a consultar el listado periódicamente.
+     * <p>
+     * Cada evento lleva un ID; al reconectarse, el cliente envía el último recibido en
+     * {@code Last-Event-ID} y recibe los que se perdió. Si ya no están disponibles recibe
+     * un evento {@code reinicio} y debe volver a cargar el listado.
+     * </p>
+     * @param ultimoId ID del último evento recibido, enviado automáticamente por el navegador al reconectarse
+     * @return ResponseEntity con el flujo de eventos, o SERVICE_UNAVAILABLE si se alcanzó el máximo de suscriptores
+     */
+    @PresupuestoSql(0)
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> eventos(@RequestHeader(name = "Last-Event-ID", required = false) String ultimoId) {
+        try {
+            return ResponseEntity.ok(feedCambiosService.suscribir(ultimoId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
+    /**
+     * Obtiene los incidentes creados, modificados o eliminados desde la sincronización anterior,
+     * para que los clientes móviles no descarguen el listado completo en cada sincronización.
+     * <p>
+     * Ejemplo: {@code GET /cambios?desde=<token>&limite=200}. Sin {@code desde} se obtiene todo.
+     * Mientras la respuesta indique {@code hayMas} el cliente debe volver a pedir con el nuevo token.
+     * </p>
+     * @param desde Token recibido en la sincronización anterior
+     * @param limite Cantidad máxima de cambios por respuesta (máximo {@link PaginaCursor#LIMITE_MAXIMO})
+     * @return ResponseEntity con los cambios y el nuevo token, BAD_REQUEST si el token no es válido
+     * o GONE si venció y se debe sincronizar todo nuevamente
+     */
+    @PresupuestoSql(2)
+    @GetMapping("/cambios")
+    public ResponseEntity<?> cambios(@RequestParam(required = false) String desde,
+            @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_MAXIMO) int limite) {
+        try {
+            return ResponseEntity.ok(sincronizacionService.cambiosDesde(desde, limite));
+        } catch (TokenVencidoException e) {
+            return ResponseEntity.status(HttpStatus.GONE).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Busca incidentes por palabras en su título o detalle, ordenados por relevancia.
+     * <p>
+     * Ejemplo: {@code GET /texto?q=incendio estructural&limite=20}. No distingue mayúsculas
+     * ni tildes y acepta prefijos ("estruct" encuentra "estructural").
+     * </p>
+     * @param q Texto de búsqueda
+     * @param limite Cantidad máxima de resultados (máximo {@link PaginaCursor#LIMITE_MAXIMO})
+     * @return ResponseEntity con los resultados, NO_CONTENT si no hay coincidencias o mensaje de error
+     */
+    @PresupuestoSql(1)
+    @GetMapping("/texto")
+    public ResponseEntity<?> buscarTexto(@RequestParam String q, @RequestParam(defaultValue = "20") int limite) {
+        List<ResultadoBusquedaTexto> resultados;
+        try {
+            resultados = busquedaTextoService.buscar(q, limite);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+        if (resultados.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return ResponseEntity.ok(resultados);
+    }
+
+    /**
+     * Obtiene la cantidad de incidentes en total y por estado, tipo, comuna y equipo, desde
+     * contadores en memoria, sin consultar la base de datos.
+     * @return ResponseEntity con las estadísticas de los incidentes
+     */
+    @PresupuestoSql(0)
+    @GetMapping("/estadisticas")
+    public ResponseEntity<EstadisticasIncidentes> estadisticas() {
+        return ResponseEntity.ok(estadisticasIncidenteService.estadisticas());
+    }
+
+    /**
+     * Obtiene el tamaño del índice de búsqueda de texto y su uso del presupuesto de memoria.
+     * @return ResponseEntity con las estadísticas del índice
+     */
+    @PresupuestoSql(0)
+    @GetMapping("/texto/estadisticas")
+    public ResponseEntity<EstadisticasIndiceTexto> estadisticasTexto() {
+        return ResponseEntity.ok(busquedaTextoService.estadisticas());
+    }
+
+    /**
+     * Obtiene los incidentes activos más cercanos a una coordenada, sin consultar la base de datos.
+     * <p>
+     * Ejemplo: {@code GET /cercanos?latitud=-33.4378&longitud=-70.6505&k=5}
+     * </p>
+     * @param latitud Latitud en grados decimales
+     * @param longitud Longitud en grados decimales
+     * @param k Cantidad de incidentes (máximo {@link PaginaCursor#LIMITE_MAXIMO})
+     * @return ResponseEntity con los incidentes y su distancia en metros, NO_CONTENT si no hay o mensaje de error
+     */
+    @PresupuestoSql(0)
+    @GetMapping("/cercanos")
+    public ResponseEntity<?> buscarCercanos(@RequestParam Double latitud, @RequestParam Double longitud,
+                                            @RequestParam(defaultValue = "10") int k) {
+        List<IndiceGeografico.Cercano> cercanos;
+        try {
+            cercanos = busquedaGeograficaService.cercanos(latitud, longitud, k);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+        if (cercanos.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return ResponseEntity.ok(cercanos);
+    }
+
+    /**
+     * Obtiene los incidentes activos dentro de un radio, del más cercano al más lejano,
+     * sin consultar la base de datos.
+     * <p>
+     * Ejemplo: {@code GET /radio?latitud=-33.4378&longitud=-70.6505&metros=2000}
+     * </p>
+     * @param latitud Latitud en grados decimales
+     * @param longitud Longitud en grados decimales
+     * @param metros Radio de búsqueda en metros
+     * @param limite Cantidad máxima de incidentes (máximo {@link PaginaCursor#LIMITE_MAXIMO})
+     * @return ResponseEntity con los incidentes y su distancia en metros, NO_CONTENT si no hay o mensaje de error
+     */
+    @PresupuestoSql(0)
+    @GetMapping("/radio")
+    public ResponseEntity<?> buscarEnRadio(@RequestParam Double latitud, @RequestParam Double longitud,
+                                           @RequestParam double metros,
+                                           @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limite) {
+        List<IndiceGeografico.Cercano> cercanos;
+        try {
+            cercanos = busquedaGeograficaService.enRadio(latitud, longitud, metros, limite);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+        if (cercanos.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return ResponseEntity.ok(cercanos);
+    }
+
+    /**
+     * Exporta todos los incidentes en formato NDJSON o CSV.
+     * <p>
+     * La respuesta se escribe a medida que se leen las filas desde la base de datos,
+     * sin construir la lista completa en memoria.
+     * </p>
+     * @param formato Formato de salida: "ndjson" (por defecto) o "csv"
+     * @return ResponseEntity con el contenido exportado o mensaje de error si el formato no es válido
+     */
+    @PresupuestoSql(0)
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "ndjson") String formato) {
+        FormatoExportacion formatoExportacion;
+        try {
+            formatoExportacion = FormatoExportacion.desde(formato);
+        } catch (IllegalArgumentException e) {
+            byte[] mensaje = e.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(salida -> salida.write(mensaje));
+        }
+
+        StreamingResponseBody cuerpo = salida -> exportacionIncidenteService.exportar(formatoExportacion, salida);
+        return ResponseEntity.ok()
+                .contentType(formatoExportacion.getTipoContenido())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"incidentes." + formatoExportacion.getExtension() + "\"")
+                .body(cuerpo);
     }
 
     /**
-     * Busca un incidente por su ID.
+     * Busca un incidente por su ID. La respuesta lleva la versión del incidente como ETag;
+     * si el cliente la envía en {@code If-None-Match} y sigue vigente se responde NOT_MODIFIED
+     * consultando sólo la versión, sin cargar ni serializar el incidente.
      * @param id ID del incidente a buscar
-     * @return ResponseEntity con el incidente encontrado o mensaje de error
+     * @param siNoCoincide ETags que el cliente ya tiene (encabezado If-None-Match)
+     * @return ResponseEntity con el incidente encontrado, NOT_MODIFIED o mensaje de error
      */
+    @PresupuestoSql(2)
     @GetMapping("/{id}")
-    public ResponseEntity<?> buscarIncidente(@PathVariable long id) {
+    public ResponseEntity<?> buscarIncidente(@PathVariable long id,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
         Incidente incidente;
 
         try {
+            if (siNoCoincide != null) {
+                long version = incidenteService.findVersion(id);
+                if (coincide(siNoCoincide, version)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(version)).build();
+                }
+            }
             incidente = incidenteService.findByID(id);
         }catch(NoSuchElementException e){
             return new ResponseEntity<String>("Incidente no encontrado", HttpStatus.NOT_FOUND);
         }
 
-        return ResponseEntity.ok(incidente);
+        return ResponseEntity.ok().eTag(etag(incidente.getVersion())).body(incidente);
 
     }
 
     /**
      * Crea un nuevo incidente.
+     * <p>
+     * Con la ingesta asíncrona habilitada, el incidente se valida y se guarda en el diario local,
+     * y se responde ACCEPTED con su número de seguimiento (encabezado Location); se escribe en la
+     * base de datos en segundo plano.
+     * </p>
      * @param incidente Datos del incidente a crear
-     * @return ResponseEntity con mensaje de confirmación o error
+     * @param llaveIdempotencia Llave elegida por el cliente (encabezado Idempotency-Key), opcional: un
+     * reintento con la misma llave recibe la respuesta original sin repetir la operación
+     * @param solicitud Solicitud HTTP, para el límite de tasa por IP
+     * @return ResponseEntity con mensaje de confirmación o error (TOO_MANY_REQUESTS si el ciudadano
+     * o la IP exceden su límite de tasa)
      */
+    @PresupuestoSql(14)
     @PostMapping
-    public ResponseEntity<String> agregarIncidente(@RequestBody Incidente incidente) {
+    public ResponseEntity<?> agregarIncidente(@RequestBody Incidente incidente,
+            @RequestHeader(name = RegistroIdempotencia.ENCABEZADO, required = false) String llaveIdempotencia,
+            HttpServletRequest solicitud) {
+        return idempotente(llaveIdempotencia, "POST /incidentes", incidente, () -> {
+            // Sólo toma tokens la solicitud que se ejecuta; un reintento repetido desde el registro, no
+            long espera = limiteTasa.consumir("reportes", solicitud.getRemoteAddr(), incidente.getCiudadano());
+            if (espera > 0) {
+                return demasiadasSolicitudes(espera);
+            }
+            try {
+                if (ingestaAsincronaService != null) {
+                    long seguimiento = ingestaAsincronaService.encolar(incidente);
+                    return ResponseEntity.status(HttpStatus.ACCEPTED)
+                            .location(URI.create("/api-incidentes/v1/incidentes/ingesta/" + seguimiento))
+                            .body("Incidente recibido. Número de seguimiento: " + seguimiento);
+                }
+                incidenteService.save(incidente);
+                return ResponseEntity.status(HttpStatus.CREATED).body("Incidente creado con éxito.");
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error interno del servidor.");
+            }
+        });
+    }
+
+    /**
+     * Consulta si un incidente recibido por la ingesta asíncrona ya fue escrito en la base de datos.
+     * @param seguimiento Número de seguimiento entregado al recibirlo
+     * @return ResponseEntity con el estado, o NOT_FOUND si no existe o la ingesta asíncrona no está habilitada
+     */
+    @PresupuestoSql(0)
+    @GetMapping("/ingesta/{seguimiento}")
+    public ResponseEntity<?> estadoIngesta(@PathVariable long seguimiento) {
+        if (ingestaAsincronaService == null) {
+            return new ResponseEntity<String>("La ingesta asíncrona no está habilitada", HttpStatus.NOT_FOUND);
+        }
         try {
-            incidenteService.save(incidente);
-            return ResponseEntity.status(HttpStatus.CREATED).body("Incidente creado con éxito.");
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error interno del servidor.");
+            return ResponseEntity.ok(ingestaAsincronaService.estado(seguimiento));
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<String>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Crea un lote de incidentes en una sola operación.
+     * <p>
+     * Las sentencias SQL no crecen con la cantidad de incidentes, sino con las relaciones nuevas
+     * distintas del lote (unas nueve por valor); el presupuesto cubre unas diez de cada tipo.
+     * </p>
+     * @param incidentes Incidentes a crear (máximo {@value #TAMANIO_MAXIMO_LOTE})
+     * @param llaveIdempotencia Llave elegida por el cliente (encabezado Idempotency-Key), opcional: un
+     * reintento con la misma llave recibe la respuesta original sin repetir la operación
+     * @param solicitud Solicitud HTTP, para el límite de tasa por IP
+     * @return ResponseEntity con el resultado de cada incidente: CREATED si todos fueron creados,
+     * MULTI_STATUS si alguno fue rechazado, o mensaje de error (TOO_MANY_REQUESTS si algún
+     * ciudadano o la IP exceden su límite de tasa)
+     */
+    @PresupuestoSql(100)
+    @PostMapping("/batch")
+    public ResponseEntity<?> agregarIncidentesLote(@RequestBody List<Incidente> incidentes,
+            @RequestHeader(name = RegistroIdempotencia.ENCABEZADO, required = false) String llaveIdempotencia,
+            HttpServletRequest solicitud) {
+        if (incidentes == null || incidentes.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("El lote de incidentes no puede estar vacío");
+        }
+        if (incidentes.size() > TAMANIO_MAXIMO_LOTE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("El lote no puede exceder " + TAMANIO_MAXIMO_LOTE + " incidentes");
         }
+        return idempotente(llaveIdempotencia, "POST /incidentes/batch", incidentes, () -> {
+            long espera = limiteTasa.consumir("lotes", solicitud.getRemoteAddr(), incidentes);
+            if (espera > 0) {
+                return demasiadasSolicitudes(espera);
+            }
+            try {
+                List<ResultadoIngesta> resultados = incidenteService.saveAll(incidentes);
+                boolean todosCreados = resultados.stream()
+                        .allMatch(resultado -> resultado.getEstado() == ResultadoIngesta.Estado.CREADO);
+                return ResponseEntity.status(todosCreados ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(resultados);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error interno del servidor.");
+            }
+        });
     }
 
     /**
      * Actualiza un incidente existente.
      * @param id ID del incidente a actualizar
      * @param incidente Datos actualizados del incidente
-     * @return ResponseEntity con mensaje de confirmación o error
+     * @param siCoincide ETag de la versión leída por el cliente (encabezado If-Match), opcional
+     * @return ResponseEntity con mensaje de confirmación y la nueva ETag, o error
+     * (PRECONDITION_FAILED si la versión ya no es la indicada)
      */
+    @PresupuestoSql(2)
     @PutMapping("/{id}")
-    public ResponseEntity<String> actualizarIncidente(@PathVariable long id, @RequestBody Incidente incidente) {
+    public ResponseEntity<String> actualizarIncidente(@PathVariable long id, @RequestBody Incidente incidente,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String siCoincide) {
         try {
-            Incidente nuevoIncidente = incidenteService.update(incidente, id);
-            return ResponseEntity.ok("Actualizado con éxito");
+            Incidente nuevoIncidente = incidenteService.update(incidente, id, versionEsperada(siCoincide));
+            return ResponseEntity.ok().eTag(etag(nuevoIncidente.getVersion())).body("Actualizado con éxito");
+        } catch (ConflictoVersionException e) {
+            return conflicto(siCoincide, e);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Incidente no encontrado");
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error interno del servidor.");
+        }
+    }
+
+    /**
+     * Actualiza parcialmente un incidente. Acepta documentos JSON Merge Patch
+     * (application/merge-patch+json) con sólo los campos modificados.
+     * @param id ID del incidente a actualizar
+     * @param parche Campos modificados del incidente
+     * @param siCoincide ETag de la versión leída por el cliente (encabezado If-Match), opcional
+     * @return ResponseEntity con mensaje de confirmación y la nueva ETag, o error
+     * (PRECONDITION_FAILED si la versión ya no es la indicada)
+     */
+    @PresupuestoSql(2)
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<String> actualizarParcialIncidente(@PathVariable long id, @RequestBody JsonNode parche,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String siCoincide) {
+        try {
+            Incidente actualizado = incidenteService.patch(id, parche, versionEsperada(siCoincide));
+            return ResponseEntity.ok().eTag(etag(actualizado.getVersion())).body("Actualizado con éxito");
+        } catch (ConflictoVersionException e) {
+            return conflicto(siCoincide, e);
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Incidente no encontrado");
@@ -99,13 +506,18 @@ public class IncidenteController {
     /**
      * Elimina un incidente del sistema.
      * @param id ID del incidente a eliminar
+     * @param siCoincide ETag de la versión leída por el cliente (encabezado If-Match), opcional
      * @return ResponseEntity con mensaje de confirmación
      */
+    @PresupuestoSql(3)
     @DeleteMapping("/{id}")
-    public ResponseEntity<String> eliminarIncidente(@PathVariable long id) {
+    public ResponseEntity<String> eliminarIncidente(@PathVariable long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String siCoincide) {
         try {
-            incidenteService.delete(id);
+            incidenteService.delete(id, versionEsperada(siCoincide));
             return ResponseEntity.ok("Incidente eliminado con éxito.");
+        } catch (ConflictoVersionException e) {
+            return conflicto(siCoincide, e);
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Incidente no encontrado");
@@ -125,80 +537,213 @@ public class IncidenteController {
      * Asigna un ciudadano un incidente.
      * @param incidenteId ID del incidente
      * @param ciudadanoId del ciudadano
+     * @param siCoincide ETag de la versión leída por el cliente (encabezado If-Match), opcional
+     * @param llaveIdempotencia Llave elegida por el cliente (encabezado Idempotency-Key), opcional: un
+     * reintento con la misma llave recibe la respuesta original sin repetir la operación
      * @return ResponseEntity con mensaje de confirmación o error
      */
+    @PresupuestoSql(3)
     @PostMapping("/{incidenteId}/asignar-ciudadano/{ciudadanoId}")
-    public ResponseEntity<String> asignacCiudadano(@PathVariable Long incidenteId, @PathVariable int ciudadanoId) {
-        try {
-            incidenteService.asignarCiudadano(incidenteId,ciudadanoId);
-            return ResponseEntity.ok("Ciudadano asignado al Incidente exitosamente");
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
-        }
+    public ResponseEntity<?> asignacCiudadano(@PathVariable Long incidenteId, @PathVariable int ciudadanoId,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String siCoincide,
+            @RequestHeader(name = RegistroIdempotencia.ENCABEZADO, required = false) String llaveIdempotencia) {
+        return idempotente(llaveIdempotencia, "POST /incidentes/" + incidenteId + "/asignar-ciudadano/" + ciudadanoId, siCoincide, () -> {
+            try {
+                Incidente incidente = incidenteService.asignarCiudadano(incidenteId, ciudadanoId, versionEsperada(siCoincide));
+                return ResponseEntity.ok().eTag(etag(incidente.getVersion())).body("Ciudadano asignado al Incidente exitosamente");
+            } catch (ConflictoVersionException e) {
+                return conflicto(siCoincide, e);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+            }
+        });
     }
 
     /**
      * Asigna un estado de incidente a un incidente
      * @param incidenteId ID del incidente
      * @param estadoIncidenteId ID del estado de incidente a asignar
+     * @param siCoincide ETag de la versión leída por el cliente (encabezado If-Match), opcional
+     * @param llaveIdempotencia Llave elegida por el cliente (encabezado Idempotency-Key), opcional: un
+     * reintento con la misma llave recibe la respuesta original sin repetir la operación
      * @return ResponseEntity con mensaje de confirmación o error
      */
+    @PresupuestoSql(3)
     @PostMapping("/{incidenteId}/asignar-estado-incidente/{estadoIncidenteId}")
-    public ResponseEntity<String> asignarEstadoIncidente(@PathVariable int incidenteId, @PathVariable int estadoIncidenteId) {
-        try {
-            incidenteService.asignarEstadoIncidente(incidenteId,estadoIncidenteId);
-            return ResponseEntity.ok("Estado Incidente asignado al Incidente exitosamente");
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
-        }
+    public ResponseEntity<?> asignarEstadoIncidente(@PathVariable int incidenteId, @PathVariable int estadoIncidenteId,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String siCoincide,
+            @RequestHeader(name = RegistroIdempotencia.ENCABEZADO, required = false) String llaveIdempotencia) {
+        return idempotente(llaveIdempotencia, "POST /incidentes/" + incidenteId + "/asignar-estado-incidente/" + estadoIncidenteId, siCoincide, () -> {
+            try {
+                Incidente incidente = incidenteService.asignarEstadoIncidente(incidenteId, estadoIncidenteId, versionEsperada(siCoincide));
+                return ResponseEntity.ok().eTag(etag(incidente.getVersion())).body("Estado Incidente asignado al Incidente exitosamente");
+            } catch (ConflictoVersionException e) {
+                return conflicto(siCoincide, e);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+            }
+        });
     }
 
     /**
      * Asigna un tipo de incidente a un incidente
      * @param incidenteId ID del incidente
      * @param tipoIncidenteId ID del tipo de incidente a asignar
+     * @param siCoincide ETag de la versión leída por el cliente (encabezado If-Match), opcional
+     * @param llaveIdempotencia Llave elegida por el cliente (encabezado Idempotency-Key), opcional: un
+     * reintento con la misma llave recibe la respuesta original sin repetir la operación
      * @return ResponseEntity con mensaje de confirmación o error
      */
+    @PresupuestoSql(3)
     @PostMapping("/{incidenteId}/asignar-tipo-incidente/{tipoIncidenteId}")
-    public ResponseEntity<String> asignarTipoIncidente(@PathVariable int incidenteId, @PathVariable int tipoIncidenteId) {
-        try {
-            incidenteService.asignarTipoIncidente(incidenteId,tipoIncidenteId);
-            return ResponseEntity.ok("Tipo Incidente asignado al Incidente exitosamente");
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
-        }
+    public ResponseEntity<?> asignarTipoIncidente(@PathVariable int incidenteId, @PathVariable int tipoIncidenteId,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String siCoincide,
+            @RequestHeader(name = RegistroIdempotencia.ENCABEZADO, required = false) String llaveIdempotencia) {
+        return idempotente(llaveIdempotencia, "POST /incidentes/" + incidenteId + "/asignar-tipo-incidente/" + tipoIncidenteId, siCoincide, () -> {
+            try {
+                Incidente incidente = incidenteService.asignarTipoIncidente(incidenteId, tipoIncidenteId, versionEsperada(siCoincide));
+                return ResponseEntity.ok().eTag(etag(incidente.getVersion())).body("Tipo Incidente asignado al Incidente exitosamente");
+            } catch (ConflictoVersionException e) {
+                return conflicto(siCoincide, e);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+            }
+        });
     }
 
     /**
      * Asigna una equipo a un incidente.
      * @param incidenteId ID del incidente
      * @param equipoId del equipo
+     * @param siCoincide ETag de la versión leída por el cliente (encabezado If-Match), opcional
+     * @param llaveIdempotencia Llave elegida por el cliente (encabezado Idempotency-Key), opcional: un
+     * reintento con la misma llave recibe la respuesta original sin repetir la operación
      * @return ResponseEntity con mensaje de confirmación o error
      */
+    @PresupuestoSql(3)
     @PostMapping("/{incidenteId}/asignar-equipo/{equipoId}")
-    public ResponseEntity<String> asignaEquipo(@PathVariable Long incidenteId, @PathVariable int equipoId) {
-        try {
-            incidenteService.asignarEquipo(incidenteId,equipoId);
-            return ResponseEntity.ok("Equipo asignado al Incidente exitosamente");
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
-        }
+    public ResponseEntity<?> asignaEquipo(@PathVariable Long incidenteId, @PathVariable int equipoId,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String siCoincide,
+            @RequestHeader(name = RegistroIdempotencia.ENCABEZADO, required = false) String llaveIdempotencia) {
+        return idempotente(llaveIdempotencia, "POST /incidentes/" + incidenteId + "/asignar-equipo/" + equipoId, siCoincide, () -> {
+            try {
+                Incidente incidente = incidenteService.asignarEquipo(incidenteId, equipoId, versionEsperada(siCoincide));
+                return ResponseEntity.ok().eTag(etag(incidente.getVersion())).body("Equipo asignado al Incidente exitosamente");
+            } catch (ConflictoVersionException e) {
+                return conflicto(siCoincide, e);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+            }
+        });
     }
 
     /**
      * Asigna una ubicacion a un incidente.
      * @param incidenteId ID del incidente
      * @param ubicacionId ID de la Ubicacion
+     * @param siCoincide ETag de la versión leída por el cliente (encabezado If-Match), opcional
+     * @param llaveIdempotencia Llave elegida por el cliente (encabezado Idempotency-Key), opcional: un
+     * reintento con la misma llave recibe la respuesta original sin repetir la operación
      * @return ResponseEntity con mensaje de confirmación o error
      */
+    @PresupuestoSql(3)
     @PostMapping("/{incidenteId}/asignar-ubicacion/{ubicacionId}")
-    public ResponseEntity<String> asignarUbicacion(@PathVariable Long incidenteId, @PathVariable Long ubicacionId) {
+    public ResponseEntity<?> asignarUbicacion(@PathVariable Long incidenteId, @PathVariable Long ubicacionId,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String siCoincide,
+            @RequestHeader(name = RegistroIdempotencia.ENCABEZADO, required = false) String llaveIdempotencia) {
+        return idempotente(llaveIdempotencia, "POST /incidentes/" + incidenteId + "/asignar-ubicacion/" + ubicacionId, siCoincide, () -> {
+            try {
+                Incidente incidente = incidenteService.asignarUbicacion(incidenteId, ubicacionId, versionEsperada(siCoincide));
+                return ResponseEntity.ok().eTag(etag(incidente.getVersion())).body("Ubicacion asignada al incidente exitosamente");
+            } catch (ConflictoVersionException e) {
+                return conflicto(siCoincide, e);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+            }
+        });
+    }
+
+
+    // SOLICITUDES IDEMPOTENTES
+
+    /**
+     * Ejecuta una escritura a través del {@link RegistroIdempotencia}.
+     * @return Respuesta de la escritura o la original de la llave; CONFLICT si la original sigue en
+     * curso, BAD_REQUEST si la llave no es válida o UNPROCESSABLE_ENTITY si ya se usó con otra solicitud
+     */
+    private ResponseEntity<?> idempotente(String llave, String operacion, Object cuerpo, Supplier<ResponseEntity<?>> escritura) {
         try {
-            incidenteService.asignarUbicacion(incidenteId, ubicacionId);
-            return ResponseEntity.ok("Ubicacion asignada al incidente exitosamente");
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+            return registroIdempotencia.ejecutar(llave, operacion, cuerpo, escritura);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
 
+    /**
+     * Respuesta a un reporte que excede su límite de tasa, con el tiempo de espera en Retry-After.
+     */
+    private static ResponseEntity<?> demasiadasSolicitudes(long esperaNanos) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(TimeUnit.NANOSECONDS.toSeconds(esperaNanos) + 1))
+                .body("Demasiados reportes; reintente más tarde.");
+    }
+
+    // SOLICITUDES CONDICIONALES
+
+    /**
+     * ETag de una versión de incidente.
+     */
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Indica si alguna de las ETags de un encabezado If-None-Match corresponde a la versión
+     * (comparación débil, como exige el encabezado).
+     */
+    static boolean coincide(String siNoCoincide, long version) {
+        String buscada = etag(version);
+        for (String etiqueta : siNoCoincide.split(",")) {
+            String valor = etiqueta.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(buscada)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene la versión que el cliente espera modificar a partir de If-Match.
+     * @return null si no se envió el encabezado o es "*"; -1 (que nunca coincide) si no es una
+     * ETag fuerte emitida por esta API
+     */
+    static Long versionEsperada(String siCoincide) {
+        if (siCoincide == null || siCoincide.trim().equals("*")) {
+            return null;
+        }
+        String valor = siCoincide.trim();
+        if (valor.length() > 2 && valor.startsWith("\"") && valor.endsWith("\"")) {
+            try {
+                return Long.parseLong(valor.substring(1, valor.length() - 1));
+            } catch (NumberFormatException e) {
+                return -1L;
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * Respuesta a una escritura rechazada por la versión: PRECONDITION_FAILED si el cliente
+     * envió If-Match, o CONFLICT si otra operación modificó el incidente al mismo tiempo.
+     */
+    private static ResponseEntity<String> conflicto(String siCoincide, ConflictoVersionException e) {
+        return ResponseEntity.status(siCoincide != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+                .body(e.getMessage());
+    }
+
 }
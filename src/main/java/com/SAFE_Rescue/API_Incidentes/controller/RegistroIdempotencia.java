@@ -0,0 +1,275 @@
+package com.SAFE_Rescue.API_Incidentes.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Respuestas de las escrituras enviadas con el encabezado {@value #ENCABEZADO}, para que un
+ * cliente que reintenta (por ejemplo, tras un tiempo de espera agotado) reciba la respuesta
+ * original sin que la operación se ejecute de nuevo.
+ * <p>
+ * Las llaves se guardan en memoria durante {@code incidentes.idempotencia.ttl}, repartidas en
+ * franjas con su propio {@link ReentrantLock} para que solicitudes con llaves distintas no se
+ * esperen entre sí. Cada franja mantiene las llaves en orden de llegada: las vencidas se eliminan
+ * desde el principio en cada acceso y, al superar la capacidad, se descarta la más antigua.
+ * </p>
+ * <p>
+ * Si llega una solicitud con la misma llave mientras la primera se ejecuta, espera su respuesta
+ * hasta {@code incidentes.idempotencia.espera} en lugar de ejecutarse; si la primera sigue en
+ * curso responde CONFLICT, para que el cliente reintente más tarde. Las respuestas con error del
+ * servidor (5xx) y las rechazadas por el límite de tasa (429) no se guardan, para que el cliente
+ * pueda reintentar.
+ * </p>
+ * <p>
+ * Cada llave vale para una sola operación y un solo cuerpo: el cuerpo se compara por el SHA-256
+ * de su serialización JSON con las propiedades y llaves ordenadas. La llave se registra sólo en
+ * esta instancia de la aplicación.
+ * </p>
+ */
+@Component
+class RegistroIdempotencia {
+
+    /**
+     * Encabezado con la llave de idempotencia elegida por el cliente
+     */
+    static final String ENCABEZADO = "Idempotency-Key";
+
+    /**
+     * Encabezado agregado a las respuestas repetidas desde el registro
+     */
+    static final String ENCABEZADO_REPETIDA = "Idempotent-Replayed";
+
+    /**
+     * Largo máximo de una llave
+     */
+    static final int LARGO_MAXIMO = 255;
+
+    private static final int FRANJAS = 64;
+
+    private final Franja[] franjas = new Franja[FRANJAS];
+    private final long ttlNanos;
+    private final long esperaNanos;
+
+    /**
+     * Serializa los cuerpos siempre igual, sin importar el orden de sus propiedades
+     */
+    private final ObjectMapper serializadorHuella;
+
+    RegistroIdempotencia(@Value("${incidentes.idempotencia.ttl:24h}") Duration ttl,
+            @Value("${incidentes.idempotencia.espera:5s}") Duration espera,
+            @Value("${incidentes.idempotencia.capacidad:100000}") int capacidad,
+            ObjectMapper objectMapper) {
+        this.ttlNanos = ttl.toNanos();
+        this.esperaNanos = espera.toNanos();
+        this.serializadorHuella = objectMapper.copy();
+        serializadorHuella.setConfig(serializadorHuella.getSerializationConfig()
+                .with(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .without(SerializationFeature.INDENT_OUTPUT));
+        int capacidadFranja = Math.max(1, capacidad / FRANJAS);
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new Franja(capacidadFranja);
+        }
+    }
+
+    /**
+     * Ejecuta una escritura una sola vez por llave, o repite la respuesta de la ejecución anterior.
+     * @param llave Valor del encabezado {@value #ENCABEZADO}; si es null se ejecuta sin registrar
+     * @param operacion Operación y recurso (por ejemplo "POST /incidentes"), para que la misma
+     * llave en otra operación no repita esta respuesta
+     * @param cuerpo Cuerpo de la solicitud, para detectar una llave reutilizada con otro contenido;
+     * se compara antes de ejecutar, porque la operación puede modificarlo
+     * @param accion Escritura a ejecutar
+     * @return Respuesta de la escritura, la guardada con el encabezado {@value #ENCABEZADO_REPETIDA},
+     * o CONFLICT si la solicitud original sigue ejecutándose
+     * @throws IllegalArgumentException Si la llave está vacía o es demasiado larga, o el cuerpo no se puede serializar
+     * @throws IllegalStateException Si la llave ya se usó en la operación con otro cuerpo
+     */
+    ResponseEntity<?> ejecutar(String llave, String operacion, Object cuerpo, Supplier<ResponseEntity<?>> accion) {
+        if (llave == null) {
+            return accion.get();
+        }
+        if (llave.isBlank() || llave.length() > LARGO_MAXIMO) {
+            throw new IllegalArgumentException("El encabezado " + ENCABEZADO + " debe tener entre 1 y " + LARGO_MAXIMO + " caracteres");
+        }
+        String clave = operacion + " " + llave;
+        byte[] huella = huella(cuerpo);
+        Franja franja = franjas[Math.floorMod(clave.hashCode(), FRANJAS)];
+
+        Respuesta nueva = new Respuesta(huella, System.nanoTime() + ttlNanos);
+        Respuesta anterior = franja.reservar(clave, nueva);
+        if (anterior != nueva) {
+            if (!MessageDigest.isEqual(anterior.huella, huella)) {
+                throw new IllegalStateException("La llave " + llave + " ya se usó con otra solicitud");
+            }
+            return esperar(llave, anterior);
+        }
+
+        ResponseEntity<?> respuesta;
+        try {
+            respuesta = accion.get();
+        } catch (RuntimeException e) {
+            franja.olvidar(clave, nueva);
+            nueva.respuesta.completeExceptionally(e);
+            throw e;
+        }
+        if (respuesta.getStatusCode().is5xxServerError() || respuesta.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+            franja.olvidar(clave, nueva);
+        }
+        nueva.respuesta.complete(respuesta);
+        return respuesta;
+    }
+
+    /**
+     * @return Cantidad de llaves registradas, incluidas las vencidas que aún no se eliminan
+     */
+    int cantidad() {
+        int total = 0;
+        for (Franja franja : franjas) {
+            total += franja.cantidad();
+        }
+        return total;
+    }
+
+    /**
+     * Espera la respuesta de la solicitud original durante {@code incidentes.idempotencia.espera}.
+     */
+    private ResponseEntity<?> esperar(String llave, Respuesta anterior) {
+        try {
+            return repetida(anterior.respuesta.get(esperaNanos, TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            return enCurso(llave);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return enCurso(llave);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException error ? error : new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * SHA-256 del cuerpo serializado.
+     */
+    private byte[] huella(Object cuerpo) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(serializadorHuella.writeValueAsBytes(cuerpo));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("El cuerpo de la solicitud no se puede registrar: " + e.getOriginalMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible", e);
+        }
+    }
+
+    private static ResponseEntity<?> enCurso(String llave) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("La solicitud con la llave " + llave + " aún se está ejecutando; reintente más tarde.");
+    }
+
+    private static ResponseEntity<?> repetida(ResponseEntity<?> original) {
+        return ResponseEntity.status(original.getStatusCode())
+                .headers(original.getHeaders())
+                .header(ENCABEZADO_REPETIDA, "true")
+                .body(original.getBody());
+    }
+
+    /**
+     * Respuesta de una llave: pendiente mientras la primera solicitud se ejecuta.
+     */
+    private static final class Respuesta {
+
+        private final byte[] huella;
+        private final long vence;
+        private final CompletableFuture<ResponseEntity<?>> respuesta = new CompletableFuture<>();
+
+        private Respuesta(byte[] huella, long vence) {
+            this.huella = huella;
+            this.vence = vence;
+        }
+
+    }
+
+    /**
+     * Parte de las llaves, en orden de llegada, protegida por su propio candado.
+     */
+    private static final class Franja {
+
+        private final Map<String, Respuesta> respuestas;
+        private final ReentrantLock candado = new ReentrantLock();
+
+        private Franja(int capacidad) {
+            this.respuestas = new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Respuesta> eldest) {
+                    return size() > capacidad;
+                }
+            };
+        }
+
+        /**
+         * Registra la respuesta para la llave si la llave no existe o venció.
+         * @return La respuesta registrada para la llave: la recibida si quedó reservada para esta solicitud
+         */
+        private Respuesta reservar(String clave, Respuesta nueva) {
+            candado.lock();
+            try {
+                long ahora = System.nanoTime();
+                Iterator<Respuesta> antiguas = respuestas.values().iterator();
+                // El TTL es el mismo para todas: las vencidas están al principio
+                while (antiguas.hasNext()) {
+                    if (antiguas.next().vence - ahora > 0) {
+                        break;
+                    }
+                    antiguas.remove();
+                }
+                Respuesta existente = respuestas.putIfAbsent(clave, nueva);
+                return existente != null ? existente : nueva;
+            } finally {
+                candado.unlock();
+            }
+        }
+
+        /**
+         * Elimina la llave si aún corresponde a la respuesta indicada, para que se pueda reintentar.
+         */
+        private void olvidar(String clave, Respuesta respuesta) {
+            candado.lock();
+            try {
+                respuestas.remove(clave, respuesta);
+            } finally {
+                candado.unlock();
+            }
+        }
+
+        private int cantidad() {
+            candado.lock();
+            try {
+                return respuestas.size();
+            } finally {
+                candado.unlock();
+            }
+        }
+
+    }
+
+}
@@ -1,13 +1,15 @@
 package com.SAFE_Rescue.API_Incidentes.controller;
 
+import com.SAFE_Rescue.API_Incidentes.config.PresupuestoSql;
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
 import com.SAFE_Rescue.API_Incidentes.modelo.TipoIncidente;
 import com.SAFE_Rescue.API_Incidentes.service.TipoIncidenteService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -22,16 +24,22 @@ public class TipoIncidenteController {
     private TipoIncidenteService tipoIncidenteService;
 
     /**
-     * Obtiene todos los tipos de incidente registrados en el sistema.
-     * @return ResponseEntity con lista de tipos de incidente o estado NO_CONTENT si no hay registros
+     * Obtiene una página de tipos de incidente registrados en el sistema (paginación por cursor).
+     * @param cursor ID del último elemento recibido; se omite para la primera página
+     * @param limite Cantidad de elementos por página (máximo {@link PaginaCursor#LIMITE_MAXIMO})
+     * @return ResponseEntity con el JSON ya serializado de la página y el cursor "next",
+     *         o estado NO_CONTENT si no hay registros
      */
+    @PresupuestoSql(1)
     @GetMapping
-    public ResponseEntity<List<TipoIncidente>> listarTiposIncidente() {
-        List<TipoIncidente> tipoIncidente = tipoIncidenteService.findAll();
-        if(tipoIncidente.isEmpty()) {
+    public ResponseEntity<byte[]> listarTiposIncidente(@RequestParam(defaultValue = "0") int cursor,
+            @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limite) {
+
+        byte[] pagina = tipoIncidenteService.findPaginaSerializada(cursor, limite);
+        if(pagina == null){
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
-        return ResponseEntity.ok(tipoIncidente);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(pagina);
     }
 
     /**
@@ -39,15 +47,16 @@ public class TipoIncidenteController {
      * @param id ID del tipo de incidente a buscar
      * @return ResponseEntity con el tipo de incidente encontrado o mensaje de error
      */
+    @PresupuestoSql(0)
     @GetMapping("/{id}")
     public ResponseEntity<?> buscarTipoIncidente(@PathVariable int id) {
-        TipoIncidente tipoIncidente;
+        byte[] json;
         try {
-            tipoIncidente = tipoIncidenteService.findByID(id);
+            json = tipoIncidenteService.findByIDSerializado(id);
         } catch(NoSuchElementException e) {
             return new ResponseEntity<String>("Tipo Incidente no encontrado", HttpStatus.NOT_FOUND);
         }
-        return ResponseEntity.ok(tipoIncidente);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
     }
 
     /**
@@ -55,6 +64,7 @@ public class TipoIncidenteController {
      * @param tipoIncidente Datos del tipo de incidente a crear
      * @return ResponseEntity con mensaje de confirmación o error
      */
+    @PresupuestoSql(2)
     @PostMapping
     public ResponseEntity<String> agregarTipoIncidente(@RequestBody TipoIncidente tipoIncidente) {
         try {
@@ -73,6 +83,7 @@ public class TipoIncidenteController {
      * @param tipoIncidente Datos actualizados del tipo de incidente
      * @return ResponseEntity con mensaje de confirmación o error
      */
+    @PresupuestoSql(3)
     @PutMapping("/{id}")
     public ResponseEntity<String> actualizarTipoIncidente(@PathVariable long id, @RequestBody TipoIncidente tipoIncidente) {
         try {
@@ -95,6 +106,7 @@ public class TipoIncidenteController {
      * @param id ID del tipo de incidente a eliminar
      * @return ResponseEntity con mensaje de confirmación
      */
+    @PresupuestoSql(4)
     @DeleteMapping("/{id}")
     public ResponseEntity<String> eliminarTipoIncidente(@PathVariable long id) {
         try {
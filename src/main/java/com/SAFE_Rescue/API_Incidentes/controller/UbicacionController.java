@@ -1,5 +1,7 @@
 package com.SAFE_Rescue.API_Incidentes.controller;
 
+import com.SAFE_Rescue.API_Incidentes.config.PresupuestoSql;
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
 import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
 import com.SAFE_Rescue.API_Incidentes.service.UbicacionService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,7 +9,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -22,17 +23,21 @@ public class UbicacionController {
     private UbicacionService ubicacionService;
 
     /**
-     * Obtiene todas las ubicaciones registradas en el sistema.
-     * @return ResponseEntity con lista de ubicaciones o estado NO_CONTENT si no hay registros
+     * Obtiene una página de ubicaciones registradas en el sistema (paginación por cursor).
+     * @param cursor ID del último elemento recibido; se omite para la primera página
+     * @param limite Cantidad de elementos por página (máximo {@link PaginaCursor#LIMITE_MAXIMO})
+     * @return ResponseEntity con la página y el cursor "next", o estado NO_CONTENT si no hay registros
      */
+    @PresupuestoSql(1)
     @GetMapping
-    public ResponseEntity<List<Ubicacion>> listarUbicaiones(){
+    public ResponseEntity<PaginaCursor<Ubicacion>> listarUbicaiones(@RequestParam(defaultValue = "0") int cursor,
+            @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limite) {
 
-        List<Ubicacion> ubicacion = ubicacionService.findAll();
-        if(ubicacion.isEmpty()){
+        PaginaCursor<Ubicacion> pagina = ubicacionService.findPagina(cursor, limite);
+        if(pagina.getContenido().isEmpty()){
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
-        return ResponseEntity.ok(ubicacion);
+        return ResponseEntity.ok(pagina);
     }
 
     /**
@@ -40,6 +45,7 @@ public class UbicacionController {
      * @param id ID de la Ubicacion a buscar
      * @return ResponseEntity con la Ubicacion encontrada o mensaje de error
      */
+    @PresupuestoSql(1)
     @GetMapping("/{id}")
     public ResponseEntity<?> buscarUbicacion(@PathVariable int id) {
         Ubicacion ubicacion;
@@ -58,6 +64,7 @@ public class UbicacionController {
      * @param ubicacion Datos de la Ubicacion a crear
      * @return ResponseEntity con mensaje de confirmación o error
      */
+    @PresupuestoSql(2)
     @PostMapping
     public ResponseEntity<String> agregarUbicacion(@RequestBody Ubicacion ubicacion) {
         try {
@@ -72,10 +79,15 @@ public class UbicacionController {
 
     /**
      * Actualiza una Ubicacion existente.
+     * <p>
+     * Se actualiza el momento de modificación de sus incidentes, para la sincronización incremental.
+     * Si cambia la comuna, se cuentan además sus incidentes para las estadísticas por comuna.
+     * </p>
      * @param id ID de la Ubicacion a actualizar
      * @param ubicacion Datos actualizados de la Ubicacion
      * @return ResponseEntity con mensaje de confirmación o error
      */
+    @PresupuestoSql(5)
     @PutMapping("/{id}")
     public ResponseEntity<String> actualizarUbicacion(@PathVariable long id, @RequestBody Ubicacion ubicacion) {
         try {
@@ -98,6 +110,7 @@ public class UbicacionController {
      * @param id ID de la Ubicacion a eliminar
      * @return ResponseEntity con mensaje de confirmación
      */
+    @PresupuestoSql(4)
     @DeleteMapping("/{id}")
     public ResponseEntity<String> eliminarUbicacion(@PathVariable long id) {
         try {
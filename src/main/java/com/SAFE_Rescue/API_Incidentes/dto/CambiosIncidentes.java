@@ -0,0 +1,42 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Lote de cambios de incidentes para la sincronización incremental de clientes móviles.
+ * <p>
+ * El cliente guarda {@link #token} y lo envía en la siguiente sincronización; mientras
+ * {@link #hayMas} sea verdadero debe seguir pidiendo lotes de inmediato.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambiosIncidentes {
+
+    /**
+     * Incidentes creados o modificados desde el token recibido, en su estado actual
+     */
+    private List<Incidente> cambios;
+
+    /**
+     * IDs de los incidentes eliminados desde el token recibido
+     */
+    private List<Integer> eliminados;
+
+    /**
+     * Token que el cliente debe enviar en la siguiente sincronización
+     */
+    private String token;
+
+    /**
+     * Si quedan cambios pendientes después de este lote
+     */
+    private boolean hayMas;
+
+}
@@ -0,0 +1,12 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+/**
+ * Proyección con la comuna de una ubicación.
+ */
+public interface ComunaUbicacion {
+
+    int getId();
+
+    String getComuna();
+
+}
@@ -0,0 +1,19 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+/**
+ * Proyección con la cantidad de incidentes de una combinación de estado, tipo, comuna y equipo,
+ * usada para calcular las estadísticas con una sola consulta agrupada.
+ */
+public interface ConteoIncidentes {
+
+    Integer getEstadoIncidenteId();
+
+    Integer getTipoIncidenteId();
+
+    String getComuna();
+
+    Integer getEquipoId();
+
+    long getCantidad();
+
+}
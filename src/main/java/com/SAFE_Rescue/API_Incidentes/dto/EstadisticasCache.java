@@ -0,0 +1,47 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contadores de una región de la caché de segundo nivel, acumulados desde el inicio
+ * de la aplicación o desde el último reinicio de las estadísticas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasCache {
+
+    /**
+     * Nombre de la región
+     */
+    private String region;
+
+    /**
+     * Lecturas resueltas desde la caché, sin consultar la base de datos
+     */
+    private long aciertos;
+
+    /**
+     * Lecturas que no encontraron la entidad en la caché
+     */
+    private long fallos;
+
+    /**
+     * Entidades escritas en la caché
+     */
+    private long escrituras;
+
+    /**
+     * Proporción de aciertos sobre el total de lecturas (0 si aún no hay lecturas)
+     */
+    private double tasaAciertos;
+
+    public static EstadisticasCache de(String region, long aciertos, long fallos, long escrituras) {
+        long lecturas = aciertos + fallos;
+        double tasa = lecturas == 0 ? 0 : (double) aciertos / lecturas;
+        return new EstadisticasCache(region, aciertos, fallos, escrituras, tasa);
+    }
+
+}
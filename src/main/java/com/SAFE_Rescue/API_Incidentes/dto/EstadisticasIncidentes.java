@@ -0,0 +1,49 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Cantidad de incidentes en total y por estado, tipo, comuna y equipo. Los incidentes sin la
+ * relación no se cuentan en esa dimensión.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasIncidentes {
+
+    /**
+     * Cantidad total de incidentes
+     */
+    private long total;
+
+    /**
+     * Cantidad por ID de estado de incidente
+     */
+    private Map<Integer, Long> porEstadoIncidente;
+
+    /**
+     * Cantidad por ID de tipo de incidente
+     */
+    private Map<Integer, Long> porTipoIncidente;
+
+    /**
+     * Cantidad por comuna de la ubicación
+     */
+    private Map<String, Long> porComuna;
+
+    /**
+     * Cantidad por ID de equipo
+     */
+    private Map<Integer, Long> porEquipo;
+
+    /**
+     * Momento de la última comparación con la base de datos
+     */
+    private Instant conciliadoEn;
+
+}
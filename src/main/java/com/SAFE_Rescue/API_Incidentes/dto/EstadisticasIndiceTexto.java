@@ -0,0 +1,55 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tamaño y estado del índice de búsqueda de texto en memoria.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasIndiceTexto {
+
+    /**
+     * Incidentes indexados
+     */
+    private int documentos;
+
+    /**
+     * Términos distintos en el índice
+     */
+    private int terminos;
+
+    /**
+     * Pares (término, incidente) almacenados
+     */
+    private long entradas;
+
+    /**
+     * Memoria estimada que ocupa el índice
+     */
+    private long bytesEstimados;
+
+    /**
+     * Memoria máxima permitida (incidentes.busqueda.presupuesto-memoria)
+     */
+    private long presupuestoBytes;
+
+    /**
+     * Proporción del presupuesto en uso, entre 0 y 1
+     */
+    private double usoPresupuesto;
+
+    /**
+     * Incidentes que no se indexaron por falta de presupuesto; si es mayor a 0 el índice está incompleto
+     */
+    private long documentosRechazados;
+
+    /**
+     * Indica si terminó la carga inicial desde la base de datos
+     */
+    private boolean cargaCompleta;
+
+}
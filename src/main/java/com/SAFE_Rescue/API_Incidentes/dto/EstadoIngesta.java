@@ -0,0 +1,31 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estado de un incidente recibido por la ingesta asíncrona.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadoIngesta {
+
+    /**
+     * Estados posibles de un incidente recibido
+     */
+    public enum Estado { PENDIENTE, PROCESADO }
+
+    /**
+     * Número de seguimiento entregado al recibir el incidente
+     */
+    private long seguimiento;
+
+    /**
+     * PENDIENTE mientras no se escribe en la base de datos; PROCESADO después (creado o
+     * rechazado por sus relaciones, lo que queda en el log)
+     */
+    private Estado estado;
+
+}
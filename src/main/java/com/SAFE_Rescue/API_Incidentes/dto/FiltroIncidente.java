@@ -0,0 +1,41 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Criterios de búsqueda de incidentes. Los criterios nulos o vacíos no filtran;
+ * los indicados se combinan con AND.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltroIncidente {
+
+    /**
+     * ID del estado del incidente
+     */
+    private Integer estadoIncidente;
+
+    /**
+     * ID del tipo de incidente
+     */
+    private Integer tipoIncidente;
+
+    /**
+     * ID del equipo asignado
+     */
+    private Integer equipo;
+
+    /**
+     * Comuna de la ubicación del incidente (coincidencia exacta)
+     */
+    private String comuna;
+
+    /**
+     * Región de la ubicación del incidente (coincidencia exacta)
+     */
+    private String region;
+
+}
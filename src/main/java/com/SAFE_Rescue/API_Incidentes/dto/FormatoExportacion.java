@@ -0,0 +1,50 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formatos disponibles para la exportación masiva de incidentes.
+ */
+public enum FormatoExportacion {
+
+    /**
+     * Un objeto JSON por línea (newline-delimited JSON)
+     */
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+
+    /**
+     * Valores separados por coma, con fila de encabezado
+     */
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+    private final MediaType tipoContenido;
+    private final String extension;
+
+    FormatoExportacion(MediaType tipoContenido, String extension) {
+        this.tipoContenido = tipoContenido;
+        this.extension = extension;
+    }
+
+    public MediaType getTipoContenido() {
+        return tipoContenido;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Obtiene el formato a partir del nombre indicado por el cliente.
+     * @param nombre Nombre del formato ("ndjson" o "csv", sin distinguir mayúsculas)
+     * @return Formato correspondiente
+     * @throws IllegalArgumentException Si el formato no es soportado
+     */
+    public static FormatoExportacion desde(String nombre) {
+        for (FormatoExportacion formato : values()) {
+            if (formato.extension.equalsIgnoreCase(nombre)) {
+                return formato;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportación no soportado: " + nombre);
+    }
+}
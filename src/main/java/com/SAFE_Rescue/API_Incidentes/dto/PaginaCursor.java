@@ -0,0 +1,76 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Página de resultados obtenida mediante paginación por cursor (keyset).
+ * <p>
+ * En lugar de usar OFFSET, cada página se obtiene con la condición {@code id > cursor},
+ * por lo que el costo de la consulta se mantiene constante sin importar cuántos
+ * registros existan antes del cursor.
+ * </p>
+ *
+ * @param <T> Tipo de los elementos de la página
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCursor<T> {
+
+    /**
+     * Cantidad de elementos por página cuando el cliente no indica un límite
+     */
+    public static final int LIMITE_POR_DEFECTO = 50;
+
+    /**
+     * Cantidad máxima de elementos que se pueden solicitar en una página
+     */
+    public static final int LIMITE_MAXIMO = 200;
+
+    /**
+     * Elementos de la página, ordenados por ID ascendente
+     */
+    private List<T> contenido;
+
+    /**
+     * Cursor para solicitar la página siguiente (ID del último elemento),
+     * o null si no existen más registros
+     */
+    @JsonProperty("next")
+    private Integer siguiente;
+
+    /**
+     * Ajusta el límite solicitado por el cliente al rango permitido.
+     * @param limite Límite solicitado
+     * @return Límite entre 1 y {@link #LIMITE_MAXIMO}
+     */
+    public static int normalizarLimite(int limite) {
+        if (limite <= 0) {
+            return LIMITE_POR_DEFECTO;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    /**
+     * Construye una página a partir de una consulta que pidió {@code limite + 1} filas.
+     * La fila extra sólo se usa para saber si existe una página siguiente y se descarta.
+     * @param filas Filas obtenidas (hasta limite + 1)
+     * @param limite Tamaño de la página
+     * @param id Función que obtiene el ID de cada elemento
+     * @return Página con su cursor siguiente
+     */
+    public static <T> PaginaCursor<T> de(List<T> filas, int limite, ToIntFunction<T> id) {
+        if (filas.size() <= limite) {
+            return new PaginaCursor<>(filas, null);
+        }
+        List<T> contenido = filas.subList(0, limite);
+        return new PaginaCursor<>(contenido, id.applyAsInt(contenido.get(limite - 1)));
+    }
+
+}
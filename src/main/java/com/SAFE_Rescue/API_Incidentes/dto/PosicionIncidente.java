@@ -0,0 +1,19 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+/**
+ * Proyección con la ubicación geográfica y el estado de un incidente, usada para construir
+ * el índice geográfico sin cargar la entidad ni sus relaciones.
+ */
+public interface PosicionIncidente {
+
+    int getId();
+
+    Integer getUbicacionId();
+
+    Double getLatitud();
+
+    Double getLongitud();
+
+    Integer getEstadoIncidenteId();
+
+}
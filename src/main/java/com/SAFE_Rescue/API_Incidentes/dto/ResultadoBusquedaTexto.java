@@ -0,0 +1,23 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Incidente encontrado por la búsqueda de texto, junto a su relevancia.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoBusquedaTexto {
+
+    /**
+     * Puntaje BM25 de la coincidencia; mayor es más relevante
+     */
+    private double puntaje;
+
+    private Incidente incidente;
+
+}
@@ -0,0 +1,48 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado del procesamiento de un incidente dentro de una carga por lote.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoIngesta {
+
+    /**
+     * Estados posibles de un elemento del lote
+     */
+    public enum Estado { CREADO, RECHAZADO }
+
+    /**
+     * Posición del incidente dentro del lote recibido (desde 0)
+     */
+    private int indice;
+
+    /**
+     * ID asignado al incidente, o null si fue rechazado
+     */
+    private Integer id;
+
+    /**
+     * Resultado del procesamiento
+     */
+    private Estado estado;
+
+    /**
+     * Motivo del rechazo, o null si fue creado
+     */
+    private String mensaje;
+
+    public static ResultadoIngesta creado(int indice, int id) {
+        return new ResultadoIngesta(indice, id, Estado.CREADO, null);
+    }
+
+    public static ResultadoIngesta rechazado(int indice, String mensaje) {
+        return new ResultadoIngesta(indice, null, Estado.RECHAZADO, mensaje);
+    }
+
+}
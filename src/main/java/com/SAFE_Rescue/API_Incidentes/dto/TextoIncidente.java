@@ -0,0 +1,15 @@
+package com.SAFE_Rescue.API_Incidentes.dto;
+
+/**
+ * Proyección con los campos de texto de un incidente, usada para construir el índice
+ * de búsqueda sin cargar la entidad ni sus relaciones.
+ */
+public interface TextoIncidente {
+
+    int getId();
+
+    String getTitulo();
+
+    String getDetalle();
+
+}
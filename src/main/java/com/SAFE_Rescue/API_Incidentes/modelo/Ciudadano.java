@@ -13,7 +13,8 @@ import lombok.NoArgsConstructor;
 public class Ciudadano {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ciudadano_seq")
+    @SequenceGenerator(name = "ciudadano_seq", sequenceName = "ciudadano_seq", allocationSize = 50)
     private int id;
 
     @Column(unique = true,length = 8,nullable = false)
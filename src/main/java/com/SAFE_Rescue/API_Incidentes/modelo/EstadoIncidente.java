@@ -1,12 +1,16 @@
 package com.SAFE_Rescue.API_Incidentes.modelo;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "estadoIncidente")
 @Table(name = "estado_incidente")
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,24 +1,48 @@
 package com.SAFE_Rescue.API_Incidentes.modelo;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.Instant;
 import java.util.List;
 
 
 @Entity
-@Table(name = "incidente") // Nombre de la tabla en la base de datos
+@Table(name = "incidente", indexes = { // Índices para los filtros de búsqueda, terminados en id para la paginación keyset
+        @Index(name = "idx_incidente_estado_id", columnList = "estado_incidente_id, id"),
+        @Index(name = "idx_incidente_tipo_id", columnList = "tipo_incidente_id, id"),
+        @Index(name = "idx_incidente_equipo_id", columnList = "equipo_id, id"),
+        @Index(name = "idx_incidente_ubicacion_id", columnList = "ubicacion_id, id"),
+        @Index(name = "idx_incidente_estado_tipo_id", columnList = "estado_incidente_id, tipo_incidente_id, id"),
+        @Index(name = "idx_incidente_actualizado_id", columnList = "actualizado_en, id") // Sincronización incremental
+})
+@NamedEntityGraph(name = Incidente.GRAFO_RELACIONES, attributeNodes = { // Carga las relaciones en un solo JOIN
+        @NamedAttributeNode("tipoIncidente"),
+        @NamedAttributeNode("ubicacion"),
+        @NamedAttributeNode("ciudadano"),
+        @NamedAttributeNode("estadoIncidente"),
+        @NamedAttributeNode("equipo")
+})
 @NoArgsConstructor // Genera constructor sin argumentos
 @AllArgsConstructor // Genera constructor con todos los argumentos
 @Data // Genera getters, setters, toString, equals y hashCode
 public class Incidente {
 
     /**
-     * Identificador único del incidente
+     * Nombre del grafo que obtiene el incidente junto a todas sus relaciones
+     */
+    public static final String GRAFO_RELACIONES = "Incidente.relaciones";
+
+    /**
+     * Identificador único del incidente.
+     * Se obtiene de una secuencia en bloques de 50 para que Hibernate pueda agrupar los INSERT.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Auto-incremental
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "incidente_seq") // Secuencia con asignación por bloques
+    @SequenceGenerator(name = "incidente_seq", sequenceName = "incidente_seq", allocationSize = 50)
     private int id;
 
     @Column(length = 50, nullable = false)
@@ -67,4 +91,23 @@ public class Incidente {
     @JoinColumn(name = "equipo_id", referencedColumnName = "id")
     private Equipo equipo;
 
+    /**
+     * Versión del incidente para el control de concurrencia optimista
+     * Hibernate la incrementa en cada actualización y rechaza la escritura si otra transacción
+     * la cambió antes; la API la expone como ETag
+     */
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable = false)
+    private long version;
+
+    /**
+     * Momento de la creación o última modificación del incidente
+     * Lo asigna Hibernate al insertar y al actualizar; lo usa la sincronización incremental
+     */
+    @UpdateTimestamp
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "actualizado_en", nullable = true)
+    private Instant actualizadoEn;
+
 }
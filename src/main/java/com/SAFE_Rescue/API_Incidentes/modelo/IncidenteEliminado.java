@@ -0,0 +1,36 @@
+package com.SAFE_Rescue.API_Incidentes.modelo;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Registro de un incidente eliminado, para que la sincronización incremental pueda informar
+ * la eliminación a los clientes que ya lo tenían. Se conserva por un tiempo limitado.
+ */
+@Entity
+@Table(name = "incidente_eliminado", indexes = {
+        @Index(name = "idx_incidente_eliminado_en_id", columnList = "eliminado_en, incidente_id")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class IncidenteEliminado {
+
+    /**
+     * ID que tenía el incidente eliminado
+     */
+    @Id
+    @Column(name = "incidente_id")
+    private int incidenteId;
+
+    /**
+     * Momento de la eliminación
+     */
+    @Column(name = "eliminado_en", nullable = false)
+    private Instant eliminadoEn;
+
+}
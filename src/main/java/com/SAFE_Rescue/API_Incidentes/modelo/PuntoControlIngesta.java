@@ -0,0 +1,33 @@
+package com.SAFE_Rescue.API_Incidentes.modelo;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Última entrada de un diario de ingesta ya escrita en la base de datos. Se actualiza en la
+ * misma transacción que inserta los incidentes de esas entradas, de modo que al reiniciar cada
+ * entrada se aplica exactamente una vez.
+ */
+@Entity
+@Table(name = "punto_control_ingesta")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class PuntoControlIngesta {
+
+    /**
+     * Identificador del diario de ingesta
+     */
+    @Id
+    @Column(name = "diario", length = 36)
+    private String diario;
+
+    /**
+     * Secuencia de la última entrada aplicada
+     */
+    @Column(name = "ultima_secuencia", nullable = false)
+    private long ultimaSecuencia;
+
+}
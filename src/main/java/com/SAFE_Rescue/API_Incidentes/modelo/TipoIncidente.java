@@ -1,6 +1,8 @@
 package com.SAFE_Rescue.API_Incidentes.modelo;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,6 +17,8 @@ import lombok.NoArgsConstructor;
  * @see Incidente
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tipoIncidente")
 @Table(name = "tipo_incidente")
 @NoArgsConstructor
 @AllArgsConstructor
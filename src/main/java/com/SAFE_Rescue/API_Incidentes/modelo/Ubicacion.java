@@ -1,22 +1,31 @@
 package com.SAFE_Rescue.API_Incidentes.modelo;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "ubicacion")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ubicacion")
+@Table(name = "ubicacion", indexes = {
+        @Index(name = "idx_ubicacion_comuna_id", columnList = "comuna, id"),
+        @Index(name = "idx_ubicacion_region_comuna_id", columnList = "region, comuna, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
 public class Ubicacion {
 
     /**
-     * Identificador único de la ubicación en el sistema
+     * Identificador único de la ubicación en el sistema.
+     * Se obtiene de una secuencia en bloques de 50 para que Hibernate pueda agrupar los INSERT.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ubicacion_seq")
+    @SequenceGenerator(name = "ubicacion_seq", sequenceName = "ubicacion_seq", allocationSize = 50)
     private int id;
 
     /**
@@ -47,4 +56,19 @@ public class Ubicacion {
      */
     @Column(length = 50, nullable = false)
     private String region;
+
+    /**
+     * Latitud en grados decimales (WGS84), entre -90 y 90
+     * Opcional; sin coordenadas la ubicación no participa en las búsquedas por cercanía
+     * Ejemplo: -33.4378
+     */
+    @Column(nullable = true)
+    private Double latitud;
+
+    /**
+     * Longitud en grados decimales (WGS84), entre -180 y 180
+     * Ejemplo: -70.6505
+     */
+    @Column(nullable = true)
+    private Double longitud;
 }
\ No newline at end of file
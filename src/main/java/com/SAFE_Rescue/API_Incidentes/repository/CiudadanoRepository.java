@@ -5,10 +5,25 @@ import com.SAFE_Rescue.API_Incidentes.modelo.Ciudadano;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface CiudadanoRepository extends JpaRepository<Ciudadano, Long>{
 
-}
-
+    /**
+     * Busca un ciudadano por su RUN (llave natural, con índice único).
+     * @param run RUN del ciudadano, sin dígito verificador
+     * @return Ciudadano encontrado, si existe
+     */
+    Optional<Ciudadano> findByRun(Long run);
 
+    /**
+     * Busca en una sola consulta los ciudadanos con alguno de los RUN indicados.
+     * @param runs RUN a buscar
+     * @return Ciudadanos encontrados
+     */
+    List<Ciudadano> findByRunIn(Collection<Long> runs);
 
+}
@@ -4,8 +4,16 @@ import com.SAFE_Rescue.API_Incidentes.modelo.Equipo;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface EquipoRepository extends JpaRepository<Equipo, Long> {
 
+    /**
+     * Busca un equipo por su nombre (llave natural), sin distinguir mayúsculas de minúsculas.
+     * @param nombre Nombre del equipo
+     * @return Equipo encontrado, si existe
+     */
+    Optional<Equipo> findFirstByNombreIgnoreCase(String nombre);
 
 }
\ No newline at end of file
@@ -1,10 +1,29 @@
 package com.SAFE_Rescue.API_Incidentes.repository;
 
 import com.SAFE_Rescue.API_Incidentes.modelo.EstadoIncidente;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface EstadoIncidenteRepository extends JpaRepository<EstadoIncidente, Long> {
 
+    /**
+     * Obtiene la siguiente página de estados de incidente con ID mayor al cursor (paginación keyset).
+     * @param cursor ID del último elemento de la página anterior (0 para la primera página)
+     * @param limite Cantidad máxima de filas a obtener
+     * @return Lista ordenada por ID ascendente
+     */
+    List<EstadoIncidente> findByIdGreaterThanOrderByIdAsc(int cursor, Limit limite);
+
+    /**
+     * Busca un estado de incidente por su nombre (llave natural), sin distinguir mayúsculas de minúsculas.
+     * @param nombre Nombre a buscar
+     * @return Registro encontrado, si existe
+     */
+    Optional<EstadoIncidente> findFirstByNombreIgnoreCase(String nombre);
+
 }
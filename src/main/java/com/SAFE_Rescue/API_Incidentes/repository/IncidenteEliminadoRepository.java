@@ -0,0 +1,41 @@
+package com.SAFE_Rescue.API_Incidentes.repository;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.IncidenteEliminado;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface IncidenteEliminadoRepository extends JpaRepository<IncidenteEliminado, Integer> {
+
+    /**
+     * Obtiene las eliminaciones posteriores a una posición (momento, ID) y anteriores o iguales
+     * al horizonte, recorriendo el índice (eliminado_en, incidente_id).
+     * @param instante Momento de la última eliminación ya entregada
+     * @param id ID de la última eliminación ya entregada en ese momento
+     * @param horizonte Momento máximo a entregar
+     * @param limite Cantidad máxima de filas a obtener
+     * @return Eliminaciones ordenadas por momento e ID
+     */
+    @Query("select e from IncidenteEliminado e where e.eliminadoEn >= :instante "
+            + "and (e.eliminadoEn > :instante or e.incidenteId > :id) and e.eliminadoEn <= :horizonte "
+            + "order by e.eliminadoEn, e.incidenteId")
+    List<IncidenteEliminado> findPosteriores(@Param("instante") Instant instante, @Param("id") int id,
+                                             @Param("horizonte") Instant horizonte, Limit limite);
+
+    /**
+     * Borra los registros de eliminación anteriores a un momento.
+     * @param antes Momento límite
+     * @return Cantidad de registros borrados
+     */
+    @Modifying
+    @Query("delete from IncidenteEliminado e where e.eliminadoEn < :antes")
+    int deleteAnteriores(@Param("antes") Instant antes);
+
+}
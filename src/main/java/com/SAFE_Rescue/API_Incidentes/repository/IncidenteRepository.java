@@ -1,14 +1,198 @@
 package com.SAFE_Rescue.API_Incidentes.repository;
 
+import com.SAFE_Rescue.API_Incidentes.dto.ComunaUbicacion;
+import com.SAFE_Rescue.API_Incidentes.dto.ConteoIncidentes;
+import com.SAFE_Rescue.API_Incidentes.dto.PosicionIncidente;
+import com.SAFE_Rescue.API_Incidentes.dto.TextoIncidente;
 import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface IncidenteRepository extends JpaRepository<Incidente, Long> {
+public interface IncidenteRepository extends JpaRepository<Incidente, Long>, JpaSpecificationExecutor<Incidente> {
 
+    /**
+     * Cantidad de filas que el driver obtiene por viaje al leer en modo streaming
+     */
+    int TAMANIO_BLOQUE_LECTURA = 500;
 
-}
+    /**
+     * Relaciones incluidas en {@link Incidente#GRAFO_RELACIONES}, para las consultas que
+     * arman el grafo de carga por nombre de atributo (por ejemplo, con {@code findBy(spec, ...)})
+     */
+    List<String> RELACIONES = List.of("tipoIncidente", "ubicacion", "ciudadano", "estadoIncidente", "equipo");
+
+    /**
+     * Obtiene todos los incidentes junto a sus relaciones en una sola consulta.
+     * @return Lista completa de incidentes
+     */
+    @Override
+    @EntityGraph(Incidente.GRAFO_RELACIONES)
+    List<Incidente> findAll();
+
+    /**
+     * Busca un incidente por su ID cargando sus relaciones en una sola consulta.
+     * @param id Identificador del incidente
+     * @return Incidente encontrado, si existe
+     */
+    @EntityGraph(Incidente.GRAFO_RELACIONES)
+    Optional<Incidente> findConRelacionesById(int id);
+
+    /**
+     * Obtiene sólo la versión de un incidente, para responder a solicitudes condicionales
+     * sin cargar el incidente ni sus relaciones.
+     * @param id Identificador del incidente
+     * @return Versión del incidente, si existe
+     */
+    @Query("select i.version from Incidente i where i.id = :id")
+    Optional<Long> findVersionById(@Param("id") int id);
+
+    /**
+     * Recorre todos los incidentes como un flujo de solo avance, sin cargarlos en memoria.
+     * <p>
+     * Las filas se leen desde la base de datos en bloques de {@value #TAMANIO_BLOQUE_LECTURA}
+     * y las entidades se marcan como de solo lectura. Debe consumirse dentro de una
+     * transacción y cerrarse al terminar.
+     * </p>
+     * @return Flujo de incidentes ordenado por ID
+     */
+    @EntityGraph(Incidente.GRAFO_RELACIONES)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + TAMANIO_BLOQUE_LECTURA),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select i from Incidente i order by i.id")
+    Stream<Incidente> streamTodos();
+
+    /**
+     * Recorre el título y detalle de todos los incidentes, sin cargar entidades ni relaciones.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     * @return Flujo de textos ordenado por ID
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + TAMANIO_BLOQUE_LECTURA),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select i.id as id, i.titulo as titulo, i.detalle as detalle from Incidente i order by i.id")
+    Stream<TextoIncidente> streamTextos();
+
+    /**
+     * Obtiene los incidentes creados o modificados después de una posición (momento, ID) y hasta
+     * el horizonte, junto a sus relaciones, recorriendo el índice (actualizado_en, id).
+     * @param instante Momento de la última modificación ya entregada
+     * @param id ID del último incidente ya entregado en ese momento
+     * @param horizonte Momento máximo a entregar
+     * @param limite Cantidad máxima de filas a obtener
+     * @return Incidentes ordenados por momento de modificación e ID
+     */
+    @EntityGraph(Incidente.GRAFO_RELACIONES)
+    @Query("select i from Incidente i where i.actualizadoEn >= :instante "
+            + "and (i.actualizadoEn > :instante or i.id > :id) and i.actualizadoEn <= :horizonte "
+            + "order by i.actualizadoEn, i.id")
+    List<Incidente> findModificadosDespues(@Param("instante") Instant instante, @Param("id") int id,
+                                           @Param("horizonte") Instant horizonte, Limit limite);
+
+    /**
+     * Asigna un momento de modificación a los incidentes que no tienen uno (creados antes de
+     * existir la columna), para que entren en la sincronización incremental.
+     * @param instante Momento a asignar
+     * @return Cantidad de incidentes actualizados
+     */
+    @Modifying
+    @Query("update Incidente i set i.actualizadoEn = :instante where i.actualizadoEn is null")
+    int asignarActualizadoEnFaltante(@Param("instante") Instant instante);
+
+    /**
+     * Asigna un momento de modificación a los incidentes de una ubicación, para que los clientes
+     * reciban en la sincronización la ubicación modificada.
+     * @param ubicacionId ID de la ubicación
+     * @param instante Momento a asignar
+     * @return Cantidad de incidentes actualizados
+     */
+    @Modifying
+    @Transactional
+    @Query("update Incidente i set i.actualizadoEn = :instante where i.ubicacion.id = :ubicacionId")
+    int asignarActualizadoEnPorUbicacion(@Param("ubicacionId") int ubicacionId, @Param("instante") Instant instante);
 
+    /**
+     * Recorre la posición y el estado de los incidentes cuya ubicación tiene coordenadas,
+     * sin cargar entidades. Debe consumirse dentro de una transacción y cerrarse al terminar.
+     * @return Flujo de posiciones ordenado por ID
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + TAMANIO_BLOQUE_LECTURA),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select i.id as id, u.id as ubicacionId, u.latitud as latitud, u.longitud as longitud, "
+            + "i.estadoIncidente.id as estadoIncidenteId from Incidente i join i.ubicacion u "
+            + "where u.latitud is not null and u.longitud is not null order by i.id")
+    Stream<PosicionIncidente> streamPosiciones();
+
+    /**
+     * Obtiene la posición y el estado de los incidentes ubicados en una ubicación.
+     * @param ubicacionId ID de la ubicación
+     * @return Posiciones de los incidentes (con coordenadas nulas si la ubicación no tiene)
+     */
+    @Query("select i.id as id, u.id as ubicacionId, u.latitud as latitud, u.longitud as longitud, "
+            + "i.estadoIncidente.id as estadoIncidenteId from Incidente i join i.ubicacion u where u.id = :ubicacionId")
+    List<PosicionIncidente> findPosicionesByUbicacionId(@Param("ubicacionId") int ubicacionId);
+
+    /**
+     * Obtiene los incidentes indicados junto a sus relaciones en una sola consulta.
+     * @param ids IDs de los incidentes
+     * @return Incidentes encontrados, sin un orden definido
+     */
+    @EntityGraph(Incidente.GRAFO_RELACIONES)
+    List<Incidente> findByIdIn(Collection<Integer> ids);
+
+    /**
+     * Obtiene la siguiente página de incidentes con ID mayor al cursor (paginación keyset).
+     * @param cursor ID del último elemento de la página anterior (0 para la primera página)
+     * @param limite Cantidad máxima de filas a obtener
+     * @return Lista ordenada por ID ascendente
+     */
+    @EntityGraph(Incidente.GRAFO_RELACIONES)
+    List<Incidente> findByIdGreaterThanOrderByIdAsc(int cursor, Limit limite);
+
+
+    /**
+     * Cuenta los incidentes agrupados por estado, tipo, comuna y equipo, en una sola consulta.
+     * @return Cantidad de incidentes por combinación (las relaciones ausentes vienen en null)
+     */
+    @Query("select e.id as estadoIncidenteId, t.id as tipoIncidenteId, u.comuna as comuna, q.id as equipoId, "
+            + "count(i) as cantidad from Incidente i left join i.estadoIncidente e left join i.tipoIncidente t "
+            + "left join i.ubicacion u left join i.equipo q group by e.id, t.id, u.comuna, q.id")
+    List<ConteoIncidentes> contarPorDimensiones();
+
+    /**
+     * Obtiene la comuna de cada ubicación que tiene incidentes.
+     * @return ID y comuna de las ubicaciones
+     */
+    @Query("select distinct u.id as id, u.comuna as comuna from Incidente i join i.ubicacion u")
+    List<ComunaUbicacion> findComunasDeUbicaciones();
+
+    /**
+     * Cuenta los incidentes ubicados en una ubicación.
+     * @param ubicacionId ID de la ubicación
+     * @return Cantidad de incidentes
+     */
+    long countByUbicacionId(int ubicacionId);
+
+}
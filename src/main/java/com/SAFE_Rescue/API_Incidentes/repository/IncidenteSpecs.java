@@ -0,0 +1,84 @@
+package com.SAFE_Rescue.API_Incidentes.repository;
+
+import com.SAFE_Rescue.API_Incidentes.dto.FiltroIncidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Condiciones reutilizables para buscar incidentes con {@link IncidenteRepository}.
+ * <p>
+ * Cada condición usa una columna cubierta por un índice compuesto que termina en el ID,
+ * de modo que la base de datos puede recorrer sólo el rango que coincide y, dentro de él,
+ * avanzar por ID para la paginación keyset.
+ * </p>
+ */
+public final class IncidenteSpecs {
+
+    private IncidenteSpecs() {
+    }
+
+    /**
+     * Combina todos los criterios indicados en el filtro junto a la condición del cursor.
+     * @param filtro Criterios de búsqueda (los nulos o vacíos se ignoran)
+     * @param cursor ID del último elemento recibido (0 para la primera página)
+     * @return Condición compuesta
+     */
+    public static Specification<Incidente> de(FiltroIncidente filtro, int cursor) {
+        return Specification.where(idMayorQue(cursor))
+                .and(conEstado(filtro.getEstadoIncidente()))
+                .and(conTipo(filtro.getTipoIncidente()))
+                .and(conEquipo(filtro.getEquipo()))
+                .and(enComuna(filtro.getComuna()))
+                .and(enRegion(filtro.getRegion()));
+    }
+
+    public static Specification<Incidente> idMayorQue(int cursor) {
+        return (incidente, consulta, cb) -> cb.greaterThan(incidente.get("id"), cursor);
+    }
+
+    public static Specification<Incidente> conEstado(Integer idEstado) {
+        return idEstado == null ? null
+                : (incidente, consulta, cb) -> cb.equal(incidente.get("estadoIncidente").get("id"), idEstado);
+    }
+
+    public static Specification<Incidente> conTipo(Integer idTipo) {
+        return idTipo == null ? null
+                : (incidente, consulta, cb) -> cb.equal(incidente.get("tipoIncidente").get("id"), idTipo);
+    }
+
+    public static Specification<Incidente> conEquipo(Integer idEquipo) {
+        return idEquipo == null ? null
+                : (incidente, consulta, cb) -> cb.equal(incidente.get("equipo").get("id"), idEquipo);
+    }
+
+    /**
+     * Filtra por comuna con una subconsulta sobre el índice (comuna, id) de Ubicacion, en lugar
+     * de un JOIN que se sumaría al de la carga de relaciones.
+     */
+    public static Specification<Incidente> enComuna(String comuna) {
+        return vacio(comuna) ? null : ubicacionCon("comuna", comuna.trim());
+    }
+
+    /**
+     * Filtra por región con una subconsulta sobre el índice (region, comuna, id) de Ubicacion.
+     */
+    public static Specification<Incidente> enRegion(String region) {
+        return vacio(region) ? null : ubicacionCon("region", region.trim());
+    }
+
+    private static Specification<Incidente> ubicacionCon(String atributo, String valor) {
+        return (incidente, consulta, cb) -> {
+            Subquery<Integer> ubicaciones = consulta.subquery(Integer.class);
+            var ubicacion = ubicaciones.from(Ubicacion.class);
+            ubicaciones.select(ubicacion.get("id")).where(cb.equal(ubicacion.get(atributo), valor));
+            return incidente.get("ubicacion").get("id").in(ubicaciones);
+        };
+    }
+
+    private static boolean vacio(String valor) {
+        return valor == null || valor.isBlank();
+    }
+
+}
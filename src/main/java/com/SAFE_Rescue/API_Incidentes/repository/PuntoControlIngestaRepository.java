@@ -0,0 +1,9 @@
+package com.SAFE_Rescue.API_Incidentes.repository;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.PuntoControlIngesta;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PuntoControlIngestaRepository extends JpaRepository<PuntoControlIngesta, String> {
+}
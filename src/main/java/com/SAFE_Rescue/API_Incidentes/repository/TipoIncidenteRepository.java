@@ -1,11 +1,29 @@
 package com.SAFE_Rescue.API_Incidentes.repository;
 
 import com.SAFE_Rescue.API_Incidentes.modelo.TipoIncidente;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface TipoIncidenteRepository extends JpaRepository<TipoIncidente, Long> {
 
+    /**
+     * Obtiene la siguiente página de tipos de incidente con ID mayor al cursor (paginación keyset).
+     * @param cursor ID del último elemento de la página anterior (0 para la primera página)
+     * @param limite Cantidad máxima de filas a obtener
+     * @return Lista ordenada por ID ascendente
+     */
+    List<TipoIncidente> findByIdGreaterThanOrderByIdAsc(int cursor, Limit limite);
+
+    /**
+     * Busca un tipo de incidente por su nombre (llave natural), sin distinguir mayúsculas de minúsculas.
+     * @param nombre Nombre a buscar
+     * @return Registro encontrado, si existe
+     */
+    Optional<TipoIncidente> findFirstByNombreIgnoreCase(String nombre);
 
 }
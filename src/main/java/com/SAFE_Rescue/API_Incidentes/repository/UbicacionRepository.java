@@ -1,10 +1,49 @@
 package com.SAFE_Rescue.API_Incidentes.repository;
 
 import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface UbicacionRepository extends JpaRepository<Ubicacion, Long> {
 
+    /**
+     * Obtiene la siguiente página de ubicaciones con ID mayor al cursor (paginación keyset).
+     * @param cursor ID del último elemento de la página anterior (0 para la primera página)
+     * @param limite Cantidad máxima de filas a obtener
+     * @return Lista ordenada por ID ascendente
+     */
+    List<Ubicacion> findByIdGreaterThanOrderByIdAsc(int cursor, Limit limite);
+
+    /**
+     * Busca una ubicación por su dirección (llave natural).
+     * @param calle Nombre de la calle
+     * @param numeracion Número de la dirección
+     * @param comuna Comuna de la dirección
+     * @return Ubicación encontrada, si existe
+     */
+    Optional<Ubicacion> findFirstByCalleAndNumeracionAndComuna(String calle, int numeracion, String comuna);
+
+    /**
+     * Busca en una sola consulta las ubicaciones con alguna de las numeraciones indicadas.
+     * @param numeraciones Numeraciones a buscar
+     * @return Ubicaciones encontradas
+     */
+    List<Ubicacion> findByNumeracionIn(Collection<Integer> numeraciones);
+
+    /**
+     * Obtiene sólo la comuna de una ubicación, sin cargar la entidad.
+     * @param id ID de la ubicación
+     * @return Comuna de la ubicación, si existe
+     */
+    @Query("select u.comuna from Ubicacion u where u.id = :id")
+    Optional<String> findComunaById(@Param("id") int id);
+
 }
@@ -0,0 +1,79 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+
+/**
+ * Buffer circular de tamaño fijo y sin bloqueos para los últimos eventos publicados.
+ * <p>
+ * Cada evento recibe un número de secuencia creciente (desde 1) y se guarda en la ranura
+ * {@code secuencia % capacidad}, sobrescribiendo al evento de hace {@code capacidad} posiciones.
+ * Varios hilos pueden publicar a la vez: cada uno reserva su secuencia con una operación atómica
+ * y luego escribe su ranura. Los lectores avanzan con su propio cursor; una ranura cuya secuencia
+ * no coincide con la buscada todavía no se publicó o ya fue sobrescrita, lo que se distingue
+ * con {@link #masAntigua()}.
+ * </p>
+ * @param <T> Tipo de los eventos
+ */
+final class BufferEventos<T> {
+
+    private final AtomicReferenceArray<Ranura<T>> ranuras;
+    private final int mascara;
+    private final AtomicLong siguiente = new AtomicLong(1);
+
+    /**
+     * @param capacidad Cantidad de eventos que se conservan, redondeada a la potencia de 2 siguiente
+     */
+    BufferEventos(int capacidad) {
+        if (capacidad < 1 || capacidad > 1 << 30) {
+            throw new IllegalArgumentException("La capacidad del buffer debe estar entre 1 y 2^30");
+        }
+        int potencia = Integer.highestOneBit(capacidad) == capacidad ? capacidad : Integer.highestOneBit(capacidad) << 1;
+        ranuras = new AtomicReferenceArray<>(potencia);
+        mascara = potencia - 1;
+    }
+
+    /**
+     * Publica un evento construido a partir de la secuencia que se le asigna.
+     * @param crear Construye el evento recibiendo su secuencia
+     * @return Secuencia asignada
+     */
+    long publicar(LongFunction<T> crear) {
+        long secuencia = siguiente.getAndIncrement();
+        ranuras.set((int) (secuencia & mascara), new Ranura<>(secuencia, crear.apply(secuencia)));
+        return secuencia;
+    }
+
+    /**
+     * Obtiene el evento de una secuencia.
+     * @param secuencia Secuencia buscada
+     * @return El evento, o null si aún no se termina de publicar o ya fue sobrescrito
+     */
+    T leer(long secuencia) {
+        Ranura<T> ranura = ranuras.get((int) (secuencia & mascara));
+        return ranura != null && ranura.secuencia == secuencia ? ranura.evento : null;
+    }
+
+    /**
+     * @return Última secuencia reservada (0 si no se ha publicado nada); puede estar aún escribiéndose
+     */
+    long ultima() {
+        return siguiente.get() - 1;
+    }
+
+    /**
+     * @return Secuencia más antigua que todavía no ha sido sobrescrita
+     */
+    long masAntigua() {
+        return Math.max(1, siguiente.get() - ranuras.length());
+    }
+
+    int capacidad() {
+        return ranuras.length();
+    }
+
+    private record Ranura<T>(long secuencia, T evento) {
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
+import com.SAFE_Rescue.API_Incidentes.dto.PosicionIncidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
+import com.SAFE_Rescue.API_Incidentes.repository.EstadoIncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.repository.UbicacionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Servicio de búsqueda de incidentes activos por cercanía geográfica.
+ * <p>
+ * Mantiene un {@link IndiceGeografico} en memoria con la posición de cada incidente activo
+ * (con ubicación georreferenciada y un estado que no está entre los cerrados). Se carga al
+ * iniciar la aplicación en segundo plano y se actualiza con cada {@link CambioIncidente} y
+ * {@link CambioUbicacion} confirmados, de modo que las búsquedas no consultan la base de datos.
+ * </p>
+ * <p>
+ * Los cambios se aplican después del commit en el hilo de la solicitud, para que el cliente que
+ * escribió encuentre el cambio en su siguiente búsqueda. Esto agrega a la respuesta de cada
+ * escritura de incidente una lectura de su ubicación (normalmente desde la caché de segundo nivel)
+ * y, al mover una ubicación, una consulta por índice de sus incidentes. Cuando cambia el catálogo
+ * de estados el índice se vuelve a cargar completo en segundo plano.
+ * </p>
+ */
+@Service
+public class BusquedaGeograficaService {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaGeograficaService.class);
+
+    /**
+     * Radio máximo aceptado en una búsqueda por radio
+     */
+    public static final double RADIO_MAXIMO_METROS = 100_000;
+
+    /**
+     * Lado de cada celda de la grilla del índice, en grados (0,01° son unos 1,1 km de latitud)
+     */
+    @Value("${incidentes.geo.tamanio-celda:0.01}")
+    private double tamanioCelda;
+
+    /**
+     * Nombres de los estados en que un incidente deja de estar activo
+     */
+    @Value("${incidentes.geo.estados-cerrados:Cerrado,Resuelto,Cancelado,Finalizado}")
+    private List<String> estadosCerrados;
+
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private UbicacionRepository ubicacionRepository;
+    @Autowired private EstadoIncidenteRepository estadoIncidenteRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private IndiceGeografico indice;
+    private Set<String> nombresCerrados;
+
+    /**
+     * Si cada estado (por ID) es cerrado; se consulta una vez por estado y se descarta cuando
+     * {@link EstadoIncidenteService} modifica el catálogo de estados
+     */
+    private final Map<Integer, Boolean> cerradoPorEstado = new ConcurrentHashMap<>();
+
+    private volatile boolean cargaCompleta;
+
+    /**
+     * Evita que dos cargas del índice se ejecuten a la vez
+     */
+    private final ReentrantLock candadoRecarga = new ReentrantLock();
+
+    /**
+     * Incidentes cambiados mientras se ejecuta la carga inicial; la carga no los sobrescribe
+     */
+    private final Set<Integer> cambiadosDuranteCarga = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock candadoCarga = new ReentrantLock();
+
+    @PostConstruct
+    void iniciarIndice() {
+        indice = new IndiceGeografico(tamanioCelda);
+        nombresCerrados = estadosCerrados.stream()
+                .map(nombre -> nombre.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Inicia la carga del índice desde la base de datos una vez que la aplicación está lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        cargarEnSegundoPlano("carga-indice-geografico");
+    }
+
+    private void cargarEnSegundoPlano(String nombreHilo) {
+        Thread carga = new Thread(this::cargar, nombreHilo);
+        carga.setDaemon(true);
+        carga.start();
+    }
+
+    /**
+     * Lee la posición de todos los incidentes georreferenciados y agrega los activos al índice,
+     * quitando los que ya no lo están.
+     */
+    void cargar() {
+        candadoRecarga.lock();
+        try {
+            cambiadosDuranteCarga.clear();
+            cargaCompleta = false;
+            leerPosiciones();
+        } finally {
+            cargaCompleta = true;
+            cambiadosDuranteCarga.clear();
+            candadoRecarga.unlock();
+        }
+    }
+
+    private void leerPosiciones() {
+        try {
+            TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+            lectura.setReadOnly(true);
+            lectura.executeWithoutResult(estado -> {
+                try (Stream<PosicionIncidente> posiciones = incidenteRepository.streamPosiciones()) {
+                    posiciones.forEach(posicion -> {
+                        candadoCarga.lock();
+                        try {
+                            if (!cambiadosDuranteCarga.contains(posicion.getId())) {
+                                aplicar(posicion.getId(), posicion.getLatitud(), posicion.getLongitud(), posicion.getEstadoIncidenteId());
+                            }
+                        } finally {
+                            candadoCarga.unlock();
+                        }
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("No se pudo cargar el índice geográfico", e);
+        }
+    }
+
+    /**
+     * Aplica al índice un cambio de incidente ya confirmado en la base de datos.
+     * @param cambio Cambio realizado
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarIncidente(CambioIncidente cambio) {
+        Double latitud = null;
+        Double longitud = null;
+        if (cambio.getTipo() != CambioIncidente.Tipo.ELIMINADO && cambio.getUbicacionId() != null) {
+            // La ubicación suele estar en la caché de segundo nivel
+            Ubicacion ubicacion = ubicacionRepository.findById((long) cambio.getUbicacionId()).orElse(null);
+            if (ubicacion != null) {
+                latitud = ubicacion.getLatitud();
+                longitud = ubicacion.getLongitud();
+            }
+        }
+        aplicarDuranteCarga(cambio.getId(), latitud, longitud, cambio.getEstadoIncidenteId());
+    }
+
+    /**
+     * Mueve en el índice los incidentes de una ubicación cuyas coordenadas cambiaron.
+     * @param cambio Cambio realizado
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarUbicacion(CambioUbicacion cambio) {
+        for (PosicionIncidente posicion : incidenteRepository.findPosicionesByUbicacionId(cambio.getId())) {
+            aplicarDuranteCarga(posicion.getId(), cambio.getLatitud(), cambio.getLongitud(), posicion.getEstadoIncidenteId());
+        }
+    }
+
+    private void aplicarDuranteCarga(int id, Double latitud, Double longitud, Integer estadoIncidenteId) {
+        if (cargaCompleta) {
+            aplicar(id, latitud, longitud, estadoIncidenteId);
+            return;
+        }
+        candadoCarga.lock();
+        try {
+            cambiadosDuranteCarga.add(id);
+            aplicar(id, latitud, longitud, estadoIncidenteId);
+        } finally {
+            candadoCarga.unlock();
+        }
+    }
+
+    private void aplicar(int id, Double latitud, Double longitud, Integer estadoIncidenteId) {
+        if (latitud != null && longitud != null && !esCerrado(estadoIncidenteId)) {
+            indice.ubicar(id, latitud, longitud);
+        } else {
+            indice.quitar(id);
+        }
+    }
+
+    /**
+     * Descarta qué estados son cerrados, para volver a consultarlo después de que un estado se
+     * renombra o se elimina, y vuelve a cargar el índice en segundo plano para reevaluar los
+     * incidentes ya indexados con el estado cambiado.
+     */
+    public void olvidarEstados() {
+        cerradoPorEstado.clear();
+        cargarEnSegundoPlano("recarga-indice-geografico");
+    }
+
+    private boolean esCerrado(Integer estadoIncidenteId) {
+        if (estadoIncidenteId == null) {
+            return false;
+        }
+        return cerradoPorEstado.computeIfAbsent(estadoIncidenteId, id -> estadoIncidenteRepository.findById((long) id)
+                .map(estado -> estado.getNombre() != null && nombresCerrados.contains(estado.getNombre().trim().toLowerCase(Locale.ROOT)))
+                .orElse(false));
+    }
+
+    // BÚSQUEDAS
+
+    /**
+     * Obtiene los incidentes activos más cercanos a una coordenada.
+     * @param latitud Latitud en grados decimales
+     * @param longitud Longitud en grados decimales
+     * @param k Cantidad de incidentes, acotada a {@link PaginaCursor#LIMITE_MAXIMO}
+     * @return Incidentes ordenados por distancia ascendente
+     * @throws IllegalArgumentException Si las coordenadas no son válidas
+     */
+    public List<IndiceGeografico.Cercano> cercanos(Double latitud, Double longitud, int k) {
+        UbicacionService.validarCoordenadas(latitud, longitud);
+        return indice.cercanos(latitud, longitud, PaginaCursor.normalizarLimite(k));
+    }
+
+    /**
+     * Obtiene los incidentes activos dentro de un radio, del más cercano al más lejano.
+     * @param latitud Latitud en grados decimales
+     * @param longitud Longitud en grados decimales
+     * @param metros Radio de búsqueda, hasta {@link #RADIO_MAXIMO_METROS}
+     * @param limite Cantidad máxima de incidentes, acotada a {@link PaginaCursor#LIMITE_MAXIMO}
+     * @return Incidentes dentro del radio, ordenados por distancia ascendente
+     * @throws IllegalArgumentException Si las coordenadas o el radio no son válidos
+     */
+    public List<IndiceGeografico.Cercano> enRadio(Double latitud, Double longitud, double metros, int limite) {
+        UbicacionService.validarCoordenadas(latitud, longitud);
+        if (!(metros > 0 && metros <= RADIO_MAXIMO_METROS)) {
+            throw new IllegalArgumentException("El radio debe ser mayor a 0 y de hasta " + (int) RADIO_MAXIMO_METROS + " metros");
+        }
+        return indice.enRadio(latitud, longitud, metros, PaginaCursor.normalizarLimite(limite));
+    }
+
+    /**
+     * @return Cantidad de incidentes activos en el índice
+     */
+    public int cantidadIndexados() {
+        return indice.cantidad();
+    }
+
+}
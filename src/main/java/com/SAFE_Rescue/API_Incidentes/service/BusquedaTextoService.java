@@ -0,0 +1,160 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.EstadisticasIndiceTexto;
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
+import com.SAFE_Rescue.API_Incidentes.dto.ResultadoBusquedaTexto;
+import com.SAFE_Rescue.API_Incidentes.dto.TextoIncidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Servicio de búsqueda de texto libre sobre el título y detalle de los incidentes.
+ * <p>
+ * Mantiene un {@link IndiceTexto} en memoria que se carga al iniciar la aplicación (en segundo
+ * plano, sin retrasar el arranque) y se actualiza con cada {@link CambioIncidente} confirmado.
+ * Las búsquedas no consultan la base de datos salvo para cargar los incidentes encontrados.
+ * </p>
+ */
+@Service
+public class BusquedaTextoService {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaTextoService.class);
+
+    /**
+     * Memoria máxima estimada que puede ocupar el índice
+     */
+    @Value("${incidentes.busqueda.presupuesto-memoria:512MB}")
+    private DataSize presupuestoMemoria;
+
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private IndiceTexto indice;
+    private volatile boolean cargaCompleta;
+
+    /**
+     * IDs eliminados mientras se ejecuta la carga inicial, para quitarlos si la carga alcanzó a leerlos
+     */
+    private final Set<Integer> eliminadosDuranteCarga = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void iniciarIndice() {
+        indice = new IndiceTexto(presupuestoMemoria.toBytes());
+    }
+
+    /**
+     * Inicia la carga del índice desde la base de datos una vez que la aplicación está lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        Thread carga = new Thread(this::cargar, "carga-indice-texto");
+        carga.setDaemon(true);
+        carga.start();
+    }
+
+    /**
+     * Lee todos los incidentes y los agrega al índice. Los incidentes creados o modificados
+     * durante la carga ya llegaron por {@link #alCambiar} y no se reemplazan.
+     */
+    void cargar() {
+        try {
+            TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+            lectura.setReadOnly(true);
+            lectura.executeWithoutResult(estado -> {
+                try (Stream<TextoIncidente> textos = incidenteRepository.streamTextos()) {
+                    textos.forEach(texto -> indice.indexarSiAusente(texto.getId(), texto.getTitulo(), texto.getDetalle()));
+                }
+            });
+            cargaCompleta = true;
+            eliminadosDuranteCarga.forEach(indice::quitar);
+            eliminadosDuranteCarga.clear();
+            if (indice.documentosRechazados() > 0) {
+                log.warn("Índice de texto incompleto: {} incidentes superan el presupuesto de {}",
+                        indice.documentosRechazados(), presupuestoMemoria);
+            }
+        } catch (RuntimeException e) {
+            log.error("No se pudo cargar el índice de texto", e);
+        }
+    }
+
+    /**
+     * Aplica al índice un cambio de incidente ya confirmado en la base de datos.
+     * @param cambio Cambio realizado
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiar(CambioIncidente cambio) {
+        if (cambio.getTipo() == CambioIncidente.Tipo.ELIMINADO) {
+            if (!cargaCompleta) {
+                eliminadosDuranteCarga.add(cambio.getId());
+            }
+            indice.quitar(cambio.getId());
+        } else {
+            indice.indexar(cambio.getId(), cambio.getTitulo(), cambio.getDetalle());
+        }
+    }
+
+    /**
+     * Busca incidentes cuyo título o detalle contengan todas las palabras de la consulta
+     * (sin distinguir mayúsculas ni tildes, y aceptando prefijos de 3 o más letras).
+     * @param consulta Texto de búsqueda, por ejemplo "incendio estructural"
+     * @param limite Cantidad máxima de resultados, acotada a {@link PaginaCursor#LIMITE_MAXIMO}
+     * @return Incidentes encontrados, del más al menos relevante
+     * @throws IllegalArgumentException Si la consulta no contiene palabras buscables
+     */
+    public List<ResultadoBusquedaTexto> buscar(String consulta, int limite) {
+        if (IndiceTexto.tokenizar(consulta).isEmpty()) {
+            throw new IllegalArgumentException("La consulta debe contener al menos una palabra de 2 o más letras");
+        }
+        List<IndiceTexto.Coincidencia> coincidencias = indice.buscar(consulta, PaginaCursor.normalizarLimite(limite));
+        if (coincidencias.isEmpty()) {
+            return List.of();
+        }
+
+        List<Integer> ids = coincidencias.stream().map(IndiceTexto.Coincidencia::getId).toList();
+        Map<Integer, Incidente> incidentes = incidenteRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(Incidente::getId, Function.identity()));
+
+        List<ResultadoBusquedaTexto> resultados = new ArrayList<>(coincidencias.size());
+        for (IndiceTexto.Coincidencia coincidencia : coincidencias) {
+            Incidente incidente = incidentes.get(coincidencia.getId());
+            if (incidente != null) {
+                resultados.add(new ResultadoBusquedaTexto(coincidencia.getPuntaje(), incidente));
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Obtiene el tamaño actual del índice y su uso del presupuesto de memoria.
+     * @return Estadísticas del índice
+     */
+    public EstadisticasIndiceTexto estadisticas() {
+        long bytes = indice.bytesEstimados();
+        long presupuesto = indice.getPresupuestoBytes();
+        return new EstadisticasIndiceTexto(indice.cantidadDocumentos(), indice.cantidadTerminos(),
+                indice.cantidadEntradas(), bytes, presupuesto, presupuesto == 0 ? 0 : (double) bytes / presupuesto,
+                indice.documentosRechazados(), cargaCompleta);
+    }
+
+}
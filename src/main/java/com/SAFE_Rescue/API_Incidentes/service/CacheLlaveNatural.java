@@ -0,0 +1,122 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caché en memoria que asocia la llave natural de una entidad (RUN, nombre, dirección)
+ * con su ID, para resolver referencias sin consultar la base de datos.
+ * <p>
+ * Tiene una capacidad máxima; al superarla se descarta la llave usada hace más tiempo. Un
+ * índice inverso de ID a llaves permite olvidar un ID sin recorrer toda la caché.
+ * Se protege con un {@link ReentrantLock} y no con {@code synchronized}, para que un hilo
+ * virtual que espera el candado no bloquee su hilo portador.
+ * </p>
+ *
+ * @param <K> Tipo de la llave natural
+ */
+class CacheLlaveNatural<K> {
+
+    private final Map<K, Integer> ids;
+
+    /**
+     * Llaves de cada ID presente en {@link #ids}
+     */
+    private final Map<Integer, Set<K>> llavesPorId = new HashMap<>();
+    private final ReentrantLock candado = new ReentrantLock();
+
+    /**
+     * @param capacidad Cantidad máxima de llaves que se mantienen en memoria
+     */
+    CacheLlaveNatural(int capacidad) {
+        this.ids = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Integer> eldest) {
+                if (size() <= capacidad) {
+                    return false;
+                }
+                quitarLlave(eldest.getValue(), eldest.getKey());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param llave Llave natural
+     * @return ID asociado, o null si la llave no está en la caché
+     */
+    Integer obtener(K llave) {
+        // get también modifica el mapa: mueve la llave al final del orden de acceso
+        candado.lock();
+        try {
+            return ids.get(llave);
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Registra una llave de una fila que ya existe en la base de datos.
+     */
+    void recordar(K llave, int id) {
+        candado.lock();
+        try {
+            Integer anterior = ids.put(llave, id);
+            if (anterior != null && anterior != id) {
+                quitarLlave(anterior, llave);
+            }
+            llavesPorId.computeIfAbsent(id, sinLlaves -> new HashSet<>()).add(llave);
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Registra una llave de una fila insertada en la transacción actual, una vez que se confirme.
+     */
+    void recordarAlConfirmar(K llave, int id) {
+        DespuesDeCommit.ejecutar(() -> recordar(llave, id));
+    }
+
+    /**
+     * Elimina las llaves asociadas a un ID (por ejemplo, al modificar o eliminar la entidad).
+     */
+    void olvidar(int id) {
+        candado.lock();
+        try {
+            Set<K> llaves = llavesPorId.remove(id);
+            if (llaves != null) {
+                llaves.forEach(ids::remove);
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * @return Cantidad de llaves en la caché
+     */
+    int cantidad() {
+        candado.lock();
+        try {
+            return ids.size();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Quita una llave del índice inverso; se llama con el candado tomado.
+     */
+    private void quitarLlave(int id, K llave) {
+        Set<K> llaves = llavesPorId.get(id);
+        if (llaves != null && llaves.remove(llave) && llaves.isEmpty()) {
+            llavesPorId.remove(id);
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import lombok.Value;
+
+/**
+ * Evento publicado por {@link IncidenteService} cada vez que se crea, modifica o elimina
+ * un incidente. Los interesados lo reciben con {@code @TransactionalEventListener}, es decir,
+ * sólo cuando la transacción que hizo el cambio se confirma.
+ */
+@Value
+public class CambioIncidente {
+
+    /**
+     * Tipos de cambio posibles; ASIGNADO indica que cambió una relación mediante los métodos asignar*
+     */
+    public enum Tipo { CREADO, ACTUALIZADO, ASIGNADO, ELIMINADO }
+
+    Tipo tipo;
+
+    /**
+     * ID del incidente afectado
+     */
+    int id;
+
+    /**
+     * Título del incidente después del cambio (null si fue eliminado)
+     */
+    String titulo;
+
+    /**
+     * Detalle del incidente después del cambio (null si fue eliminado)
+     */
+    String detalle;
+
+    /**
+     * ID de la ubicación del incidente después del cambio (null si no tiene o fue eliminado)
+     */
+    Integer ubicacionId;
+
+    /**
+     * ID del estado del incidente después del cambio (null si no tiene o fue eliminado)
+     */
+    Integer estadoIncidenteId;
+
+    public static CambioIncidente de(Tipo tipo, Incidente incidente) {
+        // Sólo se leen los IDs de las relaciones, que no requieren inicializar las referencias
+        return new CambioIncidente(tipo, incidente.getId(), incidente.getTitulo(), incidente.getDetalle(),
+                incidente.getUbicacion() == null ? null : incidente.getUbicacion().getId(),
+                incidente.getEstadoIncidente() == null ? null : incidente.getEstadoIncidente().getId());
+    }
+
+    public static CambioIncidente eliminado(int id) {
+        return new CambioIncidente(Tipo.ELIMINADO, id, null, null, null, null);
+    }
+
+}
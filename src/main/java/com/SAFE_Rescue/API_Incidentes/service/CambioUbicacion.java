@@ -0,0 +1,36 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
+import lombok.Value;
+
+/**
+ * Evento publicado por {@link UbicacionService} cada vez que se crea, modifica o elimina
+ * una ubicación, para que los incidentes ubicados en ella se muevan en el índice geográfico.
+ */
+@Value
+public class CambioUbicacion {
+
+    /**
+     * ID de la ubicación afectada
+     */
+    int id;
+
+    /**
+     * Latitud después del cambio (null si no tiene coordenadas o fue eliminada)
+     */
+    Double latitud;
+
+    /**
+     * Longitud después del cambio (null si no tiene coordenadas o fue eliminada)
+     */
+    Double longitud;
+
+    public static CambioUbicacion de(Ubicacion ubicacion) {
+        return new CambioUbicacion(ubicacion.getId(), ubicacion.getLatitud(), ubicacion.getLongitud());
+    }
+
+    public static CambioUbicacion eliminada(int id) {
+        return new CambioUbicacion(id, null, null);
+    }
+
+}
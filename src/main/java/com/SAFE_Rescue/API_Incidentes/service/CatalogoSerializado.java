@@ -0,0 +1,170 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Respuestas JSON ya serializadas (UTF-8) de un catálogo pequeño y de lectura frecuente.
+ * <p>
+ * Se guarda una instantánea con el JSON de cada elemento y de las páginas solicitadas, de modo
+ * que una lectura no consulta la base de datos ni ejecuta Jackson. La instantánea se reconstruye
+ * sólo cuando el servicio dueño del catálogo lo modifica, una vez confirmada la transacción,
+ * por lo que toda escritura del catálogo debe pasar por ese servicio.
+ * </p>
+ * <p>
+ * Cada instantánea guarda la generación con que se construyó; si el catálogo cambia mientras
+ * se construye, esa instantánea ya no se publica como vigente y la siguiente lectura la reemplaza.
+ * </p>
+ *
+ * @param <T> Tipo de los elementos del catálogo
+ */
+final class CatalogoSerializado<T> {
+
+    private final Supplier<List<T>> cargador;
+    private final ToIntFunction<T> id;
+    private final ObjectMapper objectMapper;
+    private final Runnable alCambiar;
+
+    private final AtomicLong generacion = new AtomicLong();
+    private volatile Instantanea instantanea;
+
+    /**
+     * @param cargador Obtiene todos los elementos del catálogo ordenados por ID ascendente
+     * @param id Función que obtiene el ID de cada elemento
+     * @param objectMapper Serializador usado por los controladores
+     */
+    CatalogoSerializado(Supplier<List<T>> cargador, ToIntFunction<T> id, ObjectMapper objectMapper) {
+        this(cargador, id, objectMapper, () -> { });
+    }
+
+    /**
+     * @param cargador Obtiene todos los elementos del catálogo ordenados por ID ascendente
+     * @param id Función que obtiene el ID de cada elemento
+     * @param objectMapper Serializador usado por los controladores
+     * @param alCambiar Se ejecuta antes de cada reconstrucción, para descartar otros datos en memoria
+     *                  que dependen del catálogo
+     */
+    CatalogoSerializado(Supplier<List<T>> cargador, ToIntFunction<T> id, ObjectMapper objectMapper, Runnable alCambiar) {
+        this.cargador = cargador;
+        this.id = id;
+        this.objectMapper = objectMapper;
+        this.alCambiar = alCambiar;
+    }
+
+    /**
+     * Obtiene el JSON de una página del catálogo (mismo formato que {@link PaginaCursor}).
+     * @param cursor ID del último elemento recibido (0 para la primera página)
+     * @param limite Cantidad de elementos solicitados
+     * @return JSON de la página, o null si no hay elementos después del cursor
+     */
+    byte[] pagina(int cursor, int limite) {
+        return vigente().pagina(cursor, PaginaCursor.normalizarLimite(limite));
+    }
+
+    /**
+     * Obtiene el JSON de un elemento del catálogo.
+     * @param idElemento ID del elemento
+     * @return JSON del elemento, o null si no existe
+     */
+    byte[] porId(long idElemento) {
+        if (idElemento <= 0 || idElemento > Integer.MAX_VALUE) {
+            return null;
+        }
+        return vigente().porId.get((int) idElemento);
+    }
+
+    /**
+     * Descarta la instantánea actual al confirmar la transacción en curso y construye la nueva.
+     * Se reconstruye una sola vez por transacción, aunque se modifiquen varios elementos.
+     */
+    void reconstruirAlConfirmar() {
+        DespuesDeCommit.ejecutarUnaVez(this, () -> {
+            alCambiar.run();
+            generacion.incrementAndGet();
+            vigente();
+        });
+    }
+
+    private Instantanea vigente() {
+        Instantanea actual = instantanea;
+        long generacionActual = generacion.get();
+        if (actual != null && actual.generacion == generacionActual) {
+            return actual;
+        }
+        Instantanea nueva = new Instantanea(generacionActual, cargador.get());
+        if (generacion.get() == generacionActual) {
+            instantanea = nueva;
+        }
+        return nueva;
+    }
+
+    private byte[] serializar(Object valor) {
+        try {
+            return objectMapper.writeValueAsBytes(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el catálogo: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Contenido del catálogo en un momento dado.
+     */
+    private final class Instantanea {
+
+        private final long generacion;
+        private final List<T> elementos;
+        private final int[] ids;
+        private final Map<Integer, byte[]> porId;
+
+        /**
+         * Páginas canónicas ya serializadas, por posición del primer elemento y tamaño. Sólo se
+         * guardan las que empiezan en un múltiplo de su tamaño (las que se obtienen al recorrer el
+         * catálogo desde el inicio), así que hay a lo sumo unas (elementos x 6) entradas aunque
+         * los clientes pidan cursores arbitrarios.
+         */
+        private final Map<Long, byte[]> paginas = new ConcurrentHashMap<>();
+
+        private Instantanea(long generacion, List<T> elementos) {
+            this.generacion = generacion;
+            this.elementos = List.copyOf(elementos);
+            this.ids = new int[elementos.size()];
+            this.porId = new HashMap<>(elementos.size() * 2);
+            for (int i = 0; i < elementos.size(); i++) {
+                T elemento = elementos.get(i);
+                ids[i] = id.applyAsInt(elemento);
+                porId.put(ids[i], serializar(elemento));
+            }
+        }
+
+        private byte[] pagina(int cursor, int tamanio) {
+            // Posición del primer elemento con id > cursor
+            int posicion = Arrays.binarySearch(ids, cursor);
+            int inicio = posicion >= 0 ? posicion + 1 : -posicion - 1;
+            if (inicio >= ids.length) {
+                return null;
+            }
+            if (inicio % tamanio != 0) {
+                return serializarPagina(inicio, tamanio);
+            }
+            long llave = ((long) inicio << 32) | tamanio;
+            return paginas.computeIfAbsent(llave, ignorada -> serializarPagina(inicio, tamanio));
+        }
+
+        private byte[] serializarPagina(int inicio, int tamanio) {
+            int fin = Math.min(inicio + tamanio + 1, elementos.size());
+            return serializar(PaginaCursor.de(elementos.subList(inicio, fin), tamanio, id));
+        }
+
+    }
+
+}
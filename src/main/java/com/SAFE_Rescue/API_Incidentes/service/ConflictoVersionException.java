@@ -0,0 +1,18 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+/**
+ * Indica que un incidente no se pudo modificar porque su versión no es la que esperaba el
+ * cliente, ya sea porque el cliente la indicó explícitamente o porque otra operación lo
+ * modificó de forma concurrente.
+ */
+public class ConflictoVersionException extends RuntimeException {
+
+    public ConflictoVersionException(String mensaje) {
+        super(mensaje);
+    }
+
+    public ConflictoVersionException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilidad para ejecutar acciones sólo cuando la transacción actual se confirma.
+ * <p>
+ * Se usa para actualizar estructuras en memoria (cachés, índices) sin que queden con
+ * datos de una transacción que luego se revierte. Si no hay una transacción activa,
+ * la acción se ejecuta de inmediato.
+ * </p>
+ */
+final class DespuesDeCommit {
+
+    private DespuesDeCommit() {
+    }
+
+    /**
+     * Ejecuta la acción al confirmar la transacción actual, o de inmediato si no hay transacción.
+     * @param accion Acción a ejecutar
+     */
+    static void ejecutar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Ejecuta la acción al confirmar la transacción actual, una sola vez aunque se pida varias veces
+     * con la misma llave en la transacción (por ejemplo, al insertar varios elementos de un lote).
+     * @param llave Identifica la acción (se compara por identidad)
+     * @param accion Acción a ejecutar
+     */
+    static void ejecutarUnaVez(Object llave, Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        for (TransactionSynchronization registrada : TransactionSynchronizationManager.getSynchronizations()) {
+            if (registrada instanceof UnaVez unaVez && unaVez.llave == llave) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new UnaVez(llave, accion));
+    }
+
+    /**
+     * Acción registrada con {@link #ejecutarUnaVez}, que recuerda su llave.
+     */
+    private record UnaVez(Object llave, Runnable accion) implements TransactionSynchronization {
+        @Override
+        public void afterCommit() {
+            accion.run();
+        }
+    }
+
+}
@@ -0,0 +1,345 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Diario local de sólo agregado, mapeado en memoria, donde se guardan los incidentes recibidos
+ * antes de escribirlos en la base de datos.
+ * <p>
+ * Se divide en segmentos de tamaño fijo ({@code diario-<primera secuencia>.log}). Cada entrada
+ * tiene una cabecera con el largo de los datos, su secuencia y un CRC32 de ambos; el largo se
+ * escribe al final, de modo que una entrada a medio escribir no se considera válida. Al abrir el
+ * diario se recorren los segmentos hasta la primera entrada inválida, que marca el final.
+ * </p>
+ * <p>
+ * Las secuencias empiezan en 1 y son consecutivas. El diario tiene un identificador propio
+ * (archivo {@code diario.id}): si se borra el directorio, el diario nuevo tiene otro
+ * identificador y sus secuencias no se confunden con las ya aplicadas del anterior.
+ * </p>
+ * <p>
+ * Varios hilos pueden agregar a la vez; la lectura ({@link #leer}) la hace un solo hilo.
+ * </p>
+ */
+final class DiarioIngesta implements Closeable {
+
+    /**
+     * Largo (int), secuencia (long) y CRC32 (int) de cada entrada
+     */
+    static final int CABECERA = 16;
+
+    private static final String PREFIJO = "diario-";
+    private static final String EXTENSION = ".log";
+    private static final String ARCHIVO_ID = "diario.id";
+
+    private final Path directorio;
+    private final int tamanioSegmento;
+    private final boolean sincronizar;
+    private final String id;
+
+    private final List<Segmento> segmentos = new CopyOnWriteArrayList<>();
+    private final ReentrantLock escritura = new ReentrantLock();
+    private volatile long ultima;
+
+    /**
+     * Posición de lectura: segmento, posición dentro de él y secuencia de la última entrada leída
+     */
+    private Segmento segmentoLectura;
+    private int posicionLectura;
+    private long secuenciaLectura = -1;
+
+    /**
+     * Abre el diario del directorio, o lo crea si no existe, y recupera su final.
+     * @param directorio Directorio del diario
+     * @param tamanioSegmento Tamaño en bytes de cada segmento nuevo
+     * @param sincronizar Si cada entrada se fuerza a disco antes de confirmarla
+     * @throws IOException Si no se puede leer o crear el diario
+     * @throws IllegalStateException Si los segmentos existentes no son consecutivos
+     */
+    DiarioIngesta(Path directorio, int tamanioSegmento, boolean sincronizar) throws IOException {
+        if (tamanioSegmento <= CABECERA) {
+            throw new IllegalArgumentException("El tamaño de segmento del diario debe ser mayor que " + CABECERA + " bytes");
+        }
+        this.directorio = directorio;
+        this.tamanioSegmento = tamanioSegmento;
+        this.sincronizar = sincronizar;
+        Files.createDirectories(directorio);
+        this.id = leerOCrearId();
+        recuperar();
+    }
+
+    /**
+     * @return Identificador de este diario
+     */
+    String id() {
+        return id;
+    }
+
+    /**
+     * @return Secuencia de la última entrada agregada, o 0 si el diario está vacío
+     */
+    long ultima() {
+        return ultima;
+    }
+
+    /**
+     * Agrega una entrada al final del diario.
+     * @param datos Contenido de la entrada
+     * @return Secuencia asignada a la entrada
+     * @throws IllegalArgumentException Si la entrada está vacía o no cabe en un segmento
+     * @throws IOException Si no se puede crear un segmento nuevo
+     */
+    long agregar(byte[] datos) throws IOException {
+        if (datos.length == 0 || CABECERA + datos.length > tamanioSegmento) {
+            throw new IllegalArgumentException("La entrada del diario debe tener entre 1 y "
+                    + (tamanioSegmento - CABECERA) + " bytes");
+        }
+        escritura.lock();
+        try {
+            long secuencia = ultima + 1;
+            Segmento actual = segmentos.isEmpty() ? null : segmentos.get(segmentos.size() - 1);
+            if (actual == null || actual.fin + CABECERA + datos.length > actual.mapa.capacity()) {
+                actual = crearSegmento(secuencia);
+            }
+            actual.escribir(secuencia, datos, sincronizar);
+            ultima = secuencia;
+            return secuencia;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Lee las entradas siguientes a una secuencia, en orden.
+     * @param despuesDe Secuencia de la última entrada ya procesada
+     * @param maximo Cantidad máxima de entradas a leer
+     * @return Entradas con secuencia mayor que {@code despuesDe}; vacía si no hay más
+     */
+    List<Entrada> leer(long despuesDe, int maximo) {
+        if (secuenciaLectura != despuesDe && !posicionar(despuesDe)) {
+            return List.of();
+        }
+        List<Entrada> entradas = new ArrayList<>(Math.min(maximo, 1024));
+        while (entradas.size() < maximo) {
+            if (posicionLectura >= segmentoLectura.fin) {
+                Segmento siguiente = siguienteA(segmentoLectura);
+                // El segmento actual puede seguir creciendo mientras no haya uno posterior
+                if (siguiente == null || posicionLectura < segmentoLectura.fin) {
+                    break;
+                }
+                segmentoLectura = siguiente;
+                posicionLectura = 0;
+                continue;
+            }
+            Entrada entrada = segmentoLectura.leer(posicionLectura);
+            entradas.add(entrada);
+            posicionLectura += CABECERA + entrada.datos().length;
+            secuenciaLectura = entrada.secuencia();
+        }
+        return entradas;
+    }
+
+    /**
+     * Elimina los segmentos cuyas entradas ya fueron todas aplicadas, salvo el último.
+     * @param secuencia Secuencia de la última entrada aplicada
+     * @throws IOException Si no se puede eliminar un segmento
+     */
+    void liberarHasta(long secuencia) throws IOException {
+        for (Segmento segmento : segmentos) {
+            if (segmento == segmentos.get(segmentos.size() - 1) || segmento.ultima > secuencia) {
+                break;
+            }
+            segmentos.remove(segmento);
+            Files.deleteIfExists(segmento.ruta);
+        }
+    }
+
+    /**
+     * @return Cantidad de segmentos en disco
+     */
+    int cantidadSegmentos() {
+        return segmentos.size();
+    }
+
+    @Override
+    public void close() {
+        escritura.lock();
+        try {
+            segmentos.forEach(segmento -> segmento.mapa.force());
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private boolean posicionar(long despuesDe) {
+        for (Segmento segmento : segmentos) {
+            if (despuesDe + 1 < segmento.primera || despuesDe > segmento.ultima) {
+                continue;
+            }
+            int posicion = 0;
+            for (long secuencia = segmento.primera; secuencia <= despuesDe; secuencia++) {
+                posicion += CABECERA + segmento.mapa.getInt(posicion);
+            }
+            segmentoLectura = segmento;
+            posicionLectura = posicion;
+            secuenciaLectura = despuesDe;
+            return true;
+        }
+        return false;
+    }
+
+    private Segmento siguienteA(Segmento segmento) {
+        for (Segmento candidato : segmentos) {
+            if (candidato.primera > segmento.ultima) {
+                return candidato;
+            }
+        }
+        return null;
+    }
+
+    private String leerOCrearId() throws IOException {
+        Path ruta = directorio.resolve(ARCHIVO_ID);
+        if (Files.exists(ruta)) {
+            return Files.readString(ruta, StandardCharsets.UTF_8).trim();
+        }
+        String nuevo = UUID.randomUUID().toString();
+        Files.writeString(ruta, nuevo, StandardCharsets.UTF_8);
+        return nuevo;
+    }
+
+    private void recuperar() throws IOException {
+        List<Path> rutas;
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            // Los nombres tienen la secuencia con ceros a la izquierda: el orden alfabético es el de las secuencias
+            rutas = archivos.filter(ruta -> ruta.getFileName().toString().startsWith(PREFIJO)
+                    && ruta.getFileName().toString().endsWith(EXTENSION)).sorted().toList();
+        }
+        for (Path ruta : rutas) {
+            String nombre = ruta.getFileName().toString();
+            long primera = Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length()));
+            if (!segmentos.isEmpty() && primera != ultima + 1) {
+                throw new IllegalStateException("El diario de ingesta está dañado: el segmento " + nombre
+                        + " no continúa la secuencia " + ultima);
+            }
+            Segmento segmento = new Segmento(ruta, primera, mapear(ruta, (int) Files.size(ruta)));
+            segmento.recuperar();
+            segmentos.add(segmento);
+            ultima = segmento.ultima;
+        }
+    }
+
+    private Segmento crearSegmento(long primera) throws IOException {
+        Path ruta = directorio.resolve(String.format("%s%020d%s", PREFIJO, primera, EXTENSION));
+        Segmento segmento = new Segmento(ruta, primera, mapear(ruta, tamanioSegmento));
+        segmentos.add(segmento);
+        return segmento;
+    }
+
+    private static MappedByteBuffer mapear(Path ruta, int tamanio) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanio);
+        }
+    }
+
+    private static int crc(long secuencia, byte[] datos) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, secuencia));
+        crc.update(datos);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Entrada del diario.
+     * @param secuencia Secuencia de la entrada
+     * @param datos Contenido de la entrada
+     */
+    record Entrada(long secuencia, byte[] datos) {
+    }
+
+    /**
+     * Archivo del diario mapeado en memoria.
+     */
+    private static final class Segmento {
+
+        private final Path ruta;
+        private final long primera;
+        private final MappedByteBuffer mapa;
+
+        /**
+         * Posición siguiente a la última entrada y secuencia de esa entrada ({@code primera - 1} si no tiene)
+         */
+        private volatile int fin;
+        private volatile long ultima;
+
+        private Segmento(Path ruta, long primera, MappedByteBuffer mapa) {
+            this.ruta = ruta;
+            this.primera = primera;
+            this.mapa = mapa;
+            this.ultima = primera - 1;
+        }
+
+        private void escribir(long secuencia, byte[] datos, boolean sincronizar) {
+            int posicion = fin;
+            mapa.putLong(posicion + 4, secuencia);
+            mapa.putInt(posicion + 12, crc(secuencia, datos));
+            mapa.put(posicion + CABECERA, datos);
+            // El largo se escribe al final: hasta entonces la entrada no es válida
+            mapa.putInt(posicion, datos.length);
+            if (sincronizar) {
+                mapa.force(posicion, CABECERA + datos.length);
+            }
+            ultima = secuencia;
+            fin = posicion + CABECERA + datos.length;
+        }
+
+        private Entrada leer(int posicion) {
+            byte[] datos = new byte[mapa.getInt(posicion)];
+            mapa.get(posicion + CABECERA, datos);
+            return new Entrada(mapa.getLong(posicion + 4), datos);
+        }
+
+        /**
+         * Recorre las entradas válidas desde el principio y deja el final después de la última.
+         */
+        private void recuperar() {
+            int posicion = 0;
+            long secuencia = primera;
+            while (posicion + CABECERA <= mapa.capacity()) {
+                int largo = mapa.getInt(posicion);
+                if (largo <= 0 || largo > mapa.capacity() - posicion - CABECERA
+                        || mapa.getLong(posicion + 4) != secuencia) {
+                    break;
+                }
+                byte[] datos = new byte[largo];
+                mapa.get(posicion + CABECERA, datos);
+                if (mapa.getInt(posicion + 12) != crc(secuencia, datos)) {
+                    break;
+                }
+                posicion += CABECERA + largo;
+                secuencia++;
+            }
+            // Una entrada a medio escribir queda invalidada para que no se confunda con una nueva
+            if (posicion + CABECERA <= mapa.capacity()) {
+                mapa.putInt(posicion, 0);
+            }
+            fin = posicion;
+            ultima = secuencia - 1;
+        }
+
+    }
+
+}
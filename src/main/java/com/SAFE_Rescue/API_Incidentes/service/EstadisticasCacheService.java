@@ -0,0 +1,107 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.EstadisticasCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio que expone los aciertos y fallos de la caché de segundo nivel de Hibernate,
+ * para comprobar cuánta carga le quita a la base de datos.
+ * <p>
+ * Requiere {@code hibernate.generate_statistics=true}; de lo contrario los contadores quedan en 0.
+ * </p>
+ * <p>
+ * Los contadores se informan como diferencia respecto de la última llamada a {@link #reiniciar()}.
+ * Las estadísticas de Hibernate nunca se reinician, porque también las publican las métricas de
+ * Prometheus como contadores que sólo deben crecer.
+ * </p>
+ */
+@Service
+public class EstadisticasCacheService {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Contadores al último reinicio, por región y con la llave {@link #TOTAL} para la suma
+     */
+    private volatile Map<String, Contadores> base = Map.of();
+
+    private static final String TOTAL = "total";
+
+    /**
+     * Obtiene los contadores de cada región de la caché, ordenados por nombre.
+     * @return Lista con las estadísticas de cada región
+     */
+    public List<EstadisticasCache> findAll() {
+        Statistics estadisticas = estadisticas();
+        String[] regiones = estadisticas.getSecondLevelCacheRegionNames();
+        Arrays.sort(regiones);
+
+        List<EstadisticasCache> resultado = new ArrayList<>(regiones.length);
+        for (String region : regiones) {
+            resultado.add(desdeReinicio(region, deRegion(estadisticas, region)));
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene los contadores sumados de todas las regiones.
+     * @return Estadísticas totales de la caché de segundo nivel
+     */
+    public EstadisticasCache total() {
+        return desdeReinicio(TOTAL, total(estadisticas()));
+    }
+
+    /**
+     * Reinicia los contadores informados por este servicio (no vacía la caché ni modifica las
+     * estadísticas de Hibernate).
+     */
+    public void reiniciar() {
+        Statistics estadisticas = estadisticas();
+        Map<String, Contadores> nueva = new HashMap<>();
+        for (String region : estadisticas.getSecondLevelCacheRegionNames()) {
+            nueva.put(region, deRegion(estadisticas, region));
+        }
+        nueva.put(TOTAL, total(estadisticas));
+        base = nueva;
+    }
+
+    private EstadisticasCache desdeReinicio(String region, Contadores actuales) {
+        Contadores inicio = base.getOrDefault(region, Contadores.CERO);
+        return EstadisticasCache.de(region, actuales.aciertos - inicio.aciertos, actuales.fallos - inicio.fallos,
+                actuales.escrituras - inicio.escrituras);
+    }
+
+    private static Contadores deRegion(Statistics estadisticas, String region) {
+        CacheRegionStatistics deRegion = estadisticas.getDomainDataRegionStatistics(region);
+        return new Contadores(deRegion.getHitCount(), deRegion.getMissCount(), deRegion.getPutCount());
+    }
+
+    private static Contadores total(Statistics estadisticas) {
+        return new Contadores(estadisticas.getSecondLevelCacheHitCount(), estadisticas.getSecondLevelCacheMissCount(),
+                estadisticas.getSecondLevelCachePutCount());
+    }
+
+    private Statistics estadisticas() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Contadores de una región en un momento dado.
+     */
+    private record Contadores(long aciertos, long fallos, long escrituras) {
+        static final Contadores CERO = new Contadores(0, 0, 0);
+    }
+
+}
@@ -0,0 +1,329 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.ComunaUbicacion;
+import com.SAFE_Rescue.API_Incidentes.dto.ConteoIncidentes;
+import com.SAFE_Rescue.API_Incidentes.dto.EstadisticasIncidentes;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.repository.UbicacionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cantidad de incidentes en total y por estado, tipo, comuna y equipo, mantenida en memoria para
+ * que los tableros la consulten sin recorrer los incidentes.
+ * <p>
+ * Los contadores ({@link LongAdder}) se llenan al iniciar con una consulta agrupada y después los
+ * actualiza {@link IncidenteService} al confirmarse cada creación, modificación, asignación o
+ * eliminación, y {@link UbicacionService} al cambiar la comuna de una ubicación. La comuna de una
+ * ubicación indicada sólo por ID se toma de las ubicaciones ya vistas o de la caché de segundo nivel;
+ * si no está en ninguna, se consulta sólo su comuna y se recuerda para los incidentes siguientes.
+ * </p>
+ * <p>
+ * La conciliación periódica ({@code incidentes.estadisticas.conciliacion}) vuelve a contar en la
+ * base de datos y corrige las diferencias que se repiten en dos pasadas seguidas: una diferencia
+ * que aparece sólo una vez suele ser una transacción confirmada entre la consulta y la comparación.
+ * </p>
+ */
+@Service
+public class EstadisticasIncidenteService {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadisticasIncidenteService.class);
+
+    private static final String TOTAL = "total";
+
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private UbicacionRepository ubicacionRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private final Dimension<String> total = new Dimension<>();
+    private final Dimension<Integer> porEstado = new Dimension<>();
+    private final Dimension<Integer> porTipo = new Dimension<>();
+    private final Dimension<String> porComuna = new Dimension<>();
+    private final Dimension<Integer> porEquipo = new Dimension<>();
+
+    /**
+     * Comuna de cada ubicación con incidentes, para contar por comuna sin cargar la ubicación
+     */
+    private final Map<Integer, String> comunas = new ConcurrentHashMap<>();
+
+    private final ReentrantLock candadoConciliacion = new ReentrantLock();
+    private volatile Instant conciliadoEn;
+
+    /**
+     * Valores de las dimensiones de un incidente en un momento dado (null si no tiene la relación).
+     */
+    public record Valores(Integer estadoIncidenteId, Integer tipoIncidenteId, String comuna, Integer equipoId) {
+    }
+
+    @PostConstruct
+    void cargar() {
+        Conteo enBase = contarEnBase();
+        total.reemplazar(enBase.total);
+        porEstado.reemplazar(enBase.porEstado);
+        porTipo.reemplazar(enBase.porTipo);
+        porComuna.reemplazar(enBase.porComuna);
+        porEquipo.reemplazar(enBase.porEquipo);
+        conciliadoEn = Instant.now();
+        log.info("Estadísticas de incidentes cargadas: {} incidentes", total.valor(TOTAL));
+    }
+
+    /**
+     * Obtiene las cantidades actuales, sin consultar la base de datos.
+     * @return Estadísticas de los incidentes
+     */
+    public EstadisticasIncidentes estadisticas() {
+        return new EstadisticasIncidentes(total.valor(TOTAL), porEstado.instantanea(), porTipo.instantanea(),
+                porComuna.instantanea(), porEquipo.instantanea(), conciliadoEn);
+    }
+
+    /**
+     * Obtiene los valores de las dimensiones de un incidente sin cargar sus relaciones.
+     * @param incidente Incidente
+     * @return Valores de sus dimensiones
+     */
+    public Valores valores(Incidente incidente) {
+        return new Valores(
+                incidente.getEstadoIncidente() == null ? null : incidente.getEstadoIncidente().getId(),
+                incidente.getTipoIncidente() == null ? null : incidente.getTipoIncidente().getId(),
+                comuna(incidente.getUbicacion()),
+                incidente.getEquipo() == null ? null : incidente.getEquipo().getId());
+    }
+
+    /**
+     * Registra un cambio de un incidente, que se aplica a los contadores cuando la transacción
+     * actual se confirma.
+     * @param antes Valores antes del cambio, o null si el incidente se creó
+     * @param despues Valores después del cambio, o null si el incidente se eliminó
+     */
+    public void registrar(Valores antes, Valores despues) {
+        if (Objects.equals(antes, despues)) {
+            return;
+        }
+        DespuesDeCommit.ejecutar(() -> {
+            if (antes == null) {
+                total.sumar(TOTAL, 1);
+            } else {
+                sumar(antes, -1);
+            }
+            if (despues == null) {
+                total.sumar(TOTAL, -1);
+            } else {
+                sumar(despues, 1);
+            }
+        });
+    }
+
+    /**
+     * Registra el cambio de comuna de una ubicación: sus incidentes pasan de una comuna a la otra
+     * cuando la transacción actual se confirma.
+     * @param ubicacionId ID de la ubicación
+     * @param anterior Comuna antes del cambio
+     * @param nueva Comuna después del cambio
+     */
+    public void cambiarComuna(int ubicacionId, String anterior, String nueva) {
+        if (Objects.equals(anterior, nueva)) {
+            return;
+        }
+        long cantidad = incidenteRepository.countByUbicacionId(ubicacionId);
+        DespuesDeCommit.ejecutar(() -> {
+            if (nueva == null) {
+                comunas.remove(ubicacionId);
+            } else {
+                comunas.put(ubicacionId, nueva);
+            }
+            porComuna.sumar(anterior, -cantidad);
+            porComuna.sumar(nueva, cantidad);
+        });
+    }
+
+    /**
+     * Compara los contadores con la base de datos y corrige las diferencias repetidas desde la
+     * conciliación anterior.
+     * @return Cantidad de contadores corregidos
+     */
+    @Scheduled(fixedDelayString = "${incidentes.estadisticas.conciliacion:5m}",
+            initialDelayString = "${incidentes.estadisticas.conciliacion:5m}")
+    public int conciliar() {
+        candadoConciliacion.lock();
+        try {
+            Conteo enBase = contarEnBase();
+            int corregidos = total.conciliar(enBase.total) + porEstado.conciliar(enBase.porEstado)
+                    + porTipo.conciliar(enBase.porTipo) + porComuna.conciliar(enBase.porComuna)
+                    + porEquipo.conciliar(enBase.porEquipo);
+            conciliadoEn = Instant.now();
+            if (corregidos > 0) {
+                log.warn("La conciliación de estadísticas de incidentes corrigió {} contadores", corregidos);
+            }
+            return corregidos;
+        } finally {
+            candadoConciliacion.unlock();
+        }
+    }
+
+    private void sumar(Valores valores, long delta) {
+        porEstado.sumar(valores.estadoIncidenteId(), delta);
+        porTipo.sumar(valores.tipoIncidenteId(), delta);
+        porComuna.sumar(valores.comuna(), delta);
+        porEquipo.sumar(valores.equipoId(), delta);
+    }
+
+    private String comuna(Ubicacion ubicacion) {
+        if (ubicacion == null) {
+            return null;
+        }
+        // Una referencia sin cargar sólo conoce su ID: se carga si está en la caché de segundo nivel y,
+        // si no, se consulta sólo su comuna
+        if (!Hibernate.isInitialized(ubicacion)) {
+            String comuna = comunas.get(ubicacion.getId());
+            if (comuna != null) {
+                return comuna;
+            }
+            if (!entityManagerFactory.getCache().contains(Ubicacion.class, ubicacion.getId())) {
+                comuna = ubicacionRepository.findComunaById(ubicacion.getId()).orElse(null);
+                if (comuna != null) {
+                    comunas.put(ubicacion.getId(), comuna);
+                }
+                return comuna;
+            }
+            Hibernate.initialize(ubicacion);
+        }
+        if (ubicacion.getComuna() != null && ubicacion.getId() > 0) {
+            comunas.put(ubicacion.getId(), ubicacion.getComuna());
+        }
+        return ubicacion.getComuna();
+    }
+
+    /**
+     * Cuenta los incidentes en la base de datos y actualiza la comuna de cada ubicación.
+     */
+    private Conteo contarEnBase() {
+        Conteo conteo = new Conteo();
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            List<ConteoIncidentes> filas = incidenteRepository.contarPorDimensiones();
+            for (ConteoIncidentes fila : filas) {
+                conteo.total.merge(TOTAL, fila.getCantidad(), Long::sum);
+                sumar(conteo.porEstado, fila.getEstadoIncidenteId(), fila.getCantidad());
+                sumar(conteo.porTipo, fila.getTipoIncidenteId(), fila.getCantidad());
+                sumar(conteo.porComuna, fila.getComuna(), fila.getCantidad());
+                sumar(conteo.porEquipo, fila.getEquipoId(), fila.getCantidad());
+            }
+            for (ComunaUbicacion ubicacion : incidenteRepository.findComunasDeUbicaciones()) {
+                if (ubicacion.getComuna() != null) {
+                    comunas.put(ubicacion.getId(), ubicacion.getComuna());
+                }
+            }
+        });
+        return conteo;
+    }
+
+    private static <K> void sumar(Map<K, Long> conteos, K clave, long cantidad) {
+        if (clave != null) {
+            conteos.merge(clave, cantidad, Long::sum);
+        }
+    }
+
+    /**
+     * Cantidades contadas en la base de datos.
+     */
+    private static final class Conteo {
+        final Map<String, Long> total = new HashMap<>();
+        final Map<Integer, Long> porEstado = new HashMap<>();
+        final Map<Integer, Long> porTipo = new HashMap<>();
+        final Map<String, Long> porComuna = new HashMap<>();
+        final Map<Integer, Long> porEquipo = new HashMap<>();
+    }
+
+    /**
+     * Contadores de una dimensión, por valor.
+     */
+    private static final class Dimension<K> {
+
+        private final Map<K, LongAdder> conteos = new ConcurrentHashMap<>();
+
+        /**
+         * Diferencias de la conciliación anterior que aún no se corrigen (sólo la usa la conciliación)
+         */
+        private Map<K, Long> diferenciasAnteriores = Map.of();
+
+        void sumar(K clave, long delta) {
+            if (clave == null) {
+                return;
+            }
+            LongAdder contador = conteos.get(clave);
+            if (contador == null) {
+                contador = conteos.computeIfAbsent(clave, k -> new LongAdder());
+            }
+            contador.add(delta);
+        }
+
+        long valor(K clave) {
+            LongAdder contador = conteos.get(clave);
+            return contador == null ? 0 : contador.sum();
+        }
+
+        Map<K, Long> instantanea() {
+            Map<K, Long> instantanea = new TreeMap<>();
+            conteos.forEach((clave, contador) -> {
+                long valor = contador.sum();
+                if (valor != 0) {
+                    instantanea.put(clave, valor);
+                }
+            });
+            return instantanea;
+        }
+
+        /**
+         * Reemplaza los contadores; sólo se usa al iniciar, antes de recibir cambios.
+         */
+        void reemplazar(Map<K, Long> valores) {
+            conteos.clear();
+            valores.forEach(this::sumar);
+        }
+
+        int conciliar(Map<K, Long> enBase) {
+            Set<K> claves = new HashSet<>(conteos.keySet());
+            claves.addAll(enBase.keySet());
+            Map<K, Long> pendientes = new HashMap<>();
+            int corregidos = 0;
+            for (K clave : claves) {
+                long diferencia = enBase.getOrDefault(clave, 0L) - valor(clave);
+                if (diferencia == 0) {
+                    continue;
+                }
+                if (diferenciasAnteriores.getOrDefault(clave, 0L) == diferencia) {
+                    sumar(clave, diferencia);
+                    corregidos++;
+                } else {
+                    pendientes.put(clave, diferencia);
+                }
+            }
+            diferenciasAnteriores = pendientes;
+            return corregidos;
+        }
+
+    }
+
+}
@@ -1,15 +1,24 @@
 package com.SAFE_Rescue.API_Incidentes.service;
 
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
 import com.SAFE_Rescue.API_Incidentes.modelo.EstadoIncidente;
 import com.SAFE_Rescue.API_Incidentes.repository.EstadoIncidenteRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import org.antlr.v4.runtime.misc.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 /**
  * Servicio para gestionar operaciones relacionadas con los Estados de Incidente.
@@ -22,22 +31,64 @@ public class EstadoIncidenteService {
     @Autowired
     private EstadoIncidenteRepository estadoIncidenteRepository;
 
+    /**
+     * Cantidad máxima de nombres que se mantienen en la caché de llaves naturales
+     */
+    @Value("${incidentes.cache.estados-incidente.capacidad:1000}")
+    private int capacidadCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BusquedaGeograficaService busquedaGeograficaService;
+
+    private CacheLlaveNatural<String> idsPorNombre;
+
+    /**
+     * Respuestas JSON ya serializadas del catálogo, reconstruidas sólo al modificarlo
+     */
+    private CatalogoSerializado<EstadoIncidente> catalogo;
+
+    @PostConstruct
+    void iniciarCache() {
+        idsPorNombre = new CacheLlaveNatural<>(capacidadCache);
+        // El índice geográfico decide qué estados son cerrados por su nombre
+        catalogo = new CatalogoSerializado<>(() -> estadoIncidenteRepository.findAll(Sort.by("id")), EstadoIncidente::getId,
+                objectMapper, busquedaGeograficaService::olvidarEstados);
+    }
+
     // MÉTODOS CRUD PRINCIPALES
 
     /**
      * Obtiene todos los Estados de Incidente existentes.
      * @return Lista de todos los Estados de Incidente
      */
+    @Transactional(readOnly = true)
     public List<EstadoIncidente> findAll() {
         return estadoIncidenteRepository.findAll();
     }
 
+    /**
+     * Obtiene una página de Estados de Incidente usando paginación por cursor.
+     * @param cursor ID del último elemento recibido (0 para la primera página)
+     * @param limite Cantidad de elementos solicitados, acotada a {@link PaginaCursor#LIMITE_MAXIMO}
+     * @return Página de Estados de Incidente con el cursor de la página siguiente
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<EstadoIncidente> findPagina(int cursor, int limite) {
+        int tamanio = PaginaCursor.normalizarLimite(limite);
+        List<EstadoIncidente> filas = estadoIncidenteRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(tamanio + 1));
+        return PaginaCursor.de(filas, tamanio, EstadoIncidente::getId);
+    }
+
     /**
      * Busca un EstadovIncidente por su ID.
      * @param id ID del Estado Incidente a buscar
      * @return El Estado Incidente encontrado
      * @throws NoSuchElementException Si no se encuentra el Estado Incidente
      */
+    @Transactional(readOnly = true)
     public EstadoIncidente findByID(long id) {
         return estadoIncidenteRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Estado Incidente con ID " + id + " no encontrado"));
@@ -52,7 +103,9 @@ public class EstadoIncidenteService {
     public EstadoIncidente save(EstadoIncidente estadoIncidente) {
         try {
             validarEstadoIncidente(estadoIncidente);
-            return estadoIncidenteRepository.save(estadoIncidente);
+            EstadoIncidente guardado = estadoIncidenteRepository.save(estadoIncidente);
+            recordar(guardado);
+            return guardado;
         } catch (EntityNotFoundException e) {
             throw new RuntimeException("Error al guardar el Estado Incidente: " + e.getMessage());
         } catch (Exception ex) {
@@ -81,7 +134,10 @@ public class EstadoIncidenteService {
                 }
             }
 
-            return estadoIncidenteRepository.save(antiguoEstado);
+            idsPorNombre.olvidar(antiguoEstado.getId());
+            EstadoIncidente actualizado = estadoIncidenteRepository.save(antiguoEstado);
+            recordar(actualizado);
+            return actualizado;
 
         } catch (Exception e) {
             throw new RuntimeException("Error al actualizar el Estado Incidente: " + e.getMessage());
@@ -99,11 +155,95 @@ public class EstadoIncidenteService {
                 throw new NoSuchElementException("Estado Incidente no encontrado");
             }
             estadoIncidenteRepository.deleteById(id);
+            idsPorNombre.olvidar((int) id);
+            catalogo.reconstruirAlConfirmar();
         } catch (Exception e) {
             throw new RuntimeException("Error al eliminar Estado Incidente: " + e.getMessage());
         }
     }
 
+    // RESPUESTAS PRE-SERIALIZADAS
+
+    /**
+     * Obtiene el JSON de una página de Estados de Incidente, sin consultar la base de datos ni serializar
+     * mientras el catálogo no cambie.
+     * @param cursor ID del último elemento recibido (0 para la primera página)
+     * @param limite Cantidad de elementos solicitados, acotada a {@link PaginaCursor#LIMITE_MAXIMO}
+     * @return JSON UTF-8 con el mismo formato que {@link #findPagina}, o null si la página está vacía
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public byte[] findPaginaSerializada(int cursor, int limite) {
+        return catalogo.pagina(cursor, limite);
+    }
+
+    /**
+     * Obtiene el JSON de un elemento del catálogo, sin consultar la base de datos ni serializar
+     * mientras el catálogo no cambie.
+     * @param id Identificador del elemento
+     * @return JSON UTF-8 del elemento
+     * @throws NoSuchElementException Si no existe un elemento con ese ID
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public byte[] findByIDSerializado(long id) {
+        byte[] json = catalogo.porId(id);
+        if (json == null) {
+            throw new NoSuchElementException("Estado Incidente con ID " + id + " no encontrado");
+        }
+        return json;
+    }
+
+    // RESOLUCIÓN POR LLAVE NATURAL
+
+    /**
+     * Obtiene el Estado Incidente a asociar a un incidente sin insertar duplicados.
+     * Si trae ID se usa como referencia (sin consultar la base de datos); si no, se busca
+     * por nombre y sólo se inserta cuando no existe.
+     * @param estadoIncidente Estado Incidente indicado en el incidente
+     * @return Estado Incidente existente o recién guardado, o null si no se indicó
+     */
+    public EstadoIncidente resolver(EstadoIncidente estadoIncidente) {
+        if (estadoIncidente == null) {
+            return null;
+        }
+        if (estadoIncidente.getId() > 0) {
+            return estadoIncidenteRepository.getReferenceById((long) estadoIncidente.getId());
+        }
+        EstadoIncidente existente = buscarPorNombre(estadoIncidente.getNombre());
+        return existente != null ? existente : save(estadoIncidente);
+    }
+
+    /**
+     * Busca un Estado Incidente por nombre, sin distinguir mayúsculas de minúsculas, consultando primero la caché de llaves naturales.
+     * @param nombre Nombre del Estado Incidente
+     * @return Estado Incidente encontrado (o una referencia a él), o null si no existe
+     */
+    public EstadoIncidente buscarPorNombre(String nombre) {
+        if (nombre == null) {
+            return null;
+        }
+        String llave = nombre.trim().toLowerCase(Locale.ROOT);
+        Integer id = idsPorNombre.obtener(llave);
+        if (id != null) {
+            return estadoIncidenteRepository.getReferenceById((long) id);
+        }
+        Optional<EstadoIncidente> encontrado = estadoIncidenteRepository.findFirstByNombreIgnoreCase(nombre.trim());
+        encontrado.ifPresent(existente -> idsPorNombre.recordar(llave, existente.getId()));
+        return encontrado.orElse(null);
+    }
+
+    /**
+     * Registra en la caché de llaves naturales un Estado Incidente recién guardado y reconstruye
+     * el catálogo serializado, una vez confirmada la transacción actual. Toda inserción o
+     * modificación (incluidas las de un lote de incidentes) debe llamarlo.
+     * @param estadoIncidente Estado Incidente guardado
+     */
+    public void recordar(EstadoIncidente estadoIncidente) {
+        if (estadoIncidente.getNombre() != null) {
+            idsPorNombre.recordarAlConfirmar(estadoIncidente.getNombre().trim().toLowerCase(Locale.ROOT), estadoIncidente.getId());
+        }
+        catalogo.reconstruirAlConfirmar();
+    }
+
     /**
      * Valida los datos de un EstadoIncidente antes de guardarlo o actualizarlo.
      * @param estadoIncidente EstadoIncidente a validar
@@ -0,0 +1,175 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.FormatoExportacion;
+import com.SAFE_Rescue.API_Incidentes.modelo.*;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Servicio para la exportación masiva de incidentes.
+ * <p>
+ * Los incidentes se leen como un flujo desde la base de datos y se escriben
+ * directamente en la salida, por lo que el uso de memoria no depende de la
+ * cantidad de registros exportados.
+ * </p>
+ * <p>
+ * La exportación es de solo lectura, por lo que se atiende desde una réplica cuando están
+ * habilitadas ({@link com.SAFE_Rescue.API_Incidentes.config.DataSourceLecturaEscritura}).
+ * </p>
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportacionIncidenteService {
+
+    /**
+     * Cada cuántas filas se libera el contexto de persistencia y se envía lo escrito al cliente
+     */
+    private static final int FILAS_POR_BLOQUE = IncidenteRepository.TAMANIO_BLOQUE_LECTURA;
+
+    private static final String ENCABEZADO_CSV = "id,titulo,detalle,tipo_incidente_id,tipo_incidente,"
+            + "estado_incidente_id,estado_incidente,ubicacion_id,calle,numeracion,comuna,region,"
+            + "ciudadano_id,equipo_id,equipo";
+
+    /**
+     * Caracteres con los que una planilla reconoce el inicio de una fórmula
+     */
+    private static final String INICIO_FORMULA = "=+-@\t\r";
+
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Escribe todos los incidentes en la salida indicada.
+     * @param formato Formato de exportación
+     * @param salida Flujo de salida de la respuesta (no se cierra)
+     * @throws IOException Si ocurre un error al escribir en la salida
+     */
+    public void exportar(FormatoExportacion formato, OutputStream salida) throws IOException {
+        try (Stream<Incidente> incidentes = incidenteRepository.streamTodos()) {
+            if (formato == FormatoExportacion.CSV) {
+                exportarCsv(incidentes.iterator(), salida);
+            } else {
+                exportarNdjson(incidentes.iterator(), salida);
+            }
+        }
+    }
+
+    // MÉTODOS PRIVADOS DE ESCRITURA
+
+    private void exportarNdjson(Iterator<Incidente> incidentes, OutputStream salida) throws IOException {
+        ObjectWriter escritor = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generador = objectMapper.getFactory().createGenerator(salida);
+        generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generador.setRootValueSeparator(null); // el separador entre objetos es el salto de línea
+
+        int filas = 0;
+        while (incidentes.hasNext()) {
+            escritor.writeValue(generador, incidentes.next());
+            generador.writeRaw('\n');
+            if (++filas % FILAS_POR_BLOQUE == 0) {
+                liberarBloque();
+                generador.flush();
+            }
+        }
+        generador.close();
+        salida.flush();
+    }
+
+    private void exportarCsv(Iterator<Incidente> incidentes, OutputStream salida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        escritor.write(ENCABEZADO_CSV);
+        escritor.write('\n');
+
+        int filas = 0;
+        while (incidentes.hasNext()) {
+            escribirFilaCsv(escritor, incidentes.next());
+            if (++filas % FILAS_POR_BLOQUE == 0) {
+                liberarBloque();
+                escritor.flush();
+            }
+        }
+        escritor.flush();
+    }
+
+    private void escribirFilaCsv(Writer escritor, Incidente incidente) throws IOException {
+        TipoIncidente tipo = incidente.getTipoIncidente();
+        EstadoIncidente estado = incidente.getEstadoIncidente();
+        Ubicacion ubicacion = incidente.getUbicacion();
+        Ciudadano ciudadano = incidente.getCiudadano();
+        Equipo equipo = incidente.getEquipo();
+
+        escritor.write(String.valueOf(incidente.getId()));
+        escribirCampo(escritor, incidente.getTitulo());
+        escribirCampo(escritor, incidente.getDetalle());
+        escribirCampo(escritor, tipo == null ? null : String.valueOf(tipo.getId()));
+        escribirCampo(escritor, tipo == null ? null : tipo.getNombre());
+        escribirCampo(escritor, estado == null ? null : String.valueOf(estado.getId()));
+        escribirCampo(escritor, estado == null ? null : estado.getNombre());
+        escribirCampo(escritor, ubicacion == null ? null : String.valueOf(ubicacion.getId()));
+        escribirCampo(escritor, ubicacion == null ? null : ubicacion.getCalle());
+        escribirCampo(escritor, ubicacion == null ? null : String.valueOf(ubicacion.getNumeracion()));
+        escribirCampo(escritor, ubicacion == null ? null : ubicacion.getComuna());
+        escribirCampo(escritor, ubicacion == null ? null : ubicacion.getRegion());
+        escribirCampo(escritor, ciudadano == null ? null : String.valueOf(ciudadano.getId()));
+        escribirCampo(escritor, equipo == null ? null : String.valueOf(equipo.getId()));
+        escribirCampo(escritor, equipo == null ? null : equipo.getNombre());
+        escritor.write('\n');
+    }
+
+    /**
+     * Escribe un campo CSV precedido de coma, entre comillas sólo cuando es necesario.
+     * <p>
+     * Los valores que una planilla interpretaría como fórmula (empiezan con {@code = + - @},
+     * tabulación o retorno de carro) se escriben precedidos de {@code '} y entre comillas, para que
+     * un título o detalle ingresado por un ciudadano no se ejecute al abrir la exportación.
+     * </p>
+     */
+    private void escribirCampo(Writer escritor, String valor) throws IOException {
+        escritor.write(',');
+        if (valor == null || valor.isEmpty()) {
+            return;
+        }
+        boolean formula = INICIO_FORMULA.indexOf(valor.charAt(0)) >= 0;
+        boolean requiereComillas = formula || valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0
+                || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0;
+        if (!requiereComillas) {
+            escritor.write(valor);
+            return;
+        }
+        escritor.write('"');
+        if (formula) {
+            escritor.write('\'');
+        }
+        escritor.write(valor.replace("\"", "\"\""));
+        escritor.write('"');
+    }
+
+    /**
+     * Desvincula las entidades ya escritas para que el contexto de persistencia no crezca
+     * durante la exportación.
+     */
+    private void liberarBloque() {
+        entityManager.clear();
+    }
+
+}
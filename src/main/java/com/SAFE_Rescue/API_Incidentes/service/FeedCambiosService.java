@@ -0,0 +1,415 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Canal de Server-Sent Events con los cambios de incidentes, para que las consolas de despacho
+ * no tengan que consultar periódicamente el listado.
+ * <p>
+ * Cada {@link CambioIncidente} confirmado se serializa una sola vez y se guarda en un
+ * {@link BufferEventos} de tamaño fijo. Quien publica nunca espera a los suscriptores: sólo
+ * escribe en el buffer y programa el envío. Un grupo pequeño de hilos recorre a los suscriptores
+ * con eventos pendientes y le envía a cada uno lo que le falta desde su propio cursor, con a lo
+ * más un envío en curso por suscriptor.
+ * </p>
+ * <p>
+ * Un suscriptor que se reconecta con {@code Last-Event-ID} recibe los eventos posteriores que aún
+ * estén en el buffer. Si esos eventos ya se sobrescribieron (o el ID es de otra ejecución del
+ * servidor) recibe un evento {@code reinicio}, que indica que debe volver a cargar el listado.
+ * Un suscriptor que queda más atrás que el tamaño del buffer, o que lleva demasiado tiempo en un
+ * envío, se desconecta.
+ * </p>
+ */
+@Service
+public class FeedCambiosService {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedCambiosService.class);
+
+    /**
+     * Nombre del evento que indica al cliente que perdió eventos y debe recargar el listado
+     */
+    public static final String EVENTO_REINICIO = "reinicio";
+
+    /**
+     * Cantidad de eventos recientes que se conservan para las reconexiones
+     */
+    @Value("${incidentes.feed.capacidad:65536}")
+    private int capacidad;
+
+    /**
+     * Hilos que envían los eventos a los suscriptores
+     */
+    @Value("${incidentes.feed.hilos-envio:4}")
+    private int hilosEnvio;
+
+    /**
+     * Cantidad máxima de suscriptores conectados a la vez
+     */
+    @Value("${incidentes.feed.maximo-suscriptores:10000}")
+    private int maximoSuscriptores;
+
+    /**
+     * Duración máxima de una conexión; el cliente se reconecta automáticamente con Last-Event-ID
+     */
+    @Value("${incidentes.feed.duracion-conexion:30m}")
+    private Duration duracionConexion;
+
+    /**
+     * Tiempo máximo que puede tardar un envío a un suscriptor antes de desconectarlo
+     */
+    @Value("${incidentes.feed.tiempo-maximo-envio:10s}")
+    private Duration tiempoMaximoEnvio;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment entorno;
+
+    /**
+     * Identifica esta ejecución del servidor en los IDs de evento, para no confundir secuencias
+     * de ejecuciones anteriores al reconectarse
+     */
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+
+    private BufferEventos<EventoPreconstruido> buffer;
+    private ExecutorService envios;
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean despachoPendiente = new AtomicBoolean();
+
+    @PostConstruct
+    void iniciar() {
+        buffer = new BufferEventos<>(capacidad);
+        ThreadFactory fabrica;
+        if (Threading.VIRTUAL.isActive(entorno)) {
+            // Un envío bloqueado por un cliente lento no ocupa un hilo del sistema
+            fabrica = new VirtualThreadTaskExecutor("feed-envio-").getVirtualThreadFactory();
+        } else {
+            AtomicInteger hilos = new AtomicInteger();
+            fabrica = tarea -> {
+                Thread hilo = new Thread(tarea, "feed-envio-" + hilos.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            };
+        }
+        envios = Executors.newFixedThreadPool(hilosEnvio, fabrica);
+    }
+
+    /**
+     * Cierra las conexiones abiertas al iniciar el apagado; si no, el apagado ordenado del
+     * servidor esperaría a que terminaran estas solicitudes, que no terminan por sí solas.
+     * Los clientes se reconectan a otra instancia con su Last-Event-ID.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void cerrarConexiones() {
+        suscriptores.forEach(suscriptor -> desconectar(suscriptor, "apagado del servidor"));
+    }
+
+    @PreDestroy
+    void detener() {
+        envios.shutdownNow();
+    }
+
+    // PUBLICACIÓN
+
+    /**
+     * Publica un cambio de incidente ya confirmado en la base de datos.
+     * @param cambio Cambio realizado
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiar(CambioIncidente cambio) {
+        byte[] datos;
+        try {
+            datos = objectMapper.writeValueAsBytes(cambio);
+        } catch (JsonProcessingException e) {
+            log.error("No se pudo serializar el cambio del incidente {}", cambio.getId(), e);
+            return;
+        }
+        String nombre = cambio.getTipo().name().toLowerCase(Locale.ROOT);
+        buffer.publicar(secuencia -> new EventoPreconstruido(SseEmitter.event()
+                .id(idEvento(secuencia))
+                .name(nombre)
+                .data(datos, MediaType.APPLICATION_JSON)));
+        despachar();
+    }
+
+    // SUSCRIPCIÓN
+
+    /**
+     * Registra un nuevo suscriptor al canal de cambios.
+     * @param ultimoId Valor del encabezado Last-Event-ID (null en la primera conexión)
+     * @return Emisor SSE del suscriptor
+     * @throws IllegalStateException Si se alcanzó la cantidad máxima de suscriptores
+     */
+    public SseEmitter suscribir(String ultimoId) {
+        if (suscriptores.size() >= maximoSuscriptores) {
+            throw new IllegalStateException("Se alcanzó la cantidad máxima de suscriptores (" + maximoSuscriptores + ")");
+        }
+        SseEmitter emisor = new SseEmitter(duracionConexion.toMillis());
+        long ultima = buffer.ultima();
+        long desde = ultima + 1;
+        boolean reinicio = false;
+        if (ultimoId != null) {
+            long recibida = secuenciaDe(ultimoId);
+            if (recibida < 0 || recibida > ultima || recibida + 1 < buffer.masAntigua()) {
+                reinicio = true;
+            } else {
+                desde = recibida + 1;
+            }
+        }
+
+        Suscriptor suscriptor = new Suscriptor(emisor, desde, reinicio);
+        emisor.onCompletion(() -> suscriptores.remove(suscriptor));
+        emisor.onTimeout(() -> suscriptores.remove(suscriptor));
+        emisor.onError(error -> suscriptores.remove(suscriptor));
+        suscriptores.add(suscriptor);
+        // El primer envío (reinicio o latido) confirma la conexión al cliente
+        programar(suscriptor);
+        return emisor;
+    }
+
+    /**
+     * @return Cantidad de suscriptores conectados
+     */
+    public int cantidadSuscriptores() {
+        return suscriptores.size();
+    }
+
+    // ENVÍO
+
+    /**
+     * Envía un latido a todos los suscriptores para mantener abiertas las conexiones, y desconecta
+     * a los que llevan más de {@code tiempo-maximo-envio} en un mismo envío.
+     */
+    @Scheduled(fixedRateString = "${incidentes.feed.latido:15s}", initialDelayString = "${incidentes.feed.latido:15s}")
+    public void latir() {
+        long limite = System.nanoTime() - tiempoMaximoEnvio.toNanos();
+        for (Suscriptor suscriptor : suscriptores) {
+            long desde = suscriptor.envioDesde;
+            if (desde != 0 && desde - limite < 0) {
+                desconectar(suscriptor, "envío demasiado lento");
+            } else {
+                suscriptor.latidoPendiente = true;
+            }
+        }
+        despachar();
+    }
+
+    /**
+     * Programa un recorrido de los suscriptores, salvo que ya haya uno pendiente.
+     */
+    private void despachar() {
+        if (despachoPendiente.compareAndSet(false, true)) {
+            try {
+                envios.execute(() -> {
+                    despachoPendiente.set(false);
+                    suscriptores.forEach(this::programar);
+                });
+            } catch (RejectedExecutionException e) {
+                despachoPendiente.set(false);
+            }
+        }
+    }
+
+    /**
+     * Programa el envío de lo pendiente a un suscriptor, si tiene algo pendiente y no hay ya un envío en curso.
+     */
+    private void programar(Suscriptor suscriptor) {
+        if (suscriptor.tienePendientes(buffer.ultima()) && suscriptor.enviando.compareAndSet(false, true)) {
+            try {
+                envios.execute(() -> enviarPendientes(suscriptor));
+            } catch (RejectedExecutionException e) {
+                suscriptor.enviando.set(false);
+            }
+        }
+    }
+
+    private void enviarPendientes(Suscriptor suscriptor) {
+        do {
+            suscriptor.envioDesde = System.nanoTime() | 1;
+            try {
+                if (!enviar(suscriptor)) {
+                    return;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // El cliente cerró la conexión
+                suscriptores.remove(suscriptor);
+                return;
+            } finally {
+                suscriptor.envioDesde = 0;
+                suscriptor.enviando.set(false);
+            }
+            // Un evento publicado justo al terminar no habría podido programar un nuevo envío
+        } while (suscriptor.tienePendientes(buffer.ultima()) && suscriptor.enviando.compareAndSet(false, true));
+    }
+
+    /**
+     * @return false si el suscriptor fue desconectado
+     */
+    private boolean enviar(Suscriptor suscriptor) throws IOException {
+        if (suscriptor.reinicioPendiente) {
+            suscriptor.reinicioPendiente = false;
+            suscriptor.latidoPendiente = false;
+            suscriptor.emisor.send(SseEmitter.event().id(idEvento(suscriptor.siguiente - 1)).name(EVENTO_REINICIO).data(""));
+        }
+        long ultima = buffer.ultima();
+        while (suscriptor.siguiente <= ultima) {
+            EventoPreconstruido evento = buffer.leer(suscriptor.siguiente);
+            if (evento == null) {
+                if (suscriptor.siguiente < buffer.masAntigua()) {
+                    desconectar(suscriptor, "quedó atrás del buffer de eventos");
+                    return false;
+                }
+                break; // Aún se está publicando; se enviará al despachar esa publicación
+            }
+            suscriptor.emisor.send(evento);
+            suscriptor.siguiente++;
+            suscriptor.latidoPendiente = false;
+        }
+        if (suscriptor.latidoPendiente) {
+            suscriptor.latidoPendiente = false;
+            suscriptor.emisor.send(SseEmitter.event().comment("latido"));
+        }
+        return true;
+    }
+
+    private void desconectar(Suscriptor suscriptor, String motivo) {
+        if (suscriptores.remove(suscriptor)) {
+            log.debug("Suscriptor del canal de cambios desconectado: {}", motivo);
+            suscriptor.emisor.complete();
+        }
+    }
+
+    private String idEvento(long secuencia) {
+        return epoca + "-" + secuencia;
+    }
+
+    /**
+     * @return Secuencia contenida en un ID de evento de esta ejecución, o -1 si no lo es
+     */
+    private long secuenciaDe(String idEvento) {
+        String prefijo = epoca + "-";
+        if (!idEvento.startsWith(prefijo)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(idEvento.substring(prefijo.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // ESTRUCTURAS INTERNAS
+
+    /**
+     * Conexión de un cliente y su posición en el buffer.
+     */
+    private static final class Suscriptor {
+
+        private final SseEmitter emisor;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+
+        /**
+         * Secuencia del próximo evento a enviar; sólo la modifica el envío en curso
+         */
+        private volatile long siguiente;
+        private volatile boolean reinicioPendiente;
+        private volatile boolean latidoPendiente = true;
+
+        /**
+         * Momento (System.nanoTime) en que empezó el envío en curso, o 0 si no hay uno
+         */
+        private volatile long envioDesde;
+
+        private Suscriptor(SseEmitter emisor, long siguiente, boolean reinicioPendiente) {
+            this.emisor = emisor;
+            this.siguiente = siguiente;
+            this.reinicioPendiente = reinicioPendiente;
+        }
+
+        private boolean tienePendientes(long ultima) {
+            return siguiente <= ultima || reinicioPendiente || latidoPendiente;
+        }
+
+    }
+
+    /**
+     * Evento SSE cuyas partes se construyen una sola vez y se reutilizan para todos los suscriptores.
+     */
+    private static final class EventoPreconstruido implements SseEmitter.SseEventBuilder {
+
+        private final Set<ResponseBodyEmitter.DataWithMediaType> partes;
+
+        private EventoPreconstruido(SseEmitter.SseEventBuilder evento) {
+            this.partes = Collections.unmodifiableSet(evento.build());
+        }
+
+        @Override
+        public Set<ResponseBodyEmitter.DataWithMediaType> build() {
+            return partes;
+        }
+
+        @Override
+        public SseEmitter.SseEventBuilder id(String id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SseEmitter.SseEventBuilder name(String eventName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SseEmitter.SseEventBuilder reconnectTime(long reconnectTimeMillis) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SseEmitter.SseEventBuilder comment(String comment) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SseEmitter.SseEventBuilder data(Object object) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SseEmitter.SseEventBuilder data(Object object, MediaType mediaType) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
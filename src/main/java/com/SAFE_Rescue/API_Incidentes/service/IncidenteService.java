@@ -1,16 +1,42 @@
 package com.SAFE_Rescue.API_Incidentes.service;
 
+import com.SAFE_Rescue.API_Incidentes.dto.FiltroIncidente;
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
+import com.SAFE_Rescue.API_Incidentes.dto.ResultadoIngesta;
 import com.SAFE_Rescue.API_Incidentes.modelo.*;
 import com.SAFE_Rescue.API_Incidentes.repository.*;
-import jakarta.transaction.Transactional;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 /**
  * Servicio para la gestión integral de Incidente de emergencia.
@@ -21,6 +47,12 @@ import java.util.NoSuchElementException;
 @Transactional
 public class IncidenteService {
 
+    /**
+     * Cantidad de incidentes que se envían a la base de datos antes de liberar el contexto
+     * de persistencia en una carga por lote
+     */
+    private static final int TAMANIO_BLOQUE_ESCRITURA = 500;
+
     // REPOSITORIOS INYECTADOS
     @Autowired private IncidenteRepository incidenteRepository;
     @Autowired private UbicacionRepository UbicacionRepository;
@@ -32,7 +64,28 @@ public class IncidenteService {
     // SERVICIOS INYECTADOS
     @Autowired private EstadoIncidenteService estadoIncidenteService;
     @Autowired private UbicacionService ubicacionService;
+    @Autowired private ApplicationEventPublisher eventos;
     @Autowired private TipoIncidenteService tipoIncidenteService;
+    @Autowired private EstadisticasIncidenteService estadisticasIncidenteService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // CACHÉS DE LLAVES NATURALES
+    @Value("${incidentes.cache.ciudadanos.capacidad:100000}")
+    private int capacidadCacheCiudadanos;
+
+    @Value("${incidentes.cache.equipos.capacidad:1000}")
+    private int capacidadCacheEquipos;
+
+    private CacheLlaveNatural<Long> idsCiudadanoPorRun;
+    private CacheLlaveNatural<String> idsEquipoPorNombre;
+
+    @PostConstruct
+    void iniciarCaches() {
+        idsCiudadanoPorRun = new CacheLlaveNatural<>(capacidadCacheCiudadanos);
+        idsEquipoPorNombre = new CacheLlaveNatural<>(capacidadCacheEquipos);
+    }
 
     // MÉTODOS CRUD PRINCIPALES
 
@@ -40,54 +93,194 @@ public class IncidenteService {
      * Obtiene todos los Incidentes registrados en el sistema.
      * @return Lista completa de Incidentes
      */
+    @Transactional(readOnly = true)
     public List<Incidente> findAll() {
         return incidenteRepository.findAll();
     }
 
+    /**
+     * Obtiene una página de Incidentes usando paginación por cursor.
+     * @param cursor ID del último elemento recibido (0 para la primera página)
+     * @param limite Cantidad de elementos solicitados, acotada a {@link PaginaCursor#LIMITE_MAXIMO}
+     * @return Página de Incidentes con el cursor de la página siguiente
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<Incidente> findPagina(int cursor, int limite) {
+        int tamanio = PaginaCursor.normalizarLimite(limite);
+        List<Incidente> filas = incidenteRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(tamanio + 1));
+        return PaginaCursor.de(filas, tamanio, Incidente::getId);
+    }
+
+    /**
+     * Busca incidentes que cumplan los criterios indicados, usando paginación por cursor.
+     * <p>
+     * Las relaciones se cargan en la misma consulta y cada criterio se resuelve con un índice
+     * compuesto, por lo que el costo no depende de la cantidad total de incidentes.
+     * </p>
+     * @param filtro Criterios de búsqueda (estado, tipo, equipo, comuna y región)
+     * @param cursor ID del último elemento recibido (0 para la primera página)
+     * @param limite Cantidad de elementos solicitados, acotada a {@link PaginaCursor#LIMITE_MAXIMO}
+     * @return Página de Incidentes que cumplen el filtro, con el cursor de la página siguiente
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<Incidente> buscar(FiltroIncidente filtro, int cursor, int limite) {
+        int tamanio = PaginaCursor.normalizarLimite(limite);
+        List<Incidente> filas = incidenteRepository.findBy(IncidenteSpecs.de(filtro, cursor),
+                consulta -> consulta.sortBy(Sort.by("id"))
+                        .limit(tamanio + 1)
+                        .project(IncidenteRepository.RELACIONES)
+                        .all());
+        return PaginaCursor.de(filas, tamanio, Incidente::getId);
+    }
+
     /**
      * Busca un Incidente por su ID único.
      * @param id Identificador del Incidente
      * @return Incidente encontrado
      * @throws NoSuchElementException Si no se encuentra el equipo
      */
+    @Transactional(readOnly = true)
     public Incidente findByID(long id) {
-        return incidenteRepository.findById(id)
+        return incidenteRepository.findConRelacionesById((int) id)
+                .orElseThrow(() -> new NoSuchElementException("No se encontró Incidente con ID: " + id));
+    }
+
+    /**
+     * Obtiene la versión actual de un incidente sin cargarlo.
+     * @param id Identificador del Incidente
+     * @return Versión del incidente
+     * @throws NoSuchElementException Si no se encuentra el incidente
+     */
+    @Transactional(readOnly = true)
+    public long findVersion(long id) {
+        return incidenteRepository.findVersionById((int) id)
                 .orElseThrow(() -> new NoSuchElementException("No se encontró Incidente con ID: " + id));
     }
 
     /**
      * Guarda un nuevo incidente en el sistema.
-     * Realiza validaciones y guarda relaciones con otros componentes.
+     * <p>
+     * Las relaciones que traen ID se usan como referencia. Las que no traen ID se buscan por
+     * su llave natural (RUN, nombre o dirección, primero en caché) y sólo se insertan si no
+     * existen, de modo que un reporte típico escribe una o dos filas.
+     * </p>
      * @param incidente Datos del incidente a guardar
      * @return Incidente guardado con ID generado
      * @throws RuntimeException Si ocurre algún error durante el proceso
      */
     public Incidente save(Incidente incidente) {
         try {
-            // Validación y persistencia de relaciones principales
-            Ciudadano ciudadanoGuardado = ciudadanoRepository.save(incidente.getCiudadano());
-            Equipo equipoGuardado = equipoRepository.save(incidente.getEquipo());
-            EstadoIncidente estadoIncidenteGuardado = estadoIncidenteService.save(incidente.getEstadoIncidente());
-            Ubicacion ubicacionGuardada = ubicacionService.save(incidente.getUbicacion());
-            TipoIncidente tipoIncidenteGuardado = tipoIncidenteService.save(incidente.getTipoIncidente());
-
-            incidente.setEquipo(equipoGuardado);
-            incidente.setUbicacion(ubicacionGuardada);
-            incidente.setTipoIncidente(tipoIncidenteGuardado);
-            incidente.setCiudadano(ciudadanoGuardado);
-            incidente.setEstadoIncidente(estadoIncidenteGuardado);
-
             validarIncidente(incidente);
 
-            return incidenteRepository.save(incidente);
+            // Resolución de relaciones principales sin reinsertar las existentes
+            incidente.setCiudadano(resolverCiudadano(incidente.getCiudadano()));
+            incidente.setEquipo(resolverEquipo(incidente.getEquipo()));
+            incidente.setEstadoIncidente(estadoIncidenteService.resolver(incidente.getEstadoIncidente()));
+            incidente.setUbicacion(ubicacionService.resolver(incidente.getUbicacion()));
+            incidente.setTipoIncidente(tipoIncidenteService.resolver(incidente.getTipoIncidente()));
+
+            Incidente guardado = incidenteRepository.save(incidente);
+            estadisticasIncidenteService.registrar(null, estadisticasIncidenteService.valores(guardado));
+            eventos.publishEvent(CambioIncidente.de(CambioIncidente.Tipo.CREADO, guardado));
+            return guardado;
         } catch (Exception e) {
             throw new RuntimeException("Error al guardar el incidente: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Guarda un lote de incidentes usando inserciones agrupadas (JDBC batch).
+     * <p>
+     * Las relaciones indicadas por ID se cargan una sola vez para todo el lote. Las relaciones
+     * sin ID se buscan por llave natural una sola vez por lote y sólo se insertan si no existen.
+     * Cada incidente
+     * se valida por separado: los inválidos se informan como rechazados sin afectar al resto.
+     * </p>
+     * @param incidentes Incidentes a guardar
+     * @return Resultado de cada incidente, en el mismo orden recibido
+     * @throws RuntimeException Si ocurre un error al escribir el lote en la base de datos
+     */
+    public List<ResultadoIngesta> saveAll(List<Incidente> incidentes) {
+        Map<Long, TipoIncidente> tipos = cargarPorId(tipoIncidenteRepository, incidentes, Incidente::getTipoIncidente, TipoIncidente::getId);
+        Map<Long, EstadoIncidente> estados = cargarPorId(estadoIncidenteRepository, incidentes, Incidente::getEstadoIncidente, EstadoIncidente::getId);
+        Map<Long, Equipo> equipos = cargarPorId(equipoRepository, incidentes, Incidente::getEquipo, Equipo::getId);
+        Map<Long, Ciudadano> ciudadanos = cargarPorId(ciudadanoRepository, incidentes, Incidente::getCiudadano, Ciudadano::getId);
+        Map<Long, Ubicacion> ubicaciones = cargarPorId(UbicacionRepository, incidentes, Incidente::getUbicacion, Ubicacion::getId);
+
+        // Ciudadanos y ubicaciones sin ID que ya existen, buscados en una sola consulta por tipo
+        Map<Long, Ciudadano> ciudadanosPorRun = buscarCiudadanosPorRun(sinId(incidentes, Incidente::getCiudadano, Ciudadano::getId));
+        Map<String, Ubicacion> ubicacionesPorDireccion =
+                ubicacionService.buscarPorDirecciones(sinId(incidentes, Incidente::getUbicacion, Ubicacion::getId));
+
+        // Relaciones sin ID ya resueltas en el lote, por llave natural, para no buscarlas ni insertarlas más de una vez
+        Map<String, TipoIncidente> tiposPorNombre = new HashMap<>();
+        Map<String, EstadoIncidente> estadosPorNombre = new HashMap<>();
+        Map<String, Equipo> equiposPorNombre = new HashMap<>();
+        Map<Long, Ciudadano> ciudadanosDelLote = new HashMap<>();
+        Map<String, Ubicacion> ubicacionesDelLote = new HashMap<>();
+
+        List<ResultadoIngesta> resultados = new ArrayList<>(incidentes.size());
+        int pendientes = 0;
+        for (int i = 0; i < incidentes.size(); i++) {
+            Incidente incidente = incidentes.get(i);
+            try {
+                if (incidente == null) {
+                    throw new IllegalArgumentException("El incidente no puede ser nulo");
+                }
+                incidente.setId(0);
+                incidente.setTipoIncidente(resolverRelacion(incidente.getTipoIncidente(), tipos, TipoIncidente::getId,
+                        tiposPorNombre, TipoIncidente::getNombre, tipo -> tipoIncidenteService.buscarPorNombre(tipo.getNombre()),
+                        tipoIncidenteService::validarTipoIncidente, "Tipo Incidente"));
+                incidente.setEstadoIncidente(resolverRelacion(incidente.getEstadoIncidente(), estados, EstadoIncidente::getId,
+                        estadosPorNombre, EstadoIncidente::getNombre, estado -> estadoIncidenteService.buscarPorNombre(estado.getNombre()),
+                        estadoIncidenteService::validarEstadoIncidente, "Estado Incidente"));
+                incidente.setEquipo(resolverRelacion(incidente.getEquipo(), equipos, Equipo::getId,
+                        equiposPorNombre, Equipo::getNombre, equipo -> buscarEquipoPorNombre(equipo.getNombre()),
+                        this::validarEquipo, "Equipo"));
+                incidente.setCiudadano(resolverRelacion(incidente.getCiudadano(), ciudadanos, Ciudadano::getId,
+                        ciudadanosDelLote, Ciudadano::getRun, ciudadano -> ciudadanosPorRun.get(ciudadano.getRun()),
+                        this::validarCiudadano, "Ciudadano"));
+                incidente.setUbicacion(resolverRelacion(incidente.getUbicacion(), ubicaciones, Ubicacion::getId,
+                        ubicacionesDelLote, ubicacionService::llaveDireccion, ubicacion -> ubicacionesPorDireccion.get(ubicacionService.llaveDireccion(ubicacion)),
+                        ubicacionService::validarUbicacion, "Ubicacion"));
+                validarIncidente(incidente);
+            } catch (RuntimeException e) {
+                resultados.add(ResultadoIngesta.rechazado(i, e.getMessage()));
+                continue;
+            }
+
+            persistirSiEsNueva(incidente.getTipoIncidente(), TipoIncidente::getId, tipoIncidenteService::recordar);
+            persistirSiEsNueva(incidente.getEstadoIncidente(), EstadoIncidente::getId, estadoIncidenteService::recordar);
+            persistirSiEsNueva(incidente.getEquipo(), Equipo::getId, this::recordarEquipo);
+            persistirSiEsNueva(incidente.getCiudadano(), Ciudadano::getId, this::recordarCiudadano);
+            persistirSiEsNueva(incidente.getUbicacion(), Ubicacion::getId, ubicacionService::recordar);
+            entityManager.persist(incidente);
+            estadisticasIncidenteService.registrar(null, estadisticasIncidenteService.valores(incidente));
+            eventos.publishEvent(CambioIncidente.de(CambioIncidente.Tipo.CREADO, incidente));
+            resultados.add(ResultadoIngesta.creado(i, incidente.getId()));
+
+            // Envía el bloque acumulado y libera el contexto de persistencia
+            if (++pendientes % TAMANIO_BLOQUE_ESCRITURA == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        try {
+            entityManager.flush();
+        } catch (Exception e) {
+            throw new RuntimeException("Error al guardar el lote de incidentes: " + e.getMessage(), e);
+        }
+        return resultados;
+    }
+
     /**
      * Actualiza los datos de un incidente existente.
-     * @param incidente Datos actualizados del incidente
+     * <p>
+     * El incidente se carga una sola vez; las relaciones se asignan por referencia a su ID
+     * (sin consultarlas) y los cambios se escriben en un único flush.
+     * </p>
+     * @param incidente Datos actualizados del incidente; los campos nulos no se modifican
      * @param id Identificador del incidente a actualizar
      * @return Incidente actualizado
      * @throws IllegalArgumentException Si el incidente proporcionado es nulo
@@ -95,74 +288,169 @@ public class IncidenteService {
      * @throws RuntimeException Si ocurre algún error durante la actualización
      */
     public Incidente update(Incidente incidente, long id) {
+        return update(incidente, id, null);
+    }
+
+    /**
+     * Actualiza un incidente existente sólo si conserva la versión que el cliente leyó.
+     * @param incidente Datos actualizados del incidente; los campos nulos no se modifican
+     * @param id Identificador del incidente a actualizar
+     * @param versionEsperada Versión que el cliente espera modificar, o null para no verificarla
+     * @return Incidente actualizado, con su nueva versión
+     * @throws IllegalArgumentException Si el incidente proporcionado es nulo
+     * @throws NoSuchElementException Si no se encuentra el incidente a actualizar
+     * @throws ConflictoVersionException Si la versión no coincide o el incidente se modificó de forma concurrente
+     * @throws RuntimeException Si ocurre algún error durante la actualización
+     */
+    public Incidente update(Incidente incidente, long id, Long versionEsperada) {
         if (incidente == null) {
             throw new IllegalArgumentException("El incidente no puede ser nulo");
         }
 
         Incidente incidenteExistente = incidenteRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Incidente no encontrado con ID: " + id));
+        verificarVersion(incidenteExistente, versionEsperada);
+        EstadisticasIncidenteService.Valores antes = estadisticasIncidenteService.valores(incidenteExistente);
 
         try {
-            actualizarRelaciones(incidente, incidenteExistente);
-
             if (incidente.getTitulo() != null) {
-                if (incidente.getTitulo().length() > 50) {
-                    throw new RuntimeException("El Titulo no puede exceder 50 caracteres");
-                }else{
-                    incidenteExistente.setTitulo(incidente.getTitulo());
-                }
+                asignarTitulo(incidenteExistente, incidente.getTitulo());
             }
 
             if (incidente.getDetalle() != null) {
-                if (incidente.getDetalle().length() > 400) {
-                    throw new RuntimeException("El detalle no puede exceder 400 caracteres");
-                }else{
-                    incidenteExistente.setDetalle(incidente.getDetalle());
-                }
+                asignarDetalle(incidenteExistente, incidente.getDetalle());
             }
 
             // Actualizar recursos asociados
             if (incidente.getEstadoIncidente() != null) {
-                asignarEstadoIncidente(Long.valueOf(incidente.getId()),Long.valueOf(incidente.getEstadoIncidente().getId()));
-                incidenteExistente.setEstadoIncidente(incidente.getEstadoIncidente());
+                incidenteExistente.setEstadoIncidente(
+                        estadoIncidenteRepository.getReferenceById((long) incidente.getEstadoIncidente().getId()));
             }
 
             if (incidente.getEquipo() != null) {
-                asignarEquipo(Long.valueOf(incidente.getId()),Long.valueOf(incidente.getEquipo().getId()));
-                incidenteExistente.setEquipo(incidente.getEquipo());
+                incidenteExistente.setEquipo(equipoRepository.getReferenceById((long) incidente.getEquipo().getId()));
             }
 
             if (incidente.getCiudadano() != null) {
-                asignarCiudadano(Long.valueOf(incidente.getId()),Long.valueOf(incidente.getCiudadano().getId()));
-                incidenteExistente.setCiudadano(incidente.getCiudadano());
+                incidenteExistente.setCiudadano(
+                        ciudadanoRepository.getReferenceById((long) incidente.getCiudadano().getId()));
             }
 
             if (incidente.getTipoIncidente() != null) {
-                asignarTipoIncidente(Long.valueOf(incidente.getId()),Long.valueOf(incidente.getTipoIncidente().getId()));
-                incidenteExistente.setTipoIncidente(incidente.getTipoIncidente());
+                incidenteExistente.setTipoIncidente(
+                        tipoIncidenteRepository.getReferenceById((long) incidente.getTipoIncidente().getId()));
             }
 
             if (incidente.getUbicacion() != null) {
-                asignarUbicacion(Long.valueOf(incidente.getId()),Long.valueOf(incidente.getUbicacion().getId()));
-                incidenteExistente.setUbicacion(incidente.getUbicacion());
+                incidenteExistente.setUbicacion(UbicacionRepository.getReferenceById((long) incidente.getUbicacion().getId()));
             }
 
-            return incidenteRepository.save(incidenteExistente);
+            escribir(incidenteExistente);
+            estadisticasIncidenteService.registrar(antes, estadisticasIncidenteService.valores(incidenteExistente));
+            eventos.publishEvent(CambioIncidente.de(CambioIncidente.Tipo.ACTUALIZADO, incidenteExistente));
+            return incidenteExistente;
+        } catch (ConflictoVersionException e) {
+            throw e;
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Error al actualizar incidente: alguna de las relaciones indicadas no existe", e);
         } catch (Exception e) {
             throw new RuntimeException("Error al actualizar incidente: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Elimina un incidente del sistema.
+     * Actualiza parcialmente un incidente a partir de un documento JSON Merge Patch (RFC 7396).
+     * <p>
+     * Sólo se modifican los campos presentes en el documento. Un valor null elimina el campo
+     * (o desasigna la relación). Las relaciones se indican por ID, por ejemplo
+     * {@code {"equipo": {"id": 4}}} o {@code {"equipo": 4}}, y se asignan por referencia sin
+     * consultarlas. El incidente se carga una vez y se escribe en un único flush.
+     * </p>
+     * @param id Identificador del incidente a actualizar
+     * @param parche Documento con los campos modificados
+     * @param versionEsperada Versión que el cliente espera modificar, o null para no verificarla
+     * @return Incidente actualizado, con su nueva versión
+     * @throws IllegalArgumentException Si el documento no es un objeto JSON o contiene campos no soportados
+     * @throws NoSuchElementException Si no se encuentra el incidente a actualizar
+     * @throws ConflictoVersionException Si la versión no coincide o el incidente se modificó de forma concurrente
+     * @throws RuntimeException Si ocurre algún error durante la actualización
+     */
+    public Incidente patch(long id, JsonNode parche, Long versionEsperada) {
+        if (parche == null || !parche.isObject()) {
+            throw new IllegalArgumentException("El parche debe ser un objeto JSON");
+        }
+
+        Incidente incidenteExistente = incidenteRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Incidente no encontrado con ID: " + id));
+        verificarVersion(incidenteExistente, versionEsperada);
+        EstadisticasIncidenteService.Valores antes = estadisticasIncidenteService.valores(incidenteExistente);
+
+        try {
+            Iterator<Map.Entry<String, JsonNode>> campos = parche.fields();
+            while (campos.hasNext()) {
+                Map.Entry<String, JsonNode> campo = campos.next();
+                JsonNode valor = campo.getValue();
+                switch (campo.getKey()) {
+                    case "titulo" -> {
+                        if (valor.isNull()) {
+                            throw new IllegalArgumentException("El Titulo no puede ser nulo");
+                        }
+                        asignarTitulo(incidenteExistente, valor.asText());
+                    }
+                    case "detalle" -> asignarDetalle(incidenteExistente, valor.isNull() ? null : valor.asText());
+                    case "tipoIncidente" -> incidenteExistente.setTipoIncidente(referencia(valor, tipoIncidenteRepository));
+                    case "estadoIncidente" -> incidenteExistente.setEstadoIncidente(referencia(valor, estadoIncidenteRepository));
+                    case "equipo" -> incidenteExistente.setEquipo(referencia(valor, equipoRepository));
+                    case "ciudadano" -> incidenteExistente.setCiudadano(referencia(valor, ciudadanoRepository));
+                    case "ubicacion" -> incidenteExistente.setUbicacion(referencia(valor, UbicacionRepository));
+                    case "id" -> {
+                        // El ID del recurso lo define la URL
+                    }
+                    default -> throw new IllegalArgumentException("Campo no soportado: " + campo.getKey());
+                }
+            }
+
+            escribir(incidenteExistente);
+            estadisticasIncidenteService.registrar(antes, estadisticasIncidenteService.valores(incidenteExistente));
+            eventos.publishEvent(CambioIncidente.de(CambioIncidente.Tipo.ACTUALIZADO, incidenteExistente));
+            return incidenteExistente;
+        } catch (ConflictoVersionException e) {
+            throw e;
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Error al actualizar incidente: alguna de las relaciones indicadas no existe", e);
+        } catch (Exception e) {
+            throw new RuntimeException("Error al actualizar incidente: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Elimina un incidente del sistema, dejando el registro de la eliminación para
+     * la sincronización incremental.
      * @param id Identificador del incidente a eliminar
      * @throws NoSuchElementException Si no se encuentra el incidente
      */
     public void delete(long id) {
-        if (!incidenteRepository.existsById(id)) {
-            throw new NoSuchElementException("No se encontró incidente con ID: " + id);
-        }
-        incidenteRepository.deleteById(id);
+        delete(id, null);
+    }
+
+    /**
+     * Elimina un incidente sólo si conserva la versión que el cliente leyó.
+     * @param id Identificador del incidente a eliminar
+     * @param versionEsperada Versión que el cliente espera eliminar, o null para no verificarla
+     * @throws NoSuchElementException Si no se encuentra el incidente
+     * @throws ConflictoVersionException Si la versión no coincide o el incidente se modificó de forma concurrente
+     */
+    public void delete(long id, Long versionEsperada) {
+        Incidente incidente = incidenteRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("No se encontró incidente con ID: " + id));
+        verificarVersion(incidente, versionEsperada);
+        EstadisticasIncidenteService.Valores antes = estadisticasIncidenteService.valores(incidente);
+        incidenteRepository.delete(incidente);
+        escribir(incidente);
+        estadisticasIncidenteService.registrar(antes, null);
+        // persist en lugar de save: el ID es asignado y save haría un SELECT previo
+        entityManager.persist(new IncidenteEliminado((int) id, Instant.now()));
+        eventos.publishEvent(CambioIncidente.eliminado((int) id));
     }
 
     // MÉTODOS DE ASIGNACIÓN DE RELACIONES
@@ -171,77 +459,246 @@ public class IncidenteService {
      * Asigna una Ciudadano a un incidente.
      * @param incidenteId ID del incidente
      * @param ciudadanoId ID de la incidente
+     * @param versionEsperada Versión que el cliente espera modificar, o null para no verificarla
+     * @return Incidente con su nueva versión
+     * @throws ConflictoVersionException Si la versión no coincide o el incidente se modificó de forma concurrente
      */
-    public void asignarCiudadano(long incidenteId, long ciudadanoId) {
+    public Incidente asignarCiudadano(long incidenteId, long ciudadanoId, Long versionEsperada) {
         Incidente incidente = incidenteRepository.findById(incidenteId)
             .orElseThrow(() -> new RuntimeException("Incidente no encontrado"));
+        verificarVersion(incidente, versionEsperada);
+        EstadisticasIncidenteService.Valores antes = estadisticasIncidenteService.valores(incidente);
         Ciudadano ciudadano = ciudadanoRepository.findById(ciudadanoId)
             .orElseThrow(() -> new RuntimeException("Ciudadano no encontrado"));
         incidente.setCiudadano(ciudadano);
-        incidenteRepository.save(incidente);
-
+        escribir(incidente);
+        estadisticasIncidenteService.registrar(antes, estadisticasIncidenteService.valores(incidente));
+        eventos.publishEvent(CambioIncidente.de(CambioIncidente.Tipo.ASIGNADO, incidente));
+        return incidente;
     }
 
     /**
      * Asigna un tipo de incidente a un incidente.
      * @param incidenteId ID del incidente
      * @param tipoIncidenteId ID del tipo de incidente
+     * @param versionEsperada Versión que el cliente espera modificar, o null para no verificarla
+     * @return Incidente con su nueva versión
+     * @throws ConflictoVersionException Si la versión no coincide o el incidente se modificó de forma concurrente
      */
-    public void asignarTipoIncidente(long incidenteId, long tipoIncidenteId) {
+    public Incidente asignarTipoIncidente(long incidenteId, long tipoIncidenteId, Long versionEsperada) {
         Incidente incidente = incidenteRepository.findById(incidenteId)
                 .orElseThrow(() -> new RuntimeException("Incidente no encontrado"));
+        verificarVersion(incidente, versionEsperada);
+        EstadisticasIncidenteService.Valores antes = estadisticasIncidenteService.valores(incidente);
         TipoIncidente tipoIncidente = tipoIncidenteRepository.findById(tipoIncidenteId)
                 .orElseThrow(() -> new RuntimeException("Tipo Incidente no encontrado"));
         incidente.setTipoIncidente(tipoIncidente);
-        incidenteRepository.save(incidente);
+        escribir(incidente);
+        estadisticasIncidenteService.registrar(antes, estadisticasIncidenteService.valores(incidente));
+        eventos.publishEvent(CambioIncidente.de(CambioIncidente.Tipo.ASIGNADO, incidente));
+        return incidente;
     }
 
     /**
      * Asigna un Estado de incidente a un incidente.
      * @param incidenteId ID del incidente
      * @param estadoIncidenteId ID del Estado Incidente
+     * @param versionEsperada Versión que el cliente espera modificar, o null para no verificarla
+     * @return Incidente con su nueva versión
+     * @throws ConflictoVersionException Si la versión no coincide o el incidente se modificó de forma concurrente
      */
-    public void asignarEstadoIncidente(long incidenteId, long estadoIncidenteId) {
+    public Incidente asignarEstadoIncidente(long incidenteId, long estadoIncidenteId, Long versionEsperada) {
         Incidente incidente = incidenteRepository.findById(incidenteId)
                 .orElseThrow(() -> new RuntimeException("Incidente no encontrado"));
+        verificarVersion(incidente, versionEsperada);
+        EstadisticasIncidenteService.Valores antes = estadisticasIncidenteService.valores(incidente);
         EstadoIncidente estadoIncidente = estadoIncidenteRepository.findById(estadoIncidenteId)
                 .orElseThrow(() -> new RuntimeException("Estado Incidente no encontrado"));
         incidente.setEstadoIncidente(estadoIncidente);
-        incidenteRepository.save(incidente);
+        escribir(incidente);
+        estadisticasIncidenteService.registrar(antes, estadisticasIncidenteService.valores(incidente));
+        eventos.publishEvent(CambioIncidente.de(CambioIncidente.Tipo.ASIGNADO, incidente));
+        return incidente;
     }
 
     /**
      * Asigna un Equipo a un incidente.
      * @param incidenteId ID del incidente
      * @param equipoId ID del Equipo
+     * @param versionEsperada Versión que el cliente espera modificar, o null para no verificarla
+     * @return Incidente con su nueva versión
+     * @throws ConflictoVersionException Si la versión no coincide o el incidente se modificó de forma concurrente
      */
-    public void asignarEquipo(long incidenteId, long equipoId) {
+    public Incidente asignarEquipo(long incidenteId, long equipoId, Long versionEsperada) {
         Incidente incidente = incidenteRepository.findById(incidenteId)
                 .orElseThrow(() -> new RuntimeException("Incidente no encontrado"));
+        verificarVersion(incidente, versionEsperada);
+        EstadisticasIncidenteService.Valores antes = estadisticasIncidenteService.valores(incidente);
         Equipo equipo = equipoRepository.findById(equipoId)
                 .orElseThrow(() -> new RuntimeException("Equipo no encontrado"));
         incidente.setEquipo(equipo);
-        incidenteRepository.save(incidente);
+        escribir(incidente);
+        estadisticasIncidenteService.registrar(antes, estadisticasIncidenteService.valores(incidente));
+        eventos.publishEvent(CambioIncidente.de(CambioIncidente.Tipo.ASIGNADO, incidente));
+        return incidente;
     }
 
     /**
      * Asigna un Ubicacion a un incidente.
      * @param incidenteId ID del incidente
      * @param ubicacionId ID del Ubicacion
+     * @param versionEsperada Versión que el cliente espera modificar, o null para no verificarla
+     * @return Incidente con su nueva versión
+     * @throws ConflictoVersionException Si la versión no coincide o el incidente se modificó de forma concurrente
      */
-    public void asignarUbicacion(long incidenteId, long ubicacionId) {
+    public Incidente asignarUbicacion(long incidenteId, long ubicacionId, Long versionEsperada) {
         Incidente incidente = incidenteRepository.findById(incidenteId)
                 .orElseThrow(() -> new RuntimeException("Incidente no encontrado"));
+        verificarVersion(incidente, versionEsperada);
+        EstadisticasIncidenteService.Valores antes = estadisticasIncidenteService.valores(incidente);
         Ubicacion ubicacion = UbicacionRepository.findById(ubicacionId)
                 .orElseThrow(() -> new RuntimeException("Ubicacion no encontrado"));
         incidente.setUbicacion(ubicacion);
-        incidenteRepository.save(incidente);
+        escribir(incidente);
+        estadisticasIncidenteService.registrar(antes, estadisticasIncidenteService.valores(incidente));
+        eventos.publishEvent(CambioIncidente.de(CambioIncidente.Tipo.ASIGNADO, incidente));
+        return incidente;
+    }
+
+
+    // CONTROL DE CONCURRENCIA
+
+    /**
+     * Verifica que el incidente tenga la versión que el cliente espera modificar.
+     * @throws ConflictoVersionException Si la versión no coincide
+     */
+    private static void verificarVersion(Incidente incidente, Long versionEsperada) {
+        if (versionEsperada != null && versionEsperada != incidente.getVersion()) {
+            throw new ConflictoVersionException("El incidente " + incidente.getId() + " está en la versión "
+                    + incidente.getVersion() + ", no en la versión " + versionEsperada);
+        }
+    }
+
+    /**
+     * Envía los cambios del incidente a la base de datos. La sentencia incluye la versión leída,
+     * por lo que falla si otra transacción modificó el incidente entretanto, en lugar de
+     * sobrescribir su cambio.
+     * @throws ConflictoVersionException Si el incidente se modificó de forma concurrente
+     */
+    private void escribir(Incidente incidente) {
+        try {
+            incidenteRepository.flush();
+        } catch (OptimisticLockingFailureException e) {
+            throw new ConflictoVersionException("El incidente " + incidente.getId()
+                    + " fue modificado por otra operación; se debe volver a leer", e);
+        }
+    }
+
+
+    // RESOLUCIÓN DE CIUDADANOS Y EQUIPOS POR LLAVE NATURAL
+
+    /**
+     * Obtiene el ciudadano a asociar a un incidente nuevo: por ID como referencia, por RUN
+     * si ya existe, o insertándolo si es nuevo.
+     */
+    private Ciudadano resolverCiudadano(Ciudadano ciudadano) {
+        if (ciudadano == null) {
+            return null;
+        }
+        if (ciudadano.getId() > 0) {
+            return ciudadanoRepository.getReferenceById((long) ciudadano.getId());
+        }
+        validarCiudadano(ciudadano);
+        Integer id = idsCiudadanoPorRun.obtener(ciudadano.getRun());
+        if (id != null) {
+            return ciudadanoRepository.getReferenceById((long) id);
+        }
+        Optional<Ciudadano> existente = ciudadanoRepository.findByRun(ciudadano.getRun());
+        if (existente.isPresent()) {
+            idsCiudadanoPorRun.recordar(ciudadano.getRun(), existente.get().getId());
+            return existente.get();
+        }
+        Ciudadano guardado = ciudadanoRepository.save(ciudadano);
+        recordarCiudadano(guardado);
+        return guardado;
+    }
+
+    /**
+     * Busca en una sola consulta los ciudadanos existentes para los RUN indicados.
+     */
+    private Map<Long, Ciudadano> buscarCiudadanosPorRun(List<Ciudadano> ciudadanos) {
+        Map<Long, Ciudadano> encontrados = new HashMap<>();
+        Set<Long> runs = new HashSet<>();
+        for (Ciudadano ciudadano : ciudadanos) {
+            if (ciudadano.getRun() == null) {
+                continue;
+            }
+            Integer id = idsCiudadanoPorRun.obtener(ciudadano.getRun());
+            if (id != null) {
+                encontrados.put(ciudadano.getRun(), ciudadanoRepository.getReferenceById((long) id));
+            } else {
+                runs.add(ciudadano.getRun());
+            }
+        }
+        if (!runs.isEmpty()) {
+            for (Ciudadano existente : ciudadanoRepository.findByRunIn(runs)) {
+                idsCiudadanoPorRun.recordar(existente.getRun(), existente.getId());
+                encontrados.put(existente.getRun(), existente);
+            }
+        }
+        return encontrados;
+    }
+
+    private void recordarCiudadano(Ciudadano ciudadano) {
+        idsCiudadanoPorRun.recordarAlConfirmar(ciudadano.getRun(), ciudadano.getId());
+    }
+
+    /**
+     * Obtiene el equipo a asociar a un incidente nuevo: por ID como referencia, por nombre
+     * si ya existe, o insertándolo si es nuevo.
+     */
+    private Equipo resolverEquipo(Equipo equipo) {
+        if (equipo == null) {
+            return null;
+        }
+        if (equipo.getId() > 0) {
+            return equipoRepository.getReferenceById((long) equipo.getId());
+        }
+        validarEquipo(equipo);
+        Equipo existente = buscarEquipoPorNombre(equipo.getNombre());
+        if (existente != null) {
+            return existente;
+        }
+        Equipo guardado = equipoRepository.save(equipo);
+        recordarEquipo(guardado);
+        return guardado;
+    }
+
+    private Equipo buscarEquipoPorNombre(String nombre) {
+        String llave = nombre.trim().toLowerCase(Locale.ROOT);
+        Integer id = idsEquipoPorNombre.obtener(llave);
+        if (id != null) {
+            return equipoRepository.getReferenceById((long) id);
+        }
+        Optional<Equipo> existente = equipoRepository.findFirstByNombreIgnoreCase(nombre.trim());
+        existente.ifPresent(equipo -> idsEquipoPorNombre.recordar(llave, equipo.getId()));
+        return existente.orElse(null);
+    }
+
+    private void recordarEquipo(Equipo equipo) {
+        idsEquipoPorNombre.recordarAlConfirmar(equipo.getNombre().trim().toLowerCase(Locale.ROOT), equipo.getId());
     }
 
 
     // MÉTODOS PRIVADOS DE VALIDACIÓN Y UTILIDADES
 
-    private void validarIncidente(Incidente incidente) {
+    /**
+     * Valida el largo del título y del detalle de un incidente.
+     * Visible en el paquete para la ingesta asíncrona y los benchmarks JMH. No abre una transacción:
+     * la ingesta asíncrona debe aceptar incidentes aunque la base de datos esté detenida.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    void validarIncidente(Incidente incidente) {
 
         if (incidente.getTitulo() != null) {
             if (incidente.getTitulo().length() > 50) {
@@ -257,16 +714,120 @@ public class IncidenteService {
 
     }
 
-    private void actualizarRelaciones(Incidente fuente, Incidente destino) {
-        if (fuente.getEstadoIncidente() != null) {
-            destino.setEstadoIncidente(estadoIncidenteService.save(fuente.getEstadoIncidente()));
+    private void validarCiudadano(Ciudadano ciudadano) {
+        if (ciudadano.getRun() == null || ciudadano.getDv() == null || ciudadano.getTelefono() == null) {
+            throw new IllegalArgumentException("El RUN, DV y teléfono del ciudadano son requeridos");
+        }
+        if (ciudadano.getNombre() == null || ciudadano.getA_paterno() == null || ciudadano.getA_materno() == null) {
+            throw new IllegalArgumentException("El nombre y apellidos del ciudadano son requeridos");
+        }
+    }
+
+    private void validarEquipo(Equipo equipo) {
+        if (equipo.getNombre() == null || equipo.getNombre().length() > 50) {
+            throw new IllegalArgumentException("El nombre del equipo es requerido y no puede exceder 50 caracteres");
+        }
+    }
+
+    /**
+     * Carga en una sola consulta las entidades referenciadas por ID en un lote de incidentes.
+     */
+    private <T> Map<Long, T> cargarPorId(JpaRepository<T, Long> repositorio, List<Incidente> incidentes,
+                                         Function<Incidente, T> relacion, ToIntFunction<T> id) {
+        Set<Long> ids = new HashSet<>();
+        for (Incidente incidente : incidentes) {
+            T entidad = incidente == null ? null : relacion.apply(incidente);
+            if (entidad != null && id.applyAsInt(entidad) > 0) {
+                ids.add((long) id.applyAsInt(entidad));
+            }
+        }
+        Map<Long, T> encontradas = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (T entidad : repositorio.findAllById(ids)) {
+                encontradas.put((long) id.applyAsInt(entidad), entidad);
+            }
+        }
+        return encontradas;
+    }
+
+    /**
+     * Obtiene las relaciones sin ID (candidatas a buscarse por llave natural) de un lote de incidentes.
+     */
+    private <T> List<T> sinId(List<Incidente> incidentes, Function<Incidente, T> relacion, ToIntFunction<T> id) {
+        List<T> entidades = new ArrayList<>();
+        for (Incidente incidente : incidentes) {
+            T entidad = incidente == null ? null : relacion.apply(incidente);
+            if (entidad != null && id.applyAsInt(entidad) == 0) {
+                entidades.add(entidad);
+            }
+        }
+        return entidades;
+    }
+
+    /**
+     * Obtiene la entidad a usar para una relación de un incidente del lote: la existente si
+     * viene con ID, la ya resuelta en el lote o en la base de datos con la misma llave natural,
+     * o la nueva entidad validada.
+     */
+    private <T, K> T resolverRelacion(T entidad, Map<Long, T> existentes, ToIntFunction<T> id,
+                                      Map<K, T> delLote, Function<T, K> llave, Function<T, T> buscarExistente,
+                                      Consumer<T> validador, String nombre) {
+        if (entidad == null) {
+            return null;
+        }
+        int idEntidad = id.applyAsInt(entidad);
+        if (idEntidad > 0) {
+            T existente = existentes.get((long) idEntidad);
+            if (existente == null) {
+                throw new NoSuchElementException(nombre + " no encontrado con ID: " + idEntidad);
+            }
+            return existente;
+        }
+        validador.accept(entidad);
+        K llaveEntidad = llave.apply(entidad);
+        T resuelta = delLote.get(llaveEntidad);
+        if (resuelta == null) {
+            T existente = buscarExistente.apply(entidad);
+            resuelta = existente != null ? existente : entidad;
+            delLote.put(llaveEntidad, resuelta);
+        }
+        return resuelta;
+    }
+
+    private <T> void persistirSiEsNueva(T entidad, ToIntFunction<T> id, Consumer<T> recordar) {
+        if (entidad != null && id.applyAsInt(entidad) == 0) {
+            entityManager.persist(entidad);
+            recordar.accept(entidad);
+        }
+    }
+
+    private void asignarTitulo(Incidente destino, String titulo) {
+        if (titulo.length() > 50) {
+            throw new RuntimeException("El Titulo no puede exceder 50 caracteres");
+        }
+        destino.setTitulo(titulo);
+    }
+
+    private void asignarDetalle(Incidente destino, String detalle) {
+        if (detalle != null && detalle.length() > 400) {
+            throw new RuntimeException("El detalle no puede exceder 400 caracteres");
         }
-        if (fuente.getUbicacion() != null) {
-            destino.setUbicacion(ubicacionService.save(fuente.getUbicacion()));
+        destino.setDetalle(detalle);
+    }
+
+    /**
+     * Obtiene una referencia (sin consultar la base de datos) a la entidad indicada en un parche,
+     * ya sea como {@code {"id": n}} o directamente como el número de ID.
+     */
+    private <T> T referencia(JsonNode valor, JpaRepository<T, Long> repositorio) {
+        if (valor.isNull()) {
+            return null;
         }
-        if (fuente.getTipoIncidente() != null) {
-            destino.setTipoIncidente(tipoIncidenteService.save(fuente.getTipoIncidente()));
+        JsonNode id = valor.isObject() ? valor.get("id") : valor;
+        if (id == null || !id.canConvertToLong() || id.asLong() <= 0) {
+            throw new IllegalArgumentException("Las relaciones deben indicarse con un ID válido");
         }
+        return repositorio.getReferenceById(id.asLong());
     }
 
 }
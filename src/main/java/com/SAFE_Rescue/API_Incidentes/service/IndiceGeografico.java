@@ -0,0 +1,434 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice espacial en memoria de puntos (latitud, longitud) identificados por un ID entero.
+ * <p>
+ * Divide la superficie en una grilla de celdas de {@code tamanioCelda} grados y guarda en cada
+ * celda no vacía los IDs y coordenadas de sus puntos en arreglos contiguos. Las búsquedas
+ * recorren anillos de celdas alrededor del punto consultado y se detienen cuando ninguna celda
+ * sin revisar puede contener un punto dentro del radio o más cercano que el k-ésimo encontrado,
+ * por lo que su costo depende de la densidad local y no del total de puntos.
+ * </p>
+ * <p>
+ * Las distancias son de círculo máximo (haversine) sobre una esfera del radio medio terrestre.
+ * La grilla no da la vuelta en el antimeridiano (longitud ±180).
+ * </p>
+ */
+public final class IndiceGeografico {
+
+    static final double RADIO_TERRESTRE_METROS = 6_371_008.8;
+    static final double METROS_POR_GRADO = Math.PI * RADIO_TERRESTRE_METROS / 180;
+
+    private static final int CAPACIDAD_INICIAL_CELDA = 4;
+
+    private final double tamanioCelda;
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    // Protegidos por el candado
+    private final Map<Long, Celda> celdas = new HashMap<>();
+    private Celda[] celdaPorId = new Celda[0];
+    private int[] posicionPorId = new int[0];
+    private int cantidad;
+    private int filaMinima = Integer.MAX_VALUE;
+    private int filaMaxima = Integer.MIN_VALUE;
+    private int columnaMinima = Integer.MAX_VALUE;
+    private int columnaMaxima = Integer.MIN_VALUE;
+
+    /**
+     * @param tamanioCelda Lado de cada celda de la grilla, en grados
+     */
+    public IndiceGeografico(double tamanioCelda) {
+        if (!(tamanioCelda > 0 && tamanioCelda <= 90)) {
+            throw new IllegalArgumentException("El tamaño de celda debe estar entre 0 y 90 grados");
+        }
+        this.tamanioCelda = tamanioCelda;
+    }
+
+    // ESCRITURA
+
+    /**
+     * Agrega un punto al índice o lo mueve si ya estaba.
+     * @param id ID del punto (mayor a 0)
+     * @param latitud Latitud en grados decimales
+     * @param longitud Longitud en grados decimales
+     */
+    public void ubicar(int id, double latitud, double longitud) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("El ID a ubicar debe ser mayor a 0");
+        }
+        int fila = fila(latitud);
+        int columna = columna(longitud);
+        long llave = llave(fila, columna);
+
+        candado.writeLock().lock();
+        try {
+            quitarPunto(id);
+            if (id >= celdaPorId.length) {
+                int capacidad = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(id + 1L, celdaPorId.length * 3L / 2));
+                celdaPorId = Arrays.copyOf(celdaPorId, capacidad);
+                posicionPorId = Arrays.copyOf(posicionPorId, capacidad);
+            }
+            Celda celda = celdas.computeIfAbsent(llave, Celda::new);
+            celdaPorId[id] = celda;
+            posicionPorId[id] = celda.agregar(id, latitud, longitud);
+            cantidad++;
+            filaMinima = Math.min(filaMinima, fila);
+            filaMaxima = Math.max(filaMaxima, fila);
+            columnaMinima = Math.min(columnaMinima, columna);
+            columnaMaxima = Math.max(columnaMaxima, columna);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un punto del índice.
+     * @param id ID del punto
+     */
+    public void quitar(int id) {
+        candado.writeLock().lock();
+        try {
+            quitarPunto(id);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void quitarPunto(int id) {
+        if (id <= 0 || id >= celdaPorId.length || celdaPorId[id] == null) {
+            return;
+        }
+        Celda celda = celdaPorId[id];
+        int movido = celda.quitar(posicionPorId[id]);
+        if (movido != id) {
+            posicionPorId[movido] = posicionPorId[id];
+        }
+        if (celda.tamanio == 0) {
+            celdas.remove(celda.llave);
+        }
+        celdaPorId[id] = null;
+        cantidad--;
+    }
+
+    // BÚSQUEDA
+
+    /**
+     * Obtiene los k puntos más cercanos a una coordenada.
+     * @param latitud Latitud en grados decimales
+     * @param longitud Longitud en grados decimales
+     * @param k Cantidad de puntos a obtener
+     * @return Puntos ordenados por distancia ascendente
+     */
+    public List<Cercano> cercanos(double latitud, double longitud, int k) {
+        return buscar(latitud, longitud, k, Double.MAX_VALUE);
+    }
+
+    /**
+     * Obtiene los puntos a una distancia menor o igual a un radio, del más cercano al más lejano.
+     * @param latitud Latitud en grados decimales
+     * @param longitud Longitud en grados decimales
+     * @param radioMetros Radio de búsqueda en metros
+     * @param limite Cantidad máxima de puntos a obtener
+     * @return Los {@code limite} puntos más cercanos dentro del radio
+     */
+    public List<Cercano> enRadio(double latitud, double longitud, double radioMetros, int limite) {
+        if (!(radioMetros >= 0)) {
+            return List.of();
+        }
+        return buscar(latitud, longitud, limite, radioMetros);
+    }
+
+    /**
+     * Recorre anillos de celdas cada vez más lejanos hasta que ninguna celda sin revisar pueda
+     * contener un punto dentro del radio o más cercano que el último de los {@code limite} mejores.
+     */
+    private List<Cercano> buscar(double latitud, double longitud, int limite, double radioMetros) {
+        if (limite <= 0) {
+            return List.of();
+        }
+        int filaCentro = fila(latitud);
+        int columnaCentro = columna(longitud);
+        double cosenoLatitud = Math.cos(Math.toRadians(latitud));
+
+        candado.readLock().lock();
+        try {
+            if (cantidad == 0) {
+                return List.of();
+            }
+            MasCercanos mejores = new MasCercanos(Math.min(limite, cantidad), radioMetros);
+            int anilloMaximo = Math.max(
+                    Math.max(filaCentro - filaMinima, filaMaxima - filaCentro),
+                    Math.max(columnaCentro - columnaMinima, columnaMaxima - columnaCentro));
+            for (int anillo = 0; anillo <= anilloMaximo; anillo++) {
+                if (8L * anillo > celdas.size()) {
+                    // El anillo tiene más celdas que las ocupadas: se revisan directamente las que faltan
+                    for (Map.Entry<Long, Celda> entrada : celdas.entrySet()) {
+                        int fila = (int) (entrada.getKey() >> 32);
+                        int columna = (int) (long) entrada.getKey();
+                        if (Math.max(Math.abs(fila - filaCentro), Math.abs(columna - columnaCentro)) >= anillo) {
+                            entrada.getValue().revisar(latitud, longitud, cosenoLatitud, mejores);
+                        }
+                    }
+                    break;
+                }
+                revisarAnillo(filaCentro, columnaCentro, anillo, latitud, longitud, cosenoLatitud, mejores);
+                if (mejores.umbral() <= distanciaMinimaFueraDe(anillo, latitud)) {
+                    break;
+                }
+            }
+            return mejores.resultado();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    private void revisarAnillo(int filaCentro, int columnaCentro, int anillo, double latitud, double longitud,
+                               double cosenoLatitud, MasCercanos mejores) {
+        int filaDesde = Math.max(filaCentro - anillo, filaMinima);
+        int filaHasta = Math.min(filaCentro + anillo, filaMaxima);
+        for (int fila = filaDesde; fila <= filaHasta; fila++) {
+            boolean borde = fila == filaCentro - anillo || fila == filaCentro + anillo;
+            // En las filas del borde se recorre todo el ancho; en las demás, sólo las dos columnas extremas
+            int paso = borde || anillo == 0 ? 1 : 2 * anillo;
+            for (int columna = columnaCentro - anillo; columna <= columnaCentro + anillo; columna += paso) {
+                if (columna < columnaMinima || columna > columnaMaxima) {
+                    continue;
+                }
+                Celda celda = celdas.get(llave(fila, columna));
+                if (celda != null) {
+                    celda.revisar(latitud, longitud, cosenoLatitud, mejores);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cota inferior de la distancia entre el punto consultado y cualquier celda fuera del anillo.
+     * El punto está dentro de la celda central, así que hay al menos {@code anillo} celdas
+     * completas hasta el borde en cada dirección; hacia el este y el oeste los grados se acortan
+     * según la latitud más extrema alcanzable.
+     */
+    private double distanciaMinimaFueraDe(int anillo, double latitud) {
+        double grados = anillo * tamanioCelda;
+        double latitudExtrema = Math.min(90, Math.abs(latitud) + grados);
+        return grados * METROS_POR_GRADO * Math.cos(Math.toRadians(latitudExtrema));
+    }
+
+    /**
+     * Distancia de círculo máximo entre dos coordenadas, en metros.
+     */
+    static double distancia(double latitud1, double longitud1, double cosenoLatitud1, double latitud2, double longitud2) {
+        double senoMedioLatitud = Math.sin(Math.toRadians(latitud2 - latitud1) / 2);
+        double senoMedioLongitud = Math.sin(Math.toRadians(longitud2 - longitud1) / 2);
+        double a = senoMedioLatitud * senoMedioLatitud
+                + cosenoLatitud1 * Math.cos(Math.toRadians(latitud2)) * senoMedioLongitud * senoMedioLongitud;
+        return 2 * RADIO_TERRESTRE_METROS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private int fila(double latitud) {
+        return (int) Math.floor((latitud + 90) / tamanioCelda);
+    }
+
+    private int columna(double longitud) {
+        return (int) Math.floor((longitud + 180) / tamanioCelda);
+    }
+
+    private static long llave(int fila, int columna) {
+        return ((long) fila << 32) | (columna & 0xFFFFFFFFL);
+    }
+
+    // ESTADÍSTICAS
+
+    public int cantidad() {
+        candado.readLock().lock();
+        try {
+            return cantidad;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public int cantidadCeldas() {
+        candado.readLock().lock();
+        try {
+            return celdas.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public boolean contiene(int id) {
+        candado.readLock().lock();
+        try {
+            return id > 0 && id < celdaPorId.length && celdaPorId[id] != null;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    // ESTRUCTURAS INTERNAS
+
+    /**
+     * Punto encontrado: ID, coordenadas y distancia en metros al punto consultado.
+     */
+    @Value
+    public static class Cercano {
+        int id;
+        double latitud;
+        double longitud;
+        double distanciaMetros;
+    }
+
+    /**
+     * Puntos de una celda de la grilla, en arreglos paralelos.
+     */
+    private static final class Celda {
+
+        private final long llave;
+        private int[] ids = new int[CAPACIDAD_INICIAL_CELDA];
+        private double[] latitudes = new double[CAPACIDAD_INICIAL_CELDA];
+        private double[] longitudes = new double[CAPACIDAD_INICIAL_CELDA];
+        private int tamanio;
+
+        private Celda(long llave) {
+            this.llave = llave;
+        }
+
+        /**
+         * @return Posición del punto agregado
+         */
+        private int agregar(int id, double latitud, double longitud) {
+            if (tamanio == ids.length) {
+                int capacidad = ids.length + (ids.length >> 1);
+                ids = Arrays.copyOf(ids, capacidad);
+                latitudes = Arrays.copyOf(latitudes, capacidad);
+                longitudes = Arrays.copyOf(longitudes, capacidad);
+            }
+            ids[tamanio] = id;
+            latitudes[tamanio] = latitud;
+            longitudes[tamanio] = longitud;
+            return tamanio++;
+        }
+
+        /**
+         * Quita el punto de una posición moviendo el último a su lugar.
+         * @return ID del punto que quedó en esa posición (el mismo si era el último)
+         */
+        private int quitar(int posicion) {
+            int ultimo = --tamanio;
+            ids[posicion] = ids[ultimo];
+            latitudes[posicion] = latitudes[ultimo];
+            longitudes[posicion] = longitudes[ultimo];
+            return ids[posicion];
+        }
+
+        private void revisar(double latitud, double longitud, double cosenoLatitud, MasCercanos mejores) {
+            double umbral = mejores.umbral();
+            double margenLatitud = umbral / METROS_POR_GRADO;
+            for (int i = 0; i < tamanio; i++) {
+                // La diferencia de latitud es una cota inferior de la distancia y evita la mayoría de los cálculos
+                if (Math.abs(latitudes[i] - latitud) > margenLatitud) {
+                    continue;
+                }
+                double distancia = distancia(latitud, longitud, cosenoLatitud, latitudes[i], longitudes[i]);
+                if (distancia <= umbral) {
+                    mejores.agregar(ids[i], latitudes[i], longitudes[i], distancia);
+                    umbral = mejores.umbral();
+                    margenLatitud = umbral / METROS_POR_GRADO;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Los k puntos más cercanos vistos hasta ahora dentro de un radio, en un montículo de
+     * máximos por distancia.
+     */
+    private static final class MasCercanos {
+
+        private final double radioMetros;
+        private final int[] ids;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final double[] distancias;
+        private int tamanio;
+
+        private MasCercanos(int capacidad, double radioMetros) {
+            this.radioMetros = radioMetros;
+            ids = new int[capacidad];
+            latitudes = new double[capacidad];
+            longitudes = new double[capacidad];
+            distancias = new double[capacidad];
+        }
+
+        /**
+         * Distancia máxima que puede tener un punto para entrar al resultado
+         */
+        private double umbral() {
+            return tamanio == ids.length ? Math.min(distancias[0], radioMetros) : radioMetros;
+        }
+
+        private void agregar(int id, double latitud, double longitud, double distancia) {
+            int posicion;
+            if (tamanio < ids.length) {
+                posicion = tamanio++;
+                while (posicion > 0 && distancias[(posicion - 1) >> 1] < distancia) {
+                    mover((posicion - 1) >> 1, posicion);
+                    posicion = (posicion - 1) >> 1;
+                }
+            } else if (distancia < distancias[0]) {
+                posicion = 0;
+                while (true) {
+                    int mayor = 2 * posicion + 1;
+                    if (mayor >= tamanio) {
+                        break;
+                    }
+                    if (mayor + 1 < tamanio && distancias[mayor + 1] > distancias[mayor]) {
+                        mayor++;
+                    }
+                    if (distancias[mayor] <= distancia) {
+                        break;
+                    }
+                    mover(mayor, posicion);
+                    posicion = mayor;
+                }
+            } else {
+                return;
+            }
+            ids[posicion] = id;
+            latitudes[posicion] = latitud;
+            longitudes[posicion] = longitud;
+            distancias[posicion] = distancia;
+        }
+
+        private void mover(int desde, int hacia) {
+            ids[hacia] = ids[desde];
+            latitudes[hacia] = latitudes[desde];
+            longitudes[hacia] = longitudes[desde];
+            distancias[hacia] = distancias[desde];
+        }
+
+        private List<Cercano> resultado() {
+            List<Cercano> resultado = new ArrayList<>(tamanio);
+            for (int i = 0; i < tamanio; i++) {
+                resultado.add(new Cercano(ids[i], latitudes[i], longitudes[i], distancias[i]));
+            }
+            resultado.sort((a, b) -> a.getDistanciaMetros() != b.getDistanciaMetros()
+                    ? Double.compare(a.getDistanciaMetros(), b.getDistanciaMetros())
+                    : Integer.compare(a.getId(), b.getId()));
+            return resultado;
+        }
+
+    }
+
+}
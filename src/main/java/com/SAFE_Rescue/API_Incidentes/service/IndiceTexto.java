@@ -0,0 +1,623 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import lombok.Value;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre el título y el detalle de los incidentes.
+ * <p>
+ * El texto se separa en palabras, se pasa a minúsculas y se le quitan los tildes, de modo que
+ * "Incendio Estructural" y "incendio estructúral" producen los mismos términos. Cada término
+ * guarda la lista ordenada de IDs de incidente en que aparece (lista de postings) y su frecuencia.
+ * </p>
+ * <p>
+ * Una búsqueda exige que todas las palabras de la consulta aparezcan (AND). Las palabras de
+ * {@value #LARGO_MINIMO_PREFIJO} o más letras también coinciden como prefijo ("estruct" encuentra
+ * "estructural"), con menor peso. Los resultados se ordenan por BM25, dando doble peso al título.
+ * </p>
+ * <p>
+ * La búsqueda parte de la palabra menos frecuente y va intersectando las listas ordenadas con
+ * búsqueda galopante, por lo que su costo depende del tamaño de las listas de la consulta y no
+ * del total de incidentes. El largo de cada documento se guarda en un arreglo indexado por ID
+ * (los IDs provienen de una secuencia y son densos).
+ * </p>
+ * <p>
+ * El tamaño en memoria se estima con cada cambio; si un documento nuevo haría superar el
+ * presupuesto, no se indexa y se cuenta como rechazado.
+ * </p>
+ */
+public final class IndiceTexto {
+
+    private static final Pattern NO_PALABRA = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Palabras demasiado frecuentes en español para aportar a la búsqueda (ya sin tildes)
+     */
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "de", "la", "el", "en", "y", "a", "los", "las", "del", "al", "un", "una", "unos", "unas",
+            "por", "con", "para", "se", "que", "su", "sus", "lo", "le", "les", "es", "o", "u", "e",
+            "sin", "sobre", "entre", "hay", "fue", "son", "esta", "este", "esto", "muy", "mas");
+
+    static final int LARGO_MINIMO_PREFIJO = 3;
+    private static final int MAXIMO_EXPANSIONES_PREFIJO = 64;
+    private static final double PESO_PREFIJO = 0.5;
+    private static final int PESO_TITULO = 2;
+
+    // Parámetros estándar de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Tamaños aproximados en una JVM de 64 bits con punteros comprimidos
+    private static final int CAPACIDAD_INICIAL_POSTINGS = 2;
+    private static final int BYTES_POR_TERMINO = 150;
+    private static final int BYTES_POR_DOCUMENTO = 16;
+    private static final int BYTES_POR_ID = 8;
+    private static final int BYTES_POR_ENTRADA = Integer.BYTES + Short.BYTES;
+    private static final int BYTES_POR_REFERENCIA = 4;
+
+    private final long presupuestoBytes;
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    // Protegidos por el candado
+    private final NavigableMap<String, Postings> terminos = new TreeMap<>();
+    private Postings[][] terminosPorId = new Postings[0][];
+    private int[] longitudPorId = new int[0];
+    private int cantidadDocumentos;
+    private long sumaLongitudes;
+    private long entradas;
+    private long bytesEstimados;
+    private long documentosRechazados;
+
+    /**
+     * @param presupuestoBytes Memoria máxima estimada que puede ocupar el índice
+     */
+    public IndiceTexto(long presupuestoBytes) {
+        this.presupuestoBytes = presupuestoBytes;
+    }
+
+    // TOKENIZACIÓN
+
+    /**
+     * Separa un texto en términos: minúsculas, sin tildes y sin palabras vacías.
+     * @param texto Texto a separar (puede ser null)
+     * @return Términos en el orden en que aparecen, con repeticiones
+     */
+    public static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String plegado = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : NO_PALABRA.split(plegado)) {
+            if (token.length() >= 2 && !PALABRAS_VACIAS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // ESCRITURA
+
+    /**
+     * Indexa un incidente, reemplazando su versión anterior si ya estaba indexado.
+     * @param id ID del incidente (mayor a 0)
+     * @param titulo Título del incidente
+     * @param detalle Detalle del incidente
+     * @return false si no se indexó por superar el presupuesto de memoria
+     */
+    public boolean indexar(int id, String titulo, String detalle) {
+        return indexar(id, titulo, detalle, true);
+    }
+
+    /**
+     * Indexa un incidente sólo si aún no está indexado. Se usa en la carga inicial para no
+     * reemplazar una versión más reciente recibida mientras se cargaba.
+     * @return false si ya estaba indexado o si supera el presupuesto de memoria
+     */
+    boolean indexarSiAusente(int id, String titulo, String detalle) {
+        return indexar(id, titulo, detalle, false);
+    }
+
+    /**
+     * Quita un incidente del índice.
+     * @param id ID del incidente
+     */
+    public void quitar(int id) {
+        candado.writeLock().lock();
+        try {
+            quitarDocumento(id);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private boolean indexar(int id, String titulo, String detalle, boolean reemplazar) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("El ID a indexar debe ser mayor a 0");
+        }
+        Map<String, Integer> frecuencias = new LinkedHashMap<>();
+        int longitud = 0;
+        for (String token : tokenizar(titulo)) {
+            frecuencias.merge(token, PESO_TITULO, Integer::sum);
+            longitud += PESO_TITULO;
+        }
+        for (String token : tokenizar(detalle)) {
+            frecuencias.merge(token, 1, Integer::sum);
+            longitud++;
+        }
+
+        candado.writeLock().lock();
+        try {
+            if (id < terminosPorId.length && terminosPorId[id] != null) {
+                if (!reemplazar) {
+                    return false;
+                }
+                quitarDocumento(id);
+            }
+
+            long nuevosBytes = BYTES_POR_DOCUMENTO + (long) frecuencias.size() * (BYTES_POR_REFERENCIA + BYTES_POR_ENTRADA)
+                    + (long) Math.max(0, id + 1 - terminosPorId.length) * BYTES_POR_ID;
+            for (String termino : frecuencias.keySet()) {
+                if (!terminos.containsKey(termino)) {
+                    nuevosBytes += BYTES_POR_TERMINO + termino.length();
+                }
+            }
+            if (bytesEstimados + nuevosBytes > presupuestoBytes) {
+                documentosRechazados++;
+                return false;
+            }
+
+            asegurarCapacidad(id);
+            Postings[] listas = new Postings[frecuencias.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> frecuencia : frecuencias.entrySet()) {
+                Postings postings = terminos.computeIfAbsent(frecuencia.getKey(), termino -> {
+                    bytesEstimados += BYTES_POR_TERMINO + termino.length();
+                    return new Postings(termino);
+                });
+                bytesEstimados += postings.agregar(id, Math.min(frecuencia.getValue(), Short.MAX_VALUE));
+                listas[i++] = postings;
+            }
+            terminosPorId[id] = listas;
+            longitudPorId[id] = longitud;
+            cantidadDocumentos++;
+            sumaLongitudes += longitud;
+            entradas += listas.length;
+            bytesEstimados += BYTES_POR_DOCUMENTO + (long) listas.length * BYTES_POR_REFERENCIA;
+            return true;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void asegurarCapacidad(int id) {
+        if (id < terminosPorId.length) {
+            return;
+        }
+        int capacidad = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(id + 1L, terminosPorId.length * 3L / 2));
+        bytesEstimados += (long) (capacidad - terminosPorId.length) * BYTES_POR_ID;
+        terminosPorId = Arrays.copyOf(terminosPorId, capacidad);
+        longitudPorId = Arrays.copyOf(longitudPorId, capacidad);
+    }
+
+    private void quitarDocumento(int id) {
+        if (id <= 0 || id >= terminosPorId.length || terminosPorId[id] == null) {
+            return;
+        }
+        Postings[] listas = terminosPorId[id];
+        for (Postings postings : listas) {
+            postings.quitar(id);
+            if (postings.tamanio == 0) {
+                terminos.remove(postings.termino);
+                bytesEstimados -= BYTES_POR_TERMINO + postings.termino.length()
+                        + (long) (postings.ids.length - CAPACIDAD_INICIAL_POSTINGS) * BYTES_POR_ENTRADA;
+            }
+        }
+        cantidadDocumentos--;
+        sumaLongitudes -= longitudPorId[id];
+        entradas -= listas.length;
+        bytesEstimados -= BYTES_POR_DOCUMENTO + (long) listas.length * BYTES_POR_REFERENCIA;
+        terminosPorId[id] = null;
+        longitudPorId[id] = 0;
+    }
+
+    // BÚSQUEDA
+
+    /**
+     * Busca los incidentes que contienen todas las palabras de la consulta.
+     * @param consulta Texto de búsqueda
+     * @param limite Cantidad máxima de resultados
+     * @return Coincidencias ordenadas por puntaje descendente
+     */
+    public List<Coincidencia> buscar(String consulta, int limite) {
+        List<String> palabras = new ArrayList<>(new LinkedHashSet<>(tokenizar(consulta)));
+        if (palabras.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        candado.readLock().lock();
+        try {
+            if (cantidadDocumentos == 0) {
+                return List.of();
+            }
+
+            // Términos que coinciden con cada palabra, empezando por la palabra menos frecuente
+            List<Termino[]> coincidencias = new ArrayList<>(palabras.size());
+            for (String palabra : palabras) {
+                Termino[] expandidos = expandir(palabra);
+                if (expandidos.length == 0) {
+                    return List.of();
+                }
+                coincidencias.add(expandidos);
+            }
+            coincidencias.sort(Comparator.comparingLong(IndiceTexto::frecuenciaTotal));
+
+            Puntuador puntuador = new Puntuador();
+            Candidatos candidatos = union(coincidencias.get(0), puntuador);
+            for (int i = 1; i < coincidencias.size() && candidatos.tamanio > 0; i++) {
+                candidatos = intersectar(candidatos, coincidencias.get(i), puntuador);
+            }
+            return mejores(candidatos, limite);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    private Termino[] expandir(String palabra) {
+        List<Termino> expandidos = new ArrayList<>();
+        Postings exacto = terminos.get(palabra);
+        if (exacto != null) {
+            expandidos.add(termino(exacto, 1.0));
+        }
+        if (palabra.length() >= LARGO_MINIMO_PREFIJO) {
+            for (Postings postings : terminos.subMap(palabra, false, palabra + Character.MAX_VALUE, false).values()) {
+                if (expandidos.size() >= MAXIMO_EXPANSIONES_PREFIJO) {
+                    break;
+                }
+                expandidos.add(termino(postings, PESO_PREFIJO));
+            }
+        }
+        return expandidos.toArray(new Termino[0]);
+    }
+
+    /**
+     * Resuelve un término con su peso ya multiplicado por el IDF, que es igual para todas sus entradas.
+     */
+    private Termino termino(Postings postings, double peso) {
+        int df = postings.tamanio;
+        return new Termino(postings, peso * Math.log(1 + (cantidadDocumentos - df + 0.5) / (df + 0.5)));
+    }
+
+    private static long frecuenciaTotal(Termino[] expandidos) {
+        long total = 0;
+        for (Termino termino : expandidos) {
+            total += termino.postings.tamanio;
+        }
+        return total;
+    }
+
+    /**
+     * Documentos que contienen alguno de los términos de una palabra, con la suma de sus puntajes.
+     */
+    private Candidatos union(Termino[] expandidos, Puntuador puntuador) {
+        Termino[] porTamanio = expandidos.clone();
+        Arrays.sort(porTamanio, Comparator.comparingInt(termino -> termino.postings.tamanio));
+        Candidatos union = null;
+        for (Termino termino : porTamanio) {
+            Postings postings = termino.postings;
+            Candidatos deTermino = new Candidatos(postings.tamanio);
+            for (int i = 0; i < postings.tamanio; i++) {
+                deTermino.agregar(postings.ids[i], puntuador.puntaje(termino, i));
+            }
+            union = union == null ? deTermino : union.mezclar(deTermino);
+        }
+        return union;
+    }
+
+    /**
+     * Conserva sólo los candidatos que contienen algún término de la palabra, sumando su puntaje.
+     * Recorre la lista más corta y busca en la más larga con búsqueda galopante.
+     */
+    private Candidatos intersectar(Candidatos candidatos, Termino[] expandidos, Puntuador puntuador) {
+        double[] dePalabra = new double[candidatos.tamanio];
+        for (Termino termino : expandidos) {
+            Postings postings = termino.postings;
+            if (candidatos.tamanio <= postings.tamanio) {
+                int desde = 0;
+                for (int c = 0; c < candidatos.tamanio && desde < postings.tamanio; c++) {
+                    desde = galopar(postings.ids, desde, postings.tamanio, candidatos.ids[c]);
+                    if (desde < postings.tamanio && postings.ids[desde] == candidatos.ids[c]) {
+                        dePalabra[c] += puntuador.puntaje(termino, desde);
+                    }
+                }
+            } else {
+                int desde = 0;
+                for (int p = 0; p < postings.tamanio && desde < candidatos.tamanio; p++) {
+                    desde = galopar(candidatos.ids, desde, candidatos.tamanio, postings.ids[p]);
+                    if (desde < candidatos.tamanio && candidatos.ids[desde] == postings.ids[p]) {
+                        dePalabra[desde] += puntuador.puntaje(termino, p);
+                    }
+                }
+            }
+        }
+
+        Candidatos resultado = new Candidatos(candidatos.tamanio);
+        for (int c = 0; c < candidatos.tamanio; c++) {
+            if (dePalabra[c] > 0) {
+                resultado.agregar(candidatos.ids[c], candidatos.puntajes[c] + dePalabra[c]);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Posición del primer elemento mayor o igual a la clave, buscando desde {@code desde}
+     * con saltos exponenciales y luego búsqueda binaria.
+     */
+    private static int galopar(int[] ids, int desde, int hasta, int clave) {
+        int salto = 1;
+        int limite = desde;
+        while (limite < hasta && ids[limite] < clave) {
+            desde = limite + 1;
+            limite += salto;
+            salto <<= 1;
+        }
+        int posicion = Arrays.binarySearch(ids, desde, Math.min(limite + 1, hasta), clave);
+        return posicion >= 0 ? posicion : -posicion - 1;
+    }
+
+    /**
+     * Los {@code limite} candidatos de mayor puntaje, usando un montículo de posiciones.
+     */
+    private static List<Coincidencia> mejores(Candidatos candidatos, int limite) {
+        int[] monticulo = new int[Math.min(limite, candidatos.tamanio)];
+        int tamanio = 0;
+        double[] puntajes = candidatos.puntajes;
+        for (int c = 0; c < candidatos.tamanio; c++) {
+            if (tamanio < monticulo.length) {
+                monticulo[tamanio] = c;
+                subir(monticulo, tamanio++, puntajes);
+            } else if (puntajes[c] > puntajes[monticulo[0]]) {
+                monticulo[0] = c;
+                bajar(monticulo, tamanio, puntajes);
+            }
+        }
+
+        List<Coincidencia> resultado = new ArrayList<>(tamanio);
+        for (int i = 0; i < tamanio; i++) {
+            resultado.add(new Coincidencia(candidatos.ids[monticulo[i]], puntajes[monticulo[i]]));
+        }
+        resultado.sort(Comparator.comparingDouble(Coincidencia::getPuntaje).reversed()
+                .thenComparingInt(Coincidencia::getId));
+        return resultado;
+    }
+
+    private static void subir(int[] monticulo, int posicion, double[] puntajes) {
+        while (posicion > 0) {
+            int padre = (posicion - 1) >> 1;
+            if (puntajes[monticulo[padre]] <= puntajes[monticulo[posicion]]) {
+                return;
+            }
+            intercambiar(monticulo, padre, posicion);
+            posicion = padre;
+        }
+    }
+
+    private static void bajar(int[] monticulo, int tamanio, double[] puntajes) {
+        int posicion = 0;
+        while (true) {
+            int menor = posicion;
+            int izquierdo = 2 * posicion + 1;
+            int derecho = izquierdo + 1;
+            if (izquierdo < tamanio && puntajes[monticulo[izquierdo]] < puntajes[monticulo[menor]]) {
+                menor = izquierdo;
+            }
+            if (derecho < tamanio && puntajes[monticulo[derecho]] < puntajes[monticulo[menor]]) {
+                menor = derecho;
+            }
+            if (menor == posicion) {
+                return;
+            }
+            intercambiar(monticulo, menor, posicion);
+            posicion = menor;
+        }
+    }
+
+    private static void intercambiar(int[] arreglo, int i, int j) {
+        int temporal = arreglo[i];
+        arreglo[i] = arreglo[j];
+        arreglo[j] = temporal;
+    }
+
+    // ESTADÍSTICAS
+
+    public int cantidadDocumentos() {
+        candado.readLock().lock();
+        try {
+            return cantidadDocumentos;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public int cantidadTerminos() {
+        candado.readLock().lock();
+        try {
+            return terminos.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public long cantidadEntradas() {
+        candado.readLock().lock();
+        try {
+            return entradas;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public long bytesEstimados() {
+        candado.readLock().lock();
+        try {
+            return bytesEstimados;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public long documentosRechazados() {
+        candado.readLock().lock();
+        try {
+            return documentosRechazados;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public long getPresupuestoBytes() {
+        return presupuestoBytes;
+    }
+
+    // ESTRUCTURAS INTERNAS
+
+    /**
+     * Resultado de una búsqueda: ID del incidente y su puntaje BM25.
+     */
+    @Value
+    public static class Coincidencia {
+        int id;
+        double puntaje;
+    }
+
+    /**
+     * Término de la consulta ya resuelto, con el peso de su coincidencia (exacta o por prefijo)
+     * multiplicado por su IDF.
+     */
+    private record Termino(Postings postings, double ponderacion) {
+    }
+
+    /**
+     * Calcula el aporte BM25 de una entrada de postings con las estadísticas vigentes del índice.
+     * Debe usarse con el candado de lectura tomado.
+     */
+    private final class Puntuador {
+
+        private final double normalizacionFija = K1 * (1 - B);
+        private final double normalizacionPorLargo = K1 * B * cantidadDocumentos / (double) sumaLongitudes;
+
+        private double puntaje(Termino termino, int posicion) {
+            Postings postings = termino.postings;
+            int frecuencia = postings.frecuencias[posicion];
+            int longitud = longitudPorId[postings.ids[posicion]];
+            double tf = frecuencia * (K1 + 1) / (frecuencia + normalizacionFija + normalizacionPorLargo * longitud);
+            return termino.ponderacion * tf;
+        }
+
+    }
+
+    /**
+     * Lista de documentos candidatos ordenada por ID, con su puntaje acumulado.
+     */
+    private static final class Candidatos {
+
+        private final int[] ids;
+        private final double[] puntajes;
+        private int tamanio;
+
+        private Candidatos(int capacidad) {
+            ids = new int[capacidad];
+            puntajes = new double[capacidad];
+        }
+
+        private void agregar(int id, double puntaje) {
+            ids[tamanio] = id;
+            puntajes[tamanio++] = puntaje;
+        }
+
+        /**
+         * Unión ordenada de ambas listas; los documentos presentes en las dos suman sus puntajes.
+         */
+        private Candidatos mezclar(Candidatos otros) {
+            Candidatos union = new Candidatos(tamanio + otros.tamanio);
+            int i = 0;
+            int j = 0;
+            while (i < tamanio || j < otros.tamanio) {
+                if (j == otros.tamanio || (i < tamanio && ids[i] < otros.ids[j])) {
+                    union.agregar(ids[i], puntajes[i++]);
+                } else if (i == tamanio || otros.ids[j] < ids[i]) {
+                    union.agregar(otros.ids[j], otros.puntajes[j++]);
+                } else {
+                    union.agregar(ids[i], puntajes[i++] + otros.puntajes[j++]);
+                }
+            }
+            return union;
+        }
+
+    }
+
+    /**
+     * IDs ordenados de los documentos que contienen un término, con la frecuencia en cada uno.
+     */
+    private static final class Postings {
+
+        private final String termino;
+        private int[] ids = new int[CAPACIDAD_INICIAL_POSTINGS];
+        private short[] frecuencias = new short[CAPACIDAD_INICIAL_POSTINGS];
+        private int tamanio;
+
+        private Postings(String termino) {
+            this.termino = termino;
+        }
+
+        /**
+         * @return Bytes agregados por el crecimiento de los arreglos
+         */
+        private long agregar(int id, int frecuencia) {
+            long crecimiento = 0;
+            if (tamanio == ids.length) {
+                int capacidad = ids.length + (ids.length >> 1) + 1;
+                crecimiento = (long) (capacidad - ids.length) * BYTES_POR_ENTRADA;
+                ids = Arrays.copyOf(ids, capacidad);
+                frecuencias = Arrays.copyOf(frecuencias, capacidad);
+            }
+            // Los IDs nuevos suelen ser mayores que todos los existentes: se agregan al final
+            int posicion = tamanio == 0 || ids[tamanio - 1] < id ? tamanio : -Arrays.binarySearch(ids, 0, tamanio, id) - 1;
+            System.arraycopy(ids, posicion, ids, posicion + 1, tamanio - posicion);
+            System.arraycopy(frecuencias, posicion, frecuencias, posicion + 1, tamanio - posicion);
+            ids[posicion] = id;
+            frecuencias[posicion] = (short) frecuencia;
+            tamanio++;
+            return crecimiento;
+        }
+
+        private void quitar(int id) {
+            int posicion = Arrays.binarySearch(ids, 0, tamanio, id);
+            if (posicion < 0) {
+                return;
+            }
+            System.arraycopy(ids, posicion + 1, ids, posicion, tamanio - posicion - 1);
+            System.arraycopy(frecuencias, posicion + 1, frecuencias, posicion, tamanio - posicion - 1);
+            tamanio--;
+        }
+
+    }
+
+}
@@ -0,0 +1,327 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.EstadoIngesta;
+import com.SAFE_Rescue.API_Incidentes.dto.ResultadoIngesta;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.PuntoControlIngesta;
+import com.SAFE_Rescue.API_Incidentes.repository.PuntoControlIngestaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ingesta asíncrona de incidentes: los incidentes recibidos se validan y se agregan a un
+ * {@link DiarioIngesta} local, y se escriben en la base de datos en segundo plano, por lotes.
+ * <p>
+ * Así la creación de un incidente no espera la confirmación de la base de datos, y una
+ * detención breve de ésta no hace perder reportes: quedan en el diario hasta que se pueden
+ * escribir. Cada lote se inserta con {@link IncidenteService#saveAll} en la misma transacción
+ * que actualiza el {@link PuntoControlIngesta} del diario, por lo que al reiniciar la aplicación
+ * cada entrada se aplica exactamente una vez.
+ * </p>
+ * <p>
+ * Si un lote falla por una restricción de la base de datos, sus entradas se aplican una a una y
+ * la que vuelve a fallar se descarta (queda en el log); cualquier otro error se reintenta en el
+ * siguiente ciclo. Sólo existe si {@code incidentes.ingesta.asincrona.habilitada} es true.
+ * </p>
+ * <p>
+ * El drenado corre en su propio hilo, no en el planificador compartido de {@code @Scheduled}:
+ * mientras la base de datos está detenida cada intento espera el tiempo máximo para obtener una
+ * conexión, y no debe retrasar los latidos SSE ni las demás tareas periódicas. Tras un ciclo
+ * fallido la espera hasta el siguiente se duplica, hasta {@code incidentes.ingesta.drenado.espera-maxima}.
+ * </p>
+ */
+@Service
+@ConditionalOnProperty(name = "incidentes.ingesta.asincrona.habilitada", havingValue = "true")
+public class IngestaAsincronaService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestaAsincronaService.class);
+
+    /**
+     * Directorio del diario en el disco local
+     */
+    @Value("${incidentes.ingesta.diario.directorio:datos/diario-ingesta}")
+    private Path directorio;
+
+    /**
+     * Tamaño de cada segmento del diario
+     */
+    @Value("${incidentes.ingesta.diario.tamanio-segmento:64MB}")
+    private DataSize tamanioSegmento;
+
+    /**
+     * Si cada entrada se fuerza a disco antes de responder; sin esto, una caída del sistema
+     * operativo (no de la aplicación) puede perder las últimas entradas
+     */
+    @Value("${incidentes.ingesta.diario.sincronizar:true}")
+    private boolean sincronizar;
+
+    /**
+     * Cantidad máxima de entradas escritas por transacción
+     */
+    @Value("${incidentes.ingesta.drenado.lote:500}")
+    private int tamanioLote;
+
+    /**
+     * Espera entre ciclos de drenado cuando el anterior terminó bien
+     */
+    @Value("${incidentes.ingesta.drenado.intervalo:100ms}")
+    private Duration intervalo;
+
+    /**
+     * Espera máxima entre ciclos mientras la base de datos sigue fallando
+     */
+    @Value("${incidentes.ingesta.drenado.espera-maxima:5s}")
+    private Duration esperaMaxima;
+
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private PuntoControlIngestaRepository puntoControlIngestaRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private MeterRegistry registro;
+
+    private final ReentrantLock drenado = new ReentrantLock();
+    private DiarioIngesta diario;
+    private TransactionTemplate transaccion;
+    private ScheduledExecutorService planificador;
+
+    /**
+     * Secuencia de la última entrada del diario ya escrita en la base de datos
+     */
+    private volatile long aplicada;
+
+    /**
+     * Abre el diario y obtiene desde la base de datos hasta dónde fue aplicado.
+     * @throws UncheckedIOException Si no se puede abrir el diario
+     */
+    @PostConstruct
+    void abrir() {
+        if (tamanioSegmento.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("El tamaño de segmento del diario no puede superar 2GB");
+        }
+        try {
+            diario = new DiarioIngesta(directorio, (int) tamanioSegmento.toBytes(), sincronizar);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el diario de ingesta en " + directorio, e);
+        }
+        transaccion = new TransactionTemplate(transactionManager);
+        aplicada = puntoControlIngestaRepository.findById(diario.id()).map(PuntoControlIngesta::getUltimaSecuencia).orElse(0L);
+        Gauge.builder("incidentes.ingesta.pendientes", this, IngestaAsincronaService::pendientes)
+                .description("Incidentes recibidos que aún no se escriben en la base de datos")
+                .register(registro);
+        log.info("Diario de ingesta {} abierto en {}: {} entradas pendientes", diario.id(), directorio, pendientes());
+    }
+
+    /**
+     * Inicia el drenado periódico en su propio hilo una vez que la aplicación está lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciarDrenado() {
+        planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "drenado-ingesta");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        programar(intervalo);
+    }
+
+    private void programar(Duration espera) {
+        planificador.schedule(() -> {
+            Duration siguiente = intervalo;
+            try {
+                if (!drenar()) {
+                    siguiente = espera.multipliedBy(2).compareTo(esperaMaxima) > 0 ? esperaMaxima : espera.multipliedBy(2);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Error inesperado al drenar el diario de ingesta: {}", e.getMessage());
+                siguiente = esperaMaxima;
+            }
+            if (!planificador.isShutdown()) {
+                programar(siguiente);
+            }
+        }, espera.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    void cerrar() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+        }
+        drenado.lock();
+        try {
+            diario.close();
+        } finally {
+            drenado.unlock();
+        }
+    }
+
+    /**
+     * Valida un incidente y lo agrega al diario para escribirlo en segundo plano.
+     * @param incidente Incidente recibido
+     * @return Número de seguimiento del incidente
+     * @throws IllegalArgumentException Si el incidente no es válido
+     * @throws RuntimeException Si no se puede escribir el diario
+     */
+    public long encolar(Incidente incidente) {
+        if (incidente == null) {
+            throw new IllegalArgumentException("El incidente no puede ser nulo");
+        }
+        incidenteService.validarIncidente(incidente);
+        try {
+            return diario.agregar(objectMapper.writeValueAsBytes(incidente));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo serializar el incidente: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo registrar el incidente en el diario de ingesta: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Obtiene el estado de un incidente recibido.
+     * @param seguimiento Número de seguimiento entregado al recibirlo
+     * @return Estado del incidente
+     * @throws NoSuchElementException Si el número de seguimiento no fue entregado por este diario
+     */
+    public EstadoIngesta estado(long seguimiento) {
+        if (seguimiento <= 0 || seguimiento > diario.ultima()) {
+            throw new NoSuchElementException("No existe el número de seguimiento " + seguimiento);
+        }
+        return new EstadoIngesta(seguimiento,
+                seguimiento <= aplicada ? EstadoIngesta.Estado.PROCESADO : EstadoIngesta.Estado.PENDIENTE);
+    }
+
+    /**
+     * @return Cantidad de entradas del diario que aún no se escriben en la base de datos
+     */
+    public long pendientes() {
+        return diario.ultima() - aplicada;
+    }
+
+    /**
+     * Escribe en la base de datos las entradas pendientes del diario, por lotes, hasta que no
+     * quedan más o un lote falla.
+     * @return false si un lote falló y quedan entradas pendientes
+     */
+    public boolean drenar() {
+        drenado.lock();
+        try {
+            List<DiarioIngesta.Entrada> entradas;
+            while (!(entradas = diario.leer(aplicada, tamanioLote)).isEmpty()) {
+                if (!aplicar(entradas)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            drenado.unlock();
+        }
+    }
+
+    /**
+     * Escribe un lote de entradas y avanza el punto de control en la misma transacción.
+     * @return true si el lote quedó aplicado
+     */
+    private boolean aplicar(List<DiarioIngesta.Entrada> entradas) {
+        List<Incidente> incidentes = new ArrayList<>(entradas.size());
+        List<Long> secuencias = new ArrayList<>(entradas.size());
+        for (DiarioIngesta.Entrada entrada : entradas) {
+            try {
+                incidentes.add(objectMapper.readValue(entrada.datos(), Incidente.class));
+                secuencias.add(entrada.secuencia());
+            } catch (IOException e) {
+                log.warn("Incidente con seguimiento {} descartado: no se pudo leer del diario: {}", entrada.secuencia(), e.getMessage());
+            }
+        }
+        long hasta = entradas.get(entradas.size() - 1).secuencia();
+
+        List<ResultadoIngesta> resultados;
+        try {
+            resultados = transaccion.execute(estado -> {
+                List<ResultadoIngesta> guardados = incidentes.isEmpty() ? List.of() : incidenteService.saveAll(incidentes);
+                puntoControlIngestaRepository.save(new PuntoControlIngesta(diario.id(), hasta));
+                return guardados;
+            });
+        } catch (RuntimeException e) {
+            if (!violaRestriccion(e)) {
+                log.warn("No se pudo escribir el diario de ingesta en la base de datos; se reintentará: {}", e.getMessage());
+                return false;
+            }
+            if (entradas.size() > 1) {
+                // Se aíslan las entradas del lote para descartar sólo la que viola la restricción
+                for (DiarioIngesta.Entrada entrada : entradas) {
+                    if (!aplicar(List.of(entrada))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            log.warn("Incidente con seguimiento {} descartado: {}", hasta, e.getMessage());
+            try {
+                transaccion.executeWithoutResult(estado ->
+                        puntoControlIngestaRepository.save(new PuntoControlIngesta(diario.id(), hasta)));
+            } catch (RuntimeException reintento) {
+                log.warn("No se pudo avanzar el punto de control del diario de ingesta; se reintentará: {}", reintento.getMessage());
+                return false;
+            }
+            avanzarHasta(hasta);
+            return true;
+        }
+
+        for (ResultadoIngesta resultado : resultados) {
+            if (resultado.getEstado() == ResultadoIngesta.Estado.RECHAZADO) {
+                log.warn("Incidente con seguimiento {} rechazado: {}", secuencias.get(resultado.getIndice()), resultado.getMensaje());
+            }
+        }
+        avanzarHasta(hasta);
+        return true;
+    }
+
+    private void avanzarHasta(long secuencia) {
+        aplicada = secuencia;
+        try {
+            diario.liberarHasta(secuencia);
+        } catch (IOException e) {
+            log.warn("No se pudieron eliminar los segmentos aplicados del diario de ingesta: {}", e.getMessage());
+        }
+    }
+
+    private static boolean violaRestriccion(Throwable error) {
+        for (Throwable causa = error; causa != null; causa = causa.getCause()) {
+            if (causa instanceof DataIntegrityViolationException
+                    || causa instanceof org.hibernate.exception.ConstraintViolationException
+                    || causa instanceof SQLIntegrityConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
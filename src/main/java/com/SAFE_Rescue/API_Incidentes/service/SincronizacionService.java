@@ -0,0 +1,201 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.CambiosIncidentes;
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.IncidenteEliminado;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteEliminadoRepository;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Servicio de sincronización incremental de incidentes para clientes móviles.
+ * <p>
+ * Cada incidente guarda el momento de su última modificación ({@code actualizado_en}) y cada
+ * eliminación deja un registro en {@link IncidenteEliminado}. El token que recibe el cliente
+ * es la posición (momento, ID) del último cambio entregado, de modo que la siguiente
+ * sincronización recorre los índices {@code (actualizado_en, id)} y
+ * {@code (eliminado_en, incidente_id)} desde esa posición: el costo depende de la cantidad de
+ * cambios, no del tamaño de la tabla.
+ * </p>
+ * <p>
+ * Sólo se entregan cambios con más de {@code incidentes.sync.margen} de antigüedad, para que
+ * una transacción que asignó su momento pero aún no confirma no quede detrás de un token ya
+ * entregado. Las transacciones de escritura se limitan a
+ * {@code incidentes.sync.duracion-maxima-escritura} (ver
+ * {@link com.SAFE_Rescue.API_Incidentes.config.TransaccionesConfig}), que debe ser menor que el margen.
+ * </p>
+ */
+@Service
+public class SincronizacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SincronizacionService.class);
+
+    /**
+     * Tiempo que se espera antes de entregar un cambio, mayor que la duración de una transacción de escritura
+     */
+    @Value("${incidentes.sync.margen:5s}")
+    private Duration margen;
+
+    /**
+     * Duración máxima de una transacción de escritura
+     */
+    @Value("${incidentes.sync.duracion-maxima-escritura:4s}")
+    private Duration duracionMaximaEscritura;
+
+    /**
+     * Tiempo que se conservan los registros de eliminación; los tokens más antiguos vencen
+     */
+    @Value("${incidentes.sync.retencion-eliminados:30d}")
+    private Duration retencionEliminados;
+
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private IncidenteEliminadoRepository incidenteEliminadoRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @PostConstruct
+    void verificarMargen() {
+        if (margen.compareTo(duracionMaximaEscritura) <= 0) {
+            log.warn("incidentes.sync.margen ({}) no supera la duración máxima de una escritura ({}): "
+                    + "la sincronización puede omitir cambios", margen, duracionMaximaEscritura);
+        }
+    }
+
+    /**
+     * Obtiene los incidentes creados, modificados o eliminados después de un token.
+     * @param token Token de la sincronización anterior, o null para obtener todo desde el principio
+     * @param limite Cantidad máxima de cambios del lote, acotada a {@link PaginaCursor#LIMITE_MAXIMO}
+     * @return Cambios ordenados por momento, con el token para la siguiente sincronización
+     * @throws IllegalArgumentException Si el token no es válido
+     * @throws TokenVencidoException Si el token es anterior a la retención de eliminaciones
+     */
+    public CambiosIncidentes cambiosDesde(String token, int limite) {
+        int tamanio = PaginaCursor.normalizarLimite(limite);
+        Posicion desde = token == null || token.isBlank() ? Posicion.INICIO : Posicion.decodificar(token);
+        Instant ahora = Instant.now();
+        if (desde != Posicion.INICIO && desde.instante.isBefore(ahora.minus(retencionEliminados))) {
+            throw new TokenVencidoException("El token de sincronización venció; se debe sincronizar todo nuevamente");
+        }
+        Instant horizonte = ahora.minus(margen).truncatedTo(ChronoUnit.MICROS);
+
+        // Una fila extra de cada tabla indica si quedan cambios después del lote
+        List<Incidente> modificados = incidenteRepository.findModificadosDespues(
+                desde.instante, desde.id, horizonte, Limit.of(tamanio + 1));
+        List<IncidenteEliminado> eliminados = incidenteEliminadoRepository.findPosteriores(
+                desde.instante, desde.id, horizonte, Limit.of(tamanio + 1));
+
+        List<Incidente> cambios = new ArrayList<>();
+        List<Integer> idsEliminados = new ArrayList<>();
+        Posicion ultima = desde;
+        int m = 0;
+        int e = 0;
+        while (cambios.size() + idsEliminados.size() < tamanio && (m < modificados.size() || e < eliminados.size())) {
+            Posicion siguienteModificado = m < modificados.size() ? Posicion.de(modificados.get(m)) : null;
+            Posicion siguienteEliminado = e < eliminados.size() ? Posicion.de(eliminados.get(e)) : null;
+            if (siguienteEliminado == null || (siguienteModificado != null && siguienteModificado.compareTo(siguienteEliminado) < 0)) {
+                cambios.add(modificados.get(m++));
+                ultima = siguienteModificado;
+            } else {
+                idsEliminados.add(eliminados.get(e++).getIncidenteId());
+                ultima = siguienteEliminado;
+            }
+        }
+        boolean hayMas = m < modificados.size() || e < eliminados.size();
+        // Sin cambios pendientes el token avanza hasta el horizonte, así no vence en periodos sin actividad
+        Posicion nueva = hayMas ? ultima : new Posicion(horizonte, Integer.MAX_VALUE);
+        return new CambiosIncidentes(cambios, idsEliminados, nueva.codificar(), hayMas);
+    }
+
+    /**
+     * Borra los registros de eliminación más antiguos que la retención configurada.
+     */
+    @Scheduled(fixedRateString = "${incidentes.sync.purga:1h}", initialDelayString = "${incidentes.sync.purga:1h}")
+    public void purgarEliminados() {
+        Instant antes = Instant.now().minus(retencionEliminados);
+        Integer borrados = new TransactionTemplate(transactionManager)
+                .execute(estado -> incidenteEliminadoRepository.deleteAnteriores(antes));
+        if (borrados != null && borrados > 0) {
+            log.info("Se purgaron {} registros de incidentes eliminados", borrados);
+        }
+    }
+
+    /**
+     * Asigna un momento de modificación a los incidentes creados antes de existir la columna,
+     * para que los clientes los reciban en la sincronización.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarActualizadoEn() {
+        Integer actualizados = new TransactionTemplate(transactionManager)
+                .execute(estado -> incidenteRepository.asignarActualizadoEnFaltante(Instant.now().truncatedTo(ChronoUnit.MICROS)));
+        if (actualizados != null && actualizados > 0) {
+            log.info("Se asignó el momento de modificación a {} incidentes existentes", actualizados);
+        }
+    }
+
+    /**
+     * Posición de un cambio en el orden de sincronización: momento con precisión de
+     * microsegundos y, para desempatar, ID del incidente.
+     */
+    private record Posicion(Instant instante, int id) implements Comparable<Posicion> {
+
+        static final Posicion INICIO = new Posicion(Instant.EPOCH, 0);
+
+        static Posicion de(Incidente incidente) {
+            return new Posicion(incidente.getActualizadoEn(), incidente.getId());
+        }
+
+        static Posicion de(IncidenteEliminado eliminado) {
+            return new Posicion(eliminado.getEliminadoEn(), eliminado.getIncidenteId());
+        }
+
+        /**
+         * Lee un token con el formato base64url de {@code "<microsegundos>.<id>"}.
+         */
+        static Posicion decodificar(String token) {
+            try {
+                String texto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+                int punto = texto.indexOf('.');
+                long micros = Long.parseLong(texto.substring(0, punto));
+                int id = Integer.parseInt(texto.substring(punto + 1));
+                if (micros < 0) {
+                    throw new IllegalArgumentException("Token de sincronización no válido");
+                }
+                return new Posicion(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), id);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Token de sincronización no válido");
+            }
+        }
+
+        String codificar() {
+            String texto = ChronoUnit.MICROS.between(Instant.EPOCH, instante) + "." + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        @Override
+        public int compareTo(Posicion otra) {
+            int porInstante = instante.compareTo(otra.instante);
+            return porInstante != 0 ? porInstante : Integer.compare(id, otra.id);
+        }
+
+    }
+
+}
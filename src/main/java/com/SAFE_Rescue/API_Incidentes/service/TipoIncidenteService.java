@@ -1,13 +1,22 @@
 package com.SAFE_Rescue.API_Incidentes.service;
 
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
 import com.SAFE_Rescue.API_Incidentes.modelo.TipoIncidente;
 import com.SAFE_Rescue.API_Incidentes.repository.TipoIncidenteRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 /**
  * Servicio para gestionar operaciones relacionadas con tipos de incidentes.
@@ -19,21 +28,58 @@ public class TipoIncidenteService {
     @Autowired
     private TipoIncidenteRepository tipoIncidenteRepository;
 
+    /**
+     * Cantidad máxima de nombres que se mantienen en la caché de llaves naturales
+     */
+    @Value("${incidentes.cache.tipos-incidente.capacidad:1000}")
+    private int capacidadCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private CacheLlaveNatural<String> idsPorNombre;
+
+    /**
+     * Respuestas JSON ya serializadas del catálogo, reconstruidas sólo al modificarlo
+     */
+    private CatalogoSerializado<TipoIncidente> catalogo;
+
+    @PostConstruct
+    void iniciarCache() {
+        idsPorNombre = new CacheLlaveNatural<>(capacidadCache);
+        catalogo = new CatalogoSerializado<>(() -> tipoIncidenteRepository.findAll(Sort.by("id")), TipoIncidente::getId, objectMapper);
+    }
+
     // MÉTODOS CRUD PRINCIPALES
     /**
      * Obtiene todos los tipos de incidentes registrados.
      * @return Lista de todos los tipos de incidentes
      */
+    @Transactional(readOnly = true)
     public List<TipoIncidente> findAll() {
         return tipoIncidenteRepository.findAll();
     }
 
+    /**
+     * Obtiene una página de tipos de incidentes usando paginación por cursor.
+     * @param cursor ID del último elemento recibido (0 para la primera página)
+     * @param limite Cantidad de elementos solicitados, acotada a {@link PaginaCursor#LIMITE_MAXIMO}
+     * @return Página de tipos de incidentes con el cursor de la página siguiente
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<TipoIncidente> findPagina(int cursor, int limite) {
+        int tamanio = PaginaCursor.normalizarLimite(limite);
+        List<TipoIncidente> filas = tipoIncidenteRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(tamanio + 1));
+        return PaginaCursor.de(filas, tamanio, TipoIncidente::getId);
+    }
+
     /**
      * Busca un tipo de incidente por su ID.
      * @param id Identificador único del tipo de incidente
      * @return El tipo de incidente encontrado
      * @throws NoSuchElementException Si no se encuentra el tipo de incidente
      */
+    @Transactional(readOnly = true)
     public TipoIncidente findByID(long id) {
         return tipoIncidenteRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Tipo de incidente no encontrado con ID: " + id));
@@ -48,7 +94,9 @@ public class TipoIncidenteService {
     public TipoIncidente save(TipoIncidente tipoIncidente) {
         try{
             validarTipoIncidente(tipoIncidente);
-            return tipoIncidenteRepository.save(tipoIncidente);
+            TipoIncidente guardado = tipoIncidenteRepository.save(tipoIncidente);
+            recordar(guardado);
+            return guardado;
         } catch (EntityNotFoundException e) {
             throw new RuntimeException("Error al guardar el Tipo Incidente: " + e.getMessage());
         } catch (Exception ex) {
@@ -77,7 +125,10 @@ public class TipoIncidenteService {
             }
         }
 
-        return tipoIncidenteRepository.save(tipoExistente);
+        idsPorNombre.olvidar(tipoExistente.getId());
+        TipoIncidente actualizado = tipoIncidenteRepository.save(tipoExistente);
+        recordar(actualizado);
+        return actualizado;
     }
 
     /**
@@ -90,6 +141,88 @@ public class TipoIncidenteService {
             throw new NoSuchElementException("Tipo de incidente no encontrado con ID: " + id);
         }
         tipoIncidenteRepository.deleteById(id);
+        idsPorNombre.olvidar((int) id);
+        catalogo.reconstruirAlConfirmar();
+    }
+
+    // RESPUESTAS PRE-SERIALIZADAS
+
+    /**
+     * Obtiene el JSON de una página de tipos de incidente, sin consultar la base de datos ni serializar
+     * mientras el catálogo no cambie.
+     * @param cursor ID del último elemento recibido (0 para la primera página)
+     * @param limite Cantidad de elementos solicitados, acotada a {@link PaginaCursor#LIMITE_MAXIMO}
+     * @return JSON UTF-8 con el mismo formato que {@link #findPagina}, o null si la página está vacía
+     */
+    public byte[] findPaginaSerializada(int cursor, int limite) {
+        return catalogo.pagina(cursor, limite);
+    }
+
+    /**
+     * Obtiene el JSON de un elemento del catálogo, sin consultar la base de datos ni serializar
+     * mientras el catálogo no cambie.
+     * @param id Identificador del elemento
+     * @return JSON UTF-8 del elemento
+     * @throws NoSuchElementException Si no existe un elemento con ese ID
+     */
+    public byte[] findByIDSerializado(long id) {
+        byte[] json = catalogo.porId(id);
+        if (json == null) {
+            throw new NoSuchElementException("Tipo de incidente no encontrado con ID: " + id);
+        }
+        return json;
+    }
+
+    // RESOLUCIÓN POR LLAVE NATURAL
+
+    /**
+     * Obtiene el tipo de incidente a asociar a un incidente sin insertar duplicados.
+     * Si trae ID se usa como referencia (sin consultar la base de datos); si no, se busca
+     * por nombre y sólo se inserta cuando no existe.
+     * @param tipoIncidente tipo de incidente indicado en el incidente
+     * @return tipo de incidente existente o recién guardado, o null si no se indicó
+     */
+    public TipoIncidente resolver(TipoIncidente tipoIncidente) {
+        if (tipoIncidente == null) {
+            return null;
+        }
+        if (tipoIncidente.getId() > 0) {
+            return tipoIncidenteRepository.getReferenceById((long) tipoIncidente.getId());
+        }
+        TipoIncidente existente = buscarPorNombre(tipoIncidente.getNombre());
+        return existente != null ? existente : save(tipoIncidente);
+    }
+
+    /**
+     * Busca un tipo de incidente por nombre, sin distinguir mayúsculas de minúsculas, consultando primero la caché de llaves naturales.
+     * @param nombre Nombre del tipo de incidente
+     * @return tipo de incidente encontrado (o una referencia a él), o null si no existe
+     */
+    public TipoIncidente buscarPorNombre(String nombre) {
+        if (nombre == null) {
+            return null;
+        }
+        String llave = nombre.trim().toLowerCase(Locale.ROOT);
+        Integer id = idsPorNombre.obtener(llave);
+        if (id != null) {
+            return tipoIncidenteRepository.getReferenceById((long) id);
+        }
+        Optional<TipoIncidente> encontrado = tipoIncidenteRepository.findFirstByNombreIgnoreCase(nombre.trim());
+        encontrado.ifPresent(existente -> idsPorNombre.recordar(llave, existente.getId()));
+        return encontrado.orElse(null);
+    }
+
+    /**
+     * Registra en la caché de llaves naturales un tipo de incidente recién guardado y reconstruye
+     * el catálogo serializado, una vez confirmada la transacción actual. Toda inserción o
+     * modificación (incluidas las de un lote de incidentes) debe llamarlo.
+     * @param tipoIncidente tipo de incidente guardado
+     */
+    public void recordar(TipoIncidente tipoIncidente) {
+        if (tipoIncidente.getNombre() != null) {
+            idsPorNombre.recordarAlConfirmar(tipoIncidente.getNombre().trim().toLowerCase(Locale.ROOT), tipoIncidente.getId());
+        }
+        catalogo.reconstruirAlConfirmar();
     }
 
     /**
@@ -97,7 +230,7 @@ public class TipoIncidenteService {
      * @param tipoIncidente tipo de incidente a validar
      * @throws IllegalArgumentException Si el tipo de incidente no cumple con las reglas de validación
      */
-    private void validarTipoIncidente(TipoIncidente tipoIncidente) {
+    public void validarTipoIncidente(TipoIncidente tipoIncidente) {
         if (tipoIncidente.getNombre() == null || tipoIncidente.getNombre().trim().isEmpty()) {
             throw new IllegalArgumentException("El nombre del Tipo de incidente es requerido");
         }
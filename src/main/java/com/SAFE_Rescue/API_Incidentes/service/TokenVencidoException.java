@@ -0,0 +1,14 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+/**
+ * Indica que un token de sincronización es anterior a la retención de las eliminaciones,
+ * por lo que ya no es posible calcular los cambios desde él y el cliente debe sincronizar
+ * todo de nuevo.
+ */
+public class TokenVencidoException extends RuntimeException {
+
+    public TokenVencidoException(String mensaje) {
+        super(mensaje);
+    }
+
+}
@@ -1,13 +1,29 @@
 package com.SAFE_Rescue.API_Incidentes.service;
 
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
 import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
 import com.SAFE_Rescue.API_Incidentes.repository.UbicacionRepository;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Servicio para gestionar operaciones relacionadas con Ubicacion.
@@ -21,22 +37,59 @@ public class UbicacionService {
     @Autowired
     private UbicacionRepository ubicacionRepository;
 
+    @Autowired
+    private IncidenteRepository incidenteRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Autowired
+    private EstadisticasIncidenteService estadisticasIncidenteService;
+
+    /**
+     * Cantidad máxima de direcciones que se mantienen en la caché de llaves naturales
+     */
+    @Value("${incidentes.cache.ubicaciones.capacidad:50000}")
+    private int capacidadCache;
+
+    private CacheLlaveNatural<String> idsPorDireccion;
+
+    @PostConstruct
+    void iniciarCache() {
+        idsPorDireccion = new CacheLlaveNatural<>(capacidadCache);
+    }
+
     // MÉTODOS CRUD PRINCIPALES
 
     /**
      * Obtiene todas las Ubicacion registradas.
      * @return Lista de todas las Ubicacion
      */
+    @Transactional(readOnly = true)
     public List<Ubicacion> findAll() {
         return ubicacionRepository.findAll();
     }
 
+    /**
+     * Obtiene una página de Ubicaciones usando paginación por cursor.
+     * @param cursor ID del último elemento recibido (0 para la primera página)
+     * @param limite Cantidad de elementos solicitados, acotada a {@link PaginaCursor#LIMITE_MAXIMO}
+     * @return Página de Ubicaciones con el cursor de la página siguiente
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<Ubicacion> findPagina(int cursor, int limite) {
+        int tamanio = PaginaCursor.normalizarLimite(limite);
+        List<Ubicacion> filas = ubicacionRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(tamanio + 1));
+        return PaginaCursor.de(filas, tamanio, Ubicacion::getId);
+    }
+
     /**
      * Busca una Ubicacion por su ID.
      * @param id Identificador único de la Ubicacion
      * @return La Ubicacion encontrada
      * @throws NoSuchElementException Si no se encuentra la Ubicacion
      */
+    @Transactional(readOnly = true)
     public Ubicacion findByID(long id) {
         return ubicacionRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Ubicacion no encontrada con ID: " + id));
@@ -54,7 +107,10 @@ public class UbicacionService {
 
             validarUbicacion(ubicacion);
 
-            return ubicacionRepository.save(ubicacion);
+            Ubicacion guardada = ubicacionRepository.save(ubicacion);
+            recordar(guardada);
+            eventos.publishEvent(CambioUbicacion.de(guardada));
+            return guardada;
         } catch (EntityNotFoundException e) {
             throw new RuntimeException("Error al guardar el Ubicacion: " + e.getMessage());
         } catch (Exception ex) {
@@ -73,6 +129,7 @@ public class UbicacionService {
     public Ubicacion update(Ubicacion ubicacion, long id) {
         Ubicacion antiguaUbicacion = ubicacionRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Ubicacion no encontrada con ID: " + id));
+        String comunaAnterior = antiguaUbicacion.getComuna();
 
         if (ubicacion.getCalle() != null) {
             if (ubicacion.getCalle().length() > 50) {
@@ -106,7 +163,20 @@ public class UbicacionService {
             }
         }
 
-        return ubicacionRepository.save(antiguaUbicacion);
+        if (ubicacion.getLatitud() != null || ubicacion.getLongitud() != null) {
+            validarCoordenadas(ubicacion.getLatitud(), ubicacion.getLongitud());
+            antiguaUbicacion.setLatitud(ubicacion.getLatitud());
+            antiguaUbicacion.setLongitud(ubicacion.getLongitud());
+        }
+
+        idsPorDireccion.olvidar(antiguaUbicacion.getId());
+        Ubicacion actualizada = ubicacionRepository.save(antiguaUbicacion);
+        recordar(actualizada);
+        // Los incidentes se entregan con su ubicación: deben volver a sincronizarse
+        incidenteRepository.asignarActualizadoEnPorUbicacion(actualizada.getId(), Instant.now().truncatedTo(ChronoUnit.MICROS));
+        estadisticasIncidenteService.cambiarComuna(actualizada.getId(), comunaAnterior, actualizada.getComuna());
+        eventos.publishEvent(CambioUbicacion.de(actualizada));
+        return actualizada;
     }
 
     /**
@@ -119,6 +189,100 @@ public class UbicacionService {
             throw new NoSuchElementException("Ubicacion no encontrada con ID: " + id);
         }
         ubicacionRepository.deleteById(id);
+        idsPorDireccion.olvidar((int) id);
+        eventos.publishEvent(CambioUbicacion.eliminada((int) id));
+    }
+
+
+    // RESOLUCIÓN POR LLAVE NATURAL
+
+    /**
+     * Obtiene la Ubicacion a asociar a un incidente sin insertar duplicados.
+     * Si trae ID se usa como referencia (sin consultar la base de datos); si no, se busca
+     * por calle, numeración y comuna, y sólo se inserta cuando no existe.
+     * @param ubicacion Ubicacion indicada en el incidente
+     * @return Ubicacion existente o recién guardada, o null si no se indicó
+     */
+    public Ubicacion resolver(Ubicacion ubicacion) {
+        if (ubicacion == null) {
+            return null;
+        }
+        if (ubicacion.getId() > 0) {
+            return ubicacionRepository.getReferenceById((long) ubicacion.getId());
+        }
+        Ubicacion existente = buscarPorDireccion(ubicacion);
+        return existente != null ? existente : save(ubicacion);
+    }
+
+    /**
+     * Busca una Ubicacion por su dirección, consultando primero la caché de llaves naturales.
+     * @param ubicacion Ubicacion con calle, numeración y comuna
+     * @return Ubicacion encontrada (o una referencia a ella), o null si no existe
+     */
+    public Ubicacion buscarPorDireccion(Ubicacion ubicacion) {
+        if (ubicacion.getCalle() == null || ubicacion.getComuna() == null) {
+            return null;
+        }
+        String llave = llaveDireccion(ubicacion);
+        Integer id = idsPorDireccion.obtener(llave);
+        if (id != null) {
+            return ubicacionRepository.getReferenceById((long) id);
+        }
+        Optional<Ubicacion> encontrada = ubicacionRepository.findFirstByCalleAndNumeracionAndComuna(
+                ubicacion.getCalle().trim(), ubicacion.getNumeracion(), ubicacion.getComuna().trim());
+        encontrada.ifPresent(existente -> idsPorDireccion.recordar(llave, existente.getId()));
+        return encontrada.orElse(null);
+    }
+
+    /**
+     * Busca en una sola consulta las ubicaciones existentes para varias direcciones.
+     * @param ubicaciones Ubicaciones sin ID indicadas en un lote de incidentes
+     * @return Ubicaciones encontradas, por llave de dirección ({@link #llaveDireccion})
+     */
+    public Map<String, Ubicacion> buscarPorDirecciones(Collection<Ubicacion> ubicaciones) {
+        Map<String, Ubicacion> encontradas = new HashMap<>();
+        Set<Integer> numeraciones = new HashSet<>();
+        for (Ubicacion ubicacion : ubicaciones) {
+            if (ubicacion.getCalle() == null || ubicacion.getComuna() == null) {
+                continue;
+            }
+            String llave = llaveDireccion(ubicacion);
+            Integer id = idsPorDireccion.obtener(llave);
+            if (id != null) {
+                encontradas.put(llave, ubicacionRepository.getReferenceById((long) id));
+            } else {
+                numeraciones.add(ubicacion.getNumeracion());
+            }
+        }
+        if (!numeraciones.isEmpty()) {
+            for (Ubicacion existente : ubicacionRepository.findByNumeracionIn(numeraciones)) {
+                String llave = llaveDireccion(existente);
+                idsPorDireccion.recordar(llave, existente.getId());
+                encontradas.putIfAbsent(llave, existente);
+            }
+        }
+        return encontradas;
+    }
+
+    /**
+     * Registra en la caché de llaves naturales una Ubicacion recién guardada,
+     * una vez confirmada la transacción actual.
+     * @param ubicacion Ubicacion guardada
+     */
+    public void recordar(Ubicacion ubicacion) {
+        if (ubicacion.getCalle() != null && ubicacion.getComuna() != null) {
+            idsPorDireccion.recordarAlConfirmar(llaveDireccion(ubicacion), ubicacion.getId());
+        }
+    }
+
+    /**
+     * Llave natural de una Ubicacion: calle, numeración y comuna, sin distinguir mayúsculas.
+     * @param ubicacion Ubicacion con calle y comuna
+     * @return Llave de la dirección
+     */
+    public String llaveDireccion(Ubicacion ubicacion) {
+        return (ubicacion.getCalle().trim() + "|" + ubicacion.getNumeracion() + "|" + ubicacion.getComuna().trim())
+                .toLowerCase(Locale.ROOT);
     }
 
 
@@ -129,7 +293,7 @@ public class UbicacionService {
      * @param ubicacion Ubicación a validar
      * @throws IllegalArgumentException Si la ubicación no cumple con las reglas de validación
      */
-    private void validarUbicacion(Ubicacion ubicacion) {
+    public void validarUbicacion(Ubicacion ubicacion) {
 
         //numeracion
         if (ubicacion.getNumeracion() <= 0) {
@@ -167,6 +331,29 @@ public class UbicacionService {
             throw new IllegalArgumentException("El nombre de la Región es requerido");
         }
 
+        //coordenadas (opcionales)
+        if (ubicacion.getLatitud() != null || ubicacion.getLongitud() != null) {
+            validarCoordenadas(ubicacion.getLatitud(), ubicacion.getLongitud());
+        }
+
+    }
+
+    /**
+     * Valida un par de coordenadas geográficas.
+     * @param latitud Latitud en grados decimales
+     * @param longitud Longitud en grados decimales
+     * @throws IllegalArgumentException Si falta una de las dos o están fuera de rango
+     */
+    public static void validarCoordenadas(Double latitud, Double longitud) {
+        if (latitud == null || longitud == null) {
+            throw new IllegalArgumentException("La latitud y la longitud deben indicarse juntas");
+        }
+        if (!(latitud >= -90 && latitud <= 90)) {
+            throw new IllegalArgumentException("La latitud debe estar entre -90 y 90");
+        }
+        if (!(longitud >= -180 && longitud <= 180)) {
+            throw new IllegalArgumentException("La longitud debe estar entre -180 y 180");
+        }
     }
 
 
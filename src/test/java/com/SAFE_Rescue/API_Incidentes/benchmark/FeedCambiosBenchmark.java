@@ -0,0 +1,143 @@
+package com.SAFE_Rescue.API_Incidentes.benchmark;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.service.FeedCambiosService;
+import com.SAFE_Rescue.API_Incidentes.service.IncidenteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mide cuánto tarda un cambio de incidente en llegar a miles de suscriptores SSE conectados
+ * a la vez, y que quien hace el cambio no espere a los suscriptores.
+ * <p>
+ * Ejecutar con: {@code mvn test -Pbenchmark -Dtest=FeedCambiosBenchmark}
+ * </p>
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class FeedCambiosBenchmark {
+
+    private static final int SUSCRIPTORES = 2000;
+    private static final int EVENTOS = 20;
+
+    @LocalServerPort private int puerto;
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private FeedCambiosService feedCambiosService;
+
+    private final List<Flow.Subscription> conexiones = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void limpiar() {
+        conexiones.forEach(Flow.Subscription::cancel);
+        incidenteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void difusionAMilesDeSuscriptores() throws InterruptedException {
+        // Hilos daemon para que las conexiones abiertas no impidan terminar la JVM de pruebas
+        ExecutorService hilosCliente = Executors.newCachedThreadPool(tarea -> {
+            Thread hilo = new Thread(tarea);
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).executor(hilosCliente).build();
+        URI uri = URI.create("http://localhost:" + puerto + "/api-incidentes/v1/incidentes/eventos");
+        CountDownLatch conectados = new CountDownLatch(SUSCRIPTORES);
+        CountDownLatch[] recibidos = new CountDownLatch[EVENTOS];
+        Arrays.setAll(recibidos, i -> new CountDownLatch(SUSCRIPTORES));
+        // Momento en que el último suscriptor recibió cada evento
+        AtomicLongArray ultimaLlegada = new AtomicLongArray(EVENTOS);
+
+        for (int s = 0; s < SUSCRIPTORES; s++) {
+            int[] eventosRecibidos = {0};
+            boolean[] conectado = {false};
+            HttpRequest solicitud = HttpRequest.newBuilder(uri).header("Accept", "text/event-stream").build();
+            cliente.sendAsync(solicitud, HttpResponse.BodyHandlers.fromLineSubscriber(new LectorLineas(conexiones::add, linea -> {
+                if (!conectado[0]) {
+                    conectado[0] = true;
+                    conectados.countDown();
+                }
+                if (linea.startsWith("event:") && eventosRecibidos[0] < EVENTOS) {
+                    int evento = eventosRecibidos[0]++;
+                    ultimaLlegada.accumulateAndGet(evento, System.nanoTime(), Math::max);
+                    recibidos[evento].countDown();
+                }
+            })));
+        }
+        assertTrue(conectados.await(120, TimeUnit.SECONDS), "No se conectaron todos los suscriptores");
+        assertEquals(SUSCRIPTORES, feedCambiosService.cantidadSuscriptores());
+
+        long[] escritura = new long[EVENTOS];
+        long[] difusion = new long[EVENTOS];
+        for (int e = 0; e < EVENTOS; e++) {
+            Incidente incidente = new Incidente();
+            incidente.setTitulo("Evento de difusión " + e);
+            long inicio = System.nanoTime();
+            incidenteService.save(incidente);
+            escritura[e] = System.nanoTime() - inicio;
+            assertTrue(recibidos[e].await(60, TimeUnit.SECONDS), "El evento " + e + " no llegó a todos");
+            difusion[e] = ultimaLlegada.get(e) - inicio;
+        }
+
+        Arrays.sort(escritura);
+        Arrays.sort(difusion);
+        System.out.printf("%n=== Canal SSE: %d suscriptores, %d eventos ===%n", SUSCRIPTORES, EVENTOS);
+        System.out.printf("Guardado del incidente (incluye publicar): p50 %.1f ms, máx %.1f ms%n",
+                escritura[EVENTOS / 2] / 1e6, escritura[EVENTOS - 1] / 1e6);
+        System.out.printf("Llegada al último suscriptor: p50 %.1f ms, máx %.1f ms%n",
+                difusion[EVENTOS / 2] / 1e6, difusion[EVENTOS - 1] / 1e6);
+    }
+
+    /**
+     * Entrega cada línea recibida a una acción y registra la suscripción para cerrarla al terminar.
+     */
+    private record LectorLineas(Consumer<Flow.Subscription> alConectar, Consumer<String> accion) implements Flow.Subscriber<String> {
+
+        @Override
+        public void onSubscribe(Flow.Subscription suscripcion) {
+            alConectar.accept(suscripcion);
+            suscripcion.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String linea) {
+            accion.accept(linea);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.SAFE_Rescue.API_Incidentes.benchmark;
+
+import com.SAFE_Rescue.API_Incidentes.ApiIncidentesApplication;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.service.IncidenteService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compara el rendimiento de la API atendiendo solicitudes con hilos de plataforma (pool de
+ * Tomcat) y con hilos virtuales (perfil {@code virtual}), con 10, 100 y 1000 clientes simultáneos.
+ * <p>
+ * La base de datos es H2 en memoria con una latencia fija agregada a cada sentencia, para
+ * simular una base de datos remota en la que cada solicitud pasa la mayor parte del tiempo
+ * bloqueada en JDBC. El pool de conexiones es más grande que el pool de hilos de Tomcat (200),
+ * de modo que con hilos de plataforma el límite son los hilos y con hilos virtuales las conexiones.
+ * La medición con hilos virtuales requiere ejecutar Maven con Java 21 o superior; en una JVM
+ * anterior se omite.
+ * </p>
+ * <p>
+ * Ejecutar con: {@code mvn test -Pbenchmark -Dtest=HilosVirtualesBenchmark}
+ * </p>
+ */
+@Tag("benchmark")
+class HilosVirtualesBenchmark {
+
+    private static final int[] CLIENTES = {10, 100, 1000};
+    private static final int INCIDENTES = 500;
+    private static final long LATENCIA_SENTENCIA_MS = 20;
+    private static final int CONEXIONES_BD = 250;
+    private static final Duration CALENTAMIENTO = Duration.ofSeconds(2);
+    private static final Duration MEDICION = Duration.ofSeconds(5);
+
+    @Test
+    void hilosDePlataformaVsVirtuales() throws Exception {
+        List<String> filas = new ArrayList<>();
+        medir(false, filas);
+        if (Runtime.version().feature() >= 21) {
+            medir(true, filas);
+        } else {
+            filas.add(String.format("%-10s  omitido: requiere Java 21 o superior (JVM actual %s)", "virtual", Runtime.version()));
+        }
+
+        System.out.printf("%n=== GET /incidentes/{id}: %d ms por sentencia, pool de %d conexiones ===%n",
+                LATENCIA_SENTENCIA_MS, CONEXIONES_BD);
+        System.out.printf("%-10s %9s %15s %9s %9s %8s%n", "Hilos", "Clientes", "Solicitudes/s", "p50 ms", "p99 ms", "Errores");
+        filas.forEach(System.out::println);
+    }
+
+    private void medir(boolean virtuales, List<String> filas) throws Exception {
+        LatenciaSimulada.latenciaMs = 0;
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(ApiIncidentesApplication.class)
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtuales,
+                        "spring.datasource.hikari.maximum-pool-size=" + CONEXIONES_BD,
+                        "incidentes.admision.habilitada=false",
+                        "logging.level.root=WARN")
+                .initializers(aplicacion -> aplicacion.getBeanFactory().addBeanPostProcessor(new LatenciaSimulada()))
+                .run()) {
+            IncidenteService incidenteService = contexto.getBean(IncidenteService.class);
+            int[] ids = new int[INCIDENTES];
+            for (int i = 0; i < INCIDENTES; i++) {
+                Incidente incidente = new Incidente();
+                incidente.setTitulo("Carga " + i);
+                ids[i] = incidenteService.save(incidente).getId();
+            }
+            int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+
+            LatenciaSimulada.latenciaMs = LATENCIA_SENTENCIA_MS;
+            for (int clientes : CLIENTES) {
+                Resultado resultado = cargar(puerto, ids, clientes);
+                filas.add(String.format("%-10s %9d %15.0f %9.1f %9.1f %8d", virtuales ? "virtual" : "plataforma",
+                        clientes, resultado.porSegundo, resultado.p50Ms, resultado.p99Ms, resultado.errores));
+            }
+            LatenciaSimulada.latenciaMs = 0;
+            contexto.getBean(IncidenteRepository.class).deleteAllInBatch();
+        }
+    }
+
+    /**
+     * Ejecuta solicitudes en bucle desde varios clientes simultáneos, cada uno esperando su
+     * respuesta antes de enviar la siguiente, y mide sólo después del calentamiento.
+     */
+    private static Resultado cargar(int puerto, int[] ids, int clientes) throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(clientes, tarea -> {
+            Thread hilo = new Thread(tarea);
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        long inicioMedicion = System.nanoTime() + CALENTAMIENTO.toNanos();
+        long fin = inicioMedicion + MEDICION.toNanos();
+
+        List<Future<long[]>> mediciones = new ArrayList<>();
+        int[] errores = new int[clientes];
+        for (int c = 0; c < clientes; c++) {
+            int indice = c;
+            mediciones.add(hilos.submit(() -> {
+                List<Long> latencias = new ArrayList<>();
+                while (System.nanoTime() < fin) {
+                    int id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+                    HttpRequest solicitud = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + puerto + "/api-incidentes/v1/incidentes/" + id)).build();
+                    long inicio = System.nanoTime();
+                    int estado;
+                    try {
+                        estado = cliente.send(solicitud, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        estado = -1;
+                    }
+                    long termino = System.nanoTime();
+                    if (inicio >= inicioMedicion && termino <= fin) {
+                        if (estado == 200) {
+                            latencias.add(termino - inicio);
+                        } else {
+                            errores[indice]++;
+                        }
+                    }
+                }
+                return latencias.stream().mapToLong(Long::longValue).toArray();
+            }));
+        }
+
+        List<long[]> porCliente = new ArrayList<>();
+        for (Future<long[]> medicion : mediciones) {
+            porCliente.add(medicion.get());
+        }
+        hilos.shutdown();
+
+        long[] todas = porCliente.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        int totalErrores = Arrays.stream(errores).sum();
+        if (todas.length == 0) {
+            return new Resultado(0, 0, 0, totalErrores);
+        }
+        return new Resultado(todas.length / (MEDICION.toNanos() / 1e9),
+                todas[todas.length / 2] / 1e6, todas[(int) (todas.length * 0.99)] / 1e6, totalErrores);
+    }
+
+    private record Resultado(double porSegundo, double p50Ms, double p99Ms, int errores) {
+    }
+
+}
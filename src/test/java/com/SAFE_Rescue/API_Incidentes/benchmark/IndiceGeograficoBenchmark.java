@@ -0,0 +1,97 @@
+package com.SAFE_Rescue.API_Incidentes.benchmark;
+
+import com.SAFE_Rescue.API_Incidentes.service.IndiceGeografico;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mide la latencia de las búsquedas por cercanía del índice geográfico con un millón de
+ * incidentes sintéticos repartidos por Chile.
+ * <p>
+ * Ejecutar con: {@code mvn test -Pbenchmark -Dtest=IndiceGeograficoBenchmark}
+ * </p>
+ */
+@Tag("benchmark")
+class IndiceGeograficoBenchmark {
+
+    private static final int PUNTOS = 1_000_000;
+    private static final int CONSULTAS = 10_000;
+
+    /**
+     * Latitud y longitud de ciudades alrededor de las cuales se concentra la mayoría de los incidentes
+     */
+    private static final double[][] CIUDADES = {
+            {-33.4378, -70.6505}, {-33.0472, -71.6127}, {-36.8270, -73.0503}, {-38.7359, -72.5904},
+            {-18.4783, -70.3126}, {-20.2141, -70.1524}, {-23.6509, -70.3975}, {-29.9045, -71.2489},
+            {-34.1708, -70.7444}, {-35.4264, -71.6554}, {-36.6066, -72.1034}, {-40.5740, -73.1336},
+            {-41.4693, -72.9424}, {-45.5712, -72.0685}, {-53.1638, -70.9171}};
+
+    @Test
+    void latenciaDeBusquedaConUnMillonDePuntos() {
+        Random azar = new Random(42);
+        IndiceGeografico indice = new IndiceGeografico(0.01);
+
+        long inicioCarga = System.nanoTime();
+        for (int id = 1; id <= PUNTOS; id++) {
+            double[] punto = puntoAlAzar(azar);
+            indice.ubicar(id, punto[0], punto[1]);
+        }
+        double cargaSegundos = (System.nanoTime() - inicioCarga) / 1e9;
+
+        System.out.printf("%n=== Índice geográfico: %d incidentes ===%n", indice.cantidad());
+        System.out.printf("Carga: %.2f s, %d celdas ocupadas%n", cargaSegundos, indice.cantidadCeldas());
+
+        double[][] consultas = new double[CONSULTAS][];
+        for (int i = 0; i < CONSULTAS; i++) {
+            consultas[i] = puntoAlAzar(azar);
+        }
+        int[] siguiente = {0};
+        medir("10 más cercanos", () -> {
+            double[] c = consultas[siguiente[0]++ % CONSULTAS];
+            return indice.cercanos(c[0], c[1], 10).size();
+        });
+        medir("radio 2 km (máx. 100)", () -> {
+            double[] c = consultas[siguiente[0]++ % CONSULTAS];
+            return indice.enRadio(c[0], c[1], 2_000, 100).size();
+        });
+        medir("radio 10 km (máx. 100)", () -> {
+            double[] c = consultas[siguiente[0]++ % CONSULTAS];
+            return indice.enRadio(c[0], c[1], 10_000, 100).size();
+        });
+    }
+
+    /**
+     * 85% de los puntos cerca de una ciudad y el resto repartido en el territorio continental.
+     */
+    private static double[] puntoAlAzar(Random azar) {
+        if (azar.nextDouble() < 0.85) {
+            double[] ciudad = CIUDADES[azar.nextInt(CIUDADES.length)];
+            return new double[]{ciudad[0] + azar.nextGaussian() * 0.08, ciudad[1] + azar.nextGaussian() * 0.08};
+        }
+        return new double[]{-56 + azar.nextDouble() * 38.5, -75 + azar.nextDouble() * 7};
+    }
+
+    private static void medir(String nombre, IntSupplier busqueda) {
+        for (int i = 0; i < CONSULTAS; i++) {
+            busqueda.getAsInt();
+        }
+        long[] tiempos = new long[CONSULTAS];
+        long resultados = 0;
+        for (int i = 0; i < CONSULTAS; i++) {
+            long inicio = System.nanoTime();
+            resultados += busqueda.getAsInt();
+            tiempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tiempos);
+        System.out.printf("%-24s p50 %7.1f µs   p99 %7.1f µs   (%.1f resultados promedio)%n", nombre,
+                tiempos[CONSULTAS / 2] / 1e3, tiempos[CONSULTAS * 99 / 100] / 1e3, (double) resultados / CONSULTAS);
+        assertTrue(resultados > 0);
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.SAFE_Rescue.API_Incidentes.benchmark;
+
+import com.SAFE_Rescue.API_Incidentes.service.IndiceTexto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mide la latencia de búsqueda del índice de texto con un millón de incidentes sintéticos.
+ * <p>
+ * Ejecutar con: {@code mvn test -Pbenchmark -Dtest=IndiceTextoBenchmark}
+ * </p>
+ */
+@Tag("benchmark")
+class IndiceTextoBenchmark {
+
+    private static final int DOCUMENTOS = 1_000_000;
+    private static final int REPETICIONES = 200;
+
+    private static final String[] TIPOS = {"Incendio", "Inundación", "Derrumbe", "Rescate", "Choque", "Fuga",
+            "Explosión", "Accidente", "Temporal", "Corte"};
+    private static final String[] CALIFICATIVOS = {"estructural", "forestal", "vehicular", "domiciliario",
+            "industrial", "eléctrico", "químico", "menor", "mayor", "urbano"};
+    private static final String[] COMUNAS = {"Santiago", "Ñuñoa", "Maipú", "Valparaíso", "Quilpué", "Concepción",
+            "Temuco", "Arica", "Iquique", "Rancagua", "Talca", "Chillán", "Osorno", "Puerto Montt", "La Serena"};
+
+    @Test
+    void latenciaDeBusquedaConUnMillonDeIncidentes() {
+        Random azar = new Random(42);
+        String[] vocabulario = new String[20_000];
+        for (int i = 0; i < vocabulario.length; i++) {
+            // Pseudo-palabras de 4 a 9 letras, para que los prefijos se repartan como en un texto real
+            char[] letras = new char[4 + azar.nextInt(6)];
+            for (int l = 0; l < letras.length; l++) {
+                letras[l] = (char) ('a' + azar.nextInt(26));
+            }
+            vocabulario[i] = new String(letras);
+        }
+
+        IndiceTexto indice = new IndiceTexto(Long.MAX_VALUE);
+        long inicioCarga = System.nanoTime();
+        StringBuilder detalle = new StringBuilder();
+        for (int id = 1; id <= DOCUMENTOS; id++) {
+            String titulo = TIPOS[azar.nextInt(TIPOS.length)] + " " + CALIFICATIVOS[azar.nextInt(CALIFICATIVOS.length)];
+            detalle.setLength(0);
+            detalle.append("Reporte en ").append(COMUNAS[azar.nextInt(COMUNAS.length)]);
+            for (int p = 0; p < 12; p++) {
+                // Distribución sesgada: pocas palabras muy frecuentes y muchas raras
+                int rango = (int) Math.pow(vocabulario.length, azar.nextDouble());
+                detalle.append(' ').append(vocabulario[rango - 1]);
+            }
+            indice.indexar(id, titulo, detalle.toString());
+        }
+        double cargaSegundos = (System.nanoTime() - inicioCarga) / 1e9;
+
+        System.out.printf("%n=== Índice de texto: %d incidentes ===%n", indice.cantidadDocumentos());
+        System.out.printf("Carga: %.1f s, %d términos, %d entradas, %.0f MB estimados%n",
+                cargaSegundos, indice.cantidadTerminos(), indice.cantidadEntradas(), indice.bytesEstimados() / 1e6);
+
+        String[] consultas = {"incendio estructural", "valparaiso derrumbe", "estruct", "rescate vehicular nunoa",
+                vocabulario[0] + " " + vocabulario[1], vocabulario[0].substring(0, 3), "incendio"};
+        for (String consulta : consultas) {
+            medir(indice, consulta);
+        }
+    }
+
+    private void medir(IndiceTexto indice, String consulta) {
+        for (int i = 0; i < 20; i++) {
+            indice.buscar(consulta, 20);
+        }
+        long[] tiempos = new long[REPETICIONES];
+        int resultados = 0;
+        for (int i = 0; i < REPETICIONES; i++) {
+            long inicio = System.nanoTime();
+            resultados = indice.buscar(consulta, 20).size();
+            tiempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tiempos);
+        System.out.printf("%-26s p50 %7.2f ms   p99 %7.2f ms   (%d resultados)%n", '"' + consulta + '"',
+                tiempos[REPETICIONES / 2] / 1e6, tiempos[REPETICIONES * 99 / 100] / 1e6, resultados);
+        assertTrue(resultados > 0);
+    }
+
+}
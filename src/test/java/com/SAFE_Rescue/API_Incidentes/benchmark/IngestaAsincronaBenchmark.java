@@ -0,0 +1,170 @@
+package com.SAFE_Rescue.API_Incidentes.benchmark;
+
+import com.SAFE_Rescue.API_Incidentes.ApiIncidentesApplication;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.service.IngestaAsincronaService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compara la creación de incidentes escribiendo directo en la base de datos y con la ingesta
+ * asíncrona (diario local más escritura por lotes en segundo plano), con la base de datos lenta.
+ * <p>
+ * Cada sentencia tarda {@value #LATENCIA_SENTENCIA_MS} ms y, a mitad de la medición, la base de
+ * datos se detiene casi por completo durante {@code DETENCION} ({@value #LATENCIA_DETENCION_MS} ms por
+ * sentencia). Se informa cuántos incidentes por segundo se aceptan, la latencia de la respuesta y,
+ * con la ingesta asíncrona, cuánto tarda en vaciarse el diario después de la carga.
+ * </p>
+ * <p>
+ * Ejecutar con: {@code mvn test -Pbenchmark -Dtest=IngestaAsincronaBenchmark}
+ * </p>
+ */
+@Tag("benchmark")
+class IngestaAsincronaBenchmark {
+
+    private static final int CLIENTES = 50;
+    private static final long LATENCIA_SENTENCIA_MS = 20;
+    private static final long LATENCIA_DETENCION_MS = 1000;
+    private static final int CONEXIONES_BD = 10;
+    private static final Duration CALENTAMIENTO = Duration.ofSeconds(2);
+    private static final Duration MEDICION = Duration.ofSeconds(10);
+    private static final Duration DETENCION = Duration.ofSeconds(3);
+
+    @TempDir Path directorio;
+
+    @Test
+    void directaVsAsincrona() throws Exception {
+        List<String> filas = new ArrayList<>();
+        medir(false, filas);
+        medir(true, filas);
+
+        System.out.printf("%n=== POST /incidentes: %d clientes, %d ms por sentencia, %d s a %d ms por sentencia, pool de %d conexiones ===%n",
+                CLIENTES, LATENCIA_SENTENCIA_MS, DETENCION.toSeconds(), LATENCIA_DETENCION_MS, CONEXIONES_BD);
+        System.out.printf("%-10s %15s %9s %9s %8s %14s%n", "Ingesta", "Aceptados/s", "p50 ms", "p99 ms", "Errores", "Vaciado ms");
+        filas.forEach(System.out::println);
+    }
+
+    private void medir(boolean asincrona, List<String> filas) throws Exception {
+        LatenciaSimulada.latenciaMs = LATENCIA_SENTENCIA_MS;
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(ApiIncidentesApplication.class)
+                .properties("server.port=0",
+                        "incidentes.ingesta.asincrona.habilitada=" + asincrona,
+                        "incidentes.ingesta.diario.directorio=" + directorio.resolve("diario"),
+                        "spring.datasource.hikari.maximum-pool-size=" + CONEXIONES_BD,
+                        "incidentes.admision.habilitada=false",
+                        "logging.level.root=WARN")
+                .initializers(aplicacion -> aplicacion.getBeanFactory().addBeanPostProcessor(new LatenciaSimulada()))
+                .run()) {
+            int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            int esperado = asincrona ? 202 : 201;
+            Resultado resultado = cargar(puerto, esperado);
+
+            String vaciado = "-";
+            if (asincrona) {
+                LatenciaSimulada.latenciaMs = LATENCIA_SENTENCIA_MS;
+                IngestaAsincronaService ingesta = contexto.getBean(IngestaAsincronaService.class);
+                long inicio = System.nanoTime();
+                while (ingesta.pendientes() > 0) {
+                    Thread.sleep(10);
+                }
+                vaciado = String.format("%.0f", (System.nanoTime() - inicio) / 1e6);
+            }
+            filas.add(String.format("%-10s %15.0f %9.1f %9.1f %8d %14s", asincrona ? "asincrona" : "directa",
+                    resultado.porSegundo, resultado.p50Ms, resultado.p99Ms, resultado.errores, vaciado));
+            LatenciaSimulada.latenciaMs = 0;
+            contexto.getBean(IncidenteRepository.class).deleteAllInBatch();
+        }
+    }
+
+    /**
+     * Envía incidentes en bucle desde varios clientes simultáneos y detiene la base de datos
+     * durante {@link #DETENCION} a mitad de la medición.
+     */
+    private static Resultado cargar(int puerto, int esperado) throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(CLIENTES + 1, tarea -> {
+            Thread hilo = new Thread(tarea);
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        URI uri = URI.create("http://localhost:" + puerto + "/api-incidentes/v1/incidentes");
+        long inicioMedicion = System.nanoTime() + CALENTAMIENTO.toNanos();
+        long fin = inicioMedicion + MEDICION.toNanos();
+        AtomicInteger enviados = new AtomicInteger();
+
+        hilos.submit(() -> {
+            Thread.sleep(CALENTAMIENTO.plus(MEDICION.minus(DETENCION).dividedBy(2)).toMillis());
+            LatenciaSimulada.latenciaMs = LATENCIA_DETENCION_MS;
+            Thread.sleep(DETENCION.toMillis());
+            LatenciaSimulada.latenciaMs = LATENCIA_SENTENCIA_MS;
+            return null;
+        });
+
+        List<Future<long[]>> mediciones = new ArrayList<>();
+        int[] errores = new int[CLIENTES];
+        for (int c = 0; c < CLIENTES; c++) {
+            int indice = c;
+            mediciones.add(hilos.submit(() -> {
+                List<Long> latencias = new ArrayList<>();
+                while (System.nanoTime() < fin) {
+                    String cuerpo = "{\"titulo\":\"Carga " + enviados.incrementAndGet() + "\"}";
+                    HttpRequest solicitud = HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(cuerpo)).build();
+                    long inicio = System.nanoTime();
+                    int estado;
+                    try {
+                        estado = cliente.send(solicitud, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        estado = -1;
+                    }
+                    long termino = System.nanoTime();
+                    if (inicio >= inicioMedicion && termino <= fin) {
+                        if (estado == esperado) {
+                            latencias.add(termino - inicio);
+                        } else {
+                            errores[indice]++;
+                        }
+                    }
+                }
+                return latencias.stream().mapToLong(Long::longValue).toArray();
+            }));
+        }
+
+        List<long[]> porCliente = new ArrayList<>();
+        for (Future<long[]> medicion : mediciones) {
+            porCliente.add(medicion.get());
+        }
+        hilos.shutdown();
+
+        long[] todas = porCliente.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        int totalErrores = Arrays.stream(errores).sum();
+        if (todas.length == 0) {
+            return new Resultado(0, 0, 0, totalErrores);
+        }
+        return new Resultado(todas.length / (MEDICION.toNanos() / 1e9),
+                todas[todas.length / 2] / 1e6, todas[(int) (todas.length * 0.99)] / 1e6, totalErrores);
+    }
+
+    private record Resultado(double porSegundo, double p50Ms, double p99Ms, int errores) {
+    }
+
+}
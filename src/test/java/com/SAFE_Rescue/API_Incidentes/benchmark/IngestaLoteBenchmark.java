@@ -0,0 +1,123 @@
+package com.SAFE_Rescue.API_Incidentes.benchmark;
+
+import com.SAFE_Rescue.API_Incidentes.dto.ResultadoIngesta;
+import com.SAFE_Rescue.API_Incidentes.modelo.*;
+import com.SAFE_Rescue.API_Incidentes.repository.*;
+import com.SAFE_Rescue.API_Incidentes.service.IncidenteService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara el rendimiento de la ingesta uno a uno ({@link IncidenteService#save}) con la
+ * ingesta por lote ({@link IncidenteService#saveAll}) sobre la base de datos embebida.
+ * <p>
+ * Ejecutar con: {@code mvn test -Pbenchmark -Dtest=IngestaLoteBenchmark}
+ * </p>
+ */
+@Tag("benchmark")
+@SpringBootTest
+class IngestaLoteBenchmark {
+
+    private static final int CALENTAMIENTO = 300;
+    private static final int MEDICION = 3000;
+    private static final int TAMANIO_LOTE = 1000;
+
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private UbicacionRepository ubicacionRepository;
+    @Autowired private CiudadanoRepository ciudadanoRepository;
+    @Autowired private TipoIncidenteRepository tipoIncidenteRepository;
+    @Autowired private EstadoIncidenteRepository estadoIncidenteRepository;
+    @Autowired private EquipoRepository equipoRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void limpiar() {
+        incidenteRepository.deleteAllInBatch();
+        ciudadanoRepository.deleteAllInBatch();
+        ubicacionRepository.deleteAllInBatch();
+        equipoRepository.deleteAllInBatch();
+        estadoIncidenteRepository.deleteAllInBatch();
+        tipoIncidenteRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void compararIngestaSecuencialConLote() {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Calentamiento del JIT y de los pools con ambos caminos
+        ingestaSecuencial(reportes(1, CALENTAMIENTO));
+        ingestaPorLote(reportes(CALENTAMIENTO + 1, CALENTAMIENTO));
+
+        int inicio = 2 * CALENTAMIENTO + 1;
+        estadisticas.clear();
+        long secuencialNs = ingestaSecuencial(reportes(inicio, MEDICION));
+        long sentenciasSecuencial = estadisticas.getPrepareStatementCount();
+
+        estadisticas.clear();
+        long loteNs = ingestaPorLote(reportes(inicio + MEDICION, MEDICION));
+        long sentenciasLote = estadisticas.getPrepareStatementCount();
+
+        double secuencialPorSegundo = MEDICION / (secuencialNs / 1e9);
+        double lotePorSegundo = MEDICION / (loteNs / 1e9);
+        System.out.printf("%n=== Ingesta de %d incidentes ===%n", MEDICION);
+        System.out.printf("Secuencial (save):  %8.0f incidentes/s, %6d sentencias preparadas%n",
+                secuencialPorSegundo, sentenciasSecuencial);
+        System.out.printf("Por lote (saveAll): %8.0f incidentes/s, %6d sentencias preparadas%n",
+                lotePorSegundo, sentenciasLote);
+        System.out.printf("Mejora: x%.1f%n%n", lotePorSegundo / secuencialPorSegundo);
+
+        assertTrue(sentenciasLote < sentenciasSecuencial);
+    }
+
+    private long ingestaSecuencial(List<Incidente> incidentes) {
+        long inicio = System.nanoTime();
+        for (Incidente incidente : incidentes) {
+            incidenteService.save(incidente);
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private long ingestaPorLote(List<Incidente> incidentes) {
+        long inicio = System.nanoTime();
+        for (int i = 0; i < incidentes.size(); i += TAMANIO_LOTE) {
+            List<ResultadoIngesta> resultados =
+                    incidenteService.saveAll(incidentes.subList(i, Math.min(i + TAMANIO_LOTE, incidentes.size())));
+            resultados.forEach(resultado -> assertTrue(resultado.getEstado() == ResultadoIngesta.Estado.CREADO,
+                    () -> "Incidente rechazado: " + resultado.getMensaje()));
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    /**
+     * Genera reportes como los que envía la app ciudadana: ciudadano y ubicación nuevos,
+     * y tipo, estado y equipo compartidos entre todos los reportes.
+     */
+    private List<Incidente> reportes(int desde, int cantidad) {
+        List<Incidente> incidentes = new ArrayList<>(cantidad);
+        for (int n = desde; n < desde + cantidad; n++) {
+            Incidente incidente = new Incidente();
+            incidente.setTitulo("Incendio forestal " + n);
+            incidente.setDetalle("Reporte ciudadano número " + n);
+            incidente.setTipoIncidente(new TipoIncidente(0, "Incendio"));
+            incidente.setEstadoIncidente(new EstadoIncidente(0, "Reportado"));
+            incidente.setEquipo(new Equipo(0, "Sin asignar", true, null));
+            incidente.setUbicacion(new Ubicacion(0, "Camino Rural", n, "Quilpué", "Valparaíso", null, null));
+            incidente.setCiudadano(new Ciudadano(0, 10_000_000L + n, "K", "Nombre", "Paterno", "Materno", 900_000_000L + n));
+            incidentes.add(incidente);
+        }
+        return incidentes;
+    }
+
+}
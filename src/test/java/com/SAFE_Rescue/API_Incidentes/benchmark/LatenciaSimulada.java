@@ -0,0 +1,57 @@
+package com.SAFE_Rescue.API_Incidentes.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Envuelve el DataSource para agregar {@link #latenciaMs} a cada ejecución de sentencia,
+ * como si la base de datos estuviera en otro servidor o respondiera con lentitud.
+ */
+final class LatenciaSimulada implements BeanPostProcessor {
+
+    private static final Set<Class<?>> ENVUELTOS =
+            Set.of(Connection.class, Statement.class, PreparedStatement.class, CallableStatement.class);
+
+    /**
+     * Latencia que se agrega a cada sentencia; en 0 no se agrega nada
+     */
+    static volatile long latenciaMs;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String nombre) {
+        return bean instanceof DataSource origen ? envolver(origen, DataSource.class) : bean;
+    }
+
+    private static <T> T envolver(T objeto, Class<T> tipo) {
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, metodo, argumentos) -> {
+            long latencia = latenciaMs;
+            if (latencia > 0 && metodo.getName().startsWith("execute")) {
+                Thread.sleep(latencia);
+            }
+            Object resultado;
+            try {
+                resultado = metodo.invoke(objeto, argumentos);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (resultado != null && ENVUELTOS.contains(metodo.getReturnType())) {
+                return envolverComo(resultado, metodo.getReturnType());
+            }
+            return resultado;
+        }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object envolverComo(Object objeto, Class<?> tipo) {
+        return envolver(objeto, (Class<Object>) tipo);
+    }
+
+}
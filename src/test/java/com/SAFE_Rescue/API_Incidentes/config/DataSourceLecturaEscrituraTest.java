@@ -0,0 +1,174 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import com.SAFE_Rescue.API_Incidentes.dto.FormatoExportacion;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.TipoIncidente;
+import com.SAFE_Rescue.API_Incidentes.service.ExportacionIncidenteService;
+import com.SAFE_Rescue.API_Incidentes.service.IncidenteService;
+import com.SAFE_Rescue.API_Incidentes.service.TipoIncidenteService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica el envío de las lecturas a las réplicas con dos bases de datos H2: la principal y una
+ * réplica con el mismo esquema que no recibe los cambios (como una réplica muy atrasada).
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + DataSourceLecturaEscrituraTest.PRINCIPAL,
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "incidentes.datasource.replicas.habilitadas=true",
+        "incidentes.datasource.replicas.pools[0].jdbc-url=" + DataSourceLecturaEscrituraTest.REPLICA,
+        "incidentes.datasource.replicas.pools[0].username=sa",
+        "incidentes.datasource.replicas.pools[0].maximum-pool-size=2",
+        "incidentes.datasource.replicas.lectura-propia=5s"
+})
+@AutoConfigureMockMvc
+class DataSourceLecturaEscrituraTest {
+
+    static final String PRINCIPAL = "jdbc:h2:mem:principal_replicas;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final String REPLICA = "jdbc:h2:mem:replica_replicas;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private TipoIncidenteService tipoIncidenteService;
+    @Autowired private ExportacionIncidenteService exportacionIncidenteService;
+
+    /**
+     * Copia a la réplica el esquema que Hibernate crea en la principal, antes de que la aplicación lea.
+     */
+    @TestConfiguration
+    static class EsquemaReplica {
+
+        @Bean
+        static BeanPostProcessor copiarEsquemaAReplica() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String nombre) {
+                    if (bean instanceof LocalContainerEntityManagerFactoryBean) {
+                        copiarEsquema();
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static void copiarEsquema() {
+            List<String> sentencias = new ArrayList<>();
+            try (Connection principal = DriverManager.getConnection(PRINCIPAL, "sa", "");
+                 Statement consulta = principal.createStatement();
+                 ResultSet script = consulta.executeQuery("SCRIPT NODATA")) {
+                while (script.next()) {
+                    sentencias.add(script.getString(1));
+                }
+                try (Connection replica = DriverManager.getConnection(REPLICA, "sa", "");
+                     Statement ejecucion = replica.createStatement()) {
+                    for (String sentencia : sentencias) {
+                        ejecucion.execute(sentencia);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("No se pudo copiar el esquema a la réplica", e);
+            }
+        }
+
+    }
+
+    @Test
+    void lasLecturasVanALaReplicaYLasEscriturasALaPrincipal() throws SQLException {
+        try (Connection replica = DriverManager.getConnection(REPLICA, "sa", "");
+             Statement sentencia = replica.createStatement()) {
+            sentencia.execute("INSERT INTO tipo_incidente (id, nombre_tipo) VALUES (9001, 'Sólo en la réplica')");
+        }
+        assertTrue(tipoIncidenteService.findAll().stream()
+                .map(TipoIncidente::getNombre)
+                .anyMatch("Sólo en la réplica"::equals));
+
+        Incidente incidente = new Incidente();
+        incidente.setTitulo("Escrito en la principal");
+        int id = incidenteService.save(incidente).getId();
+
+        // Fuera de una solicitud no hay lectura de lo propio: la réplica aún no lo tiene
+        assertThrows(NoSuchElementException.class, () -> incidenteService.findByID(id));
+    }
+
+    @Test
+    void despuesDeEscribirElClienteLeeDeLaPrincipal() throws Exception {
+        Cookie escritura = mockMvc.perform(post("/api-incidentes/v1/incidentes")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"titulo\":\"Lectura de lo propio\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(FiltroLecturaPropia.COOKIE))
+                .andReturn().getResponse().getCookie(FiltroLecturaPropia.COOKIE);
+
+        mockMvc.perform(get("/api-incidentes/v1/incidentes").cookie(escritura))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contenido[*].titulo").value(hasItem("Lectura de lo propio")));
+
+        // Otro cliente lee de la réplica
+        mockMvc.perform(get("/api-incidentes/v1/incidentes"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void dentroDeUnaSolicitudSeLeeDeLaPrincipalDespuesDeEscribir() {
+        DataSourceLecturaEscritura.iniciarSolicitud(false);
+        try {
+            Incidente incidente = new Incidente();
+            incidente.setTitulo("Misma solicitud");
+            int id = incidenteService.save(incidente).getId();
+            assertEquals("Misma solicitud", incidenteService.findByID(id).getTitulo());
+        } finally {
+            DataSourceLecturaEscritura.terminarSolicitud();
+        }
+    }
+
+    @Test
+    void laExportacionSeLeeDeLaReplica() throws SQLException, IOException {
+        try (Connection replica = DriverManager.getConnection(REPLICA, "sa", "");
+             Statement sentencia = replica.createStatement()) {
+            sentencia.execute("INSERT INTO incidente (id, titulo, version) VALUES (9101, 'Exportado de la réplica', 0)");
+        }
+        Incidente incidente = new Incidente();
+        incidente.setTitulo("Sin exportar de la principal");
+        incidenteService.save(incidente);
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        exportacionIncidenteService.exportar(FormatoExportacion.CSV, salida);
+        String csv = salida.toString(StandardCharsets.UTF_8);
+
+        assertTrue(csv.contains("\n9101,Exportado de la réplica,"));
+        assertFalse(csv.contains("Sin exportar de la principal"));
+    }
+
+}
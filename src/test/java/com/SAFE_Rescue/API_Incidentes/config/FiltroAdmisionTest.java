@@ -0,0 +1,163 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica el ajuste del límite según la latencia y el rechazo con 503 de las solicitudes que lo
+ * exceden, con prioridad para la creación de reportes.
+ */
+class FiltroAdmisionTest {
+
+    private static final long MILISEGUNDO = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void elLimiteCreceConLatenciaEstableYBajaCuandoLaLatenciaSube() {
+        LimitadorAdaptativo limitador = new LimitadorAdaptativo(10, 2, 100, 0);
+        for (int i = 0; i < 200; i++) {
+            limitador.registrar(20 * MILISEGUNDO, limitador.limite());
+        }
+        int conCarga = limitador.limite();
+        assertTrue(conCarga > 50, "límite con latencia estable: " + conCarga);
+
+        // La base de datos se pone lenta: las solicitudes esperan una conexión
+        for (int i = 0; i < 30; i++) {
+            limitador.registrar(1000 * MILISEGUNDO, limitador.limite());
+        }
+        assertTrue(limitador.limite() < conCarga / 4, "límite con latencia alta: " + limitador.limite());
+    }
+
+    @Test
+    void conPocaCargaElLimiteNoCrece() {
+        LimitadorAdaptativo limitador = new LimitadorAdaptativo(10, 2, 100, 0);
+        for (int i = 0; i < 200; i++) {
+            limitador.registrar(20 * MILISEGUNDO, 1);
+        }
+        assertEquals(10, limitador.limite());
+    }
+
+    @Test
+    void laReservaSoloLaUsanLasSolicitudesPrioritarias() {
+        LimitadorAdaptativo limitador = new LimitadorAdaptativo(10, 10, 10, 0.2);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(limitador.adquirir(false, 1));
+        }
+        assertFalse(limitador.adquirir(false, 1));
+        assertTrue(limitador.saturado());
+        assertTrue(limitador.adquirir(true, 1));
+        assertTrue(limitador.adquirir(true, 1));
+        assertFalse(limitador.adquirir(true, 1));
+    }
+
+    @Test
+    void rechazaConRetryAfterYDaPrioridadALaCreacionDeReportes() throws Exception {
+        MeterRegistry registro = new SimpleMeterRegistry();
+        FiltroAdmision filtro = new FiltroAdmision(new LimitadorAdaptativo(1, 1, 1, 0),
+                new LimitadorAdaptativo(5, 5, 5, 0.4), Duration.ofSeconds(2), registro);
+
+        // Mientras una lectura está en curso, otra lectura se rechaza
+        MockHttpServletResponse[] anidada = new MockHttpServletResponse[1];
+        FilterChain lecturaEnCurso = (solicitud, respuesta) -> {
+            anidada[0] = new MockHttpServletResponse();
+            filtro.doFilter(solicitud("GET", "/api-incidentes/v1/incidentes"), anidada[0], (s, r) -> { });
+        };
+        MockHttpServletResponse primera = new MockHttpServletResponse();
+        filtro.doFilter(solicitud("GET", "/api-incidentes/v1/incidentes"), primera, lecturaEnCurso);
+        assertEquals(200, primera.getStatus());
+        assertEquals(503, anidada[0].getStatus());
+        assertEquals("2", anidada[0].getHeader(HttpHeaders.RETRY_AFTER));
+
+        // Con 3 asignaciones en curso se llena la parte no reservada; la creación usa la reserva
+        MockHttpServletResponse asignacion = new MockHttpServletResponse();
+        MockHttpServletResponse creacion = new MockHttpServletResponse();
+        MockHttpServletResponse lecturaSinPrioridad = new MockHttpServletResponse();
+        FilterChain escrituras = (s, r) -> filtro.doFilter(solicitud("POST", "/api-incidentes/v1/incidentes/1/asignar-equipo/2"), new MockHttpServletResponse(),
+                (s2, r2) -> filtro.doFilter(solicitud("POST", "/api-incidentes/v1/incidentes/1/asignar-equipo/3"), new MockHttpServletResponse(),
+                        (s3, r3) -> {
+                            filtro.doFilter(solicitud("POST", "/api-incidentes/v1/incidentes/1/asignar-equipo/4"), asignacion, (s4, r4) -> { });
+                            filtro.doFilter(solicitud("POST", "/api-incidentes/v1/incidentes"), creacion, (s4, r4) -> { });
+                            filtro.doFilter(solicitud("GET", "/api-incidentes/v1/incidentes"), lecturaSinPrioridad, (s4, r4) -> { });
+                        }));
+        filtro.doFilter(solicitud("POST", "/api-incidentes/v1/incidentes/1/asignar-equipo/1"), new MockHttpServletResponse(), escrituras);
+        assertEquals(503, asignacion.getStatus());
+        assertEquals(200, creacion.getStatus());
+        // Aunque se reducen a la mitad mientras las escrituras están saturadas, las lecturas conservan un lugar
+        assertEquals(200, lecturaSinPrioridad.getStatus());
+
+        assertEquals(1, registro.get("admision.rechazos").tag("clase", "lecturas").counter().count());
+        assertEquals(1, registro.get("admision.rechazos").tag("clase", "escrituras").tag("prioridad", "normal").counter().count());
+        assertEquals(5, registro.get("admision.limite").tag("clase", "escrituras").gauge().value());
+        assertEquals(0, registro.get("admision.en.curso").tag("clase", "escrituras").gauge().value());
+    }
+
+    @Test
+    void lasSuscripcionesSseNoSeLimitan() throws Exception {
+        FiltroAdmision filtro = new FiltroAdmision(new LimitadorAdaptativo(1, 1, 1, 0),
+                new LimitadorAdaptativo(1, 1, 1, 0), Duration.ofSeconds(1), new SimpleMeterRegistry());
+        MockHttpServletResponse suscripcion = new MockHttpServletResponse();
+        filtro.doFilter(solicitud("GET", "/api-incidentes/v1/incidentes"), new MockHttpServletResponse(), (s, r) -> {
+            MockHttpServletRequest eventos = solicitud("GET", "/api-incidentes/v1/incidentes/eventos");
+            eventos.addHeader(HttpHeaders.ACCEPT, "text/event-stream");
+            filtro.doFilter(eventos, suscripcion, (s2, r2) -> { });
+        });
+        assertEquals(200, suscripcion.getStatus());
+    }
+
+    @Test
+    void unaRespuestaAsincronaConservaSuLugarHastaCompletarse() throws Exception {
+        LimitadorAdaptativo lecturas = new LimitadorAdaptativo(1, 1, 1, 0);
+        FiltroAdmision filtro = new FiltroAdmision(lecturas, new LimitadorAdaptativo(1, 1, 1, 0),
+                Duration.ofSeconds(1), new SimpleMeterRegistry());
+
+        MockHttpServletRequest exportacion = solicitud("GET", "/api-incidentes/v1/incidentes/exportar");
+        exportacion.setAsyncSupported(true);
+        filtro.doFilter(exportacion, new MockHttpServletResponse(), (s, r) -> s.startAsync());
+        assertEquals(1, lecturas.enCurso());
+
+        MockHttpServletResponse otra = new MockHttpServletResponse();
+        filtro.doFilter(solicitud("GET", "/api-incidentes/v1/incidentes"), otra, (s, r) -> { });
+        assertEquals(503, otra.getStatus());
+
+        exportacion.getAsyncContext().complete();
+        assertEquals(0, lecturas.enCurso());
+        MockHttpServletResponse despues = new MockHttpServletResponse();
+        filtro.doFilter(solicitud("GET", "/api-incidentes/v1/incidentes"), despues, (s, r) -> { });
+        assertEquals(200, despues.getStatus());
+    }
+
+    @Test
+    void registrarNoEsperaAOtraMuestra() throws Exception {
+        LimitadorAdaptativo limitador = new LimitadorAdaptativo(10, 2, 100, 0);
+        Thread[] hilos = new Thread[8];
+        for (int i = 0; i < hilos.length; i++) {
+            hilos[i] = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    limitador.registrar(20 * MILISEGUNDO, limitador.limite());
+                }
+            });
+            hilos[i].start();
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        // Aunque se descarten muestras, la latencia estable hace crecer el límite
+        assertTrue(limitador.limite() > 50, "límite con latencia estable: " + limitador.limite());
+    }
+
+    private static MockHttpServletRequest solicitud(String metodo, String uri) {
+        return new MockHttpServletRequest(metodo, uri);
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.service.IncidenteService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica las cubetas de tokens (recarga, reemplazo de llaves y concurrencia) y el rechazo con 429
+ * de los reportes de un ciudadano o una IP que exceden su límite.
+ */
+@SpringBootTest(properties = {
+        "incidentes.limite-tasa.endpoints.reportes.por-ciudadano.capacidad=2",
+        "incidentes.limite-tasa.endpoints.reportes.por-ciudadano.periodo=1h",
+        "incidentes.limite-tasa.endpoints.reportes.por-ip.capacidad=4",
+        "incidentes.limite-tasa.endpoints.reportes.por-ip.periodo=1h"
+})
+@AutoConfigureMockMvc
+class LimiteTasaTest {
+
+    private static final String URL = "/api-incidentes/v1/incidentes";
+    private static final String TITULO = "Límite de tasa";
+    private static final long SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private MeterRegistry registro;
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private IncidenteRepository incidenteRepository;
+
+    @AfterEach
+    void limpiar() {
+        incidenteRepository.findAll().stream()
+                .filter(incidente -> incidente.getTitulo().startsWith(TITULO))
+                .forEach(incidente -> incidenteService.delete(incidente.getId()));
+    }
+
+    @Test
+    void laCubetaSeVaciaYSeRecargaConElTiempo() {
+        CubetasTokens cubetas = new CubetasTokens(1024, 3, Duration.ofSeconds(3));
+        assertEquals(0, cubetas.consumir(7, 1, 0));
+        assertEquals(0, cubetas.consumir(7, 2, 0));
+        assertEquals(SEGUNDO, cubetas.consumir(7, 1, 0));
+        // Otra llave tiene su propia cubeta
+        assertEquals(0, cubetas.consumir(8, 3, 0));
+
+        assertEquals(0, cubetas.consumir(7, 1, SEGUNDO));
+        assertTrue(cubetas.consumir(7, 1, SEGUNDO) > 0);
+        // La recarga no supera la capacidad
+        assertEquals(0, cubetas.consumir(8, 3, 100 * SEGUNDO));
+        assertTrue(cubetas.consumir(8, 1, 100 * SEGUNDO) > 0);
+    }
+
+    @Test
+    void laTablaTieneTamanioFijoYOlvidaLasLlavesMenosUsadas() {
+        CubetasTokens cubetas = new CubetasTokens(1024, 1, Duration.ofHours(1));
+        assertEquals(1024, cubetas.tamanio());
+        assertEquals(0, cubetas.consumir(1, 1, 0));
+        for (long llave = 2; llave < 100_000; llave++) {
+            cubetas.consumir(llave, 1, llave);
+        }
+        assertEquals(1024, cubetas.tamanio());
+        // Reemplazada por llaves más recientes, la primera vuelve a empezar llena
+        assertEquals(0, cubetas.consumir(1, 1, 100_000));
+    }
+
+    @Test
+    void bajoConcurrenciaNoSeEntreganMasTokensQueLaCapacidad() throws Exception {
+        int hilos = 16;
+        int intentos = 20_000;
+        int capacidad = 1000;
+        int llavesPorHilo = 50;
+        CubetasTokens cubetas = new CubetasTokens(65536, capacidad, Duration.ofDays(365));
+        CountDownLatch partida = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        List<Future<long[]>> resultados = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            int hilo = h;
+            Callable<long[]> tarea = () -> {
+                partida.await();
+                long compartidos = 0;
+                long propios = 0;
+                for (int i = 0; i < intentos; i++) {
+                    long ahora = System.nanoTime();
+                    // Todos compiten por la misma llave y, entre medio, usan llaves propias
+                    if (cubetas.consumir(42, 1, ahora) == 0) {
+                        compartidos++;
+                    }
+                    if (cubetas.consumir(1_000_000L + hilo * llavesPorHilo + i % llavesPorHilo, 1, ahora) == 0) {
+                        propios++;
+                    }
+                }
+                return new long[]{compartidos, propios};
+            };
+            resultados.add(ejecutor.submit(tarea));
+        }
+        partida.countDown();
+
+        long compartidos = 0;
+        for (Future<long[]> resultado : resultados) {
+            long[] conteo = resultado.get(60, TimeUnit.SECONDS);
+            compartidos += conteo[0];
+            // Cada llave propia entrega su capacidad: intentos / llavesPorHilo = 400 por llave
+            assertEquals(intentos, conteo[1]);
+        }
+        ejecutor.shutdown();
+        assertEquals(capacidad, compartidos);
+    }
+
+    @Test
+    void rechazaLosReportesQueExcedenElLimiteDelCiudadanoODeLaIp() throws Exception {
+        double rechazosCiudadano = rechazos("ciudadano");
+        double rechazosIp = rechazos("ip");
+        String ciudadano = "\"ciudadano\":{\"run\":11222333,\"dv\":\"9\",\"nombre\":\"Ana\",\"a_paterno\":\"Rojas\","
+                + "\"a_materno\":\"Soto\",\"telefono\":911222333}";
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post(URL).contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"titulo\":\"" + TITULO + " " + i + "\"," + ciudadano + "}"))
+                    .andExpect(status().isCreated());
+        }
+        mockMvc.perform(post(URL).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"titulo\":\"" + TITULO + " 3\"," + ciudadano + "}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+
+        // Sin ciudadano sólo se aplica el límite de la IP, que lleva 3 de 4
+        mockMvc.perform(post(URL).contentType(MediaType.APPLICATION_JSON).content("{\"titulo\":\"" + TITULO + " 4\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post(URL).contentType(MediaType.APPLICATION_JSON).content("{\"titulo\":\"" + TITULO + " 5\"}"))
+                .andExpect(status().isTooManyRequests());
+        // Otra IP no comparte la cubeta
+        mockMvc.perform(post(URL).with(desde("10.0.0.2")).contentType(MediaType.APPLICATION_JSON).content("{\"titulo\":\"" + TITULO + " 6\"}"))
+                .andExpect(status().isCreated());
+
+        assertEquals(rechazosCiudadano + 1, rechazos("ciudadano"));
+        assertEquals(rechazosIp + 1, rechazos("ip"));
+    }
+
+    @Test
+    void unReintentoConLaMismaLlaveDeIdempotenciaNoTomaTokens() throws Exception {
+        String ciudadano = "\"ciudadano\":{\"run\":14555666,\"dv\":\"K\",\"nombre\":\"Eva\",\"a_paterno\":\"Lagos\","
+                + "\"a_materno\":\"Mena\",\"telefono\":914555666}";
+        String cuerpo = "{\"titulo\":\"" + TITULO + " idempotente\"," + ciudadano + "}";
+        mockMvc.perform(post(URL).with(desde("10.0.0.3")).header("Idempotency-Key", "reporte-limite-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post(URL).with(desde("10.0.0.3")).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"titulo\":\"" + TITULO + " sin llave\"," + ciudadano + "}"))
+                .andExpect(status().isCreated());
+
+        // La cubeta del ciudadano quedó vacía; los reintentos reciben la respuesta guardada
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post(URL).with(desde("10.0.0.3")).header("Idempotency-Key", "reporte-limite-1")
+                            .contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string("Idempotent-Replayed", "true"));
+        }
+
+        // Un rechazo por límite de tasa no se guarda: la llave se puede usar al recargarse la cubeta
+        String otro = "{\"titulo\":\"" + TITULO + " rechazado\"," + ciudadano + "}";
+        mockMvc.perform(post(URL).with(desde("10.0.0.3")).header("Idempotency-Key", "reporte-limite-2")
+                        .contentType(MediaType.APPLICATION_JSON).content(otro))
+                .andExpect(status().isTooManyRequests());
+        mockMvc.perform(post(URL).with(desde("10.0.0.3")).header("Idempotency-Key", "reporte-limite-2")
+                        .contentType(MediaType.APPLICATION_JSON).content(otro))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+    }
+
+    private double rechazos(String llave) {
+        return registro.get("limite.tasa.rechazos").tag("llave", llave).counter().count();
+    }
+
+    private static RequestPostProcessor desde(String ip) {
+        return solicitud -> {
+            solicitud.setRemoteAddr(ip);
+            return solicitud;
+        };
+    }
+
+}
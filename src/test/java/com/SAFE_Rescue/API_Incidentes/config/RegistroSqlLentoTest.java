@@ -0,0 +1,108 @@
+package com.SAFE_Rescue.API_Incidentes.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.service.IncidenteService;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica qué sentencias registra el log de consultas lentas y con qué campos.
+ */
+@SpringBootTest(properties = {"incidentes.sql.lento.umbral=0ms", "incidentes.sql.lento.muestreo=0"})
+class RegistroSqlLentoTest {
+
+    @Autowired private IncidenteService incidenteService;
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(RegistroSqlLento.class);
+    private final ListAppender<ILoggingEvent> eventos = new ListAppender<>();
+
+    @BeforeEach
+    void capturar() {
+        eventos.start();
+        logger.addAppender(eventos);
+    }
+
+    @AfterEach
+    void soltar() {
+        logger.detachAppender(eventos);
+    }
+
+    @Test
+    void registraLaSentenciaConSuLlamadorYLaFormaDeLosParametros() {
+        Incidente incidente = new Incidente();
+        incidente.setTitulo("Registro de consultas");
+        int id = incidenteService.save(incidente).getId();
+        eventos.list.clear();
+
+        incidenteService.findByID(id);
+
+        ILoggingEvent evento = eventos.list.stream()
+                .filter(e -> e.getFormattedMessage().contains(" from incidente "))
+                .findFirst().orElseThrow();
+        String linea = evento.getFormattedMessage();
+        assertEquals(Level.WARN, evento.getLevel());
+        assertTrue(linea.startsWith("duracion_ms="), linea);
+        assertTrue(linea.contains(" lenta=true exito=true "), linea);
+        assertTrue(linea.contains(" llamador=IncidenteService.findByID "), linea);
+        assertTrue(linea.contains(" parametros=[Int] "), linea);
+        assertTrue(linea.contains(" sql=\"select "), linea);
+        incidenteService.delete(id);
+    }
+
+    @Test
+    void lasRapidasSoloSeRegistranSiSonMuestreadas() {
+        QueryInfo consulta = consulta("select * from incidente where id = ?");
+
+        new RegistroSqlLento(Duration.ofSeconds(1), 0).afterQuery(ejecucion(5), List.of(consulta));
+        assertTrue(eventos.list.isEmpty());
+
+        new RegistroSqlLento(Duration.ofSeconds(1), 1).afterQuery(ejecucion(5), List.of(consulta));
+        new RegistroSqlLento(Duration.ofSeconds(1), 0).afterQuery(ejecucion(1500), List.of(consulta));
+        assertEquals(List.of(Level.INFO, Level.WARN), eventos.list.stream().map(ILoggingEvent::getLevel).toList());
+        assertTrue(eventos.list.get(1).getFormattedMessage().startsWith("duracion_ms=1500 lenta=true"));
+    }
+
+    @Test
+    void rechazaConfiguracionInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> new RegistroSqlLento(Duration.ofMillis(-1), 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new RegistroSqlLento(Duration.ofMillis(100), 1.5));
+    }
+
+    private static ExecutionInfo ejecucion(long duracionMs) {
+        ExecutionInfo ejecucion = new ExecutionInfo();
+        ejecucion.setElapsedTime(duracionMs);
+        ejecucion.setSuccess(true);
+        return ejecucion;
+    }
+
+    private static QueryInfo consulta(String sql) {
+        QueryInfo consulta = new QueryInfo(sql);
+        try {
+            consulta.getParametersList().add(List.of(new ParameterSetOperation(
+                    PreparedStatement.class.getMethod("setLong", int.class, long.class), new Object[]{1, 7L})));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        return consulta;
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.SAFE_Rescue.API_Incidentes.controller;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.Equipo;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.repository.EquipoRepository;
+import com.SAFE_Rescue.API_Incidentes.service.ConflictoVersionException;
+import com.SAFE_Rescue.API_Incidentes.service.IncidenteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica las solicitudes condicionales sobre incidentes (ETag, If-None-Match e If-Match),
+ * las actualizaciones parciales con JSON Merge Patch y que las asignaciones concurrentes no se
+ * sobrescriban entre sí.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class IncidenteControllerTest {
+
+    private static final String URL = "/api-incidentes/v1/incidentes/";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private EquipoRepository equipoRepository;
+
+    private final List<Integer> incidentes = new ArrayList<>();
+    private final List<Equipo> equipos = new ArrayList<>();
+
+    @AfterEach
+    void limpiar() {
+        incidentes.forEach(id -> incidenteService.delete(id));
+        equipoRepository.deleteAll(equipos);
+    }
+
+    @Test
+    void respondeNotModifiedMientrasLaVersionNoCambie() throws Exception {
+        int id = crear("Incendio forestal");
+        String etag = mockMvc.perform(get(URL + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(URL + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        Incidente cambios = new Incidente();
+        cambios.setTitulo("Incendio forestal controlado");
+        incidenteService.update(cambios, id);
+
+        String nueva = mockMvc.perform(get(URL + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, nueva);
+    }
+
+    @Test
+    void rechazaEscriturasConVersionObsoleta() throws Exception {
+        int id = crear("Rescate vehicular");
+        String etag = mockMvc.perform(get(URL + id)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String nueva = mockMvc.perform(put(URL + id).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"titulo\":\"Rescate vehicular en ruta\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, nueva);
+
+        // Un segundo cliente que leyó la versión anterior no sobrescribe el cambio
+        mockMvc.perform(put(URL + id).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"titulo\":\"Rescate\"}"))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("Rescate vehicular en ruta", incidenteService.findByID(id).getTitulo());
+    }
+
+    @Test
+    void asignacionesConcurrentesSobreLaMismaVersionSoloAceptanUna() throws Exception {
+        int id = crear("Derrame químico");
+        long version = incidenteService.findVersion(id);
+        int despachadores = 4;
+        for (int i = 0; i < despachadores; i++) {
+            equipos.add(equipoRepository.save(new Equipo(0, "Equipo concurrencia " + i, true, "Líder " + i)));
+        }
+
+        ExecutorService hilos = Executors.newFixedThreadPool(despachadores);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        for (Equipo equipo : equipos) {
+            resultados.add(hilos.submit(() -> {
+                largada.await();
+                try {
+                    incidenteService.asignarEquipo(id, equipo.getId(), version);
+                    return true;
+                } catch (ConflictoVersionException e) {
+                    return false;
+                }
+            }));
+        }
+        largada.countDown();
+        int aceptadas = 0;
+        for (Future<Boolean> resultado : resultados) {
+            aceptadas += resultado.get() ? 1 : 0;
+        }
+        hilos.shutdown();
+
+        assertEquals(1, aceptadas);
+        assertEquals(version + 1, incidenteService.findVersion(id));
+    }
+
+    @Test
+    void unParcheAsignaRelacionesPorIdYBorraConNull() throws Exception {
+        int id = crear("Inundación");
+        Equipo equipo = equipoRepository.save(new Equipo(0, "Equipo parche", true, "Líder parche"));
+        equipos.add(equipo);
+
+        mockMvc.perform(patch(URL + id).contentType(IncidenteController.MERGE_PATCH_JSON)
+                        .content("{\"detalle\":\"Calle anegada\",\"equipo\":" + equipo.getId() + "}"))
+                .andExpect(status().isOk());
+        Incidente parchado = incidenteService.findByID(id);
+        assertEquals("Calle anegada", parchado.getDetalle());
+        assertEquals(equipo.getId(), parchado.getEquipo().getId());
+        assertEquals("Inundación", parchado.getTitulo());
+
+        mockMvc.perform(patch(URL + id).contentType(IncidenteController.MERGE_PATCH_JSON)
+                        .content("{\"detalle\":null,\"equipo\":null}"))
+                .andExpect(status().isOk());
+        parchado = incidenteService.findByID(id);
+        assertNull(parchado.getDetalle());
+        assertNull(parchado.getEquipo());
+        assertEquals("Inundación", parchado.getTitulo());
+    }
+
+    @Test
+    void unParcheRechazaTituloNuloYCamposDesconocidos() throws Exception {
+        int id = crear("Corte de luz");
+        long version = incidenteService.findVersion(id);
+
+        mockMvc.perform(patch(URL + id).contentType(IncidenteController.MERGE_PATCH_JSON)
+                        .content("{\"titulo\":null}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch(URL + id).contentType(IncidenteController.MERGE_PATCH_JSON)
+                        .content("{\"prioridad\":\"alta\"}"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals("Corte de luz", incidenteService.findByID(id).getTitulo());
+        assertEquals(version, incidenteService.findVersion(id));
+    }
+
+    @Test
+    void unParcheConVersionObsoletaNoSeAplica() throws Exception {
+        int id = crear("Fuga de gas");
+        String etag = mockMvc.perform(get(URL + id)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(patch(URL + id).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(IncidenteController.MERGE_PATCH_JSON).content("{\"detalle\":\"Primera\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch(URL + id).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(IncidenteController.MERGE_PATCH_JSON).content("{\"detalle\":\"Segunda\"}"))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("Primera", incidenteService.findByID(id).getDetalle());
+    }
+
+    private int crear(String titulo) {
+        Incidente incidente = new Incidente();
+        incidente.setTitulo(titulo);
+        int id = incidenteService.save(incidente).getId();
+        incidentes.add(id);
+        return id;
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.SAFE_Rescue.API_Incidentes.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que el endpoint de Prometheus exponga los histogramas por endpoint y por método
+ * de repositorio, y las métricas del pool de conexiones y de Hibernate.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricasTest {
+
+    @Autowired private MockMvc mockMvc;
+
+    @Test
+    void exponeLatenciasPorEndpointYRepositorio() throws Exception {
+        mockMvc.perform(get("/api-incidentes/v1/incidentes/999999")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api-incidentes/v1/ubicaciones"));
+
+        String metricas = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertContiene(metricas, "http_server_requests_seconds_bucket{");
+        assertContiene(metricas, "uri=\"/api-incidentes/v1/incidentes/{id}\"");
+        assertContiene(metricas, "uri=\"/api-incidentes/v1/ubicaciones\"");
+        assertContiene(metricas, "spring_data_repository_invocations_seconds_bucket{");
+        assertContiene(metricas, "repository=\"IncidenteRepository\"");
+        assertContiene(metricas, "hikaricp_connections_active{");
+        assertContiene(metricas, "hibernate_sessions_open_total{");
+    }
+
+    private static void assertContiene(String metricas, String esperado) {
+        assertTrue(metricas.contains(esperado), () -> "Falta " + esperado + " en /actuator/prometheus");
+    }
+
+}
@@ -0,0 +1,254 @@
+package com.SAFE_Rescue.API_Incidentes.controller;
+
+import com.SAFE_Rescue.API_Incidentes.config.FiltroPresupuestoSql;
+import com.SAFE_Rescue.API_Incidentes.modelo.Ciudadano;
+import com.SAFE_Rescue.API_Incidentes.modelo.Equipo;
+import com.SAFE_Rescue.API_Incidentes.modelo.EstadoIncidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.TipoIncidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
+import com.SAFE_Rescue.API_Incidentes.repository.CiudadanoRepository;
+import com.SAFE_Rescue.API_Incidentes.repository.EquipoRepository;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.repository.UbicacionRepository;
+import com.SAFE_Rescue.API_Incidentes.service.EstadoIncidenteService;
+import com.SAFE_Rescue.API_Incidentes.service.IncidenteService;
+import com.SAFE_Rescue.API_Incidentes.service.TipoIncidenteService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Fija la cantidad de sentencias SQL que ejecuta cada endpoint, con la caché de segundo nivel
+ * vacía (el peor caso). Un cambio que agregue consultas, como un N+1, hace fallar esta prueba;
+ * si además excede el {@link com.SAFE_Rescue.API_Incidentes.config.PresupuestoSql} del
+ * endpoint, falla cualquier prueba que lo llame.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PresupuestoSqlTest {
+
+    private static final String INCIDENTES = "/api-incidentes/v1/incidentes";
+    private static final String UBICACIONES = "/api-incidentes/v1/ubicaciones";
+    private static final String TIPOS = "/api-incidentes/v1/tipos-incidentes";
+    private static final String ESTADOS = "/api-incidentes/v1/estados-incidentes";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private MeterRegistry registro;
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private TipoIncidenteService tipoIncidenteService;
+    @Autowired private EstadoIncidenteService estadoIncidenteService;
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private UbicacionRepository ubicacionRepository;
+    @Autowired private EquipoRepository equipoRepository;
+    @Autowired private CiudadanoRepository ciudadanoRepository;
+
+    private Incidente incidente;
+    private Ubicacion ubicacion;
+    private TipoIncidente tipo;
+    private EstadoIncidente estado;
+    private Equipo equipo;
+    private Ciudadano ciudadano;
+
+    @BeforeEach
+    void preparar() {
+        ubicacion = ubicacionRepository.save(new Ubicacion(0, "Avenida Alemania", 640, "Temuco", "Araucanía", -38.73, -72.6));
+        tipo = tipoIncidenteService.save(new TipoIncidente(0, "Incendio estructural"));
+        estado = estadoIncidenteService.save(new EstadoIncidente(0, "En curso"));
+        equipo = equipoRepository.save(new Equipo(0, "Bomba Temuco", true, "Capitán Soto"));
+        ciudadano = ciudadanoRepository.save(new Ciudadano(0, 12_345_678L, "5", "Ana", "Pérez", "Soto", 987_654_321L));
+
+        Incidente nuevo = new Incidente();
+        nuevo.setTitulo("Incendio en edificio");
+        nuevo.setDetalle("Humo en el tercer piso");
+        nuevo.setUbicacion(ubicacion);
+        nuevo.setTipoIncidente(tipo);
+        nuevo.setEstadoIncidente(estado);
+        nuevo.setEquipo(equipo);
+        nuevo.setCiudadano(ciudadano);
+        incidente = incidenteService.save(nuevo);
+    }
+
+    @AfterEach
+    void limpiar() {
+        incidenteRepository.deleteAll();
+        ciudadanoRepository.deleteAll();
+        ubicacionRepository.deleteAll();
+        equipoRepository.deleteAll();
+        // Los catálogos se eliminan por su servicio para que sus respuestas serializadas no queden obsoletas
+        estadoIncidenteService.findAll().forEach(estadoIncidente -> estadoIncidenteService.delete(estadoIncidente.getId()));
+        tipoIncidenteService.findAll().forEach(tipoIncidente -> tipoIncidenteService.delete(tipoIncidente.getId()));
+    }
+
+    @Test
+    void lecturasDeIncidentes() throws Exception {
+        int id = incidente.getId();
+        assertSentencias(1, get(INCIDENTES));
+        assertSentencias(1, get(INCIDENTES + "/buscar").param("estadoIncidenteId", "" + estado.getId()));
+        assertSentencias(2, get(INCIDENTES + "/cambios"));
+        assertSentencias(1, get(INCIDENTES + "/texto").param("q", "incendio"));
+        assertSentencias(0, get(INCIDENTES + "/texto/estadisticas"));
+        assertSentencias(0, get(INCIDENTES + "/cercanos").param("latitud", "-38.73").param("longitud", "-72.6"));
+        assertSentencias(0, get(INCIDENTES + "/radio").param("latitud", "-38.73").param("longitud", "-72.6").param("metros", "500"));
+        assertSentencias(1, get(INCIDENTES + "/" + id));
+        assertSentencias(1, get(INCIDENTES + "/" + id).header(HttpHeaders.IF_NONE_MATCH, "\"" + incidente.getVersion() + "\""));
+        // Con un ETag obsoleto se consulta la versión y luego el incidente completo
+        assertSentencias(2, get(INCIDENTES + "/" + id).header(HttpHeaders.IF_NONE_MATCH, "\"" + (incidente.getVersion() + 1) + "\""));
+        // El canal SSE y la exportación no consultan en el hilo de la solicitud
+        assertSentencias(0, get(INCIDENTES + "/eventos"));
+        assertSentencias(0, get(INCIDENTES + "/exportar"));
+    }
+
+    @Test
+    void escriturasDeIncidentes() throws Exception {
+        int id = incidente.getId();
+        assertSentencias(1, post(INCIDENTES).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"titulo\":\"Choque\",\"tipoIncidente\":{\"id\":" + tipo.getId() + "}}"));
+        // Relaciones nuevas indicadas por llave natural: búsqueda e inserción de cada una
+        String conRelacionesNuevas = lote(1, 9);
+        assertSentencias(14, post(INCIDENTES).contentType(MediaType.APPLICATION_JSON)
+                .content(conRelacionesNuevas.substring(1, conRelacionesNuevas.length() - 1)));
+        assertSentencias(2, put(INCIDENTES + "/" + id).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"titulo\":\"Incendio en edificio controlado\"}"));
+        assertSentencias(2, patch(INCIDENTES + "/" + id).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"detalle\":\"Sin humo\"}"));
+        // Cada asignación cambia la relación: carga del incidente, de la relación y UPDATE
+        int otroCiudadano = ciudadanoRepository.save(new Ciudadano(0, 11_111_111L, "1", "Luis", "Mora", "Vidal", 911_111_111L)).getId();
+        int otroEstado = estadoIncidenteService.save(new EstadoIncidente(0, "Controlado")).getId();
+        int otroTipo = tipoIncidenteService.save(new TipoIncidente(0, "Incendio forestal")).getId();
+        int otroEquipo = equipoRepository.save(new Equipo(0, "Bomba Padre Las Casas", true, "Teniente Ríos")).getId();
+        int otraUbicacion = ubicacionRepository.save(new Ubicacion(0, "Caupolicán", 120, "Temuco", "Araucanía", -38.74, -72.59)).getId();
+        assertSentencias(3, post(INCIDENTES + "/" + id + "/asignar-ciudadano/" + otroCiudadano));
+        assertSentencias(3, post(INCIDENTES + "/" + id + "/asignar-estado-incidente/" + otroEstado));
+        assertSentencias(3, post(INCIDENTES + "/" + id + "/asignar-tipo-incidente/" + otroTipo));
+        assertSentencias(3, post(INCIDENTES + "/" + id + "/asignar-equipo/" + otroEquipo));
+        assertSentencias(3, post(INCIDENTES + "/" + id + "/asignar-ubicacion/" + otraUbicacion));
+        assertSentencias(3, delete(INCIDENTES + "/" + id));
+    }
+
+    @Test
+    void loteNoDependeDeLaCantidadDeIncidentes() throws Exception {
+        // Las relaciones nuevas cuestan sentencias por cada valor distinto; los incidentes que las repiten, no.
+        // Incluye la reconstrucción de los catálogos de tipos y estados, una vez por lote
+        int porLoteChico = sentencias(post(INCIDENTES + "/batch").contentType(MediaType.APPLICATION_JSON).content(lote(10, 0)));
+        int porLoteGrande = sentencias(post(INCIDENTES + "/batch").contentType(MediaType.APPLICATION_JSON).content(lote(100, 1)));
+        assertEquals(94, porLoteChico);
+        assertEquals(porLoteChico, porLoteGrande);
+        assertSentencias(1, post(INCIDENTES + "/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"titulo\":\"Lote A\"},{\"titulo\":\"Lote B\"},{\"titulo\":\"Lote C\"}]"));
+    }
+
+    @Test
+    void ubicaciones() throws Exception {
+        assertSentencias(1, get(UBICACIONES));
+        assertSentencias(1, get(UBICACIONES + "/" + ubicacion.getId()));
+        assertSentencias(2, post(UBICACIONES).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"calle\":\"Prat\",\"numeracion\":15,\"comuna\":\"Temuco\",\"region\":\"Araucanía\"}"));
+        // Incluye el momento de modificación de sus incidentes y la consulta de ellos para el índice geográfico
+        assertSentencias(4, put(UBICACIONES + "/" + ubicacion.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"calle\":\"Avenida Alemania Norte\"}"));
+        // Un cambio de comuna cuenta además los incidentes de la ubicación para las estadísticas
+        assertSentencias(5, put(UBICACIONES + "/" + ubicacion.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"comuna\":\"Padre Las Casas\"}"));
+        int libre = ubicacionRepository.save(new Ubicacion(0, "Bulnes", 88, "Temuco", "Araucanía", null, null)).getId();
+        assertSentencias(4, delete(UBICACIONES + "/" + libre));
+    }
+
+    @Test
+    void tiposDeIncidente() throws Exception {
+        // Los catálogos se sirven ya serializados, sin consultar la base de datos
+        assertSentencias(0, get(TIPOS));
+        assertSentencias(0, get(TIPOS + "/" + tipo.getId()));
+        assertSentencias(2, post(TIPOS).contentType(MediaType.APPLICATION_JSON).content("{\"nombre\":\"Inundación\"}"));
+        assertSentencias(3, put(TIPOS + "/" + tipo.getId()).contentType(MediaType.APPLICATION_JSON).content("{\"nombre\":\"Incendio forestal\"}"));
+        int libre = tipoIncidenteService.save(new TipoIncidente(0, "Derrumbe")).getId();
+        assertSentencias(4, delete(TIPOS + "/" + libre));
+    }
+
+    @Test
+    void estadosDeIncidente() throws Exception {
+        assertSentencias(0, get(ESTADOS));
+        assertSentencias(0, get(ESTADOS + "/" + estado.getId()));
+        assertSentencias(2, post(ESTADOS).contentType(MediaType.APPLICATION_JSON).content("{\"nombre\":\"Cerrado\"}"));
+        assertSentencias(3, put(ESTADOS + "/" + estado.getId()).contentType(MediaType.APPLICATION_JSON).content("{\"nombre\":\"Controlado\"}"));
+        int libre = estadoIncidenteService.save(new EstadoIncidente(0, "Descartado")).getId();
+        assertSentencias(4, delete(ESTADOS + "/" + libre));
+    }
+
+    @Test
+    void registraLaCantidadPorEndpoint() throws Exception {
+        String endpoint = "GET " + INCIDENTES + "/{id}";
+        long antes = registro.find("sql.sentencias").tag("endpoint", endpoint).summaries().stream()
+                .mapToLong(resumen -> resumen.count()).sum();
+
+        sentencias(get(INCIDENTES + "/" + incidente.getId()));
+
+        assertEquals(antes + 1, registro.get("sql.sentencias").tag("endpoint", endpoint).summary().count());
+        assertTrue(registro.find("sql.presupuesto.excedido").tag("endpoint", endpoint).counters().isEmpty());
+    }
+
+    private void assertSentencias(int esperadas, MockHttpServletRequestBuilder solicitud) throws Exception {
+        assertEquals(esperadas, sentencias(solicitud), solicitud.buildRequest(null).getMethod() + " "
+                + solicitud.buildRequest(null).getRequestURI());
+    }
+
+    /**
+     * Ejecuta la solicitud con la caché de segundo nivel vacía y devuelve sus sentencias SQL.
+     */
+    private int sentencias(MockHttpServletRequestBuilder solicitud) throws Exception {
+        esperarRecargasDelIndiceGeografico();
+        entityManagerFactory.getCache().evictAll();
+        MvcResult resultado = mockMvc.perform(solicitud).andReturn();
+        assertTrue(resultado.getResponse().getStatus() < 400, resultado.getResponse().getContentAsString());
+        return (Integer) resultado.getRequest().getAttribute(FiltroPresupuestoSql.ATRIBUTO_SENTENCIAS);
+    }
+
+    /**
+     * Espera las recargas del índice geográfico iniciadas por una solicitud anterior: consultan los
+     * estados en otro hilo y podrían volver a llenar la caché de segundo nivel durante la medición.
+     */
+    private static void esperarRecargasDelIndiceGeografico() throws InterruptedException {
+        for (Thread hilo : Thread.getAllStackTraces().keySet()) {
+            if (hilo.getName().equals("recarga-indice-geografico")) {
+                hilo.join(10_000);
+            }
+        }
+    }
+
+    /**
+     * Lote con 10 valores distintos de cada relación, indicadas por llave natural.
+     */
+    private static String lote(int cantidad, int serie) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < cantidad; i++) {
+            int k = serie * 10 + i % 10;
+            json.append(i == 0 ? "" : ",").append(String.format("""
+                    {"titulo":"Lote %d","tipoIncidente":{"nombre":"Tipo lote %d"},"estadoIncidente":{"nombre":"Estado lote %d"},\
+                    "equipo":{"nombre":"Equipo lote %d","estado":true,"lider":"Líder %d"},\
+                    "ciudadano":{"run":%d,"dv":"1","nombre":"Nombre","a_paterno":"Paterno","a_materno":"Materno","telefono":%d},\
+                    "ubicacion":{"calle":"Calle lote","numeracion":%d,"comuna":"Temuco","region":"Araucanía"}}""",
+                    i, k, k, k, k, 20_000_000 + k, 910_000_000 + k, 1_000 + k));
+        }
+        return json.append(']').toString();
+    }
+
+}
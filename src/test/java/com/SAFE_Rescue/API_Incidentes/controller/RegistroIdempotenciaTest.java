@@ -0,0 +1,226 @@
+package com.SAFE_Rescue.API_Incidentes.controller;
+
+import com.SAFE_Rescue.API_Incidentes.config.FiltroPresupuestoSql;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.service.IncidenteService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que los reintentos con la misma llave de idempotencia reciban la respuesta original
+ * sin volver a escribir, y que las solicitudes simultáneas con la misma llave se ejecuten una vez.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class RegistroIdempotenciaTest {
+
+    private static final String URL = "/api-incidentes/v1/incidentes";
+    private static final String TITULO = "Reintento idempotente";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private ObjectMapper objectMapper;
+
+    @AfterEach
+    void limpiar() {
+        incidenteRepository.findAll().stream()
+                .filter(incidente -> incidente.getTitulo().startsWith(TITULO))
+                .forEach(incidente -> incidenteService.delete(incidente.getId()));
+    }
+
+    @Test
+    void unReintentoRecibeLaRespuestaOriginalSinConsultarLaBaseDeDatos() throws Exception {
+        String cuerpo = "{\"titulo\":\"" + TITULO + "\"}";
+        mockMvc.perform(post(URL).header(RegistroIdempotencia.ENCABEZADO, "llave-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(RegistroIdempotencia.ENCABEZADO_REPETIDA));
+
+        MvcResult reintento = mockMvc.perform(post(URL).header(RegistroIdempotencia.ENCABEZADO, "llave-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(RegistroIdempotencia.ENCABEZADO_REPETIDA, "true"))
+                .andExpect(content().string("Incidente creado con éxito."))
+                .andReturn();
+        assertEquals(0, reintento.getRequest().getAttribute(FiltroPresupuestoSql.ATRIBUTO_SENTENCIAS));
+        assertEquals(1, creados());
+
+        // Sin llave, o con otra, cada solicitud es una creación distinta
+        mockMvc.perform(post(URL).contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post(URL).header(RegistroIdempotencia.ENCABEZADO, "llave-2")
+                        .contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+                .andExpect(status().isCreated());
+        assertEquals(3, creados());
+    }
+
+    @Test
+    void rechazaUnaLlaveReutilizadaConOtroCuerpoOInvalida() throws Exception {
+        mockMvc.perform(post(URL).header(RegistroIdempotencia.ENCABEZADO, "llave-3")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"titulo\":\"" + TITULO + " A\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post(URL).header(RegistroIdempotencia.ENCABEZADO, "llave-3")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"titulo\":\"" + TITULO + " B\"}"))
+                .andExpect(status().isUnprocessableEntity());
+        mockMvc.perform(post(URL).header(RegistroIdempotencia.ENCABEZADO, "x".repeat(RegistroIdempotencia.LARGO_MAXIMO + 1))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"titulo\":\"" + TITULO + " C\"}"))
+                .andExpect(status().isBadRequest());
+        assertEquals(1, creados());
+    }
+
+    @Test
+    void solicitudesSimultaneasConLaMismaLlaveSeEjecutanUnaVez() throws Exception {
+        RegistroIdempotencia registro = new RegistroIdempotencia(Duration.ofHours(1), Duration.ofSeconds(10), 1000, objectMapper);
+        AtomicInteger ejecuciones = new AtomicInteger();
+        CountDownLatch enEjecucion = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        int solicitudes = 8;
+
+        ExecutorService hilos = Executors.newFixedThreadPool(solicitudes);
+        Future<ResponseEntity<?>> primera = hilos.submit(() -> registro.ejecutar("llave", "POST /incidentes", "cuerpo", () -> {
+            ejecuciones.incrementAndGet();
+            enEjecucion.countDown();
+            try {
+                continuar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body("creado");
+        }));
+        enEjecucion.await(10, TimeUnit.SECONDS);
+        Future<?>[] repetidas = new Future<?>[solicitudes - 1];
+        for (int i = 0; i < repetidas.length; i++) {
+            repetidas[i] = hilos.submit(() -> registro.ejecutar("llave", "POST /incidentes", "cuerpo", () -> {
+                ejecuciones.incrementAndGet();
+                return ResponseEntity.ok("repetido");
+            }));
+        }
+        continuar.countDown();
+
+        assertNull(primera.get().getHeaders().getFirst(RegistroIdempotencia.ENCABEZADO_REPETIDA));
+        for (Future<?> repetida : repetidas) {
+            ResponseEntity<?> respuesta = (ResponseEntity<?>) repetida.get();
+            assertEquals(HttpStatus.CREATED, respuesta.getStatusCode());
+            assertEquals("creado", respuesta.getBody());
+        }
+        hilos.shutdown();
+        assertEquals(1, ejecuciones.get());
+    }
+
+    @Test
+    void lasLlavesVencenYLosErroresDelServidorNoSeGuardan() throws Exception {
+        RegistroIdempotencia registro = new RegistroIdempotencia(Duration.ofMillis(50), Duration.ofSeconds(10), 1000, objectMapper);
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        registro.ejecutar("llave", "POST /incidentes", null, () -> {
+            ejecuciones.incrementAndGet();
+            return ResponseEntity.internalServerError().build();
+        });
+        registro.ejecutar("llave", "POST /incidentes", null, () -> {
+            ejecuciones.incrementAndGet();
+            return ResponseEntity.ok().build();
+        });
+        registro.ejecutar("llave", "POST /incidentes", null, () -> {
+            ejecuciones.incrementAndGet();
+            return ResponseEntity.ok().build();
+        });
+        assertEquals(2, ejecuciones.get());
+
+        Thread.sleep(100);
+        registro.ejecutar("llave", "POST /incidentes", null, () -> {
+            ejecuciones.incrementAndGet();
+            return ResponseEntity.ok().build();
+        });
+        assertEquals(3, ejecuciones.get());
+        assertEquals(1, registro.cantidad());
+    }
+
+    @Test
+    void unReintentoMientrasLaOriginalSigueEnCursoRecibeConflict() throws Exception {
+        RegistroIdempotencia registro = new RegistroIdempotencia(Duration.ofHours(1), Duration.ofMillis(50), 1000, objectMapper);
+        CountDownLatch enEjecucion = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+
+        ExecutorService hilo = Executors.newSingleThreadExecutor();
+        Future<ResponseEntity<?>> primera = hilo.submit(() -> registro.ejecutar("llave", "POST /incidentes", "cuerpo", () -> {
+            enEjecucion.countDown();
+            try {
+                continuar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body("creado");
+        }));
+        enEjecucion.await(10, TimeUnit.SECONDS);
+
+        ResponseEntity<?> enCurso = registro.ejecutar("llave", "POST /incidentes", "cuerpo", () -> ResponseEntity.ok("repetido"));
+        assertEquals(HttpStatus.CONFLICT, enCurso.getStatusCode());
+        assertEquals("1", enCurso.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        continuar.countDown();
+        assertEquals(HttpStatus.CREATED, primera.get().getStatusCode());
+        hilo.shutdown();
+        ResponseEntity<?> repetida = registro.ejecutar("llave", "POST /incidentes", "cuerpo", () -> ResponseEntity.ok("repetido"));
+        assertEquals(HttpStatus.CREATED, repetida.getStatusCode());
+        assertEquals("true", repetida.getHeaders().getFirst(RegistroIdempotencia.ENCABEZADO_REPETIDA));
+    }
+
+    @Test
+    void laHuellaNoDependeDelOrdenDeLasPropiedades() {
+        RegistroIdempotencia registro = new RegistroIdempotencia(Duration.ofHours(1), Duration.ofSeconds(10), 1000, objectMapper);
+        Map<String, Object> original = new LinkedHashMap<>();
+        original.put("titulo", "A");
+        original.put("detalle", "B");
+        Map<String, Object> reordenado = new LinkedHashMap<>();
+        reordenado.put("detalle", "B");
+        reordenado.put("titulo", "A");
+        // "Aa" y "BB" tienen el mismo hashCode: la huella no puede depender de él
+        Map<String, Object> colision = Map.of("titulo", "Aa");
+        Map<String, Object> otro = Map.of("titulo", "BB");
+
+        registro.ejecutar("llave-1", "POST /incidentes", original, () -> ResponseEntity.ok().build());
+        assertEquals("true", registro.ejecutar("llave-1", "POST /incidentes", reordenado, () -> ResponseEntity.ok().build())
+                .getHeaders().getFirst(RegistroIdempotencia.ENCABEZADO_REPETIDA));
+
+        registro.ejecutar("llave-2", "POST /incidentes", colision, () -> ResponseEntity.ok().build());
+        assertThrows(IllegalStateException.class,
+                () -> registro.ejecutar("llave-2", "POST /incidentes", otro, () -> ResponseEntity.ok().build()));
+    }
+
+    private long creados() {
+        return incidenteRepository.findAll().stream()
+                .filter(incidente -> incidente.getTitulo().startsWith(TITULO))
+                .count();
+    }
+
+}
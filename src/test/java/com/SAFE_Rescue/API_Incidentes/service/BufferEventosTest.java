@@ -0,0 +1,70 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del buffer circular de eventos.
+ */
+class BufferEventosTest {
+
+    @Test
+    void capacidadSeRedondeaAPotenciaDeDos() {
+        assertEquals(8, new BufferEventos<String>(5).capacidad());
+        assertEquals(8, new BufferEventos<String>(8).capacidad());
+        assertThrows(IllegalArgumentException.class, () -> new BufferEventos<String>(0));
+    }
+
+    @Test
+    void conservaLosUltimosEventosYDetectaLosSobrescritos() {
+        BufferEventos<String> buffer = new BufferEventos<>(4);
+        assertEquals(0, buffer.ultima());
+        assertNull(buffer.leer(1));
+
+        for (int i = 1; i <= 6; i++) {
+            assertEquals(i, buffer.publicar(secuencia -> "evento " + secuencia));
+        }
+
+        assertEquals(6, buffer.ultima());
+        assertEquals(3, buffer.masAntigua());
+        assertNull(buffer.leer(2));
+        assertEquals("evento 3", buffer.leer(3));
+        assertEquals("evento 6", buffer.leer(6));
+        assertNull(buffer.leer(7));
+    }
+
+    @Test
+    void variosHilosPublicanSinPerderSecuencias() throws InterruptedException {
+        BufferEventos<Long> buffer = new BufferEventos<>(1 << 16);
+        int hilos = 4;
+        int porHilo = 10_000;
+        List<Thread> publicadores = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            Thread publicador = new Thread(() -> {
+                for (int i = 0; i < porHilo; i++) {
+                    buffer.publicar(secuencia -> secuencia);
+                }
+            });
+            publicadores.add(publicador);
+            publicador.start();
+        }
+        for (Thread publicador : publicadores) {
+            publicador.join();
+        }
+
+        assertEquals(hilos * porHilo, buffer.ultima());
+        Set<Long> leidos = new HashSet<>();
+        for (long secuencia = 1; secuencia <= buffer.ultima(); secuencia++) {
+            assertEquals(secuencia, buffer.leer(secuencia));
+            leidos.add(buffer.leer(secuencia));
+        }
+        assertEquals(hilos * porHilo, leidos.size());
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.EstadoIncidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que el índice geográfico se mantenga al día con los cambios hechos por
+ * {@link IncidenteService} y {@link UbicacionService}.
+ */
+@SpringBootTest
+class BusquedaGeograficaServiceTest {
+
+    // Coyhaique, lejos de cualquier otro dato de prueba
+    private static final double LATITUD = -45.5712;
+    private static final double LONGITUD = -72.0685;
+
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private UbicacionService ubicacionService;
+    @Autowired private BusquedaGeograficaService busquedaGeograficaService;
+    @Autowired private EstadoIncidenteService estadoIncidenteService;
+
+    private final List<Integer> incidentes = new ArrayList<>();
+    private final List<Integer> ubicaciones = new ArrayList<>();
+
+    @AfterEach
+    void limpiar() {
+        incidentes.forEach(id -> incidenteService.delete(id));
+        ubicaciones.forEach(id -> ubicacionService.delete(id));
+    }
+
+    @Test
+    void encuentraIncidentesActivosYQuitaLosCerrados() {
+        Incidente cercano = crear(8101, LATITUD, LONGITUD, "En curso");
+        Incidente lejano = crear(8102, LATITUD + 0.05, LONGITUD, "En curso");
+
+        List<IndiceGeografico.Cercano> encontrados = busquedaGeograficaService.cercanos(LATITUD, LONGITUD, 2);
+        assertEquals(List.of(cercano.getId(), lejano.getId()), encontrados.stream().map(IndiceGeografico.Cercano::getId).toList());
+        assertEquals(0, encontrados.get(0).getDistanciaMetros(), 1);
+        assertEquals(List.of(cercano.getId()), ids(busquedaGeograficaService.enRadio(LATITUD, LONGITUD, 2_000, 10)));
+
+        Incidente cerrado = crear(8103, LATITUD, LONGITUD + 0.001, "Cerrado");
+        assertFalse(ids(busquedaGeograficaService.enRadio(LATITUD, LONGITUD, 2_000, 10)).contains(cerrado.getId()));
+
+        incidenteService.asignarEstadoIncidente(cercano.getId(), cerrado.getEstadoIncidente().getId(), null);
+        assertTrue(busquedaGeograficaService.enRadio(LATITUD, LONGITUD, 2_000, 10).isEmpty());
+    }
+
+    @Test
+    void renombrarUnEstadoCambiaSiEsCerrado() throws InterruptedException {
+        Incidente abierto = crear(8105, LATITUD, LONGITUD, "Pendiente de revisión");
+        assertEquals(List.of(abierto.getId()), ids(busquedaGeograficaService.enRadio(LATITUD, LONGITUD, 2_000, 10)));
+
+        estadoIncidenteService.update(new EstadoIncidente(0, "Finalizado"), abierto.getEstadoIncidente().getId());
+        Incidente finalizado = crear(8106, LATITUD, LONGITUD + 0.001, "Finalizado");
+        assertEquals(abierto.getEstadoIncidente().getId(), finalizado.getEstadoIncidente().getId());
+        assertFalse(ids(busquedaGeograficaService.enRadio(LATITUD, LONGITUD, 2_000, 10)).contains(finalizado.getId()));
+
+        // El incidente ya indexado se quita al recargar el índice en segundo plano
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!busquedaGeograficaService.enRadio(LATITUD, LONGITUD, 2_000, 10).isEmpty() && System.nanoTime() < limite) {
+            Thread.sleep(20);
+        }
+        assertTrue(busquedaGeograficaService.enRadio(LATITUD, LONGITUD, 2_000, 10).isEmpty());
+    }
+
+    @Test
+    void moverUnaUbicacionMueveSusIncidentes() {
+        Incidente incidente = crear(8104, LATITUD, LONGITUD, "En curso");
+
+        Ubicacion cambios = new Ubicacion();
+        cambios.setLatitud(LATITUD - 0.2);
+        cambios.setLongitud(LONGITUD);
+        ubicacionService.update(cambios, incidente.getUbicacion().getId());
+
+        assertTrue(busquedaGeograficaService.enRadio(LATITUD, LONGITUD, 2_000, 10).isEmpty());
+        assertEquals(List.of(incidente.getId()), ids(busquedaGeograficaService.enRadio(LATITUD - 0.2, LONGITUD, 2_000, 10)));
+    }
+
+    @Test
+    void coordenadasORadioInvalidosSonRechazados() {
+        assertThrows(IllegalArgumentException.class, () -> busquedaGeograficaService.cercanos(91.0, 0.0, 5));
+        assertThrows(IllegalArgumentException.class, () -> busquedaGeograficaService.cercanos(null, 0.0, 5));
+        assertThrows(IllegalArgumentException.class, () -> busquedaGeograficaService.enRadio(LATITUD, LONGITUD, 0, 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> busquedaGeograficaService.enRadio(LATITUD, LONGITUD, BusquedaGeograficaService.RADIO_MAXIMO_METROS + 1, 5));
+    }
+
+    private Incidente crear(int numeracion, double latitud, double longitud, String estado) {
+        Incidente incidente = new Incidente();
+        incidente.setTitulo("Incidente georreferenciado " + numeracion);
+        incidente.setUbicacion(new Ubicacion(0, "Calle Prueba", numeracion, "Coyhaique", "Aysén", latitud, longitud));
+        incidente.setEstadoIncidente(new EstadoIncidente(0, estado));
+        Incidente guardado = incidenteService.save(incidente);
+        incidentes.add(guardado.getId());
+        ubicaciones.add(guardado.getUbicacion().getId());
+        return guardado;
+    }
+
+    private static List<Integer> ids(List<IndiceGeografico.Cercano> cercanos) {
+        return cercanos.stream().map(IndiceGeografico.Cercano::getId).toList();
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.ResultadoBusquedaTexto;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.TipoIncidente;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que el índice de texto se mantenga al día con los cambios hechos por {@link IncidenteService}.
+ */
+@SpringBootTest
+class BusquedaTextoServiceTest {
+
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private BusquedaTextoService busquedaTextoService;
+
+    private final List<Integer> creados = new ArrayList<>();
+
+    @AfterEach
+    void limpiar() {
+        creados.forEach(id -> {
+            try {
+                incidenteService.delete(id);
+            } catch (RuntimeException e) {
+                // ya eliminado por la prueba
+            }
+        });
+    }
+
+    @Test
+    void encuentraIncidentesCreadosActualizadosYEliminados() {
+        int id = crear("Incendio estructural", "Casa de madera en Valparaíso");
+
+        List<ResultadoBusquedaTexto> resultados = busquedaTextoService.buscar("incendio valparaiso", 10);
+        assertEquals(1, resultados.size());
+        assertEquals(id, resultados.get(0).getIncidente().getId());
+        assertEquals("Incendio", resultados.get(0).getIncidente().getTipoIncidente().getNombre());
+
+        Incidente cambios = new Incidente();
+        cambios.setTitulo("Inundación de subterráneo");
+        incidenteService.update(cambios, id);
+        assertTrue(busquedaTextoService.buscar("estructural", 10).isEmpty());
+        assertEquals(id, busquedaTextoService.buscar("inundacion", 10).get(0).getIncidente().getId());
+
+        incidenteService.delete(id);
+        assertTrue(busquedaTextoService.buscar("inundacion", 10).isEmpty());
+    }
+
+    @Test
+    void consultaSinPalabrasEsRechazada() {
+        assertThrows(IllegalArgumentException.class, () -> busquedaTextoService.buscar(" de , la ", 10));
+    }
+
+    @Test
+    void estadisticasInformanElUsoDelPresupuesto() {
+        int antes = busquedaTextoService.estadisticas().getDocumentos();
+        crear("Rescate en altura", "Trabajador atrapado en andamio");
+
+        var estadisticas = busquedaTextoService.estadisticas();
+        assertEquals(antes + 1, estadisticas.getDocumentos());
+        assertTrue(estadisticas.getBytesEstimados() > 0);
+        assertTrue(estadisticas.getUsoPresupuesto() > 0 && estadisticas.getUsoPresupuesto() < 1);
+    }
+
+    private int crear(String titulo, String detalle) {
+        Incidente incidente = new Incidente();
+        incidente.setTitulo(titulo);
+        incidente.setDetalle(detalle);
+        incidente.setTipoIncidente(new TipoIncidente(0, "Incendio"));
+        int id = incidenteService.save(incidente).getId();
+        creados.add(id);
+        return id;
+    }
+
+}
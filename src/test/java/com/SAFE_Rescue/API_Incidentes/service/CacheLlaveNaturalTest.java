@@ -0,0 +1,57 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la caché de llaves naturales y su índice inverso, sin base de datos.
+ */
+class CacheLlaveNaturalTest {
+
+    @Test
+    void olvidarQuitaTodasLasLlavesDelId() {
+        CacheLlaveNatural<String> cache = new CacheLlaveNatural<>(10);
+        cache.recordar("abierto", 1);
+        cache.recordar("en curso", 1);
+        cache.recordar("cerrado", 2);
+
+        cache.olvidar(1);
+
+        assertNull(cache.obtener("abierto"));
+        assertNull(cache.obtener("en curso"));
+        assertEquals(2, cache.obtener("cerrado"));
+        assertEquals(1, cache.cantidad());
+    }
+
+    @Test
+    void unaLlaveReasignadaNoSeOlvidaConSuIdAnterior() {
+        CacheLlaveNatural<String> cache = new CacheLlaveNatural<>(10);
+        cache.recordar("abierto", 1);
+        cache.recordar("abierto", 2);
+
+        cache.olvidar(1);
+        assertEquals(2, cache.obtener("abierto"));
+
+        cache.olvidar(2);
+        assertNull(cache.obtener("abierto"));
+    }
+
+    @Test
+    void lasLlavesDescartadasPorCapacidadSalenDelIndiceInverso() {
+        CacheLlaveNatural<String> cache = new CacheLlaveNatural<>(2);
+        cache.recordar("a", 1);
+        cache.recordar("b", 2);
+        cache.obtener("a");
+        cache.recordar("c", 3);
+
+        assertNull(cache.obtener("b"));
+        assertEquals(2, cache.cantidad());
+
+        // La llave descartada vuelve a registrarse con otro ID sin que el anterior la afecte
+        cache.recordar("b", 4);
+        cache.olvidar(2);
+        assertEquals(4, cache.obtener("b"));
+    }
+
+}
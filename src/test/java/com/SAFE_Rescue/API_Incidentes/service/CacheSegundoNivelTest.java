@@ -0,0 +1,100 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.EstadisticasCache;
+import com.SAFE_Rescue.API_Incidentes.modelo.EstadoIncidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.TipoIncidente;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que los catálogos se lean desde la caché de segundo nivel y que las
+ * actualizaciones y eliminaciones no dejen datos obsoletos en ella.
+ */
+@SpringBootTest
+class CacheSegundoNivelTest {
+
+    @Autowired private TipoIncidenteService tipoIncidenteService;
+    @Autowired private EstadoIncidenteService estadoIncidenteService;
+    @Autowired private EstadisticasCacheService estadisticasCacheService;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void iniciar() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void limpiar() {
+        tipoIncidenteService.findAll().forEach(tipo -> tipoIncidenteService.delete(tipo.getId()));
+        estadoIncidenteService.findAll().forEach(estado -> estadoIncidenteService.delete(estado.getId()));
+    }
+
+    @Test
+    void lecturaRepetidaNoConsultaLaBaseDeDatos() {
+        int id = tipoIncidenteService.save(new TipoIncidente(0, "Derrumbe")).getId();
+        tipoIncidenteService.findByID(id); // la primera lectura carga la entidad en la caché
+        long aciertosHibernate = estadisticas.getSecondLevelCacheHitCount();
+        estadisticasCacheService.reiniciar();
+        // Reiniciar no modifica las estadísticas de Hibernate, publicadas como métricas
+        assertEquals(aciertosHibernate, estadisticas.getSecondLevelCacheHitCount());
+        long sentencias = estadisticas.getPrepareStatementCount();
+
+        tipoIncidenteService.findByID(id);
+        tipoIncidenteService.findByID(id);
+
+        assertEquals(sentencias, estadisticas.getPrepareStatementCount());
+        EstadisticasCache tipos = estadisticasCacheService.findAll().stream()
+                .filter(region -> region.getRegion().equals("tipoIncidente"))
+                .findFirst().orElseThrow();
+        assertEquals(2, tipos.getAciertos());
+        assertEquals(1.0, tipos.getTasaAciertos());
+    }
+
+    @Test
+    void actualizarTipoIncidenteRefrescaLaCache() {
+        int id = tipoIncidenteService.save(new TipoIncidente(0, "Inundacion")).getId();
+        tipoIncidenteService.findByID(id);
+
+        tipoIncidenteService.update(new TipoIncidente(0, "Inundación"), id);
+
+        assertEquals("Inundación", tipoIncidenteService.findByID(id).getNombre());
+    }
+
+    @Test
+    void eliminarTipoIncidenteLoQuitaDeLaCache() {
+        int id = tipoIncidenteService.save(new TipoIncidente(0, "Temporal")).getId();
+        tipoIncidenteService.findByID(id);
+
+        tipoIncidenteService.delete(id);
+
+        assertThrows(NoSuchElementException.class, () -> tipoIncidenteService.findByID(id));
+    }
+
+    @Test
+    void actualizarYEliminarEstadoIncidenteNoDejaDatosObsoletos() {
+        int id = estadoIncidenteService.save(new EstadoIncidente(0, "En curso")).getId();
+        estadoIncidenteService.findByID(id);
+
+        estadoIncidenteService.update(new EstadoIncidente(0, "Controlado"), id);
+        assertEquals("Controlado", estadoIncidenteService.findByID(id).getNombre());
+
+        estadoIncidenteService.delete(id);
+        assertThrows(NoSuchElementException.class, () -> estadoIncidenteService.findByID(id));
+        assertTrue(estadisticasCacheService.total().getAciertos() > 0);
+    }
+
+}
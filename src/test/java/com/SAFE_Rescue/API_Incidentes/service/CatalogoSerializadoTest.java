@@ -0,0 +1,152 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.EstadoIncidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.TipoIncidente;
+import com.SAFE_Rescue.API_Incidentes.repository.EstadoIncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.repository.TipoIncidenteRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.NoSuchElementException;
+
+import static org.hamcrest.Matchers.hasItems;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que las respuestas pre-serializadas de los catálogos coincidan con la serialización
+ * normal, no consulten la base de datos y se reconstruyan al modificar el catálogo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CatalogoSerializadoTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private TipoIncidenteService tipoIncidenteService;
+    @Autowired private EstadoIncidenteService estadoIncidenteService;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private TipoIncidenteRepository tipoIncidenteRepository;
+    @Autowired private EstadoIncidenteRepository estadoIncidenteRepository;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void iniciar() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void limpiar() {
+        incidenteRepository.findAll().stream()
+                .filter(incidente -> incidente.getTitulo().startsWith("Catálogo"))
+                .forEach(incidente -> incidenteService.delete(incidente.getId()));
+        tipoIncidenteService.findAll().forEach(tipo -> tipoIncidenteService.delete(tipo.getId()));
+        estadoIncidenteService.findAll().forEach(estado -> estadoIncidenteService.delete(estado.getId()));
+    }
+
+    @Test
+    void buscarPorNombreNoDistingueMayusculasAunSinCache() {
+        TipoIncidente tipo = tipoIncidenteRepository.save(new TipoIncidente(0, "Catálogo Derrumbe"));
+        EstadoIncidente estado = estadoIncidenteRepository.save(new EstadoIncidente(0, "Catálogo Pendiente"));
+
+        // Guardados sin pasar por los servicios: la caché de llaves naturales no los conoce
+        assertEquals(tipo.getId(), tipoIncidenteService.buscarPorNombre("  catálogo DERRUMBE ").getId());
+        assertEquals(estado.getId(), estadoIncidenteService.buscarPorNombre("CATÁLOGO pendiente").getId());
+        assertEquals(tipo.getId(), tipoIncidenteService.buscarPorNombre("Catálogo Derrumbe").getId());
+    }
+
+    @Test
+    void paginaSerializadaCoincideConLaSerializacionNormal() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            tipoIncidenteService.save(new TipoIncidente(0, "Tipo " + i));
+        }
+
+        byte[] esperado = objectMapper.writeValueAsBytes(tipoIncidenteService.findPagina(0, 2));
+        assertArrayEquals(esperado, tipoIncidenteService.findPaginaSerializada(0, 2));
+
+        int ultimoId = tipoIncidenteService.findPagina(0, 5).getContenido().get(4).getId();
+        assertNull(tipoIncidenteService.findPaginaSerializada(ultimoId, 2));
+    }
+
+    @Test
+    void lecturasRepetidasNoConsultanNiSerializan() {
+        int id = tipoIncidenteService.save(new TipoIncidente(0, "Incendio")).getId();
+        byte[] pagina = tipoIncidenteService.findPaginaSerializada(0, 50);
+        byte[] porId = tipoIncidenteService.findByIDSerializado(id);
+
+        estadisticas.clear();
+        for (int i = 0; i < 100; i++) {
+            assertSame(pagina, tipoIncidenteService.findPaginaSerializada(0, 50));
+            assertSame(porId, tipoIncidenteService.findByIDSerializado(id));
+        }
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void soloSeGuardanLasPaginasCanonicas() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            tipoIncidenteService.save(new TipoIncidente(0, "Tipo " + i));
+        }
+        int primerId = tipoIncidenteService.findPagina(0, 5).getContenido().get(0).getId();
+        int siguiente = tipoIncidenteService.findPagina(0, 2).getSiguiente();
+
+        // Las páginas obtenidas al recorrer el catálogo desde el inicio se guardan
+        byte[] segunda = tipoIncidenteService.findPaginaSerializada(siguiente, 2);
+        assertSame(segunda, tipoIncidenteService.findPaginaSerializada(siguiente, 2));
+
+        // Un cursor fuera de esas páginas se responde igual, pero sin guardarlo
+        byte[] desplazada = tipoIncidenteService.findPaginaSerializada(primerId, 2);
+        assertArrayEquals(objectMapper.writeValueAsBytes(tipoIncidenteService.findPagina(primerId, 2)), desplazada);
+        assertNotSame(desplazada, tipoIncidenteService.findPaginaSerializada(primerId, 2));
+    }
+
+    @Test
+    void modificarElCatalogoReconstruyeLasRespuestas() throws Exception {
+        int id = estadoIncidenteService.save(new EstadoIncidente(0, "Abierto")).getId();
+        assertEquals("Abierto", objectMapper.readTree(estadoIncidenteService.findByIDSerializado(id)).get("nombre").asText());
+
+        estadoIncidenteService.update(new EstadoIncidente(0, "Cerrado"), id);
+        assertEquals("Cerrado", objectMapper.readTree(estadoIncidenteService.findByIDSerializado(id)).get("nombre").asText());
+        assertEquals("Cerrado", objectMapper.readTree(estadoIncidenteService.findPaginaSerializada(0, 50))
+                .get("contenido").get(0).get("nombre").asText());
+
+        estadoIncidenteService.delete(id);
+        assertThrows(NoSuchElementException.class, () -> estadoIncidenteService.findByIDSerializado(id));
+        assertNull(estadoIncidenteService.findPaginaSerializada(0, 50));
+    }
+
+    @Test
+    void losTiposYEstadosCreadosEnUnLoteAparecenEnElCatalogo() throws Exception {
+        mockMvc.perform(post("/api-incidentes/v1/incidentes/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"titulo\":\"Catálogo 1\",\"tipoIncidente\":{\"nombre\":\"Tipo nuevo lote\"},"
+                                + "\"estadoIncidente\":{\"nombre\":\"Estado nuevo lote\"}},"
+                                + "{\"titulo\":\"Catálogo 2\",\"tipoIncidente\":{\"nombre\":\"Otro tipo lote\"}}]"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api-incidentes/v1/tipos-incidentes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contenido[*].nombre", hasItems("Tipo nuevo lote", "Otro tipo lote")));
+        int idEstado = estadoIncidenteService.buscarPorNombre("Estado nuevo lote").getId();
+        mockMvc.perform(get("/api-incidentes/v1/estados-incidentes/" + idEstado))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nombre").value("Estado nuevo lote"));
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del diario de ingesta: orden, recuperación tras una caída y rotación de segmentos.
+ */
+class DiarioIngestaTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void leeLasEntradasEnOrdenDesdeCualquierSecuencia() throws IOException {
+        try (DiarioIngesta diario = new DiarioIngesta(directorio, 4096, false)) {
+            for (int i = 1; i <= 3; i++) {
+                assertEquals(i, diario.agregar(bytes("incidente " + i)));
+            }
+
+            assertEquals(List.of("incidente 1", "incidente 2"), textos(diario.leer(0, 2)));
+            assertEquals(List.of("incidente 3"), textos(diario.leer(2, 10)));
+            assertEquals(List.of("incidente 2", "incidente 3"), textos(diario.leer(1, 10)));
+            assertTrue(diario.leer(3, 10).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> diario.agregar(new byte[0]));
+            assertThrows(IllegalArgumentException.class, () -> diario.agregar(new byte[4096]));
+        }
+    }
+
+    @Test
+    void alReabrirDescartaLaEntradaIncompletaYContinuaLaSecuencia() throws IOException {
+        String id;
+        try (DiarioIngesta diario = new DiarioIngesta(directorio, 4096, true)) {
+            id = diario.id();
+            diario.agregar(bytes("primero"));
+            diario.agregar(bytes("segundo"));
+        }
+        // Caída a mitad de una escritura: largo y secuencia escritos, datos y CRC no
+        int fin = 2 * DiarioIngesta.CABECERA + "primero".length() + "segundo".length();
+        try (RandomAccessFile archivo = new RandomAccessFile(segmentos().get(0).toFile(), "rw")) {
+            archivo.seek(fin);
+            archivo.writeInt(50);
+            archivo.writeLong(3);
+        }
+
+        try (DiarioIngesta diario = new DiarioIngesta(directorio, 4096, true)) {
+            assertEquals(id, diario.id());
+            assertEquals(2, diario.ultima());
+            assertEquals(3, diario.agregar(bytes("tercero")));
+            assertEquals(List.of("primero", "segundo", "tercero"), textos(diario.leer(0, 10)));
+        }
+    }
+
+    @Test
+    void rotaSegmentosYEliminaLosYaAplicados() throws IOException {
+        // Cabe una sola entrada por segmento
+        int tamanio = DiarioIngesta.CABECERA + 20;
+        try (DiarioIngesta diario = new DiarioIngesta(directorio, tamanio, false)) {
+            for (int i = 1; i <= 5; i++) {
+                diario.agregar(bytes("entrada " + i));
+            }
+            assertEquals(5, diario.cantidadSegmentos());
+            assertEquals(5, diario.leer(0, 10).size());
+
+            diario.liberarHasta(3);
+            assertEquals(2, diario.cantidadSegmentos());
+            assertEquals(List.of("entrada 4", "entrada 5"), textos(diario.leer(3, 10)));
+
+            // El último segmento se conserva aunque esté aplicado, para seguir la secuencia
+            diario.liberarHasta(5);
+            assertEquals(1, diario.cantidadSegmentos());
+        }
+
+        try (DiarioIngesta diario = new DiarioIngesta(directorio, tamanio, false)) {
+            assertEquals(5, diario.ultima());
+            assertEquals(6, diario.agregar(bytes("entrada 6")));
+            assertEquals(List.of("entrada 6"), textos(diario.leer(5, 10)));
+        }
+    }
+
+    private List<Path> segmentos() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.filter(ruta -> ruta.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private static byte[] bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> textos(List<DiarioIngesta.Entrada> entradas) {
+        return entradas.stream().map(entrada -> new String(entrada.datos(), StandardCharsets.UTF_8)).toList();
+    }
+
+}
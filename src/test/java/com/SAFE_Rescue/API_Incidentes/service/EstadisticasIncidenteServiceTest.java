@@ -0,0 +1,163 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.EstadisticasIncidentes;
+import com.SAFE_Rescue.API_Incidentes.modelo.*;
+import com.SAFE_Rescue.API_Incidentes.repository.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que las estadísticas en memoria sigan las escrituras de {@link IncidenteService} y que
+ * la conciliación corrija los cambios hechos fuera del servicio.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class EstadisticasIncidenteServiceTest {
+
+    private static final String COMUNA = "Comuna Estadísticas";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private EstadisticasIncidenteService estadisticasIncidenteService;
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private UbicacionService ubicacionService;
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private UbicacionRepository ubicacionRepository;
+    @Autowired private TipoIncidenteRepository tipoIncidenteRepository;
+    @Autowired private EstadoIncidenteRepository estadoIncidenteRepository;
+    @Autowired private EquipoRepository equipoRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private EstadoIncidente abierto;
+    private EstadoIncidente cerrado;
+    private TipoIncidente tipo;
+    private Equipo equipo;
+    private Ubicacion ubicacion;
+
+    @BeforeEach
+    void crearRelaciones() {
+        abierto = estadoIncidenteRepository.save(new EstadoIncidente(0, "Abierto estadísticas"));
+        cerrado = estadoIncidenteRepository.save(new EstadoIncidente(0, "Cerrado estadísticas"));
+        tipo = tipoIncidenteRepository.save(new TipoIncidente(0, "Tipo estadísticas"));
+        equipo = equipoRepository.save(new Equipo(0, "Equipo estadísticas", true, "Líder"));
+        ubicacion = ubicacionRepository.save(new Ubicacion(0, "Calle Estadísticas", 1, COMUNA, "Metropolitana", null, null));
+    }
+
+    @AfterEach
+    void limpiar() {
+        incidenteRepository.findAll().stream()
+                .filter(incidente -> incidente.getTitulo().startsWith("Estadísticas"))
+                .forEach(incidente -> incidenteService.delete(incidente.getId()));
+        ubicacionRepository.delete(ubicacion);
+        equipoRepository.delete(equipo);
+        tipoIncidenteRepository.delete(tipo);
+        estadoIncidenteRepository.delete(abierto);
+        estadoIncidenteRepository.delete(cerrado);
+    }
+
+    @Test
+    void losContadoresSiguenLasEscriturasDelServicio() throws Exception {
+        long totalInicial = estadisticasIncidenteService.estadisticas().getTotal();
+
+        // Relaciones indicadas sólo por ID, como en una solicitud
+        Incidente incidente = new Incidente();
+        incidente.setTitulo("Estadísticas 1");
+        incidente.setEstadoIncidente(new EstadoIncidente(abierto.getId(), null));
+        incidente.setTipoIncidente(new TipoIncidente(tipo.getId(), null));
+        incidente.setUbicacion(new Ubicacion(ubicacion.getId(), null, 0, null, null, null, null));
+        int id = incidenteService.save(incidente).getId();
+
+        EstadisticasIncidentes estadisticas = estadisticasIncidenteService.estadisticas();
+        assertEquals(totalInicial + 1, estadisticas.getTotal());
+        assertEquals(1, estadisticas.getPorEstadoIncidente().get(abierto.getId()));
+        assertEquals(1, estadisticas.getPorTipoIncidente().get(tipo.getId()));
+        assertEquals(1, estadisticas.getPorComuna().get(COMUNA));
+
+        incidenteService.asignarEstadoIncidente(id, cerrado.getId(), null);
+        incidenteService.asignarEquipo(id, equipo.getId(), null);
+        estadisticas = estadisticasIncidenteService.estadisticas();
+        assertEquals(0, estadisticas.getPorEstadoIncidente().getOrDefault(abierto.getId(), 0L));
+        assertEquals(1, estadisticas.getPorEstadoIncidente().get(cerrado.getId()));
+        assertEquals(1, estadisticas.getPorEquipo().get(equipo.getId()));
+
+        mockMvc.perform(get("/api-incidentes/v1/incidentes/estadisticas"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.porComuna['" + COMUNA + "']").value(1))
+                .andExpect(jsonPath("$.porEquipo['" + equipo.getId() + "']").value(1));
+
+        incidenteService.delete(id);
+        estadisticas = estadisticasIncidenteService.estadisticas();
+        assertEquals(totalInicial, estadisticas.getTotal());
+        assertEquals(0, estadisticas.getPorComuna().getOrDefault(COMUNA, 0L));
+        assertEquals(0, estadisticas.getPorEstadoIncidente().getOrDefault(cerrado.getId(), 0L));
+    }
+
+    @Test
+    void unaUbicacionFueraDeLaCacheSeCuentaPorSuComuna() {
+        // Ni vista antes ni en la caché de segundo nivel: se consulta su comuna
+        entityManagerFactory.getCache().evict(Ubicacion.class, ubicacion.getId());
+
+        Incidente incidente = new Incidente();
+        incidente.setTitulo("Estadísticas sin caché");
+        incidente.setUbicacion(new Ubicacion(ubicacion.getId(), null, 0, null, null, null, null));
+        incidenteService.save(incidente);
+
+        assertEquals(1, estadisticasIncidenteService.estadisticas().getPorComuna().get(COMUNA));
+    }
+
+    @Test
+    void laConciliacionCorrigeLasDiferenciasQueSeRepiten() {
+        // Escrito sin pasar por el servicio: los contadores no lo ven
+        Incidente incidente = new Incidente();
+        incidente.setTitulo("Estadísticas fuera del servicio");
+        incidente.setTipoIncidente(tipo);
+        incidente.setUbicacion(ubicacion);
+        incidenteRepository.save(incidente);
+        assertEquals(0, estadisticasIncidenteService.estadisticas().getPorTipoIncidente().getOrDefault(tipo.getId(), 0L));
+
+        // La primera pasada sólo observa la diferencia; la segunda la confirma y la corrige
+        estadisticasIncidenteService.conciliar();
+        assertEquals(0, estadisticasIncidenteService.estadisticas().getPorTipoIncidente().getOrDefault(tipo.getId(), 0L));
+        estadisticasIncidenteService.conciliar();
+        EstadisticasIncidentes estadisticas = estadisticasIncidenteService.estadisticas();
+        assertEquals(1, estadisticas.getPorTipoIncidente().get(tipo.getId()));
+        assertEquals(1, estadisticas.getPorComuna().get(COMUNA));
+    }
+
+    @Test
+    void cambiarLaComunaDeUnaUbicacionMueveSusIncidentes() {
+        for (int i = 0; i < 2; i++) {
+            Incidente incidente = new Incidente();
+            incidente.setTitulo("Estadísticas comuna " + i);
+            incidente.setUbicacion(new Ubicacion(ubicacion.getId(), null, 0, null, null, null, null));
+            incidenteService.save(incidente);
+        }
+        assertEquals(2, estadisticasIncidenteService.estadisticas().getPorComuna().get(COMUNA));
+
+        Ubicacion cambios = new Ubicacion();
+        cambios.setComuna(COMUNA + " Norte");
+        ubicacionService.update(cambios, ubicacion.getId());
+
+        EstadisticasIncidentes estadisticas = estadisticasIncidenteService.estadisticas();
+        assertEquals(0, estadisticas.getPorComuna().getOrDefault(COMUNA, 0L));
+        assertEquals(2, estadisticas.getPorComuna().get(COMUNA + " Norte"));
+
+        // Un incidente nuevo en la ubicación usa la comuna actual
+        Incidente otro = new Incidente();
+        otro.setTitulo("Estadísticas comuna 3");
+        otro.setUbicacion(new Ubicacion(ubicacion.getId(), null, 0, null, null, null, null));
+        incidenteService.save(otro);
+        assertEquals(3, estadisticasIncidenteService.estadisticas().getPorComuna().get(COMUNA + " Norte"));
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.FormatoExportacion;
+import com.SAFE_Rescue.API_Incidentes.modelo.*;
+import com.SAFE_Rescue.API_Incidentes.repository.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica el formato de las exportaciones NDJSON y CSV, incluido el escape de campos CSV y la
+ * lectura por bloques de más incidentes que {@link IncidenteRepository#TAMANIO_BLOQUE_LECTURA}.
+ */
+@SpringBootTest
+class ExportacionIncidenteServiceTest {
+
+    private static final String PREFIJO = "Exportación ";
+
+    @Autowired private ExportacionIncidenteService exportacionIncidenteService;
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private UbicacionRepository ubicacionRepository;
+    @Autowired private TipoIncidenteRepository tipoIncidenteRepository;
+    @Autowired private EstadoIncidenteRepository estadoIncidenteRepository;
+    @Autowired private EquipoRepository equipoRepository;
+    @Autowired private ObjectMapper objectMapper;
+
+    private EstadoIncidente estado;
+    private TipoIncidente tipo;
+    private Equipo equipo;
+    private Ubicacion ubicacion;
+
+    @BeforeEach
+    void crearRelaciones() {
+        estado = estadoIncidenteRepository.save(new EstadoIncidente(0, "Estado exportación"));
+        tipo = tipoIncidenteRepository.save(new TipoIncidente(0, "Tipo, exportación"));
+        equipo = equipoRepository.save(new Equipo(0, "Equipo exportación", true, "Líder"));
+        ubicacion = ubicacionRepository.save(new Ubicacion(0, "Calle Exportación", 12, "Comuna Exportación", "Metropolitana", null, null));
+    }
+
+    @AfterEach
+    void limpiar() {
+        incidenteRepository.findAll().stream()
+                .filter(incidente -> incidente.getTitulo().startsWith(PREFIJO))
+                .forEach(incidente -> incidenteService.delete(incidente.getId()));
+        ubicacionRepository.delete(ubicacion);
+        equipoRepository.delete(equipo);
+        tipoIncidenteRepository.delete(tipo);
+        estadoIncidenteRepository.delete(estado);
+    }
+
+    @Test
+    void ndjsonEscribeUnIncidentePorLinea() throws Exception {
+        int id = guardar(PREFIJO + "ndjson", "Detalle\ncon salto").getId();
+
+        List<String> lineas = exportar(FormatoExportacion.NDJSON);
+        JsonNode nodo = null;
+        for (String linea : lineas) {
+            JsonNode leido = objectMapper.readTree(linea);
+            if (leido.get("id").asInt() == id) {
+                nodo = leido;
+            }
+        }
+
+        assertTrue(nodo != null, "El incidente no aparece en la exportación");
+        assertEquals(PREFIJO + "ndjson", nodo.get("titulo").asText());
+        assertEquals("Detalle\ncon salto", nodo.get("detalle").asText());
+        assertEquals(tipo.getId(), nodo.get("tipoIncidente").get("id").asLong());
+        assertEquals(ubicacion.getId(), nodo.get("ubicacion").get("id").asInt());
+        assertEquals(equipo.getNombre(), nodo.get("equipo").get("nombre").asText());
+    }
+
+    @Test
+    void csvTieneEncabezadoYUnaColumnaPorCampo() throws Exception {
+        int id = guardar(PREFIJO + "csv", "Detalle simple").getId();
+
+        String csv = exportarTexto(FormatoExportacion.CSV);
+        String[] lineas = csv.split("\n");
+        assertEquals("id,titulo,detalle,tipo_incidente_id,tipo_incidente,estado_incidente_id,estado_incidente,"
+                + "ubicacion_id,calle,numeracion,comuna,region,ciudadano_id,equipo_id,equipo", lineas[0]);
+
+        String esperada = id + "," + PREFIJO + "csv,Detalle simple," + tipo.getId() + ",\"Tipo, exportación\","
+                + estado.getId() + ",Estado exportación," + ubicacion.getId() + ",Calle Exportación,12,"
+                + "Comuna Exportación,Metropolitana,," + equipo.getId() + ",Equipo exportación";
+        assertTrue(List.of(lineas).contains(esperada), "No se encontró la fila: " + esperada);
+    }
+
+    @Test
+    void csvEscapaComasComillasSaltosYFormulas() throws Exception {
+        int conComillas = guardar(PREFIJO + "dijo \"hola\", adiós", "línea 1\nlínea 2").getId();
+        int conFormula = guardar(PREFIJO + "fórmula", "=HYPERLINK(\"http://x\")").getId();
+        int conSigno = guardar(PREFIJO + "signo", "-2+3").getId();
+
+        String csv = exportarTexto(FormatoExportacion.CSV);
+
+        assertTrue(csv.contains("\n" + conComillas + ",\"" + PREFIJO + "dijo \"\"hola\"\", adiós\",\"línea 1\nlínea 2\","),
+                "Comas, comillas y saltos de línea deben ir entre comillas");
+        assertTrue(csv.contains("\n" + conFormula + "," + PREFIJO + "fórmula,\"'=HYPERLINK(\"\"http://x\"\")\","),
+                "Una fórmula debe quedar precedida de ' y entre comillas");
+        assertTrue(csv.contains("\n" + conSigno + "," + PREFIJO + "signo,\"'-2+3\","),
+                "Un valor que empieza con signo debe quedar precedido de '");
+    }
+
+    @Test
+    void laExportacionRecorreVariosBloques() throws Exception {
+        int cantidad = IncidenteRepository.TAMANIO_BLOQUE_LECTURA * 2 + 1;
+        List<Incidente> lote = new ArrayList<>();
+        IntStream.range(0, cantidad).forEach(i -> lote.add(nuevo(PREFIJO + "bloque " + i, null)));
+        incidenteService.saveAll(lote);
+
+        List<String> lineas = exportar(FormatoExportacion.NDJSON);
+        long exportados = 0;
+        for (String linea : lineas) {
+            JsonNode nodo = objectMapper.readTree(linea);
+            if (nodo.get("titulo").asText().startsWith(PREFIJO + "bloque ")) {
+                exportados++;
+                // Las relaciones siguen cargadas después de liberar el contexto de persistencia
+                assertEquals(equipo.getNombre(), nodo.get("equipo").get("nombre").asText());
+            }
+        }
+        assertEquals(cantidad, exportados);
+
+        String csv = exportarTexto(FormatoExportacion.CSV);
+        long filas = csv.lines().filter(linea -> linea.contains("," + PREFIJO + "bloque ")).count();
+        assertEquals(cantidad, filas);
+    }
+
+    // MÉTODOS AUXILIARES
+
+    private Incidente guardar(String titulo, String detalle) {
+        return incidenteService.save(nuevo(titulo, detalle));
+    }
+
+    private Incidente nuevo(String titulo, String detalle) {
+        Incidente incidente = new Incidente();
+        incidente.setTitulo(titulo);
+        incidente.setDetalle(detalle);
+        incidente.setEstadoIncidente(new EstadoIncidente(estado.getId(), null));
+        incidente.setTipoIncidente(new TipoIncidente(tipo.getId(), null));
+        incidente.setUbicacion(new Ubicacion(ubicacion.getId(), null, 0, null, null, null, null));
+        incidente.setEquipo(new Equipo(equipo.getId(), null, false, null));
+        return incidente;
+    }
+
+    private List<String> exportar(FormatoExportacion formato) throws Exception {
+        return exportarTexto(formato).lines().toList();
+    }
+
+    private String exportarTexto(FormatoExportacion formato) throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        exportacionIncidenteService.exportar(formato, salida);
+        return salida.toString(StandardCharsets.UTF_8);
+    }
+
+}
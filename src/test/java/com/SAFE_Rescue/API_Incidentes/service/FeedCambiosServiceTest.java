@@ -0,0 +1,146 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica el canal SSE de cambios de punta a punta, con un servidor real y un buffer pequeño.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "incidentes.feed.capacidad=4")
+class FeedCambiosServiceTest {
+
+    private static final Duration ESPERA = Duration.ofSeconds(10);
+
+    @LocalServerPort private int puerto;
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private FeedCambiosService feedCambiosService;
+
+    private final HttpClient cliente = HttpClient.newHttpClient();
+    private final List<Integer> creados = new ArrayList<>();
+    private final List<Stream<String>> conexiones = new ArrayList<>();
+
+    @AfterEach
+    void limpiar() {
+        conexiones.forEach(Stream::close);
+        creados.forEach(id -> incidenteService.delete(id));
+    }
+
+    @Test
+    void recibeLosCambiosYLosRecuperaAlReconectarse() {
+        Iterator<String> lineas = conectar(null);
+        int id = crear("Choque múltiple");
+        Evento creado = siguienteEvento(lineas);
+        assertEquals("creado", creado.nombre);
+        assertTrue(creado.datos.contains("\"id\":" + id), creado.datos);
+
+        // Cambios ocurridos mientras el cliente estaba desconectado
+        Incidente cambios = new Incidente();
+        cambios.setTitulo("Choque múltiple en ruta 68");
+        incidenteService.update(cambios, id);
+
+        Iterator<String> reconexion = conectar(creado.id);
+        Evento actualizado = siguienteEvento(reconexion);
+        assertEquals("actualizado", actualizado.nombre);
+        assertTrue(actualizado.datos.contains("ruta 68"), actualizado.datos);
+    }
+
+    @Test
+    void idPerdidoOAjenoProvocaReinicio() {
+        Iterator<String> lineas = conectar(null);
+        crear("Primer evento");
+        Evento primero = siguienteEvento(lineas);
+
+        // Más eventos que la capacidad del buffer: el primero se sobrescribe
+        for (int i = 0; i < 5; i++) {
+            crear("Evento " + i);
+        }
+        assertEquals(FeedCambiosService.EVENTO_REINICIO, siguienteEvento(conectar(primero.id)).nombre);
+        assertEquals(FeedCambiosService.EVENTO_REINICIO, siguienteEvento(conectar("otra-ejecucion-1")).nombre);
+    }
+
+    @Test
+    void desconectarQuitaAlSuscriptor() throws InterruptedException {
+        int antes = feedCambiosService.cantidadSuscriptores();
+        conectar(null);
+        assertEquals(antes + 1, feedCambiosService.cantidadSuscriptores());
+
+        conexiones.remove(conexiones.size() - 1).close();
+        long limite = System.nanoTime() + ESPERA.toNanos();
+        // El servidor se entera del cierre al intentar enviar el siguiente evento
+        while (feedCambiosService.cantidadSuscriptores() > antes && System.nanoTime() < limite) {
+            crear("Sondeo de conexión");
+            Thread.sleep(100);
+        }
+        assertEquals(antes, feedCambiosService.cantidadSuscriptores());
+    }
+
+    private Iterator<String> conectar(String ultimoId) {
+        HttpRequest.Builder solicitud = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + "/api-incidentes/v1/incidentes/eventos"))
+                .header("Accept", "text/event-stream");
+        if (ultimoId != null) {
+            solicitud.header("Last-Event-ID", ultimoId);
+        }
+        HttpResponse<Stream<String>> respuesta = assertTimeoutPreemptively(ESPERA,
+                () -> cliente.send(solicitud.build(), HttpResponse.BodyHandlers.ofLines()));
+        assertEquals(200, respuesta.statusCode());
+        conexiones.add(respuesta.body());
+        return respuesta.body().iterator();
+    }
+
+    /**
+     * Lee líneas hasta completar el siguiente evento con nombre, ignorando latidos.
+     */
+    private static Evento siguienteEvento(Iterator<String> lineas) {
+        return assertTimeoutPreemptively(ESPERA, () -> {
+            Evento evento = new Evento();
+            while (lineas.hasNext()) {
+                String linea = lineas.next();
+                if (linea.isEmpty()) {
+                    if (evento.nombre != null) {
+                        return evento;
+                    }
+                    evento = new Evento();
+                } else if (linea.startsWith("id:")) {
+                    evento.id = linea.substring(3);
+                } else if (linea.startsWith("event:")) {
+                    evento.nombre = linea.substring(6);
+                } else if (linea.startsWith("data:")) {
+                    evento.datos = linea.substring(5);
+                }
+            }
+            throw new AssertionError("La conexión se cerró antes de recibir un evento");
+        });
+    }
+
+    private int crear(String titulo) {
+        Incidente incidente = new Incidente();
+        incidente.setTitulo(titulo);
+        int id = incidenteService.save(incidente).getId();
+        creados.add(id);
+        return id;
+    }
+
+    private static class Evento {
+        String id;
+        String nombre;
+        String datos = "";
+    }
+
+}
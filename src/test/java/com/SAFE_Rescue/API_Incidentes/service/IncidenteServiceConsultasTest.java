@@ -0,0 +1,159 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.FiltroIncidente;
+import com.SAFE_Rescue.API_Incidentes.dto.PaginaCursor;
+import com.SAFE_Rescue.API_Incidentes.modelo.*;
+import com.SAFE_Rescue.API_Incidentes.repository.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que las lecturas de incidentes usen una cantidad constante de sentencias SQL,
+ * sin importar cuántos incidentes (y relaciones distintas) se devuelvan.
+ */
+@SpringBootTest
+class IncidenteServiceConsultasTest {
+
+    private static final int CANTIDAD_INCIDENTES = 30;
+
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private UbicacionRepository ubicacionRepository;
+    @Autowired private CiudadanoRepository ciudadanoRepository;
+    @Autowired private TipoIncidenteRepository tipoIncidenteRepository;
+    @Autowired private EstadoIncidenteRepository estadoIncidenteRepository;
+    @Autowired private EquipoRepository equipoRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private Statistics estadisticas;
+    private int primerId;
+    private int primerEstadoId;
+
+    @BeforeEach
+    void crearIncidentes() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (int i = 1; i <= CANTIDAD_INCIDENTES; i++) {
+            // Cada incidente tiene relaciones distintas para forzar el peor caso de N+1
+            TipoIncidente tipo = tipoIncidenteRepository.save(new TipoIncidente(0, "Tipo " + i));
+            EstadoIncidente estado = estadoIncidenteRepository.save(new EstadoIncidente(0, "Estado " + i));
+            Equipo equipo = equipoRepository.save(new Equipo(0, "Equipo " + i, true, "Lider " + i));
+            String comuna = i % 3 == 0 ? "Maipú" : "Santiago";
+            Ubicacion ubicacion = ubicacionRepository.save(new Ubicacion(0, "Calle " + i, i, comuna, "Metropolitana", null, null));
+            Ciudadano ciudadano = ciudadanoRepository.save(
+                    new Ciudadano(0, 10_000_000L + i, "K", "Nombre", "Paterno", "Materno", 900_000_000L + i));
+
+            Incidente incidente = new Incidente();
+            incidente.setTitulo("Incidente " + i);
+            incidente.setDetalle("Detalle " + i);
+            incidente.setTipoIncidente(tipo);
+            incidente.setEstadoIncidente(estado);
+            incidente.setEquipo(equipo);
+            incidente.setUbicacion(ubicacion);
+            incidente.setCiudadano(ciudadano);
+            Incidente guardado = incidenteRepository.save(incidente);
+            if (i == 1) {
+                primerId = guardado.getId();
+                primerEstadoId = estado.getId();
+            }
+        }
+    }
+
+    @AfterEach
+    void limpiar() {
+        incidenteRepository.deleteAll();
+        ciudadanoRepository.deleteAll();
+        ubicacionRepository.deleteAll();
+        equipoRepository.deleteAll();
+        estadoIncidenteRepository.deleteAll();
+        tipoIncidenteRepository.deleteAll();
+    }
+
+    @Test
+    void findAllUsaUnaSolaSentencia() {
+        estadisticas.clear();
+
+        List<Incidente> incidentes = incidenteService.findAll();
+
+        assertEquals(CANTIDAD_INCIDENTES, incidentes.size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void paginaUsaUnaSolaSentenciaSinImportarSuTamanio() {
+        estadisticas.clear();
+        PaginaCursor<Incidente> chica = incidenteService.findPagina(0, 5);
+        assertEquals(5, chica.getContenido().size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+
+        estadisticas.clear();
+        PaginaCursor<Incidente> grande = incidenteService.findPagina(0, CANTIDAD_INCIDENTES);
+        assertEquals(CANTIDAD_INCIDENTES, grande.getContenido().size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByIdUsaUnaSolaSentencia() {
+        estadisticas.clear();
+
+        Incidente incidente = incidenteService.findByID(primerId);
+
+        assertEquals("Incidente 1", incidente.getTitulo());
+        assertEquals("Equipo 1", incidente.getEquipo().getNombre());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void buscarPorEstadoUsaUnaSolaSentencia() {
+        estadisticas.clear();
+
+        PaginaCursor<Incidente> pagina = incidenteService.buscar(
+                new FiltroIncidente(primerEstadoId, null, null, null, null), 0, 10);
+
+        assertEquals(1, pagina.getContenido().size());
+        assertEquals(primerId, pagina.getContenido().get(0).getId());
+        assertEquals("Equipo 1", pagina.getContenido().get(0).getEquipo().getNombre());
+        assertNull(pagina.getSiguiente());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void buscarPorComunaYRegionRecorrePaginasConCursor() {
+        FiltroIncidente filtro = new FiltroIncidente(null, null, null, "Maipú", "Metropolitana");
+
+        estadisticas.clear();
+        PaginaCursor<Incidente> primera = incidenteService.buscar(filtro, 0, 6);
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(6, primera.getContenido().size());
+
+        PaginaCursor<Incidente> segunda = incidenteService.buscar(filtro, primera.getSiguiente(), 6);
+        assertEquals(CANTIDAD_INCIDENTES / 3 - 6, segunda.getContenido().size());
+        assertNull(segunda.getSiguiente());
+        assertTrue(segunda.getContenido().get(0).getId() > primera.getSiguiente());
+        segunda.getContenido().forEach(incidente -> assertEquals("Maipú", incidente.getUbicacion().getComuna()));
+    }
+
+    @Test
+    void buscarPorEstadoRecorreElIndiceCompuesto() {
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT id FROM incidente WHERE estado_incidente_id = ? AND id > ? ORDER BY id",
+                String.class, primerEstadoId, 0));
+
+        assertTrue(plan.toUpperCase().contains("IDX_INCIDENTE_ESTADO"), plan);
+    }
+
+}
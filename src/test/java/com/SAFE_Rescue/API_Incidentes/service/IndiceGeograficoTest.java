@@ -0,0 +1,121 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del índice geográfico en memoria, comparando contra una búsqueda exhaustiva.
+ */
+class IndiceGeograficoTest {
+
+    private static final double CELDA = 0.01;
+
+    @Test
+    void distanciaEntreSantiagoYValparaiso() {
+        double distancia = IndiceGeografico.distancia(-33.4378, -70.6505, Math.cos(Math.toRadians(-33.4378)), -33.0472, -71.6127);
+        assertEquals(98_500, distancia, 1_500);
+    }
+
+    @Test
+    void cercanosCoincideConBusquedaExhaustiva() {
+        Random azar = new Random(7);
+        double[][] puntos = puntosAlAzar(azar, 5_000);
+        IndiceGeografico indice = indiceCon(puntos);
+
+        for (int consulta = 0; consulta < 50; consulta++) {
+            double latitud = -34 + azar.nextDouble();
+            double longitud = -71 + azar.nextDouble();
+            List<Integer> esperados = exhaustiva(puntos, latitud, longitud).limit(10).boxed().toList();
+
+            List<Integer> obtenidos = indice.cercanos(latitud, longitud, 10).stream().map(IndiceGeografico.Cercano::getId).toList();
+            assertEquals(esperados, obtenidos);
+        }
+    }
+
+    @Test
+    void cercanosConPocosPuntosLejanosLosEncuentraTodos() {
+        IndiceGeografico indice = new IndiceGeografico(CELDA);
+        indice.ubicar(1, -18.4783, -70.3126); // Arica
+        indice.ubicar(2, -53.1638, -70.9171); // Punta Arenas
+
+        List<IndiceGeografico.Cercano> cercanos = indice.cercanos(-33.4378, -70.6505, 5);
+        assertEquals(List.of(1, 2), cercanos.stream().map(IndiceGeografico.Cercano::getId).toList());
+        assertTrue(cercanos.get(0).getDistanciaMetros() < cercanos.get(1).getDistanciaMetros());
+    }
+
+    @Test
+    void enRadioDevuelveSoloLosPuntosDentroDelRadio() {
+        Random azar = new Random(11);
+        double[][] puntos = puntosAlAzar(azar, 5_000);
+        IndiceGeografico indice = indiceCon(puntos);
+        double latitud = -33.5;
+        double longitud = -70.5;
+        double coseno = Math.cos(Math.toRadians(latitud));
+
+        List<Integer> esperados = exhaustiva(puntos, latitud, longitud)
+                .filter(i -> IndiceGeografico.distancia(latitud, longitud, coseno, puntos[i - 1][0], puntos[i - 1][1]) <= 5_000)
+                .boxed().toList();
+        assertFalse(esperados.isEmpty());
+
+        List<IndiceGeografico.Cercano> obtenidos = indice.enRadio(latitud, longitud, 5_000, esperados.size() + 10);
+        assertEquals(esperados, obtenidos.stream().map(IndiceGeografico.Cercano::getId).toList());
+        assertEquals(3, indice.enRadio(latitud, longitud, 5_000, 3).size());
+    }
+
+    @Test
+    void moverYQuitarActualizanLasBusquedas() {
+        IndiceGeografico indice = new IndiceGeografico(CELDA);
+        indice.ubicar(1, -33.4378, -70.6505);
+        indice.ubicar(2, -33.4380, -70.6510);
+        indice.ubicar(3, -33.4390, -70.6520);
+
+        indice.ubicar(1, -33.0472, -71.6127);
+        assertEquals(List.of(2, 3), indice.enRadio(-33.4378, -70.6505, 1_000, 10).stream()
+                .map(IndiceGeografico.Cercano::getId).toList());
+
+        indice.quitar(2);
+        assertEquals(3, indice.cercanos(-33.4378, -70.6505, 1).get(0).getId());
+        assertEquals(2, indice.cantidad());
+        assertFalse(indice.contiene(2));
+
+        indice.quitar(3);
+        indice.quitar(1);
+        assertEquals(0, indice.cantidadCeldas());
+        assertTrue(indice.cercanos(-33.4378, -70.6505, 1).isEmpty());
+    }
+
+    private static double[][] puntosAlAzar(Random azar, int cantidad) {
+        double[][] puntos = new double[cantidad][];
+        for (int i = 0; i < cantidad; i++) {
+            puntos[i] = new double[]{-34 + azar.nextDouble(), -71 + azar.nextDouble()};
+        }
+        return puntos;
+    }
+
+    private static IndiceGeografico indiceCon(double[][] puntos) {
+        IndiceGeografico indice = new IndiceGeografico(CELDA);
+        for (int i = 0; i < puntos.length; i++) {
+            indice.ubicar(i + 1, puntos[i][0], puntos[i][1]);
+        }
+        return indice;
+    }
+
+    /**
+     * IDs de todos los puntos ordenados por distancia, calculada uno por uno.
+     */
+    private static IntStream exhaustiva(double[][] puntos, double latitud, double longitud) {
+        double coseno = Math.cos(Math.toRadians(latitud));
+        return IntStream.rangeClosed(1, puntos.length).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) ->
+                        IndiceGeografico.distancia(latitud, longitud, coseno, puntos[i - 1][0], puntos[i - 1][1]))
+                        .thenComparingInt(i -> i))
+                .mapToInt(Integer::intValue);
+    }
+
+}
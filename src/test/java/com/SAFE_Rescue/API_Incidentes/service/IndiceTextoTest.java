@@ -0,0 +1,89 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del índice invertido en memoria, sin base de datos.
+ */
+class IndiceTextoTest {
+
+    private static final long SIN_LIMITE = Long.MAX_VALUE;
+
+    @Test
+    void tokenizarPliegaTildesYQuitaPalabrasVacias() {
+        assertEquals(List.of("incendio", "estructural", "nunoa", "noche"),
+                IndiceTexto.tokenizar("Incendio ESTRUCTURAL en Ñuñoa, de noche"));
+    }
+
+    @Test
+    void buscaSinDistinguirTildesNiMayusculas() {
+        IndiceTexto indice = new IndiceTexto(SIN_LIMITE);
+        indice.indexar(1, "Incendio estructural", "Vivienda de dos pisos en Ñuñoa");
+
+        assertEquals(1, indice.buscar("INCENDIO Estructúral", 10).get(0).getId());
+        assertEquals(1, indice.buscar("nunoa", 10).get(0).getId());
+    }
+
+    @Test
+    void exigeTodasLasPalabrasYAceptaPrefijos() {
+        IndiceTexto indice = new IndiceTexto(SIN_LIMITE);
+        indice.indexar(1, "Incendio estructural", null);
+        indice.indexar(2, "Incendio forestal", null);
+
+        List<IndiceTexto.Coincidencia> resultado = indice.buscar("incendio estruct", 10);
+        assertEquals(1, resultado.size());
+        assertEquals(1, resultado.get(0).getId());
+        assertEquals(2, indice.buscar("incen", 10).size());
+        assertTrue(indice.buscar("inundacion", 10).isEmpty());
+    }
+
+    @Test
+    void ordenaPorRelevanciaDandoMasPesoAlTitulo() {
+        IndiceTexto indice = new IndiceTexto(SIN_LIMITE);
+        indice.indexar(1, "Rescate vehicular", "Se reporta derrumbe cercano");
+        indice.indexar(2, "Derrumbe en cerro", "Personas atrapadas");
+        indice.indexar(3, "Choque", "Sin lesionados");
+
+        List<IndiceTexto.Coincidencia> resultado = indice.buscar("derrumbe", 10);
+        assertEquals(List.of(2, 1), resultado.stream().map(IndiceTexto.Coincidencia::getId).toList());
+        assertEquals(1, indice.buscar("derrumbe", 1).size());
+    }
+
+    @Test
+    void reindexarReemplazaYQuitarElimina() {
+        IndiceTexto indice = new IndiceTexto(SIN_LIMITE);
+        indice.indexar(1, "Fuga de gas", null);
+        indice.indexar(1, "Fuga de agua", null);
+
+        assertTrue(indice.buscar("gas", 10).isEmpty());
+        assertEquals(1, indice.buscar("agua", 10).size());
+        assertEquals(1, indice.cantidadDocumentos());
+
+        long bytesConDocumento = indice.bytesEstimados();
+        indice.quitar(1);
+        assertTrue(indice.buscar("agua", 10).isEmpty());
+        assertEquals(0, indice.cantidadDocumentos());
+        assertEquals(0, indice.cantidadTerminos());
+        assertTrue(indice.bytesEstimados() < bytesConDocumento);
+    }
+
+    @Test
+    void rechazaDocumentosQueSuperanElPresupuesto() {
+        IndiceTexto indice = new IndiceTexto(1_000);
+        int indexados = 0;
+        for (int i = 1; i <= 100; i++) {
+            if (indice.indexar(i, "Emergencia número " + i, "Detalle del reporte " + i)) {
+                indexados++;
+            }
+        }
+
+        assertTrue(indexados > 0 && indexados < 100);
+        assertEquals(100 - indexados, indice.documentosRechazados());
+        assertTrue(indice.bytesEstimados() <= 1_000);
+    }
+
+}
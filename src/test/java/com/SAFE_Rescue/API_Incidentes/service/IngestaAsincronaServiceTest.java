@@ -0,0 +1,201 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.EstadoIngesta;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
+import com.SAFE_Rescue.API_Incidentes.repository.IncidenteRepository;
+import com.SAFE_Rescue.API_Incidentes.repository.UbicacionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica la ingesta asíncrona: respuesta inmediata con seguimiento, escritura en segundo plano
+ * y que al reiniciar cada entrada del diario se aplique exactamente una vez.
+ */
+@SpringBootTest(properties = {
+        "incidentes.ingesta.asincrona.habilitada=true",
+        // El drenado se invoca desde las pruebas
+        "incidentes.ingesta.drenado.intervalo=1h"})
+@AutoConfigureMockMvc
+class IngestaAsincronaServiceTest {
+
+    private static final String URL = "/api-incidentes/v1/incidentes";
+
+    /**
+     * Mientras es true, ninguna conexión a la base de datos se puede obtener
+     */
+    private static final AtomicBoolean BASE_DETENIDA = new AtomicBoolean();
+
+    @TestConfiguration
+    static class BaseDeDatosDetenible {
+
+        @Bean
+        static BeanPostProcessor baseDeDatosDetenible() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String nombre) {
+                    if (!(bean instanceof DataSource origen)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(origen) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            if (BASE_DETENIDA.get()) {
+                                throw new SQLTransientConnectionException("Base de datos detenida");
+                            }
+                            return super.getConnection();
+                        }
+                    };
+                }
+            };
+        }
+
+    }
+
+    @DynamicPropertySource
+    static void directorioDiario(DynamicPropertyRegistry propiedades) throws IOException {
+        String directorio = Files.createTempDirectory("diario-ingesta").toString();
+        propiedades.add("incidentes.ingesta.diario.directorio", () -> directorio);
+    }
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private IngestaAsincronaService ingestaAsincronaService;
+    @Autowired private IncidenteRepository incidenteRepository;
+    @Autowired private UbicacionRepository ubicacionRepository;
+
+    @AfterEach
+    void limpiar() {
+        ingestaAsincronaService.drenar();
+        incidenteRepository.deleteAll();
+        ubicacionRepository.deleteAll();
+    }
+
+    @Test
+    void respondeAceptadoYEscribeEnSegundoPlano() throws Exception {
+        String ubicacion = mockMvc.perform(post(URL).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"titulo\":\"Árbol caído sobre la calzada\"}"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        long seguimiento = Long.parseLong(ubicacion.substring(ubicacion.lastIndexOf('/') + 1));
+        assertEquals(0, contar("Árbol caído sobre la calzada"));
+        mockMvc.perform(get(ubicacion)).andExpect(jsonPath("$.estado").value("PENDIENTE"));
+
+        ingestaAsincronaService.drenar();
+
+        assertEquals(1, contar("Árbol caído sobre la calzada"));
+        assertEquals(EstadoIngesta.Estado.PROCESADO, ingestaAsincronaService.estado(seguimiento).getEstado());
+        mockMvc.perform(post(URL).contentType(MediaType.APPLICATION_JSON).content("{\"titulo\":\"" + "x".repeat(51) + "\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(URL + "/ingesta/" + (seguimiento + 100))).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void alReiniciarCadaEntradaSeAplicaUnaSolaVez() {
+        encolar("Reporte antes del reinicio", 3);
+        ingestaAsincronaService.drenar();
+        assertEquals(3, contar("Reporte antes del reinicio"));
+
+        // Entradas recibidas pero no escritas cuando la aplicación se detiene
+        encolar("Reporte pendiente", 2);
+        ingestaAsincronaService.cerrar();
+        ingestaAsincronaService.abrir();
+        assertEquals(2, ingestaAsincronaService.pendientes());
+
+        ingestaAsincronaService.drenar();
+        ingestaAsincronaService.cerrar();
+        ingestaAsincronaService.abrir();
+        ingestaAsincronaService.drenar();
+
+        assertEquals(0, ingestaAsincronaService.pendientes());
+        assertEquals(3, contar("Reporte antes del reinicio"));
+        assertEquals(2, contar("Reporte pendiente"));
+    }
+
+    @Test
+    void unaEntradaQueViolaUnaRestriccionNoDetieneLaIngesta() {
+        // La numeración de la ubicación es única: la segunda no se puede insertar
+        long primera = ingestaAsincronaService.encolar(conUbicacion("Choque en esquina", "Balmaceda"));
+        long segunda = ingestaAsincronaService.encolar(conUbicacion("Choque repetido", "Montt"));
+        encolar("Reporte posterior", 1);
+
+        ingestaAsincronaService.drenar();
+
+        assertEquals(0, ingestaAsincronaService.pendientes());
+        assertEquals(EstadoIngesta.Estado.PROCESADO, ingestaAsincronaService.estado(primera).getEstado());
+        assertEquals(EstadoIngesta.Estado.PROCESADO, ingestaAsincronaService.estado(segunda).getEstado());
+        assertEquals(1, contar("Choque en esquina"));
+        assertEquals(0, contar("Choque repetido"));
+        assertEquals(1, contar("Reporte posterior"));
+    }
+
+    @Test
+    void conLaBaseDeDatosDetenidaLasEntradasEsperanYSeAplicanUnaVez() {
+        BASE_DETENIDA.set(true);
+        try {
+            encolar("Reporte durante la caída", 3);
+            assertFalse(ingestaAsincronaService.drenar());
+            assertFalse(ingestaAsincronaService.drenar());
+            assertEquals(3, ingestaAsincronaService.pendientes());
+        } finally {
+            BASE_DETENIDA.set(false);
+        }
+
+        // La aplicación se reinicia con las entradas aún pendientes
+        ingestaAsincronaService.cerrar();
+        ingestaAsincronaService.abrir();
+        assertTrue(ingestaAsincronaService.drenar());
+        assertTrue(ingestaAsincronaService.drenar());
+
+        assertEquals(0, ingestaAsincronaService.pendientes());
+        assertEquals(3, contar("Reporte durante la caída"));
+    }
+
+    private void encolar(String titulo, int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            Incidente incidente = new Incidente();
+            incidente.setTitulo(titulo);
+            ingestaAsincronaService.encolar(incidente);
+        }
+    }
+
+    private static Incidente conUbicacion(String titulo, String calle) {
+        Incidente incidente = new Incidente();
+        incidente.setTitulo(titulo);
+        incidente.setUbicacion(new Ubicacion(0, calle, 77777, "Puerto Montt", "Los Lagos", null, null));
+        return incidente;
+    }
+
+    private long contar(String titulo) {
+        return incidenteRepository.findAll().stream().filter(incidente -> titulo.equals(incidente.getTitulo())).count();
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.SAFE_Rescue.API_Incidentes.service;
+
+import com.SAFE_Rescue.API_Incidentes.dto.CambiosIncidentes;
+import com.SAFE_Rescue.API_Incidentes.modelo.Incidente;
+import com.SAFE_Rescue.API_Incidentes.modelo.Ubicacion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica la sincronización incremental: sólo se entregan los cambios posteriores al token,
+ * incluidas las eliminaciones y los cambios de ubicación, las escrituras más largas que el límite
+ * no se confirman y las consultas recorren el índice de la columna de cambios.
+ */
+@SpringBootTest(properties = {"incidentes.sync.margen=0s", "incidentes.sync.duracion-maxima-escritura=1s"})
+class SincronizacionServiceTest {
+
+    @Autowired private SincronizacionService sincronizacionService;
+    @Autowired private IncidenteService incidenteService;
+    @Autowired private UbicacionService ubicacionService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final List<Integer> creados = new ArrayList<>();
+
+    @AfterEach
+    void limpiar() {
+        creados.forEach(id -> incidenteService.delete(id));
+    }
+
+    @Test
+    void entregaSoloLosCambiosPosterioresAlToken() {
+        String token = tokenActual();
+        int modificado = crear("Derrumbe");
+        int eliminado = crear("Inundación");
+        Incidente cambios = new Incidente();
+        cambios.setTitulo("Derrumbe en cerro Barón");
+        incidenteService.update(cambios, modificado);
+        incidenteService.delete(eliminado);
+        creados.remove(Integer.valueOf(eliminado));
+
+        CambiosIncidentes lote = sincronizacionService.cambiosDesde(token, 50);
+        assertEquals(List.of(modificado), lote.getCambios().stream().map(Incidente::getId).toList());
+        assertEquals("Derrumbe en cerro Barón", lote.getCambios().get(0).getTitulo());
+        assertEquals(List.of(eliminado), lote.getEliminados());
+        assertFalse(lote.isHayMas());
+
+        CambiosIncidentes siguiente = sincronizacionService.cambiosDesde(lote.getToken(), 50);
+        assertTrue(siguiente.getCambios().isEmpty());
+        assertTrue(siguiente.getEliminados().isEmpty());
+    }
+
+    @Test
+    void divideLosCambiosEnLotes() {
+        String token = tokenActual();
+        List<Integer> esperados = List.of(crear("Lote 1"), crear("Lote 2"), crear("Lote 3"));
+
+        CambiosIncidentes primero = sincronizacionService.cambiosDesde(token, 2);
+        assertTrue(primero.isHayMas());
+        CambiosIncidentes segundo = sincronizacionService.cambiosDesde(primero.getToken(), 2);
+        assertFalse(segundo.isHayMas());
+
+        List<Integer> recibidos = new ArrayList<>();
+        primero.getCambios().forEach(incidente -> recibidos.add(incidente.getId()));
+        segundo.getCambios().forEach(incidente -> recibidos.add(incidente.getId()));
+        assertEquals(esperados, recibidos);
+    }
+
+    @Test
+    void cambiarUnaUbicacionEntregaSusIncidentes() {
+        Incidente incidente = new Incidente();
+        incidente.setTitulo("Choque");
+        incidente.setUbicacion(new Ubicacion(0, "Avenida Sincronización", 410, "Valparaíso", "Valparaíso", null, null));
+        Incidente guardado = incidenteService.save(incidente);
+        creados.add(guardado.getId());
+        String token = tokenActual();
+
+        Ubicacion cambios = new Ubicacion();
+        cambios.setCalle("Avenida Sincronización Norte");
+        ubicacionService.update(cambios, guardado.getUbicacion().getId());
+
+        CambiosIncidentes lote = sincronizacionService.cambiosDesde(token, 50);
+        assertEquals(List.of(guardado.getId()), lote.getCambios().stream().map(Incidente::getId).toList());
+        assertEquals("Avenida Sincronización Norte", lote.getCambios().get(0).getUbicacion().getCalle());
+    }
+
+    @Test
+    void unLoteQueSuperaLaDuracionMaximaNoSeConfirma() {
+        String token = tokenActual();
+        List<Incidente> lote = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            Incidente incidente = new Incidente();
+            incidente.setTitulo("Lote largo " + i);
+            lote.add(incidente);
+        }
+
+        // Los primeros bloques se escriben a tiempo; la escritura posterior al límite revierte todo
+        assertThrows(RuntimeException.class, () -> new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            incidenteService.saveAll(lote);
+            try {
+                Thread.sleep(1_200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Incidente ultimo = new Incidente();
+            ultimo.setTitulo("Lote largo final");
+            incidenteService.save(ultimo);
+        }));
+
+        CambiosIncidentes cambios = sincronizacionService.cambiosDesde(token, 200);
+        assertTrue(cambios.getCambios().stream().noneMatch(incidente -> incidente.getTitulo().startsWith("Lote largo")));
+    }
+
+    @Test
+    void rechazaTokensInvalidosOVencidos() {
+        assertThrows(IllegalArgumentException.class, () -> sincronizacionService.cambiosDesde("no-es-un-token", 10));
+        String antiguo = Base64.getUrlEncoder().encodeToString("1.0".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(TokenVencidoException.class, () -> sincronizacionService.cambiosDesde(antiguo, 10));
+    }
+
+    @Test
+    void cambiosRecorrenElIndiceDeActualizacion() {
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT id FROM incidente WHERE actualizado_en >= CURRENT_TIMESTAMP ORDER BY actualizado_en, id",
+                String.class));
+
+        assertTrue(plan.toUpperCase().contains("IDX_INCIDENTE_ACTUALIZADO"), plan);
+    }
+
+    /**
+     * Sincroniza todo lo existente y devuelve el token resultante.
+     */
+    private String tokenActual() {
+        CambiosIncidentes lote = sincronizacionService.cambiosDesde(null, 200);
+        while (lote.isHayMas()) {
+            lote = sincronizacionService.cambiosDesde(lote.getToken(), 200);
+        }
+        return lote.getToken();
+    }
+
+    private int crear(String titulo) {
+        Incidente incidente = new Incidente();
+        incidente.setTitulo(titulo);
+        int id = incidenteService.save(incidente).getId();
+        creados.add(id);
+        return id;
+    }
+
+}